@@ -0,0 +1,163 @@
+package org.mule.extension.sse.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Input streams of the benchmarks.
+ * <p>
+ * A corpus is either {@code example}, the Retrieve by Intent response recorded in the {@code documentation}
+ * folder, or a synthetic Constructor-style stream named {@code <event count>x<payload size>}, e.g.
+ * {@code 100x1024}: a {@code start} event, a {@code message} event, the given number of {@code search_result}
+ * events whose data is a JSON document of roughly the given size in bytes, and an {@code end} event.
+ * Synthetic corpora are generated from a fixed seed, so every run measures the same bytes. A corpus named
+ * {@code recording:<file>} is the bodies of the responses recorded in the given {@link SSEStreamLog}, one after the
+ * other, which measures the parser on real traffic.
+ */
+final class SSECorpus {
+
+    static final String EXAMPLE = "example";
+
+    static final String RECORDING_PREFIX = "recording:";
+
+    private static final String EXAMPLE_RESOURCE = "/constructor-retrieve-by-intent-api-response-example.txt";
+
+    private static final String INTENT_RESULT_ID = "23d67f56-1a04-4dc9-b4b7-8c57b3b32c8e";
+
+    private SSECorpus() {
+    }
+
+    /**
+     * Returns the bytes of the given corpus.
+     *
+     * @param name {@code example}, {@code <event count>x<payload size>} or {@code recording:<file>}
+     * @return the raw SSE stream
+     */
+    static byte[] load(String name) {
+        if (EXAMPLE.equals(name)) {
+            return example();
+        }
+        if (name.startsWith(RECORDING_PREFIX)) {
+            return recording(name.substring(RECORDING_PREFIX.length()));
+        }
+        int separator = name.indexOf('x');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Unknown corpus: " + name);
+        }
+        return synthetic(Integer.parseInt(name.substring(0, separator)),
+                Integer.parseInt(name.substring(separator + 1)));
+    }
+
+    /**
+     * Returns the recorded Retrieve by Intent response.
+     *
+     * @return the raw SSE stream
+     */
+    static byte[] example() {
+        try (InputStream in = SSECorpus.class.getResourceAsStream(EXAMPLE_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing benchmark resource " + EXAMPLE_RESOURCE);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the bodies of the responses recorded in a stream log, concatenated.
+     *
+     * @param file the stream log file
+     * @return the raw SSE stream
+     */
+    static byte[] recording(String file) {
+        SSEStreamLog log;
+        try {
+            log = SSEStreamLog.open(Paths.get(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (SSEStreamLog.Stream stream : log.getStreams()) {
+            for (int i = 0; i < stream.getChunkCount(); i++) {
+                ByteBuffer chunk = stream.getChunk(i);
+                byte[] copy = new byte[chunk.remaining()];
+                chunk.get(copy);
+                bytes.write(copy, 0, copy.length);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Generates a Constructor-style stream.
+     *
+     * @param searchResults the number of {@code search_result} events
+     * @param payloadSize   the approximate size, in bytes, of the data of each {@code search_result} event
+     * @return the raw SSE stream
+     */
+    static byte[] synthetic(int searchResults, int payloadSize) {
+        Random random = new Random(42);
+        StringBuilder stream = new StringBuilder(searchResults * (payloadSize + 64) + 512);
+
+        stream.append("event: start\ndata: {\"intent_result_id\":\"").append(INTENT_RESULT_ID)
+                .append("\",\"request\":{\"intent\":\"coffee maker under $150\"}}\n\n");
+        stream.append("event: message\ndata: {\"intent_result_id\":\"").append(INTENT_RESULT_ID)
+                .append("\",\"text\":\"Here are some options.\"}\n\n");
+
+        for (int i = 0; i < searchResults; i++) {
+            stream.append("event: search_result\nid: ").append(i).append("\ndata: ");
+            int start = stream.length();
+            stream.append("{\"intent_result_id\":\"").append(INTENT_RESULT_ID)
+                    .append("\",\"result_id\":\"").append(i)
+                    .append("\",\"title\":\"Result ").append(i)
+                    .append("\",\"response\":{\"results\":[");
+            int product = 0;
+            do {
+                if (product > 0) {
+                    stream.append(',');
+                }
+                stream.append("{\"value\":\"Product ").append(i).append('-').append(product)
+                        .append("\",\"data\":{\"id\":\"product-").append(i).append('-').append(product)
+                        .append("\",\"price\":").append(random.nextInt(20_000) / 100.0)
+                        .append(",\"description\":\"");
+                for (int c = 0; c < 160; c++) {
+                    stream.append((char) ('a' + random.nextInt(26)));
+                }
+                stream.append("\"}}");
+                product++;
+            } while (stream.length() - start < payloadSize - 32);
+            stream.append("]}}\n\n");
+        }
+
+        stream.append("event: end\ndata: {\"intent_result_id\":\"").append(INTENT_RESULT_ID)
+                .append("\",\"search_result_count\":").append(searchResults).append("}\n\n");
+        return stream.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits a stream into chunks, as they would be delivered by the HTTP client.
+     *
+     * @param bytes     the raw stream
+     * @param chunkSize the size of each chunk; {@code 0} for a single chunk
+     * @return read-only buffers over consecutive slices of the stream
+     */
+    static List<ByteBuffer> chunks(byte[] bytes, int chunkSize) {
+        int size = chunkSize > 0 ? chunkSize : bytes.length;
+        List<ByteBuffer> chunks = new ArrayList<>(bytes.length / size + 1);
+        for (int offset = 0; offset < bytes.length; offset += size) {
+            chunks.add(ByteBuffer.wrap(bytes, offset, Math.min(size, bytes.length - offset))
+                    .slice()
+                    .asReadOnlyBuffer());
+        }
+        return chunks;
+    }
+}
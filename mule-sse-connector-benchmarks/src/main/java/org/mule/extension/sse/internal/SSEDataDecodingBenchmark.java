@@ -0,0 +1,108 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the decoding of event data: one operation decodes the data of every event of a corpus.
+ * <p>
+ * The raw data is extracted once, at setup, so the parser is not measured. Run with {@code -prof gc} to compare
+ * the allocation rate of the decodings. The {@code TYPED} decoding decodes the data into types derived from the
+ * corpus itself, each event type using the data of its events as samples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SSEDataDecodingBenchmark {
+
+    /**
+     * The corpus whose event data is decoded; see {@link SSECorpus}.
+     */
+    @Param({SSECorpus.EXAMPLE, "100x1024", "100x16384"})
+    public String corpus;
+
+    /**
+     * The decoding to apply.
+     */
+    @Param({"JAVA", "STRING", "BYTES", "JSON_NODE", "TYPED"})
+    public SSEDataDecoding decoding;
+
+    private final List<byte[]> data = new ArrayList<>();
+
+    private final List<SSEDataType> dataTypes = new ArrayList<>();
+
+    private SSEDataProjection projection;
+
+    @Setup
+    public void setUp() {
+        List<String> eventTypes = new ArrayList<>();
+        SSEEventParser parser = new SSEEventParser(event -> {
+            data.add(event.getRawData());
+            eventTypes.add(event.getEvent());
+        }, SSEDataDecoding.BYTES);
+        for (var chunk : SSECorpus.chunks(SSECorpus.load(corpus), 0)) {
+            parser.feed(chunk);
+        }
+        parser.finish();
+
+        Map<String, SSEDataType> types = new HashMap<>();
+        for (int i = 0; i < data.size(); i++) {
+            types.merge(eventTypes.get(i), SSEDataType.fromSample(readTree(data.get(i))), SSEDataType::merge);
+        }
+        for (String eventType : eventTypes) {
+            dataTypes.add(types.get(eventType));
+        }
+        projection = SSEDataProjection.of(List.of("/response/results/*/data/id"));
+    }
+
+    /**
+     * Decodes the whole data of every event.
+     */
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        for (int i = 0; i < data.size(); i++) {
+            blackhole.consume(decoding == SSEDataDecoding.TYPED
+                    ? dataTypes.get(i).decode(data.get(i)) : decoding.decode(data.get(i)));
+        }
+    }
+
+    /**
+     * Decodes only the product IDs out of the data of every event.
+     */
+    @Benchmark
+    public void project(Blackhole blackhole) {
+        for (byte[] bytes : data) {
+            blackhole.consume(projection.project(bytes, bytes.length, decoding));
+        }
+    }
+
+    private static JsonNode readTree(byte[] bytes) {
+        try {
+            return SSEEventParser.MAPPER.readTree(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.mule.extension.sse.internal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link SSEEventParser}: one operation parses a whole corpus, delivered in chunks of the given size.
+ * <p>
+ * The data of the events is left undecoded, so these benchmarks measure the framing of the stream alone; see
+ * {@link SSEDataDecodingBenchmark} for the cost of decoding. Run with {@code -prof gc} to report the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SSEEventParserBenchmark {
+
+    /**
+     * The corpus to parse; see {@link SSECorpus}.
+     */
+    @Param({SSECorpus.EXAMPLE, "100x1024", "1000x1024", "100x16384"})
+    public String corpus;
+
+    /**
+     * The size of the chunks the corpus is delivered in; {@code 0} delivers it as a single chunk.
+     */
+    @Param({"1024", "16384", "0"})
+    public int chunkSize;
+
+    private List<ByteBuffer> chunks;
+
+    private SSEEventFilter endOnly;
+
+    private SSEEventFilter projected;
+
+    @Setup
+    public void setUp() {
+        chunks = SSECorpus.chunks(SSECorpus.load(corpus), chunkSize);
+        endOnly = new SSEEventFilter(List.of("end"), null, null, null);
+        projected = new SSEEventFilter(null, null, SSEDataProjection.of(List.of("/response/results/*/data/id")), null);
+    }
+
+    /**
+     * Parses every event, keeping its raw data.
+     */
+    @Benchmark
+    public long parse(Blackhole blackhole) {
+        return parse(new SSEEventParser(blackhole::consume, SSEDataDecoding.STRING));
+    }
+
+    /**
+     * Parses the stream but keeps only the {@code end} event, as a flow only interested in the result count would.
+     */
+    @Benchmark
+    public long parseFiltered(Blackhole blackhole) {
+        return parse(new SSEEventParser(blackhole::consume, SSEDataDecoding.STRING, endOnly));
+    }
+
+    /**
+     * Parses every event and projects the product IDs out of its data while parsing.
+     */
+    @Benchmark
+    public long parseProjected(Blackhole blackhole) {
+        return parse(new SSEEventParser(blackhole::consume, SSEDataDecoding.JAVA, projected));
+    }
+
+    private long parse(SSEEventParser parser) {
+        for (ByteBuffer chunk : chunks) {
+            parser.feed(chunk.duplicate());
+        }
+        parser.finish();
+        return parser.getEventCount();
+    }
+}
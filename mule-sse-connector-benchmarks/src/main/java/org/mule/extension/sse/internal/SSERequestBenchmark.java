@@ -0,0 +1,97 @@
+package org.mule.extension.sse.internal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpRequest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the construction of a Retrieve by Intent request: URL, HTTP request and response cache key.
+ * <p>
+ * Run with {@code -prof gc} to report the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SSERequestBenchmark {
+
+    private static final String BASE_URL = "https://ac.cnstrc.com";
+
+    private static final String PATH = "/v1/intent/I%27m%20looking%20for%20a%20coffee%20or%20espresso%20maker%20under%20%24150";
+
+    private final Map<String, String> queryParams = new LinkedHashMap<>();
+
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    private GetEventsParameters operationParameters;
+
+    private StopConditionParameters stopConditions;
+
+    private SSEResponseCache cache;
+
+    @Setup
+    public void setUp() {
+        queryParams.put("key", "key_0123456789abcdef");
+        queryParams.put("i", "0b1b2b3b-4c5d-6e7f-8a9b-0c1d2e3f4a5b");
+        queryParams.put("s", "3");
+        queryParams.put("num_results_per_page", "4");
+        queryParams.put("filters[group_id]", "coffee & espresso");
+
+        headers.put("Accept", "text/event-stream");
+        headers.put("Accept-Language", "en-US");
+        headers.put("User-Agent", "mule-sse-connector");
+
+        operationParameters = new GetEventsParameters();
+        operationParameters.setPath(PATH);
+        operationParameters.setQueryParams(queryParams);
+        operationParameters.setHeaders(headers);
+
+        stopConditions = new StopConditionParameters();
+        stopConditions.setTerminalEventType("end");
+
+        ResponseCacheParameters cacheParameters = new ResponseCacheParameters();
+        cacheParameters.setEnabled(true);
+        cacheParameters.setKeyHeaders(List.of("Accept-Language"));
+        cacheParameters.setExcludedQueryParams(List.of("key"));
+        cache = new SSEResponseCache(cacheParameters, new SSEMetrics());
+    }
+
+    /**
+     * Builds the URL of the request.
+     */
+    @Benchmark
+    public String buildUrl() {
+        return SSEOperations.buildUrl(BASE_URL, PATH, queryParams);
+    }
+
+    /**
+     * Builds the URL and the HTTP request.
+     */
+    @Benchmark
+    public HttpRequest buildRequest() {
+        return SSEOperations.buildGetRequest(SSEOperations.buildUrl(BASE_URL, PATH, queryParams), headers, 60_000);
+    }
+
+    /**
+     * Builds the response cache key of the request.
+     */
+    @Benchmark
+    public String buildCacheKey() {
+        return cache.key(BASE_URL, operationParameters, stopConditions);
+    }
+}
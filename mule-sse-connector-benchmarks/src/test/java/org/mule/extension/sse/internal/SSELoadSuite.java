@@ -0,0 +1,378 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
+import org.mule.runtime.extension.api.runtime.streaming.PagingProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load and latency regression suite: drives one of the {@link SSEOperations} against an embedded
+ * {@link SSEStubServer} at increasing concurrency levels, and reports the throughput and the latency percentiles of
+ * every level.
+ * <p>
+ * Arguments are {@code key=value} pairs, all optional:
+ * <ul>
+ *   <li>{@code operation}: {@code blocking} ({@code Get Events}, default), {@code async}
+ *       ({@code Get Events (Non-Blocking)}), {@code stream} ({@code Stream Events}), {@code json}
+ *       ({@code Stream Events as JSON}, read as NDJSON) or {@code collect} ({@code Collect Results}, with the
+ *       default settings; the collected items are counted as events)</li>
+ *   <li>{@code concurrency}: comma-separated concurrency levels (default: {@code 1,8,32,128})</li>
+ *   <li>{@code requests}: the number of requests per level (default: {@code 500})</li>
+ *   <li>{@code warmup}: the number of requests sent before the first level, not measured (default: {@code 200})</li>
+ *   <li>{@code scenario}: the query string that shapes the stub server responses, e.g.
+ *       {@code corpus=100x1024&chunk=512&delay=1}; see {@link SSEStubServer} (default: {@code corpus=example})</li>
+ *   <li>{@code terminalEventType}: the terminal event type stop condition, e.g. {@code end}</li>
+ *   <li>{@code httpVersion}: {@code HTTP_1_1} (default) or {@code HTTP_2}; the stub server only speaks HTTP/1.1</li>
+ *   <li>{@code maxConcurrentStreams}: the stream cap of the connection (default: {@code 0}, no cap)</li>
+ *   <li>{@code compression}: whether the connection asks for compressed responses (default: {@code false})</li>
+ *   <li>{@code responseTimeout}: the response timeout of the configuration, in milliseconds (default: {@code 10000})</li>
+ *   <li>{@code record}: a file to record the responses to, as an {@link SSEStreamLog}</li>
+ *   <li>{@code replay}: a file of recorded responses to serve instead of the stub server, through an
+ *       {@link SSEReplayConnection}; the scenario is ignored unless its requests were recorded</li>
+ *   <li>{@code replaySpeed}: {@code ORIGINAL} (default), {@code SCALED} or {@code MAX}; see {@link SSEReplaySpeed}</li>
+ *   <li>{@code speedFactor}: how much faster than recorded the responses are replayed with {@code SCALED}
+ *       (default: {@code 1})</li>
+ *   <li>{@code maxP99}: fails the run if the p99 latency of any level exceeds this many milliseconds</li>
+ *   <li>{@code minThroughput}: fails the run if the throughput of any level is below this many requests per second</li>
+ * </ul>
+ * The process exits with status {@code 1} if a threshold is not met, or if any request failed, so the suite can
+ * gate a build. The report is logged at the {@code INFO} level; the {@code simplelogger.properties} of the test
+ * resources print it to the standard output.
+ */
+final class SSELoadSuite {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSELoadSuite.class);
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("operation", "blocking");
+        DEFAULTS.put("concurrency", "1,8,32,128");
+        DEFAULTS.put("requests", "500");
+        DEFAULTS.put("warmup", "200");
+        DEFAULTS.put("scenario", "corpus=" + SSECorpus.EXAMPLE);
+        DEFAULTS.put("terminalEventType", "");
+        DEFAULTS.put("httpVersion", "HTTP_1_1");
+        DEFAULTS.put("maxConcurrentStreams", "0");
+        DEFAULTS.put("compression", "false");
+        DEFAULTS.put("responseTimeout", "10000");
+        DEFAULTS.put("record", "");
+        DEFAULTS.put("replay", "");
+        DEFAULTS.put("replaySpeed", "ORIGINAL");
+        DEFAULTS.put("speedFactor", "1");
+        DEFAULTS.put("maxP99", "0");
+        DEFAULTS.put("minThroughput", "0");
+    }
+
+    private final Map<String, String> settings;
+    private final SSEOperations operations = new SSEOperations();
+    private final SSEConfiguration config;
+    private final GetEventsParameters requestParameters = new GetEventsParameters();
+    private final StopConditionParameters stopConditions = new StopConditionParameters();
+    private final CollectResultsParameters resultParameters = new CollectResultsParameters();
+    private final SSEConnection connection;
+
+    private SSELoadSuite(Map<String, String> settings, String baseUrl) throws IOException {
+        this.settings = settings;
+
+        config = SSETestConfigurations.create(baseUrl, Long.parseLong(settings.get("responseTimeout")));
+
+        requestParameters.setPath(SSEStubServer.PATH.substring(1) + "load");
+        Map<String, String> queryParams = new HashMap<>();
+        for (String pair : settings.get("scenario").split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                queryParams.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        requestParameters.setQueryParams(queryParams);
+
+        String terminalEventType = settings.get("terminalEventType");
+        if (!terminalEventType.isEmpty()) {
+            stopConditions.setTerminalEventType(terminalEventType);
+        }
+
+        String replay = settings.get("replay");
+        if (!replay.isEmpty()) {
+            connection = new SSEReplayConnection(SSEStreamLog.open(Paths.get(replay)),
+                    SSEReplaySpeed.valueOf(settings.get("replaySpeed")),
+                    Double.parseDouble(settings.get("speedFactor")));
+            return;
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .version(SSEHttpVersion.valueOf(settings.get("httpVersion")).toClientVersion())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String record = settings.get("record");
+        connection = new SSEConnection(client, null, Integer.parseInt(settings.get("maxConcurrentStreams")), 0,
+                Boolean.parseBoolean(settings.get("compression")),
+                record.isEmpty() ? null : SSEStreamRecorder.open(Paths.get(record)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0 || !DEFAULTS.containsKey(arg.substring(0, separator))) {
+                LOGGER.error("Unknown argument: {}; expected key=value with key in {}", arg, DEFAULTS.keySet());
+                System.exit(2);
+            }
+            settings.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        boolean passed;
+        try (SSEStubServer server = new SSEStubServer(0)) {
+            SSELoadSuite suite = new SSELoadSuite(settings, server.getBaseUrl());
+            try {
+                passed = suite.run();
+            } finally {
+                suite.connection.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        LOGGER.info("SSE load suite: {}", settings);
+
+        int warmup = Integer.parseInt(settings.get("warmup"));
+        if (warmup > 0) {
+            runLevel(Math.min(8, warmup), warmup);
+            config.getMetrics().reset();
+        }
+
+        long maxP99 = Long.parseLong(settings.get("maxP99"));
+        double minThroughput = Double.parseDouble(settings.get("minThroughput"));
+        int requests = Integer.parseInt(settings.get("requests"));
+
+        LOGGER.info(String.format("%11s %10s %10s %10s %10s %9s %9s %9s %9s %9s %8s", "concurrency", "req/s",
+                "events/s", "MB/s", "wire MB/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "ttfe p50", "failures"));
+        boolean passed = true;
+        for (String level : settings.get("concurrency").split(",")) {
+            int concurrency = Integer.parseInt(level.trim());
+            LevelResult result = runLevel(concurrency, requests);
+            SSELatencySnapshot timeToFirstEvent = config.getMetrics().getTimeToFirstEvent();
+            config.getMetrics().reset();
+
+            double seconds = result.elapsedNanos / 1e9;
+            double throughput = result.latenciesNanos.length / seconds;
+            LOGGER.info(String.format("%11d %10.1f %10.1f %10.2f %10.2f %9.2f %9.2f %9.2f %9.2f %9.2f %8d", concurrency,
+                    throughput, result.events.get() / seconds, result.bytes.get() / seconds / (1024 * 1024),
+                    result.compressedBytes.get() / seconds / (1024 * 1024),
+                    result.percentileMillis(0.50), result.percentileMillis(0.90), result.percentileMillis(0.99),
+                    result.percentileMillis(1.0), timeToFirstEvent.getP50(), result.failures.get()));
+
+            if (result.failures.get() > 0) {
+                passed = false;
+            }
+            if (maxP99 > 0 && result.percentileMillis(0.99) > maxP99) {
+                LOGGER.error("FAILED: p99 latency above {} ms at concurrency {}", maxP99, concurrency);
+                passed = false;
+            }
+            if (minThroughput > 0 && throughput < minThroughput) {
+                LOGGER.error("FAILED: throughput below {} req/s at concurrency {}", minThroughput, concurrency);
+                passed = false;
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Sends the given number of requests, keeping at most {@code concurrency} of them in flight.
+     */
+    private LevelResult runLevel(int concurrency, int requests) throws InterruptedException {
+        LevelResult result = new LevelResult(requests);
+        Semaphore inFlight = new Semaphore(concurrency);
+        String operation = settings.get("operation");
+
+        // The non-blocking operations need no thread per request; the other ones block one thread per request in
+        // flight
+        boolean nonBlocking = "async".equals(operation) || "collect".equals(operation);
+        ExecutorService workers = nonBlocking ? null : Executors.newFixedThreadPool(concurrency);
+        List<CompletableFuture<Void>> pending = new ArrayList<>(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            CompletableFuture<Void> done;
+            if ("collect".equals(operation)) {
+                done = collect(result, index);
+            } else if (workers == null) {
+                done = sendAsync(result, index);
+            } else {
+                done = CompletableFuture.runAsync(() -> {
+                    if ("stream".equals(operation)) {
+                        stream(result, index);
+                    } else if ("json".equals(operation)) {
+                        streamJson(result, index);
+                    } else {
+                        send(result, index);
+                    }
+                }, workers);
+            }
+            pending.add(done.whenComplete((ignored, error) -> inFlight.release()));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        result.elapsedNanos = System.nanoTime() - start;
+
+        if (workers != null) {
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return result;
+    }
+
+    private void send(LevelResult result, int index) {
+        long start = System.nanoTime();
+        Result<List<SSEEvent>, SSEResponseAttributes> events =
+                operations.getSSEEvents(requestParameters, stopConditions, config, connection);
+        // The blocking operation reports failures as a response without attributes
+        result.record(index, start, events.getOutput().size(), events.getAttributes().orElse(null));
+    }
+
+    private CompletableFuture<Void> sendAsync(LevelResult result, int index) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        long start = System.nanoTime();
+        operations.getSSEEventsAsync(requestParameters, stopConditions, config, connection,
+                new CompletionCallback<List<SSEEvent>, SSEResponseAttributes>() {
+                    @Override
+                    public void success(Result<List<SSEEvent>, SSEResponseAttributes> events) {
+                        result.record(index, start, events.getOutput().size(), events.getAttributes().orElse(null));
+                        done.complete(null);
+                    }
+
+                    @Override
+                    public void error(Throwable e) {
+                        result.record(index, start, 0, null);
+                        done.complete(null);
+                    }
+                });
+        return done;
+    }
+
+    private CompletableFuture<Void> collect(LevelResult result, int index) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        long start = System.nanoTime();
+        operations.collectResults(requestParameters, resultParameters, stopConditions, config, connection,
+                new CompletionCallback<List<Object>, SSEResponseAttributes>() {
+                    @Override
+                    public void success(Result<List<Object>, SSEResponseAttributes> items) {
+                        result.record(index, start, items.getOutput().size(), items.getAttributes().orElse(null));
+                        done.complete(null);
+                    }
+
+                    @Override
+                    public void error(Throwable e) {
+                        result.record(index, start, 0, null);
+                        done.complete(null);
+                    }
+                });
+        return done;
+    }
+
+    private void stream(LevelResult result, int index) {
+        long start = System.nanoTime();
+        PagingProvider<SSEConnection, SSEEvent> provider =
+                operations.streamSSEEvents(requestParameters, stopConditions, 50, config);
+        int events = 0;
+        try {
+            for (List<SSEEvent> page = provider.getPage(connection); !page.isEmpty();
+                 page = provider.getPage(connection)) {
+                events += page.size();
+            }
+        } finally {
+            try {
+                provider.close(connection);
+            } catch (MuleException e) {
+                events = 0;
+            }
+        }
+        // Streamed pages carry no attributes; an empty stream is the only sign of a failure
+        result.record(index, start, events, null, events > 0);
+    }
+
+    private void streamJson(LevelResult result, int index) {
+        long start = System.nanoTime();
+        Result<InputStream, Void> output = operations.streamSSEEventsAsJson(requestParameters, stopConditions,
+                SSEOutputFormat.NDJSON, config, connection);
+        int events = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream json = output.getOutput()) {
+            for (int read = json.read(buffer); read >= 0; read = json.read(buffer)) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        events++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            events = 0;
+        }
+        // Like streamed pages, the JSON output carries no attributes
+        result.record(index, start, events, null, events > 0);
+    }
+
+    /**
+     * The measurements of a single concurrency level.
+     */
+    private static final class LevelResult {
+
+        private final long[] latenciesNanos;
+        private final AtomicLong events = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong compressedBytes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private long elapsedNanos;
+
+        private LevelResult(int requests) {
+            latenciesNanos = new long[requests];
+        }
+
+        private void record(int index, long startNanos, int eventCount, SSEResponseAttributes attributes) {
+            record(index, startNanos, eventCount, attributes,
+                    attributes != null && attributes.getStatusCode() < 300);
+        }
+
+        private void record(int index, long startNanos, int eventCount, SSEResponseAttributes attributes,
+                            boolean succeeded) {
+            // Each index is written by a single request, and read once all of them have completed
+            latenciesNanos[index] = System.nanoTime() - startNanos;
+            events.addAndGet(eventCount);
+            if (attributes != null) {
+                bytes.addAndGet(attributes.getBytesRead());
+                compressedBytes.addAndGet(attributes.getCompressedBytesRead());
+            }
+            if (!succeeded) {
+                failures.incrementAndGet();
+            }
+        }
+
+        private double percentileMillis(double percentile) {
+            long[] sorted = latenciesNanos.clone();
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(rank, sorted.length - 1))] / 1e6;
+        }
+    }
+}
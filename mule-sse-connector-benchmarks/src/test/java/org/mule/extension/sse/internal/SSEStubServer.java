@@ -0,0 +1,278 @@
+package org.mule.extension.sse.internal;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local SSE server that replays Constructor-style streams ({@code start}, {@code message}, {@code search_result}
+ * and {@code end} events), built on the JDK {@link HttpServer}.
+ * <p>
+ * Every request to {@code /v1/intent/<anything>} replays a corpus shaped by its query parameters, so a single
+ * server covers every scenario:
+ * <ul>
+ *   <li>{@code corpus}: {@code example} (default), {@code <search results>x<payload bytes>} or
+ *       {@code recording:<file>}; see {@link SSECorpus}</li>
+ *   <li>{@code chunk}: the number of bytes written per flush; {@code 0} (default) writes each event at once</li>
+ *   <li>{@code first_event_delay}: milliseconds to wait before the first event, e.g. to mimic the time the server
+ *       takes to start answering</li>
+ *   <li>{@code delay}: milliseconds to wait between events</li>
+ *   <li>{@code stall_after} and {@code stall}: wait {@code stall} milliseconds after that many events</li>
+ *   <li>{@code disconnect_after}: drop the connection, without ending the response, after that many events</li>
+ *   <li>{@code retry}: send a {@code retry:} field with this reconnection delay before the first event</li>
+ *   <li>{@code status}: the HTTP status code of the response (default: 200)</li>
+ * </ul>
+ * A {@code Last-Event-ID} request header resumes the stream after the event with that ID, and an
+ * {@code Accept-Encoding} request header that lists {@code gzip} or {@code deflate} compresses the response, flushing
+ * the compressor after every write; {@code chunk} then counts uncompressed bytes.
+ * <p>
+ * Run it standalone with {@code mvn test-compile exec:exec@stub-server [-Dstub.port=<port>]} to point a Mule
+ * application at it.
+ */
+final class SSEStubServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEStubServer.class);
+
+    static final String PATH = "/v1/intent/";
+
+    static {
+        // Events are flushed one at a time; without TCP_NODELAY, delayed ACKs add up to 40 ms to every small write
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "sse-stub-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, List<Event>> corpora = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Starts a new server.
+     *
+     * @param port the port to listen to; {@code 0} picks a free port
+     * @throws IOException if the server cannot be started
+     */
+    SSEStubServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    /**
+     * Returns the base URL of the server.
+     *
+     * @return the base URL, without trailing slash
+     */
+    String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of requests received so far.
+     *
+     * @return the number of requests
+     */
+    long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        SSEStubServer stub = new SSEStubServer(args.length > 0 ? Integer.parseInt(args[0]) : 8089);
+        LOGGER.info("SSE stub server listening on {}{}", stub.getBaseUrl(), PATH);
+        Thread.currentThread().join();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        List<Event> events = corpora.computeIfAbsent(query.getOrDefault("corpus", SSECorpus.EXAMPLE),
+                name -> Event.split(SSECorpus.load(name)));
+
+        int chunkSize = intParam(query, "chunk", 0);
+        long firstEventDelay = intParam(query, "first_event_delay", 0);
+        long delay = intParam(query, "delay", 0);
+        int stallAfter = intParam(query, "stall_after", -1);
+        long stall = intParam(query, "stall", 0);
+        int disconnectAfter = intParam(query, "disconnect_after", -1);
+        int retry = intParam(query, "retry", -1);
+        int status = intParam(query, "status", 200);
+
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        String encoding = contentEncoding(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        if (encoding != null) {
+            exchange.getResponseHeaders().add("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(status, 0);
+
+        int first = resumeIndex(events, exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+        OutputStream body = exchange.getResponseBody();
+        if ("gzip".equals(encoding)) {
+            body = new GZIPOutputStream(body, true);
+        } else if ("deflate".equals(encoding)) {
+            body = new DeflaterOutputStream(body, true);
+        }
+        try {
+            if (retry >= 0) {
+                body.write(("retry: " + retry + "\n\n").getBytes(StandardCharsets.UTF_8));
+                body.flush();
+            }
+            sleep(firstEventDelay);
+            int sent = 0;
+            for (int i = first; i < events.size(); i++) {
+                if (sent == disconnectAfter) {
+                    // Leaves the chunked response unterminated, as the body is not closed; the server then drops
+                    // the connection
+                    throw new IllegalStateException("Simulated disconnection after " + sent + " event(s)");
+                }
+                if (sent == stallAfter) {
+                    sleep(stall);
+                } else if (sent > 0) {
+                    sleep(delay);
+                }
+                write(body, events.get(i).bytes, chunkSize);
+                sent++;
+            }
+            body.close();
+        } catch (IOException e) {
+            // The client went away, e.g. because a stop condition was met
+            exchange.close();
+        }
+    }
+
+    private static String contentEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        String accepted = acceptEncoding.toLowerCase();
+        return accepted.contains("gzip") ? "gzip" : accepted.contains("deflate") ? "deflate" : null;
+    }
+
+    private static void write(OutputStream body, byte[] bytes, int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            body.write(bytes);
+            body.flush();
+            return;
+        }
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            body.write(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+            body.flush();
+        }
+    }
+
+    private static int resumeIndex(List<Event> events, String lastEventId) {
+        if (lastEventId == null) {
+            return 0;
+        }
+        for (int i = 0; i < events.size(); i++) {
+            if (lastEventId.equals(events.get(i).id)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * A single event of a corpus, with its terminating blank line.
+     */
+    private static final class Event {
+
+        private final byte[] bytes;
+        private final String id;
+
+        private Event(byte[] bytes, String id) {
+            this.bytes = bytes;
+            this.id = id;
+        }
+
+        /**
+         * Splits a corpus into events; the corpora only use {@code \n} line endings.
+         */
+        private static List<Event> split(byte[] corpus) {
+            List<Event> events = new ArrayList<>();
+            String text = new String(corpus, StandardCharsets.UTF_8);
+            int start = 0;
+            while (start < text.length()) {
+                int end = text.indexOf("\n\n", start);
+                end = end < 0 ? text.length() : end + 2;
+                String event = text.substring(start, end);
+                if (!event.isBlank()) {
+                    events.add(new Event(event.getBytes(StandardCharsets.UTF_8), idOf(event)));
+                }
+                start = end;
+            }
+            return events;
+        }
+
+        private static String idOf(String event) {
+            for (String line : event.split("\n")) {
+                if (line.startsWith("id:")) {
+                    return line.substring(3).trim();
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.mule.extension.sse.internal;
+
+import java.lang.reflect.Field;
+
+/**
+ * Creates {@link SSEConfiguration} instances outside of a Mule application, for the load suite.
+ * <p>
+ * The configuration has no setters: like the Mule SDK does when it creates a configuration, the parameters and the
+ * parameter groups are injected into their fields, by name. Parameters that are not set keep the value of their
+ * field initializer, or {@code null} for the parameter groups, which disables the corresponding feature.
+ */
+final class SSETestConfigurations {
+
+    private SSETestConfigurations() {
+    }
+
+    /**
+     * Creates a configuration with the given base URL and response timeout, and every other parameter unset.
+     *
+     * @param baseUrl         the base URL of the SSE server
+     * @param responseTimeout the response timeout, in milliseconds
+     * @return the configuration
+     */
+    static SSEConfiguration create(String baseUrl, long responseTimeout) {
+        SSEConfiguration config = new SSEConfiguration();
+        inject(config, "sseServerBaseURL", baseUrl);
+        inject(config, "responseTimeout", responseTimeout);
+        return config;
+    }
+
+    /**
+     * Injects a parameter, or a parameter group, into a configuration that has not been used yet.
+     *
+     * @param config    the configuration
+     * @param fieldName the name of the field of the parameter, e.g. {@code hedgingParameters}
+     * @param value     the value of the parameter
+     * @throws IllegalArgumentException if the configuration has no such field, or it cannot hold the value
+     */
+    static void inject(SSEConfiguration config, String fieldName, Object value) {
+        try {
+            Field field = SSEConfiguration.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(config, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot set the parameter " + fieldName + " of the configuration", e);
+        }
+    }
+}
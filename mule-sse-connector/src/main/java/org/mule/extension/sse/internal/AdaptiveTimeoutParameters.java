@@ -0,0 +1,196 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Represents the adaptive timeout settings of a configuration.
+ * <p>
+ * When enabled, the time-to-first-event, idle and response timeouts of a request are derived from the latencies
+ * observed on its endpoint, i.e. the path of its URL: a percentile of the time to first event, of the longest gap
+ * between two events and of the total duration of the recent exchanges, plus some headroom. Stuck streams are then
+ * given up on in about the time a healthy one would have taken, while endpoints that legitimately stream for long
+ * keep the time they need. The configured timeouts remain the upper bounds, and the static ones apply until enough
+ * exchanges have been observed.
+ */
+public class AdaptiveTimeoutParameters {
+
+    /**
+     * Whether the timeouts adapt to the observed latencies.
+     * <p>
+     * Optional; defaults to {@code false}.
+     */
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable adaptive timeouts")
+    @Summary("Derive the timeouts of each endpoint from a percentile of its observed latencies, plus headroom (default: false).")
+    private boolean enabled;
+
+    /**
+     * The percentile of the observed latencies the timeouts are derived from, e.g. {@code 99}.
+     * <p>
+     * Optional; defaults to {@code 99}.
+     */
+    @Parameter
+    @Optional(defaultValue = "99")
+    @DisplayName("Percentile")
+    @Summary("Percentile of the observed time to first event, gap between events and total duration the timeouts are derived from (default: 99).")
+    private double percentile;
+
+    /**
+     * The headroom added to the percentile, in percent of it, e.g. {@code 50} for a timeout one and a half times
+     * the percentile.
+     * <p>
+     * Optional; defaults to 50%.
+     */
+    @Parameter
+    @Optional(defaultValue = "50")
+    @DisplayName("Headroom (%)")
+    @Summary("Margin added to the percentile, in percent of it, e.g. 50 for a timeout 1.5 times the percentile (default: 50).")
+    private int headroomPercentage;
+
+    /**
+     * The number of exchanges of an endpoint to observe before its timeouts adapt.
+     * <p>
+     * Optional; defaults to {@code 50}. Until then, the configured timeouts apply.
+     */
+    @Parameter
+    @Optional(defaultValue = "50")
+    @DisplayName("Min samples")
+    @Summary("Number of exchanges of an endpoint to observe before its timeouts adapt; the configured timeouts apply until then (default: 50).")
+    private int minSamples;
+
+    /**
+     * The lowest timeout that may be derived, in milliseconds, so a burst of fast exchanges cannot make the
+     * timeouts too tight.
+     * <p>
+     * Optional; defaults to 1,000 ms.
+     */
+    @Parameter
+    @Optional(defaultValue = "1000")
+    @DisplayName("Min timeout")
+    @Summary("Lowest timeout in milliseconds that may be derived from the observed latencies (default: 1,000 milliseconds).")
+    private long minTimeout;
+
+    /**
+     * The highest timeout that may be derived, in milliseconds.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning the configured timeouts are the only upper bounds. Also bounds the
+     * time-to-first-event and idle timeouts when they are not configured.
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Max timeout")
+    @Summary("Highest timeout in milliseconds that may be derived from the observed latencies (default: 0, bounded by the configured timeouts only).")
+    private long maxTimeout;
+
+    /**
+     * Returns whether the timeouts adapt to the observed latencies.
+     *
+     * @return {@code true} if adaptive timeouts are enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the timeouts adapt to the observed latencies.
+     *
+     * @param enabled {@code true} to enable adaptive timeouts
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the percentile of the observed latencies the timeouts are derived from.
+     *
+     * @return the percentile, between {@code 0} and {@code 100}
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Sets the percentile of the observed latencies the timeouts are derived from.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     */
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * Returns the headroom added to the percentile.
+     *
+     * @return the headroom, in percent of the percentile
+     */
+    public int getHeadroomPercentage() {
+        return headroomPercentage;
+    }
+
+    /**
+     * Sets the headroom added to the percentile.
+     *
+     * @param headroomPercentage the headroom, in percent of the percentile
+     */
+    public void setHeadroomPercentage(int headroomPercentage) {
+        this.headroomPercentage = headroomPercentage;
+    }
+
+    /**
+     * Returns the number of exchanges of an endpoint to observe before its timeouts adapt.
+     *
+     * @return the number of exchanges
+     */
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    /**
+     * Sets the number of exchanges of an endpoint to observe before its timeouts adapt.
+     *
+     * @param minSamples the number of exchanges
+     */
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Returns the lowest timeout that may be derived.
+     *
+     * @return the timeout in milliseconds
+     */
+    public long getMinTimeout() {
+        return minTimeout;
+    }
+
+    /**
+     * Sets the lowest timeout that may be derived.
+     *
+     * @param minTimeout the timeout in milliseconds
+     */
+    public void setMinTimeout(long minTimeout) {
+        this.minTimeout = minTimeout;
+    }
+
+    /**
+     * Returns the highest timeout that may be derived.
+     *
+     * @return the timeout in milliseconds, or {@code 0} for no bound besides the configured timeouts
+     */
+    public long getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    /**
+     * Sets the highest timeout that may be derived.
+     *
+     * @param maxTimeout the timeout in milliseconds, or {@code 0} for no bound besides the configured timeouts
+     */
+    public void setMaxTimeout(long maxTimeout) {
+        this.maxTimeout = maxTimeout;
+    }
+}
@@ -0,0 +1,133 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Represents the circuit breaker settings of a configuration.
+ * <p>
+ * When enabled, the circuit opens after a number of consecutive {@code Get Events} requests failed, timed out, or
+ * were answered with a 5xx or 429 status. While it is open, requests fail right away with an {@code SSE:REJECTED}
+ * error, without reaching the upstream. Once the open duration has elapsed, a few probe requests are let through:
+ * the circuit closes if they all succeed, and opens again as soon as one of them fails.
+ */
+public class CircuitBreakerParameters {
+
+    /**
+     * Whether the circuit breaker is enabled.
+     * <p>
+     * Optional; defaults to {@code false}.
+     */
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable circuit breaker")
+    @Summary("Fail requests right away after consecutive upstream failures or timeouts, until probe requests succeed again (default: false).")
+    private boolean enabled;
+
+    /**
+     * The number of consecutive failed requests that opens the circuit.
+     * <p>
+     * Optional; defaults to {@code 5}.
+     */
+    @Parameter
+    @Optional(defaultValue = "5")
+    @DisplayName("Failure threshold")
+    @Summary("Number of consecutive failed or timed out requests that opens the circuit (default: 5).")
+    private int failureThreshold;
+
+    /**
+     * The time, in milliseconds, the circuit stays open before probe requests are let through.
+     * <p>
+     * Optional; defaults to 30,000 ms.
+     */
+    @Parameter
+    @Optional(defaultValue = "30000")
+    @DisplayName("Open duration")
+    @Summary("Time in milliseconds during which requests fail right away, before probe requests are let through (default: 30,000 milliseconds).")
+    private long openDuration;
+
+    /**
+     * The number of probe requests that must succeed to close the circuit again.
+     * <p>
+     * Optional; defaults to {@code 1}. Other requests keep failing right away while the probes are in flight.
+     */
+    @Parameter
+    @Optional(defaultValue = "1")
+    @DisplayName("Half-open probes")
+    @Summary("Number of probe requests that must succeed to close the circuit again (default: 1).")
+    private int halfOpenProbes;
+
+    /**
+     * Returns whether the circuit breaker is enabled.
+     *
+     * @return {@code true} if the circuit breaker is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the circuit breaker is enabled.
+     *
+     * @param enabled {@code true} to enable the circuit breaker
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the number of consecutive failed requests that opens the circuit.
+     *
+     * @return the failure threshold
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive failed requests that opens the circuit.
+     *
+     * @param failureThreshold the failure threshold
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * Returns the time the circuit stays open before probe requests are let through.
+     *
+     * @return the open duration in milliseconds
+     */
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * Sets the time the circuit stays open before probe requests are let through.
+     *
+     * @param openDuration the open duration in milliseconds
+     */
+    public void setOpenDuration(long openDuration) {
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Returns the number of probe requests that must succeed to close the circuit again.
+     *
+     * @return the number of half-open probes
+     */
+    public int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+
+    /**
+     * Sets the number of probe requests that must succeed to close the circuit again.
+     *
+     * @param halfOpenProbes the number of half-open probes
+     */
+    public void setHalfOpenProbes(int halfOpenProbes) {
+        this.halfOpenProbes = halfOpenProbes;
+    }
+}
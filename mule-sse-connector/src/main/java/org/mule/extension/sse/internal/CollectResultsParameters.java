@@ -0,0 +1,201 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Represents the aggregation settings of the {@code Collect Results} operation.
+ * <p>
+ * The results array of every event of the result event type is located with a JSON pointer, each of its elements
+ * is reduced to the item at the item pointer, and the items of all the events are merged into a single list,
+ * de-duplicated by their key field and capped. The defaults match the {@code search_result} events of the
+ * Constructor Retrieve by Intent API, where the products are the {@code data} of the elements of
+ * {@code response.results}.
+ */
+public class CollectResultsParameters {
+
+    /**
+     * The type of the events holding results.
+     * <p>
+     * Optional; defaults to {@code search_result}. Other events are skipped without being decoded, but still count
+     * for the stop conditions.
+     */
+    @Parameter
+    @Optional(defaultValue = "search_result")
+    @DisplayName("Result event type")
+    @Summary("Type of the events whose data holds the results; other events are skipped without being decoded (default: search_result).")
+    private String resultEventType = "search_result";
+
+    /**
+     * The JSON pointer of the results array in the data of each result event.
+     * <p>
+     * Optional; defaults to {@code /response/results}. A {@code *} segment matches every array element or object
+     * field, in which case the arrays it leads to are concatenated.
+     */
+    @Parameter
+    @Optional(defaultValue = "/response/results")
+    @DisplayName("Results pointer")
+    @Summary("JSON pointer of the results array in the data of each result event (default: /response/results).")
+    private String resultsPointer = "/response/results";
+
+    /**
+     * The JSON pointer of the item to collect within each result.
+     * <p>
+     * Optional; defaults to {@code /data}. An empty pointer collects the results themselves.
+     */
+    @Parameter
+    @Optional(defaultValue = "/data")
+    @DisplayName("Item pointer")
+    @Summary("JSON pointer of the item to collect within each result; empty to collect the results themselves (default: /data).")
+    private String itemPointer = "/data";
+
+    /**
+     * The field of the items that identifies them, e.g. {@code id}.
+     * <p>
+     * Optional; defaults to {@code id}. Only the first item with a given key is kept; items without the field are
+     * all kept. A blank value disables de-duplication.
+     */
+    @Parameter
+    @Optional(defaultValue = "id")
+    @DisplayName("Key field")
+    @Summary("Field that identifies an item; only the first item with a given value is kept (default: id).")
+    private String keyField = "id";
+
+    /**
+     * The fields to keep from each item.
+     * <p>
+     * Optional; defaults to an empty list, meaning whole items are kept. When provided, the other fields are
+     * skipped while parsing, and the items hold the listed fields in the listed order.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Item fields")
+    @Summary("Fields to keep from each item, in order; the others are skipped while parsing (default: all fields).")
+    private List<String> itemFields = emptyList();
+
+    /**
+     * The maximum number of items returned.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning no limit. Items are kept in stream order, and the exchange ends as
+     * soon as this many unique items are collected.
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Max items")
+    @Summary("Maximum number of items returned, in stream order; the stream ends once they are collected (default: 0, no limit).")
+    private int maxItems;
+
+    /**
+     * Returns the type of the events holding results.
+     *
+     * @return the result event type
+     */
+    public String getResultEventType() {
+        return resultEventType;
+    }
+
+    /**
+     * Sets the type of the events holding results.
+     *
+     * @param resultEventType the result event type
+     */
+    public void setResultEventType(String resultEventType) {
+        this.resultEventType = resultEventType;
+    }
+
+    /**
+     * Returns the JSON pointer of the results array.
+     *
+     * @return the results pointer
+     */
+    public String getResultsPointer() {
+        return resultsPointer;
+    }
+
+    /**
+     * Sets the JSON pointer of the results array.
+     *
+     * @param resultsPointer the results pointer
+     */
+    public void setResultsPointer(String resultsPointer) {
+        this.resultsPointer = resultsPointer;
+    }
+
+    /**
+     * Returns the JSON pointer of the item within each result.
+     *
+     * @return the item pointer
+     */
+    public String getItemPointer() {
+        return itemPointer;
+    }
+
+    /**
+     * Sets the JSON pointer of the item within each result.
+     *
+     * @param itemPointer the item pointer
+     */
+    public void setItemPointer(String itemPointer) {
+        this.itemPointer = itemPointer;
+    }
+
+    /**
+     * Returns the field that identifies an item.
+     *
+     * @return the key field, or {@code null}
+     */
+    public String getKeyField() {
+        return keyField;
+    }
+
+    /**
+     * Sets the field that identifies an item.
+     *
+     * @param keyField the key field
+     */
+    public void setKeyField(String keyField) {
+        this.keyField = keyField;
+    }
+
+    /**
+     * Returns the fields to keep from each item.
+     *
+     * @return the item fields; empty to keep whole items
+     */
+    public List<String> getItemFields() {
+        return itemFields;
+    }
+
+    /**
+     * Sets the fields to keep from each item.
+     *
+     * @param itemFields the item fields
+     */
+    public void setItemFields(List<String> itemFields) {
+        this.itemFields = itemFields;
+    }
+
+    /**
+     * Returns the maximum number of items returned.
+     *
+     * @return the maximum number of items; {@code 0} for no limit
+     */
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Sets the maximum number of items returned.
+     *
+     * @param maxItems the maximum number of items
+     */
+    public void setMaxItems(int maxItems) {
+        this.maxItems = maxItems;
+    }
+}
@@ -0,0 +1,143 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Represents the concurrency limit of a configuration.
+ * <p>
+ * The limit is a bulkhead on the upstream: once as many {@code Get Events} requests as the limit are in flight, new
+ * ones fail right away with an {@code SSE:REJECTED} error instead of holding a thread and a connection while they
+ * wait on a slow upstream. With the adaptive limit, the limit itself follows the upstream: it grows by one request at
+ * a time while the time to first event stays under the latency threshold, and shrinks by 10% whenever a request is
+ * slower, times out or fails (additive increase, multiplicative decrease).
+ * <p>
+ * The limit counts upstream streams: a hedged request holds a second slot while its hedge is in flight, and is not
+ * hedged if no slot is free.
+ * <p>
+ * Not to be confused with the {@code Max concurrent streams} of the connection (see {@link SSEConnectionProvider}),
+ * which caps the HTTP exchanges of the connection, and makes requests over the cap wait for a stream instead of
+ * failing. Requests served from the response cache count against neither.
+ */
+public class ConcurrencyLimitParameters {
+
+    /**
+     * The maximum number of requests in flight at once.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning no limit. With the adaptive limit, the limit starts here and never
+     * grows past it; without a maximum, it starts at 100 requests and never grows past 1,000. Unlike the
+     * {@code Max concurrent streams} of the connection, further requests are rejected rather than queued.
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Max requests in flight")
+    @Summary("Maximum number of requests in flight at once; further requests fail right away (default: 0, no limit).")
+    private int maxRequestsInFlight;
+
+    /**
+     * Whether the limit adapts to the latency of the upstream.
+     * <p>
+     * Optional; defaults to {@code false}.
+     */
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Adaptive limit")
+    @Summary("Lower the limit when requests are slower than the latency threshold, time out or fail, and raise it again as they recover (default: false).")
+    private boolean adaptive;
+
+    /**
+     * The lowest value of the adaptive limit.
+     * <p>
+     * Optional; defaults to {@code 1}.
+     */
+    @Parameter
+    @Optional(defaultValue = "1")
+    @DisplayName("Min requests in flight")
+    @Summary("Lowest value of the adaptive limit (default: 1).")
+    private int minRequestsInFlight;
+
+    /**
+     * The time to first event, in milliseconds, above which a request lowers the adaptive limit.
+     * <p>
+     * Optional; defaults to 2,000 ms.
+     */
+    @Parameter
+    @Optional(defaultValue = "2000")
+    @DisplayName("Latency threshold")
+    @Summary("Time to first event in milliseconds above which a request lowers the adaptive limit (default: 2,000 milliseconds).")
+    private long latencyThreshold;
+
+    /**
+     * Returns the maximum number of requests in flight at once.
+     *
+     * @return the maximum requests in flight; {@code 0} for no limit
+     */
+    public int getMaxRequestsInFlight() {
+        return maxRequestsInFlight;
+    }
+
+    /**
+     * Sets the maximum number of requests in flight at once.
+     *
+     * @param maxRequestsInFlight the maximum requests in flight
+     */
+    public void setMaxRequestsInFlight(int maxRequestsInFlight) {
+        this.maxRequestsInFlight = maxRequestsInFlight;
+    }
+
+    /**
+     * Returns whether the limit adapts to the latency of the upstream.
+     *
+     * @return {@code true} if the limit is adaptive
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Sets whether the limit adapts to the latency of the upstream.
+     *
+     * @param adaptive {@code true} to make the limit adaptive
+     */
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Returns the lowest value of the adaptive limit.
+     *
+     * @return the minimum requests in flight
+     */
+    public int getMinRequestsInFlight() {
+        return minRequestsInFlight;
+    }
+
+    /**
+     * Sets the lowest value of the adaptive limit.
+     *
+     * @param minRequestsInFlight the minimum requests in flight
+     */
+    public void setMinRequestsInFlight(int minRequestsInFlight) {
+        this.minRequestsInFlight = minRequestsInFlight;
+    }
+
+    /**
+     * Returns the time to first event above which a request lowers the adaptive limit.
+     *
+     * @return the latency threshold in milliseconds
+     */
+    public long getLatencyThreshold() {
+        return latencyThreshold;
+    }
+
+    /**
+     * Sets the time to first event above which a request lowers the adaptive limit.
+     *
+     * @param latencyThreshold the latency threshold in milliseconds
+     */
+    public void setLatencyThreshold(long latencyThreshold) {
+        this.latencyThreshold = latencyThreshold;
+    }
+}
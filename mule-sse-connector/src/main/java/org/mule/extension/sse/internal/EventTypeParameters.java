@@ -0,0 +1,84 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+
+/**
+ * Represents the event types of a configuration: the shape of the data of each type of event the server sends.
+ * <p>
+ * The types are derived from sample events, such as the {@code Retrieve-By-Intent-*-Example.json} files of the
+ * Product Information SAPI, or from a JSON schema or a sample of the data of each event type. They drive the output
+ * metadata of the operations and the listener, so the data of the events can be mapped in DataWeave, and the
+ * {@link SSEDataDecoding#TYPED TYPED} decoding, which decodes the data straight into compact records of these
+ * types. Each location is looked up as a resource of the application first, then as a file.
+ */
+public class EventTypeParameters {
+
+    /**
+     * Resources holding sample events: JSON arrays of objects with an {@code event} and a {@code data} field.
+     * <p>
+     * Optional. The samples of a same event type are merged, so a field present in any of them is declared.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Event samples")
+    @Summary("Resources holding JSON arrays of sample events with an event and a data field, e.g. examples/Retrieve-By-Intent-Response-Example.json; the types of their data are derived from them.")
+    private List<String> eventSamples = emptyList();
+
+    /**
+     * The data type of each event type: the event type, mapped to a resource holding a JSON schema or a sample of
+     * its data.
+     * <p>
+     * Optional. Takes precedence over the event samples. A resource holding sample events, like those of the event
+     * samples, is also accepted: the data of the events of that type are used as samples.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Event data types")
+    @Summary("Event types mapped to a resource holding a JSON schema or a sample of their data; takes precedence over the event samples.")
+    private Map<String, String> eventDataTypes = emptyMap();
+
+    /**
+     * Returns the resources holding sample events.
+     *
+     * @return the locations of the resources
+     */
+    public List<String> getEventSamples() {
+        return eventSamples;
+    }
+
+    /**
+     * Sets the resources holding sample events.
+     *
+     * @param eventSamples the locations of the resources
+     */
+    public void setEventSamples(List<String> eventSamples) {
+        this.eventSamples = eventSamples;
+    }
+
+    /**
+     * Returns the data type of each event type.
+     *
+     * @return the event types, mapped to the location of a JSON schema or sample of their data
+     */
+    public Map<String, String> getEventDataTypes() {
+        return eventDataTypes;
+    }
+
+    /**
+     * Sets the data type of each event type.
+     *
+     * @param eventDataTypes the event types, mapped to the location of a JSON schema or sample of their data
+     */
+    public void setEventDataTypes(Map<String, String> eventDataTypes) {
+        this.eventDataTypes = eventDataTypes;
+    }
+}
@@ -4,15 +4,19 @@ import org.mule.runtime.extension.api.annotation.param.Content;
 import org.mule.runtime.extension.api.annotation.param.Optional;
 import org.mule.runtime.extension.api.annotation.param.Parameter;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
 
+import java.util.List;
 import java.util.Map;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 
 /**
  * Represents the input parameters for the {@code Get Events} operation
  * of the SSE connector. This class encapsulates configurable properties
- * such as the SSE resource path, HTTP headers, and query parameters.
+ * such as the SSE resource path, HTTP headers, query parameters, which
+ * events to keep, and how their data is decoded.
  */
 public class GetEventsParameters {
 
@@ -54,6 +58,54 @@ public class GetEventsParameters {
     @DisplayName("Query Parameters")
     private Map<String, String> queryParams = emptyMap();
 
+    /**
+     * How the {@code data} of each event is decoded.
+     * <p>
+     * Optional; defaults to {@link SSEDataDecoding#JAVA}. Decoding is deferred until the data is first read, so
+     * events that are never read are never decoded.
+     */
+    @Parameter
+    @Optional(defaultValue = "JAVA")
+    @DisplayName("Data decoding")
+    @Summary("How the data of each event is decoded, on first access: JAVA (maps and lists for JSON), STRING, BYTES or JSON_NODE (default: JAVA).")
+    private SSEDataDecoding dataDecoding = SSEDataDecoding.JAVA;
+
+    /**
+     * The types of the events to keep, e.g. {@code search_result}.
+     * <p>
+     * Optional; defaults to an empty list, meaning every event type is kept. Other events are skipped by the parser
+     * before their data is decoded.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Include event types")
+    @Summary("Types of the events to keep; other events are skipped without being decoded (default: all types).")
+    private List<String> includeEventTypes = emptyList();
+
+    /**
+     * The types of the events to skip, e.g. {@code message}.
+     * <p>
+     * Optional; defaults to an empty list. Skipped events are discarded by the parser before their data is decoded.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Exclude event types")
+    @Summary("Types of the events to skip without being decoded.")
+    private List<String> excludeEventTypes = emptyList();
+
+    /**
+     * JSON pointers of the fields to keep from the data of each event, e.g. <code>/response/results/&#42;/data</code>.
+     * A {@code *} segment matches every array element or object field.
+     * <p>
+     * Optional; defaults to an empty list, meaning the whole data is kept. When provided, the data is read with a
+     * streaming JSON parser and only the selected fields are extracted, keeping their original nesting.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Data projection")
+    @Summary("JSON pointers of the fields to keep from the data of each event ('*' matches every array element); the rest is skipped while parsing.")
+    private List<String> dataProjection = emptyList();
+
     /**
      * Returns the HTTP headers to be sent with the SSE request.
      *
@@ -107,4 +159,76 @@ public class GetEventsParameters {
     public void setQueryParams(Map<String, String> queryParams) {
         this.queryParams = queryParams;
     }
+
+    /**
+     * Returns how the data of each event is decoded.
+     *
+     * @return the data decoding
+     */
+    public SSEDataDecoding getDataDecoding() {
+        return dataDecoding;
+    }
+
+    /**
+     * Sets how the data of each event is decoded.
+     *
+     * @param dataDecoding the data decoding
+     */
+    public void setDataDecoding(SSEDataDecoding dataDecoding) {
+        this.dataDecoding = dataDecoding;
+    }
+
+    /**
+     * Returns the types of the events to keep.
+     *
+     * @return a list of event types; empty to keep every type
+     */
+    public List<String> getIncludeEventTypes() {
+        return includeEventTypes;
+    }
+
+    /**
+     * Sets the types of the events to keep.
+     *
+     * @param includeEventTypes a list of event types
+     */
+    public void setIncludeEventTypes(List<String> includeEventTypes) {
+        this.includeEventTypes = includeEventTypes;
+    }
+
+    /**
+     * Returns the types of the events to skip.
+     *
+     * @return a list of event types
+     */
+    public List<String> getExcludeEventTypes() {
+        return excludeEventTypes;
+    }
+
+    /**
+     * Sets the types of the events to skip.
+     *
+     * @param excludeEventTypes a list of event types
+     */
+    public void setExcludeEventTypes(List<String> excludeEventTypes) {
+        this.excludeEventTypes = excludeEventTypes;
+    }
+
+    /**
+     * Returns the JSON pointers of the fields to keep from the data of each event.
+     *
+     * @return a list of JSON pointers; empty to keep the whole data
+     */
+    public List<String> getDataProjection() {
+        return dataProjection;
+    }
+
+    /**
+     * Sets the JSON pointers of the fields to keep from the data of each event.
+     *
+     * @param dataProjection a list of JSON pointers
+     */
+    public void setDataProjection(List<String> dataProjection) {
+        this.dataProjection = dataProjection;
+    }
 }
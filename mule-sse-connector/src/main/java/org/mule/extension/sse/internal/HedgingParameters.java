@@ -0,0 +1,136 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Represents the request hedging settings of a configuration.
+ * <p>
+ * When enabled, a {@code Get Events} request that has not received any event after the hedge delay is sent a
+ * second time. Whichever of the two streams produces an event first is kept, and the other one is aborted, which
+ * cuts the tail latency caused by streams that occasionally stall before their first event. The share of hedged
+ * requests is capped, so hedging cannot double the load on an upstream that is already struggling.
+ */
+public class HedgingParameters {
+
+    /**
+     * Whether requests are hedged.
+     * <p>
+     * Optional; defaults to {@code false}.
+     */
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable hedging")
+    @Summary("Send a second identical request when the first one has not received any event after the hedge delay, and keep the first stream to produce an event (default: false).")
+    private boolean enabled;
+
+    /**
+     * The time, in milliseconds, without any event after which a request is hedged.
+     * <p>
+     * Optional; defaults to 1,000 ms. Also used while too few exchanges have been observed to derive the delay
+     * from {@link #hedgeDelayPercentile}.
+     */
+    @Parameter
+    @Optional(defaultValue = "1000")
+    @DisplayName("Hedge delay")
+    @Summary("Time in milliseconds without any event after which a request is hedged (default: 1,000 milliseconds).")
+    private long hedgeDelay;
+
+    /**
+     * The percentile of the observed time to first event used as the hedge delay, e.g. {@code 95}.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning the fixed {@link #hedgeDelay} is used. The percentile is read from
+     * the metrics of the configuration, so it adapts to the upstream as its latency changes.
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Hedge delay percentile")
+    @Summary("When greater than 0, hedge once the request has waited longer than this percentile of the observed time to first event, e.g. 95 (default: 0, fixed hedge delay).")
+    private double hedgeDelayPercentile;
+
+    /**
+     * The maximum share of requests that may be hedged, in percent.
+     * <p>
+     * Optional; defaults to 10%. Once the budget is spent, slow requests are not hedged until enough requests have
+     * been sent again, e.g. during an upstream brownout.
+     */
+    @Parameter
+    @Optional(defaultValue = "10")
+    @DisplayName("Max hedged requests (%)")
+    @Summary("Maximum percentage of requests that may be hedged, so hedging cannot amplify the load during an upstream brownout (default: 10).")
+    private int maxHedgedPercentage;
+
+    /**
+     * Returns whether requests are hedged.
+     *
+     * @return {@code true} if hedging is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether requests are hedged.
+     *
+     * @param enabled {@code true} to enable hedging
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the time without any event after which a request is hedged.
+     *
+     * @return the hedge delay in milliseconds
+     */
+    public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    /**
+     * Sets the time without any event after which a request is hedged.
+     *
+     * @param hedgeDelay the hedge delay in milliseconds
+     */
+    public void setHedgeDelay(long hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    /**
+     * Returns the percentile of the observed time to first event used as the hedge delay.
+     *
+     * @return the percentile, or {@code 0} for the fixed hedge delay
+     */
+    public double getHedgeDelayPercentile() {
+        return hedgeDelayPercentile;
+    }
+
+    /**
+     * Sets the percentile of the observed time to first event used as the hedge delay.
+     *
+     * @param hedgeDelayPercentile the percentile, or {@code 0} for the fixed hedge delay
+     */
+    public void setHedgeDelayPercentile(double hedgeDelayPercentile) {
+        this.hedgeDelayPercentile = hedgeDelayPercentile;
+    }
+
+    /**
+     * Returns the maximum share of requests that may be hedged.
+     *
+     * @return the maximum percentage of hedged requests
+     */
+    public int getMaxHedgedPercentage() {
+        return maxHedgedPercentage;
+    }
+
+    /**
+     * Sets the maximum share of requests that may be hedged.
+     *
+     * @param maxHedgedPercentage the maximum percentage of hedged requests
+     */
+    public void setMaxHedgedPercentage(int maxHedgedPercentage) {
+        this.maxHedgedPercentage = maxHedgedPercentage;
+    }
+}
@@ -0,0 +1,231 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Represents the memory limits of a configuration.
+ * <p>
+ * The {@code Get Events} operations keep every event of a response in memory until the response is complete. These
+ * limits bound what a single response, and all the responses in flight on the configuration, may hold, so a
+ * runaway or misbehaving upstream cannot exhaust the memory of a worker shared with other applications. Each limit
+ * has its own {@link SSELimitAction}: fail the operation, truncate the response, or spill the data of the events
+ * over the limit to a temporary file.
+ * <p>
+ * Sizes are measured on the raw data of the events, before decoding or projection. The streaming operations and
+ * the listeners only hold the events their reader has not consumed yet, so only the max event bytes applies to
+ * them: {@code FAIL} raises an error when the events are read, or stops the listener, which Mule restarts following
+ * its reconnection strategy. A listener truncates the data of an oversized event rather than spilling it, as its
+ * spill file would grow for as long as the listener runs.
+ */
+public class MemoryLimitParameters {
+
+    /**
+     * The maximum number of bytes of event data kept for a single response.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning no limit.
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Max response bytes")
+    @Summary("Maximum bytes of event data kept in memory for a single response (default: 0, no limit).")
+    private long maxResponseBytes;
+
+    /**
+     * What happens when a response exceeds {@link #maxResponseBytes}, or when the {@link #memoryBudget} is spent.
+     * <p>
+     * Optional; defaults to {@link SSELimitAction#FAIL}.
+     */
+    @Parameter
+    @Optional(defaultValue = "FAIL")
+    @DisplayName("On max response bytes")
+    @Summary("FAIL the operation, TRUNCATE the response, or SPILL the data of the next events to a temporary file, when a response exceeds the max response bytes or the memory budget is spent (default: FAIL).")
+    private SSELimitAction responseBytesAction = SSELimitAction.FAIL;
+
+    /**
+     * The maximum number of bytes of data of a single event.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning no limit. Enforced while the event is parsed, so an event that never
+     * ends cannot grow without bound.
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Max event bytes")
+    @Summary("Maximum bytes of data of a single event, enforced while it is parsed (default: 0, no limit).")
+    private long maxEventBytes;
+
+    /**
+     * What happens when an event exceeds {@link #maxEventBytes}.
+     * <p>
+     * Optional; defaults to {@link SSELimitAction#FAIL}. {@link SSELimitAction#TRUNCATE} keeps the first bytes of
+     * the data of the event, which is then no longer valid JSON, and the rest of the stream.
+     */
+    @Parameter
+    @Optional(defaultValue = "FAIL")
+    @DisplayName("On max event bytes")
+    @Summary("FAIL the operation, TRUNCATE the data of the event, or SPILL it to a temporary file, when an event exceeds the max event bytes (default: FAIL).")
+    private SSELimitAction eventBytesAction = SSELimitAction.FAIL;
+
+    /**
+     * The maximum number of events kept for a single response.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning no limit.
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Max event count")
+    @Summary("Maximum number of events kept for a single response (default: 0, no limit).")
+    private int maxEventCount;
+
+    /**
+     * What happens when a response exceeds {@link #maxEventCount}.
+     * <p>
+     * Optional; defaults to {@link SSELimitAction#FAIL}.
+     */
+    @Parameter
+    @Optional(defaultValue = "FAIL")
+    @DisplayName("On max event count")
+    @Summary("FAIL the operation, TRUNCATE the response, or SPILL the data of the next events to a temporary file, when a response exceeds the max event count (default: FAIL).")
+    private SSELimitAction eventCountAction = SSELimitAction.FAIL;
+
+    /**
+     * The maximum number of bytes of event data held at once by all the responses in flight on the configuration.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning no limit. A response that would take the configuration over its
+     * budget is handled according to the {@link #responseBytesAction}. The bytes held are published in the
+     * metrics of the configuration either way.
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Memory budget")
+    @Summary("Maximum bytes of event data held at once by all the responses in flight on this configuration; exceeding it applies the max response bytes action (default: 0, no limit).")
+    private long memoryBudget;
+
+    /**
+     * Returns the maximum number of bytes of event data kept for a single response.
+     *
+     * @return the maximum response bytes; {@code 0} for no limit
+     */
+    public long getMaxResponseBytes() {
+        return maxResponseBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes of event data kept for a single response.
+     *
+     * @param maxResponseBytes the maximum response bytes
+     */
+    public void setMaxResponseBytes(long maxResponseBytes) {
+        this.maxResponseBytes = maxResponseBytes;
+    }
+
+    /**
+     * Returns what happens when a response exceeds the maximum response bytes or the memory budget.
+     *
+     * @return the action
+     */
+    public SSELimitAction getResponseBytesAction() {
+        return responseBytesAction;
+    }
+
+    /**
+     * Sets what happens when a response exceeds the maximum response bytes or the memory budget.
+     *
+     * @param responseBytesAction the action
+     */
+    public void setResponseBytesAction(SSELimitAction responseBytesAction) {
+        this.responseBytesAction = responseBytesAction;
+    }
+
+    /**
+     * Returns the maximum number of bytes of data of a single event.
+     *
+     * @return the maximum event bytes; {@code 0} for no limit
+     */
+    public long getMaxEventBytes() {
+        return maxEventBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes of data of a single event.
+     *
+     * @param maxEventBytes the maximum event bytes
+     */
+    public void setMaxEventBytes(long maxEventBytes) {
+        this.maxEventBytes = maxEventBytes;
+    }
+
+    /**
+     * Returns what happens when an event exceeds the maximum event bytes.
+     *
+     * @return the action
+     */
+    public SSELimitAction getEventBytesAction() {
+        return eventBytesAction;
+    }
+
+    /**
+     * Sets what happens when an event exceeds the maximum event bytes.
+     *
+     * @param eventBytesAction the action
+     */
+    public void setEventBytesAction(SSELimitAction eventBytesAction) {
+        this.eventBytesAction = eventBytesAction;
+    }
+
+    /**
+     * Returns the maximum number of events kept for a single response.
+     *
+     * @return the maximum event count; {@code 0} for no limit
+     */
+    public int getMaxEventCount() {
+        return maxEventCount;
+    }
+
+    /**
+     * Sets the maximum number of events kept for a single response.
+     *
+     * @param maxEventCount the maximum event count
+     */
+    public void setMaxEventCount(int maxEventCount) {
+        this.maxEventCount = maxEventCount;
+    }
+
+    /**
+     * Returns what happens when a response exceeds the maximum event count.
+     *
+     * @return the action
+     */
+    public SSELimitAction getEventCountAction() {
+        return eventCountAction;
+    }
+
+    /**
+     * Sets what happens when a response exceeds the maximum event count.
+     *
+     * @param eventCountAction the action
+     */
+    public void setEventCountAction(SSELimitAction eventCountAction) {
+        this.eventCountAction = eventCountAction;
+    }
+
+    /**
+     * Returns the maximum number of bytes of event data held by all the responses in flight.
+     *
+     * @return the memory budget; {@code 0} for no limit
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the maximum number of bytes of event data held by all the responses in flight.
+     *
+     * @param memoryBudget the memory budget
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+}
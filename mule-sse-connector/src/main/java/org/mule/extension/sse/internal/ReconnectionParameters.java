@@ -0,0 +1,172 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Represents the reconnection settings of a configuration.
+ * <p>
+ * When enabled, a {@code Get Events} request whose connection drops, or cannot be established, is sent again. The
+ * new request carries the ID of the last event received in the {@code Last-Event-ID} header, so the server resumes
+ * the stream where it stopped, and the events it sends again are dropped: the flow receives one continuous list of
+ * events. A stream whose events carry no ID can only be retried while no event was received.
+ * <p>
+ * The delay before reconnecting is the one requested by the server through the {@code retry:} field, or the
+ * reconnection delay otherwise, doubled at each new attempt and spread by a random jitter of up to 50%, so clients
+ * dropped at the same time do not all reconnect at once. The share of reconnections is capped, so retries cannot
+ * pile up on an upstream that keeps dropping connections.
+ * <p>
+ * Listeners always reconnect, whether reconnection is enabled or not, with the same delays; they give up, and let
+ * Mule restart them, after the max reconnections attempts in a row without any event.
+ */
+public class ReconnectionParameters {
+
+    /**
+     * Whether dropped requests are resumed.
+     * <p>
+     * Optional; defaults to {@code false}.
+     */
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable reconnection")
+    @Summary("Resume a request whose connection drops, sending the last event ID, and drop the events the server sends again (default: false).")
+    private boolean enabled;
+
+    /**
+     * The maximum number of reconnections of a single request.
+     * <p>
+     * Optional; defaults to {@code 3}.
+     */
+    @Parameter
+    @Optional(defaultValue = "3")
+    @DisplayName("Max reconnections")
+    @Summary("Maximum number of reconnections of a single request (default: 3).")
+    private int maxReconnections = 3;
+
+    /**
+     * The time, in milliseconds, to wait before the first reconnection, when the server did not send a
+     * {@code retry:} field.
+     * <p>
+     * Optional; defaults to 1,000 ms.
+     */
+    @Parameter
+    @Optional(defaultValue = "1000")
+    @DisplayName("Reconnection delay")
+    @Summary("Time in milliseconds to wait before the first reconnection, unless the server sent a retry field; doubled at each new attempt (default: 1,000 milliseconds).")
+    private long reconnectionDelay = 1000;
+
+    /**
+     * The maximum time, in milliseconds, to wait before a reconnection.
+     * <p>
+     * Optional; defaults to 30,000 ms. A longer delay requested by the server is still honored.
+     */
+    @Parameter
+    @Optional(defaultValue = "30000")
+    @DisplayName("Max reconnection delay")
+    @Summary("Maximum time in milliseconds the reconnection delay grows to (default: 30,000 milliseconds).")
+    private long maxReconnectionDelay = 30000;
+
+    /**
+     * The maximum number of reconnections, as a percentage of the requests.
+     * <p>
+     * Optional; defaults to 20%. Once the budget is spent, dropped requests fail until enough requests have been
+     * sent again.
+     */
+    @Parameter
+    @Optional(defaultValue = "20")
+    @DisplayName("Max reconnections (%)")
+    @Summary("Maximum number of reconnections as a percentage of the requests, so retries cannot amplify the load on a failing upstream (default: 20).")
+    private int maxReconnectionPercentage = 20;
+
+    /**
+     * Returns whether dropped requests are resumed.
+     *
+     * @return {@code true} if reconnection is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether dropped requests are resumed.
+     *
+     * @param enabled {@code true} to enable reconnection
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the maximum number of reconnections of a single request.
+     *
+     * @return the maximum number of reconnections
+     */
+    public int getMaxReconnections() {
+        return maxReconnections;
+    }
+
+    /**
+     * Sets the maximum number of reconnections of a single request.
+     *
+     * @param maxReconnections the maximum number of reconnections
+     */
+    public void setMaxReconnections(int maxReconnections) {
+        this.maxReconnections = maxReconnections;
+    }
+
+    /**
+     * Returns the time to wait before the first reconnection, when the server did not send a {@code retry:} field.
+     *
+     * @return the reconnection delay in milliseconds
+     */
+    public long getReconnectionDelay() {
+        return reconnectionDelay;
+    }
+
+    /**
+     * Sets the time to wait before the first reconnection, when the server did not send a {@code retry:} field.
+     *
+     * @param reconnectionDelay the reconnection delay in milliseconds
+     */
+    public void setReconnectionDelay(long reconnectionDelay) {
+        this.reconnectionDelay = reconnectionDelay;
+    }
+
+    /**
+     * Returns the maximum time to wait before a reconnection.
+     *
+     * @return the maximum reconnection delay in milliseconds
+     */
+    public long getMaxReconnectionDelay() {
+        return maxReconnectionDelay;
+    }
+
+    /**
+     * Sets the maximum time to wait before a reconnection.
+     *
+     * @param maxReconnectionDelay the maximum reconnection delay in milliseconds
+     */
+    public void setMaxReconnectionDelay(long maxReconnectionDelay) {
+        this.maxReconnectionDelay = maxReconnectionDelay;
+    }
+
+    /**
+     * Returns the maximum number of reconnections, as a percentage of the requests.
+     *
+     * @return the maximum percentage of reconnections
+     */
+    public int getMaxReconnectionPercentage() {
+        return maxReconnectionPercentage;
+    }
+
+    /**
+     * Sets the maximum number of reconnections, as a percentage of the requests.
+     *
+     * @param maxReconnectionPercentage the maximum percentage of reconnections
+     */
+    public void setMaxReconnectionPercentage(int maxReconnectionPercentage) {
+        this.maxReconnectionPercentage = maxReconnectionPercentage;
+    }
+}
@@ -0,0 +1,196 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Represents the settings of the response cache of a configuration.
+ * <p>
+ * When enabled, the events returned by the {@code Get Events} operations are kept in memory and returned to
+ * identical requests, and concurrent identical requests share a single upstream stream. Two requests are identical
+ * when they target the same URL, with the same values for the headers listed in {@link #keyHeaders}, and use the
+ * same filters, data decoding and stop conditions.
+ */
+public class ResponseCacheParameters {
+
+    /**
+     * Whether the response cache is enabled.
+     * <p>
+     * Optional; defaults to {@code false}.
+     */
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable response cache")
+    @Summary("Keep the events returned by Get Events in memory and share them with identical requests (default: false).")
+    private boolean enabled;
+
+    /**
+     * The time, in milliseconds, a response stays in the cache after it has been received.
+     * <p>
+     * Optional; defaults to 60,000 ms.
+     */
+    @Parameter
+    @Optional(defaultValue = "60000")
+    @DisplayName("Time to live")
+    @Summary("Time in milliseconds a response stays in the cache after it has been received (default: 60,000 milliseconds).")
+    private long timeToLive;
+
+    /**
+     * The maximum number of responses kept in the cache; the least recently used ones are evicted first.
+     * <p>
+     * Optional; defaults to 100.
+     */
+    @Parameter
+    @Optional(defaultValue = "100")
+    @DisplayName("Max entries")
+    @Summary("Maximum number of responses kept in the cache; the least recently used ones are evicted first (default: 100).")
+    private int maxEntries;
+
+    /**
+     * The maximum number of response body bytes kept in the cache; the least recently used responses are evicted
+     * first, and larger responses are not cached.
+     * <p>
+     * Optional; defaults to 10,485,760 bytes (10 MB).
+     */
+    @Parameter
+    @Optional(defaultValue = "10485760")
+    @DisplayName("Max bytes")
+    @Summary("Maximum number of response body bytes kept in the cache (default: 10,485,760 bytes).")
+    private long maxBytes;
+
+    /**
+     * The names of the HTTP headers whose values are part of the cache key, e.g. {@code Accept-Language}.
+     * <p>
+     * Optional; defaults to an empty list, meaning headers do not distinguish requests.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Key headers")
+    @Summary("Names of the HTTP headers whose values distinguish otherwise identical requests.")
+    private List<String> keyHeaders = emptyList();
+
+    /**
+     * The names of the query parameters left out of the cache key, e.g. {@code key} for an API key.
+     * <p>
+     * Optional; defaults to an empty list. Secrets listed here are never stored in the cache.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Excluded query parameters")
+    @Summary("Names of the query parameters, such as API keys, left out of the cache key.")
+    private List<String> excludedQueryParams = emptyList();
+
+    /**
+     * Returns whether the response cache is enabled.
+     *
+     * @return {@code true} if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the response cache is enabled.
+     *
+     * @param enabled {@code true} to enable the cache
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the time a response stays in the cache.
+     *
+     * @return the time to live in milliseconds
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Sets the time a response stays in the cache.
+     *
+     * @param timeToLive the time to live in milliseconds
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the maximum number of responses kept in the cache.
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Sets the maximum number of responses kept in the cache.
+     *
+     * @param maxEntries the maximum number of entries
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the maximum number of response body bytes kept in the cache.
+     *
+     * @return the maximum number of bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Sets the maximum number of response body bytes kept in the cache.
+     *
+     * @param maxBytes the maximum number of bytes
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the names of the HTTP headers that are part of the cache key.
+     *
+     * @return a list of header names
+     */
+    public List<String> getKeyHeaders() {
+        return keyHeaders;
+    }
+
+    /**
+     * Sets the names of the HTTP headers that are part of the cache key.
+     *
+     * @param keyHeaders a list of header names
+     */
+    public void setKeyHeaders(List<String> keyHeaders) {
+        this.keyHeaders = keyHeaders;
+    }
+
+    /**
+     * Returns the names of the query parameters left out of the cache key.
+     *
+     * @return a list of query parameter names
+     */
+    public List<String> getExcludedQueryParams() {
+        return excludedQueryParams;
+    }
+
+    /**
+     * Sets the names of the query parameters left out of the cache key.
+     *
+     * @param excludedQueryParams a list of query parameter names
+     */
+    public void setExcludedQueryParams(List<String> excludedQueryParams) {
+        this.excludedQueryParams = excludedQueryParams;
+    }
+}
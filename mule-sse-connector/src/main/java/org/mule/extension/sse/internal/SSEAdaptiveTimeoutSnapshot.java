@@ -0,0 +1,118 @@
+package org.mule.extension.sse.internal;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The latencies observed on an endpoint and the timeouts derived from them, exposed through JMX.
+ * <p>
+ * All durations are in milliseconds. The observed latencies are the configured percentile of the recent exchanges,
+ * approximated within 12.5%, or {@code -1} while too few of them were observed; the timeouts are those applied to
+ * the next request, {@code 0} meaning none.
+ *
+ * @since 1.0
+ */
+public class SSEAdaptiveTimeoutSnapshot {
+
+    private final long sampleCount;
+    private final double timeToFirstEvent;
+    private final double maxEventGap;
+    private final double totalDuration;
+    private final long firstEventTimeout;
+    private final long idleTimeout;
+    private final long responseTimeout;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param sampleCount       the number of recent exchanges observed
+     * @param timeToFirstEvent  the percentile of the time to first event
+     * @param maxEventGap       the percentile of the longest gap between two events
+     * @param totalDuration     the percentile of the total duration
+     * @param firstEventTimeout the time-to-first-event timeout
+     * @param idleTimeout       the idle timeout
+     * @param responseTimeout   the response timeout
+     */
+    @ConstructorProperties({"sampleCount", "timeToFirstEvent", "maxEventGap", "totalDuration", "firstEventTimeout",
+            "idleTimeout", "responseTimeout"})
+    public SSEAdaptiveTimeoutSnapshot(long sampleCount, double timeToFirstEvent, double maxEventGap,
+                                      double totalDuration, long firstEventTimeout, long idleTimeout,
+                                      long responseTimeout) {
+        this.sampleCount = sampleCount;
+        this.timeToFirstEvent = timeToFirstEvent;
+        this.maxEventGap = maxEventGap;
+        this.totalDuration = totalDuration;
+        this.firstEventTimeout = firstEventTimeout;
+        this.idleTimeout = idleTimeout;
+        this.responseTimeout = responseTimeout;
+    }
+
+    /**
+     * Returns the number of recent exchanges observed on the endpoint.
+     *
+     * @return the number of exchanges
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Returns the percentile of the time to first event.
+     *
+     * @return the time in milliseconds, or {@code -1} if too few exchanges were observed
+     */
+    public double getTimeToFirstEvent() {
+        return timeToFirstEvent;
+    }
+
+    /**
+     * Returns the percentile of the longest gap between two events.
+     *
+     * @return the gap in milliseconds, or {@code -1} if too few exchanges were observed
+     */
+    public double getMaxEventGap() {
+        return maxEventGap;
+    }
+
+    /**
+     * Returns the percentile of the total duration.
+     *
+     * @return the duration in milliseconds, or {@code -1} if too few exchanges were observed
+     */
+    public double getTotalDuration() {
+        return totalDuration;
+    }
+
+    /**
+     * Returns the time-to-first-event timeout applied to the next request.
+     *
+     * @return the timeout in milliseconds, or {@code 0} for none
+     */
+    public long getFirstEventTimeout() {
+        return firstEventTimeout;
+    }
+
+    /**
+     * Returns the idle timeout applied to the next request.
+     *
+     * @return the timeout in milliseconds, or {@code 0} for none
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Returns the response timeout applied to the next request.
+     *
+     * @return the timeout in milliseconds, or {@code 0} for none
+     */
+    public long getResponseTimeout() {
+        return responseTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("samples=%d, timeToFirstEvent=%.3f ms, maxEventGap=%.3f ms, totalDuration=%.3f ms, "
+                        + "firstEventTimeout=%d ms, idleTimeout=%d ms, responseTimeout=%d ms", sampleCount,
+                timeToFirstEvent, maxEventGap, totalDuration, firstEventTimeout, idleTimeout, responseTimeout);
+    }
+}
@@ -0,0 +1,220 @@
+package org.mule.extension.sse.internal;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derives the timeouts of the requests of a configuration from the latencies observed on their endpoint, as set by
+ * {@link AdaptiveTimeoutParameters}.
+ * <p>
+ * Every exchange of the {@code Get Events} operations records its time to first event, its longest gap between two
+ * events and its total duration in the histograms of its endpoint, i.e. the path of its URL. The timeouts of the next
+ * request to the endpoint are the configured percentile of each, plus the headroom, bounded by the minimum and maximum
+ * timeouts and by the configured ones. An exchange aborted by a timeout is recorded with the time it was given, so
+ * the timeouts loosen again when the upstream slows down, instead of cutting off every exchange.
+ * <p>
+ * Observations are kept in windows of {@value #WINDOW} exchanges: once a window is full, a new one starts, and the
+ * timeouts follow the full one until the new one holds enough exchanges, so they reflect the recent behavior of the
+ * endpoint within a fixed footprint. At most {@value #MAX_ENDPOINTS} endpoints are tracked; requests to other ones
+ * get the configured timeouts.
+ * <p>
+ * Instances are thread-safe.
+ */
+class SSEAdaptiveTimeouts {
+
+    /**
+     * The number of exchanges of an endpoint observed in a window.
+     */
+    static final int WINDOW = 1_000;
+
+    /**
+     * The maximum number of endpoints whose latencies are tracked.
+     */
+    static final int MAX_ENDPOINTS = 100;
+
+    private static final int FIRST_EVENT = 0;
+    private static final int EVENT_GAP = 1;
+    private static final int TOTAL = 2;
+
+    private final AdaptiveTimeoutParameters parameters;
+    private final SSEConfiguration config;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new adaptive timeouts, and publishes them through the metrics of the configuration.
+     *
+     * @param parameters the adaptive timeout settings of the configuration
+     * @param config     the configuration, whose timeouts are the upper bounds of the derived ones
+     */
+    SSEAdaptiveTimeouts(AdaptiveTimeoutParameters parameters, SSEConfiguration config) {
+        this.parameters = parameters;
+        this.config = config;
+        config.getMetrics().setAdaptiveTimeouts(this);
+    }
+
+    /**
+     * Returns the endpoint of a request, whose latencies are tracked together.
+     *
+     * @param uri the URI of the request
+     * @return the path of the URI
+     */
+    static String endpointOf(URI uri) {
+        String path = uri.getRawPath();
+        return path == null || path.isEmpty() ? "/" : path;
+    }
+
+    /**
+     * Returns the timeouts of a request.
+     *
+     * @param uri the URI of the request
+     * @return the timeouts derived from the latencies of its endpoint, or the configured ones while too few
+     * exchanges were observed
+     */
+    SSETimeouts timeouts(URI uri) {
+        long[] timeouts = timeoutsOf(endpoints.get(endpointOf(uri)));
+        return new SSETimeouts(timeouts[FIRST_EVENT], timeouts[EVENT_GAP], timeouts[TOTAL]);
+    }
+
+    /**
+     * Records a completed exchange. Error responses and responses served from the cache say nothing about the
+     * latency of the endpoint, and are ignored.
+     *
+     * @param uri        the URI of the request
+     * @param attributes the attributes of the response
+     */
+    void record(URI uri, SSEResponseAttributes attributes) {
+        if (attributes.isFromCache() || attributes.getStatusCode() < 200 || attributes.getStatusCode() >= 400) {
+            return;
+        }
+        String path = endpointOf(uri);
+        Endpoint endpoint = endpoints.get(path);
+        if (endpoint == null) {
+            if (endpoints.size() >= MAX_ENDPOINTS) {
+                return;
+            }
+            endpoint = endpoints.computeIfAbsent(path, key -> new Endpoint());
+        }
+        long total = attributes.getTotalDurationMillis();
+        long firstEvent = attributes.getTimeToFirstEventMillis();
+        if (firstEvent < 0 && attributes.getExpiredTimeout() != null) {
+            // No event before the exchange was aborted: it would have taken longer than that
+            firstEvent = total;
+        }
+        endpoint.record(firstEvent, attributes.getMaxEventGapMillis(), total);
+    }
+
+    /**
+     * Takes a snapshot of the latencies and timeouts of every endpoint.
+     *
+     * @return the snapshot of each endpoint, by path
+     */
+    Map<String, SSEAdaptiveTimeoutSnapshot> snapshot() {
+        Map<String, SSEAdaptiveTimeoutSnapshot> snapshot = new TreeMap<>();
+        endpoints.forEach((path, endpoint) -> {
+            double[] observed = new double[3];
+            for (int kind = FIRST_EVENT; kind <= TOTAL; kind++) {
+                SSELatencyHistogram histogram = endpoint.latest(kind, minSamples());
+                observed[kind] = histogram != null ? histogram.percentileMicros(percentile()) / 1_000.0 : -1;
+            }
+            long[] timeouts = timeoutsOf(endpoint);
+            snapshot.put(path, new SSEAdaptiveTimeoutSnapshot(endpoint.sampleCount(), observed[FIRST_EVENT],
+                    observed[EVENT_GAP], observed[TOTAL], timeouts[FIRST_EVENT], timeouts[EVENT_GAP],
+                    timeouts[TOTAL]));
+        });
+        return snapshot;
+    }
+
+    private long[] timeoutsOf(Endpoint endpoint) {
+        long[] timeouts = {config.getFirstEventTimeout(), config.getIdleTimeout(), config.getResponseTimeout()};
+        if (endpoint != null) {
+            for (int kind = FIRST_EVENT; kind <= TOTAL; kind++) {
+                SSELatencyHistogram histogram = endpoint.latest(kind, minSamples());
+                if (histogram != null) {
+                    timeouts[kind] = derive(histogram, timeouts[kind]);
+                }
+            }
+        }
+        return timeouts;
+    }
+
+    /**
+     * Derives a timeout from the observed latencies: the percentile plus the headroom, within the bounds.
+     */
+    private long derive(SSELatencyHistogram histogram, long configuredMillis) {
+        long ceiling = Long.MAX_VALUE;
+        if (configuredMillis > 0) {
+            ceiling = configuredMillis;
+        }
+        if (parameters.getMaxTimeout() > 0) {
+            ceiling = Math.min(ceiling, parameters.getMaxTimeout());
+        }
+        double headroom = 1 + Math.max(0, parameters.getHeadroomPercentage()) / 100.0;
+        long millis = (long) Math.ceil(histogram.percentileMicros(percentile()) * headroom / 1_000);
+        return Math.min(ceiling, Math.max(millis, Math.max(1, parameters.getMinTimeout())));
+    }
+
+    private double percentile() {
+        return Math.max(0, Math.min(100, parameters.getPercentile()));
+    }
+
+    private int minSamples() {
+        return Math.max(1, Math.min(WINDOW, parameters.getMinSamples()));
+    }
+
+    /**
+     * The latencies observed on an endpoint: the window being filled, and the last full one.
+     */
+    private static final class Endpoint {
+
+        private volatile SSELatencyHistogram[] current = newWindow();
+        private volatile SSELatencyHistogram[] previous;
+
+        void record(long firstEventMillis, long eventGapMillis, long totalMillis) {
+            SSELatencyHistogram[] window = current;
+            recordMillis(window[FIRST_EVENT], firstEventMillis);
+            recordMillis(window[EVENT_GAP], eventGapMillis);
+            recordMillis(window[TOTAL], totalMillis);
+            if (window[TOTAL].getCount() >= WINDOW) {
+                rotate(window);
+            }
+        }
+
+        private synchronized void rotate(SSELatencyHistogram[] full) {
+            if (current == full) {
+                previous = full;
+                current = newWindow();
+            }
+        }
+
+        /**
+         * Returns the histogram of the given latency in the most recent window holding enough samples of it.
+         */
+        SSELatencyHistogram latest(int kind, int minSamples) {
+            SSELatencyHistogram histogram = current[kind];
+            if (histogram.getCount() >= minSamples) {
+                return histogram;
+            }
+            SSELatencyHistogram[] window = previous;
+            return window != null && window[kind].getCount() >= minSamples ? window[kind] : null;
+        }
+
+        long sampleCount() {
+            SSELatencyHistogram[] window = previous;
+            return current[TOTAL].getCount() + (window != null ? window[TOTAL].getCount() : 0);
+        }
+
+        private static SSELatencyHistogram[] newWindow() {
+            return new SSELatencyHistogram[]{new SSELatencyHistogram(), new SSELatencyHistogram(),
+                    new SSELatencyHistogram()};
+        }
+
+        private static void recordMillis(SSELatencyHistogram histogram, long millis) {
+            if (millis >= 0) {
+                histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.source.SourceCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the events of a {@link SSESharedStream} to one subscribed flow in micro-batches.
+ * <p>
+ * Events are buffered in a queue and handed to the flow as a single message holding up to
+ * {@code maxBatchSize} events, or whatever arrived within {@code batchWindow} milliseconds of the first event of the
+ * batch, whichever comes first. The dispatching loop runs on its own thread and blocks while the flow applies
+ * backpressure, so a slow flow fills its queue; the shared stream then stops reading from the server until the
+ * queue drains below its low watermark.
+ * <p>
+ * Events are never dropped here: the shared stream checks for saturation between network chunks, so the queue may
+ * exceed its capacity by the events of one chunk. Dropping messages while the flow is busy is left to the
+ * {@code DROP} backpressure mode of the source.
+ */
+class SSEBatchDispatcher implements Runnable {
+
+    private static final long IDLE_POLL_MILLIS = 250;
+
+    private final SourceCallback<List<SSEEvent>, Void> sourceCallback;
+    private final BlockingQueue<SSEEvent> queue;
+    private final int maxBatchSize;
+    private final long batchWindowNanos;
+    private final int highWatermark;
+    private final int lowWatermark;
+
+    private volatile SSESharedStream stream;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a new dispatcher.
+     *
+     * @param sourceCallback the callback that pushes batches into the subscribed flow
+     * @param maxBatchSize   the maximum number of events per batch
+     * @param batchWindow    the maximum time, in milliseconds, to wait for a batch to fill up
+     * @param queueCapacity  the number of events waiting to be dispatched past which the shared stream pauses
+     */
+    SSEBatchDispatcher(SourceCallback<List<SSEEvent>, Void> sourceCallback, int maxBatchSize, long batchWindow,
+                       int queueCapacity) {
+        int capacity = Math.max(1, queueCapacity);
+        this.sourceCallback = sourceCallback;
+        this.queue = new LinkedBlockingQueue<>();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, batchWindow));
+        this.highWatermark = Math.max(1, capacity * 3 / 4);
+        this.lowWatermark = capacity / 4;
+    }
+
+    /**
+     * Binds this dispatcher to the stream it receives events from.
+     *
+     * @param stream the shared stream
+     */
+    void setStream(SSESharedStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Enqueues an event. Called from the network thread of the shared stream, which stops reading once this
+     * dispatcher {@link #isSaturated() is saturated}.
+     *
+     * @param event the event to dispatch
+     */
+    void offer(SSEEvent event) {
+        queue.add(event);
+    }
+
+    /**
+     * Tells whether the shared stream should stop reading from the server until this dispatcher catches up.
+     *
+     * @return {@code true} if the queue is above its high watermark
+     */
+    boolean isSaturated() {
+        return queue.size() >= highWatermark;
+    }
+
+    /**
+     * Reports to the source that the shared stream failed for good, so Mule restarts it following its reconnection
+     * strategy.
+     *
+     * @param exception the failure
+     */
+    void onConnectionException(ConnectionException exception) {
+        if (running) {
+            sourceCallback.onConnectionException(exception);
+        }
+    }
+
+    /**
+     * Stops the dispatching loop. Events still queued are discarded.
+     */
+    void stop() {
+        running = false;
+    }
+
+    /**
+     * Dispatching loop: collects micro-batches and pushes them into the flow until {@link #stop()} is called.
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                SSEEvent first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<SSEEvent> batch = new ArrayList<>(Math.min(maxBatchSize, 64));
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < maxBatchSize) {
+                    // Take whatever is already queued, then wait for the rest of the window
+                    SSEEvent event = queue.poll();
+                    if (event == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0 || (event = queue.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                            break;
+                        }
+                    }
+                    batch.add(event);
+                }
+
+                resumeStreamIfDrained();
+
+                // Blocks while the flow applies backpressure
+                sourceCallback.handle(Result.<List<SSEEvent>, Void>builder().output(batch).build());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void resumeStreamIfDrained() {
+        SSESharedStream current = stream;
+        if (current != null && queue.size() <= lowWatermark) {
+            current.resume();
+        }
+    }
+}
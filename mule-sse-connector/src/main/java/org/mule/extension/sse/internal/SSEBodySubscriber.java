@@ -0,0 +1,497 @@
+package org.mule.extension.sse.internal;
+
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * {@link HttpResponse.BodySubscriber} that feeds the body of an SSE HTTP response to an {@link SSEEventParser} as
+ * the bytes arrive, collecting the parsed events.
+ * <p>
+ * The response body never has to be buffered as a whole before being parsed. When the {@link SSEStopCondition} of
+ * the request is met, the subscription is cancelled, which aborts the HTTP exchange, and the body completes right
+ * away with the events collected so far. The same happens when the exchange is {@link #abort(SSETimeoutType) aborted}
+ * because one of its {@link SSETimeouts} expired, in which case the result is flagged as partial.
+ * <p>
+ * The events kept are accounted for by an {@link SSEMemoryGuard}. A response truncated by one of its limits also
+ * completes early, flagged as partial; a response over a limit whose action is to fail completes exceptionally with
+ * an {@link SSELimitExceededException}.
+ * <p>
+ * A subscriber can {@link #resume(Set) resume} another one whose connection dropped, as the next attempt of an
+ * {@link SSEResumingExchange}: it carries on with the same stop condition, memory guard and last event ID, and drops
+ * the events the server replays.
+ * <p>
+ * The subscriber also times the phases of the exchange, from its creation, which must therefore happen right before
+ * the request is sent. Use {@link #onResponse(HttpResponse.ResponseInfo)} as the body handler of the request, so
+ * the status and headers of the response are recorded too, and read them back with {@link #toAttributes()}.
+ */
+class SSEBodySubscriber implements HttpResponse.BodySubscriber<List<SSEEvent>>, SSEEventParser.Listener,
+        SSETimeouts.Progress, SSEContentDecoder.Listener {
+
+    private final List<SSEEvent> events = new ArrayList<>();
+
+    private final CompletableFuture<List<SSEEvent>> body = new CompletableFuture<>();
+
+    private final CompletableFuture<Void> firstEvent = new CompletableFuture<>();
+
+    private final SSEStopCondition stopCondition;
+
+    private final SSEEventParser parser;
+
+    private final SSEMemoryGuard guard;
+
+    private final SSEDataDecoding decoding;
+
+    private final SSEEventFilter filter;
+
+    private final long startNanos = System.nanoTime();
+
+    private Flow.Subscription subscription;
+
+    private SSETimeoutType expiredTimeout;
+
+    private boolean cancelled;
+
+    // Whether the events are kept when the body fails, for the next attempt to resume from
+    private boolean resumable;
+
+    // The subscriber of the next attempt, which cancelling this one cancels too
+    private SSEBodySubscriber resumedBy;
+
+    // IDs of the events received by the previous attempts, until the server sends a new one
+    private Set<String> seenIds;
+    private boolean replaying;
+    private int replayedEventCount;
+
+    private long bytesRead;
+    private long compressedBytesRead = -1;
+
+    // Exchange statistics, all guarded by this
+    private int statusCode;
+    private Map<String, List<String>> headers = Map.of();
+    private long headersNanos = -1;
+    private long firstByteNanos = -1;
+    private long firstEventNanos = -1;
+    private long lastEventNanos = -1;
+    private long maxEventGapNanos = -1;
+    private long endNanos = -1;
+    private long parseNanos;
+    private final Map<String, Integer> eventCounts = new HashMap<>();
+    private int skippedEventCount;
+
+    /**
+     * Creates a new subscriber.
+     *
+     * @param stopCondition the early termination condition of the request
+     * @param decoding      how the data of the parsed events is decoded
+     * @param filter        selects the events to keep and the part of their data to decode
+     * @param guard         enforces the memory limits on the events kept
+     */
+    SSEBodySubscriber(SSEStopCondition stopCondition, SSEDataDecoding decoding, SSEEventFilter filter,
+                      SSEMemoryGuard guard) {
+        this.stopCondition = stopCondition;
+        this.guard = guard;
+        this.decoding = decoding;
+        this.filter = filter;
+        this.parser = new SSEEventParser(this, decoding, filter, guard);
+    }
+
+    /**
+     * Creates the subscriber of the next attempt of a resumed exchange, which carries on where this one stopped.
+     * Must be called once this subscriber is done. The first event of the new subscriber completes the
+     * {@link #getFirstEvent() first event} of this one, and {@link #cancel() cancelling} this one cancels it.
+     *
+     * @param seenIds the IDs of the events received so far; events the server replays with one of them are dropped
+     * @return the new subscriber, itself resumable
+     */
+    synchronized SSEBodySubscriber resume(Set<String> seenIds) {
+        SSEBodySubscriber next = new SSEBodySubscriber(stopCondition, decoding, filter, guard);
+        next.parser.setLastEventId(parser.getLastEventId());
+        next.seenIds = seenIds;
+        next.resumable = true;
+        next.firstEvent.thenRun(() -> firstEvent.complete(null));
+        resumedBy = next;
+        return next;
+    }
+
+    /**
+     * Keeps the events received so far, and the data they spilled to disk, when the body fails, so that the
+     * exchange can be {@link #resume(Set) resumed}.
+     */
+    synchronized void setResumable() {
+        resumable = true;
+    }
+
+    /**
+     * Drops the events of a resumable subscriber whose exchange is given up.
+     */
+    synchronized void discard() {
+        guard.discard();
+    }
+
+    /**
+     * Records the status and headers of the response, and returns this subscriber to read its body. Meant to be
+     * used as the {@link HttpResponse.BodyHandler} of the request.
+     *
+     * @param responseInfo the status and headers of the response
+     * @return this subscriber
+     */
+    synchronized HttpResponse.BodySubscriber<List<SSEEvent>> onResponse(HttpResponse.ResponseInfo responseInfo) {
+        headersNanos = System.nanoTime();
+        statusCode = responseInfo.statusCode();
+        Map<String, List<String>> received = new LinkedHashMap<>();
+        responseInfo.headers().map().forEach((name, values) -> received.put(name.toLowerCase(Locale.ROOT), values));
+        headers = received;
+        return this;
+    }
+
+    /**
+     * Requests the whole body; the parser consumes each chunk synchronously, so no buffering builds up.
+     *
+     * @param subscription the subscription to the response body publisher
+     */
+    @Override
+    public synchronized void onSubscribe(Flow.Subscription subscription) {
+        if (expiredTimeout != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    /**
+     * Feeds the received chunks to the parser, and stops reading once the stop condition is met or a memory limit
+     * truncates the response.
+     *
+     * @param chunks the next chunks of the response body
+     */
+    @Override
+    public synchronized void onNext(List<ByteBuffer> chunks) {
+        if (body.isDone()) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (firstByteNanos < 0) {
+            firstByteNanos = start;
+        }
+        try {
+            for (ByteBuffer chunk : chunks) {
+                int length = chunk.remaining();
+                bytesRead += length;
+                parser.feed(chunk);
+                stopCondition.onBytes(length);
+                if (stopCondition.isMet() || guard.isExhausted()) {
+                    subscription.cancel();
+                    end();
+                    body.complete(events);
+                    return;
+                }
+            }
+        } catch (SSELimitExceededException | UncheckedIOException e) {
+            subscription.cancel();
+            fail(e);
+        } finally {
+            parseNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Counts the bytes received before decompression, when the response is compressed.
+     *
+     * @param bytes the number of compressed bytes received
+     */
+    @Override
+    public synchronized void onCompressedBytes(int bytes) {
+        compressedBytesRead = Math.max(compressedBytesRead, 0) + bytes;
+    }
+
+    /**
+     * Completes the body exceptionally.
+     *
+     * @param throwable the error that terminated the response body
+     */
+    @Override
+    public synchronized void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    /**
+     * Dispatches the last event of the stream, if it was not terminated by a blank line, and completes the body.
+     */
+    @Override
+    public synchronized void onComplete() {
+        if (!body.isDone()) {
+            long start = System.nanoTime();
+            try {
+                parser.finish();
+            } catch (SSELimitExceededException | UncheckedIOException e) {
+                fail(e);
+                return;
+            } finally {
+                parseNanos += System.nanoTime() - start;
+            }
+            end();
+            body.complete(events);
+        }
+    }
+
+    /**
+     * Stops reading the response body and completes it with the events collected so far. Safe to call from any
+     * thread, at any time; does nothing if the body is already complete.
+     *
+     * @param timeout the timeout that expired
+     * @return {@code true} if the body was still in progress and has been aborted
+     */
+    synchronized boolean abort(SSETimeoutType timeout) {
+        if (body.isDone()) {
+            return false;
+        }
+        expiredTimeout = timeout;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        end();
+        body.complete(new ArrayList<>(events));
+        return true;
+    }
+
+    /**
+     * Tells whether the exchange has been {@link #abort(SSETimeoutType) aborted}.
+     *
+     * @return {@code true} if the exchange has been aborted
+     */
+    synchronized boolean isAborted() {
+        return expiredTimeout != null;
+    }
+
+    /**
+     * Abandons the exchange, e.g. because a hedged request won the race: reading stops, and the body fails with a
+     * {@link CancellationException}. Safe to call from any thread, at any time; does nothing if the body is already
+     * complete.
+     */
+    synchronized void cancel() {
+        if (resumedBy != null) {
+            cancelled = true;
+            resumedBy.cancel();
+            return;
+        }
+        if (body.isDone()) {
+            return;
+        }
+        cancelled = true;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        fail(new CancellationException("SSE exchange cancelled"));
+    }
+
+    /**
+     * Tells whether the exchange has been {@link #cancel() cancelled}.
+     *
+     * @return {@code true} if the exchange has been cancelled
+     */
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns a stage completed once the first event is parsed, whether it is kept or skipped by the filters. The
+     * stage is completed by the thread reading the response, while it holds the lock of this subscriber: dependent
+     * actions that call back into another subscriber must run asynchronously.
+     *
+     * @return a stage completed with the first event
+     */
+    CompletionStage<Void> getFirstEvent() {
+        return firstEvent;
+    }
+
+    @Override
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    @Override
+    public synchronized long getLastEventNanos() {
+        return lastEventNanos;
+    }
+
+    @Override
+    public boolean isDone() {
+        return body.isDone();
+    }
+
+    /**
+     * Returns the events collected so far, e.g. before the connection dropped.
+     *
+     * @return a copy of the collected events, in stream order
+     */
+    synchronized List<SSEEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    /**
+     * Returns the ID of the last event received, to resume the stream from.
+     *
+     * @return the last event ID, or {@code null} if the server has not sent any
+     */
+    synchronized String getLastEventId() {
+        return parser.getLastEventId();
+    }
+
+    /**
+     * Returns the reconnection time requested by the server through the {@code retry:} field.
+     *
+     * @return the reconnection time in milliseconds, or {@code -1} if the server has not sent one
+     */
+    synchronized long getRetry() {
+        return parser.getRetry();
+    }
+
+    /**
+     * Returns the number of response body bytes read so far.
+     *
+     * @return the number of bytes read
+     */
+    synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the statistics of the exchange so far.
+     *
+     * @return the attributes of the response
+     */
+    synchronized SSEResponseAttributes toAttributes() {
+        long end = endNanos >= 0 ? endNanos : System.nanoTime();
+        long maxEventGap = maxEventGapNanos;
+        if (expiredTimeout == SSETimeoutType.IDLE && lastEventNanos >= 0) {
+            // The gap the idle timeout cut short is the longest one
+            maxEventGap = Math.max(maxEventGap, end - lastEventNanos);
+        }
+        return new SSEResponseAttributes(statusCode, headers, sinceStartMillis(headersNanos),
+                sinceStartMillis(firstByteNanos), sinceStartMillis(firstEventNanos), sinceStartMillis(end),
+                maxEventGap >= 0 ? maxEventGap / 1_000_000 : -1,
+                bytesRead, compressedBytesRead >= 0 ? compressedBytesRead : bytesRead, new HashMap<>(eventCounts),
+                skippedEventCount, parseNanos / 1_000, expiredTimeout, guard.getExceededLimit(),
+                guard.getSpilledBytes(), 0, replayedEventCount, false);
+    }
+
+    /**
+     * Collects a parsed event, unless the stop condition discards it or a memory limit truncates the response.
+     *
+     * @param event the parsed event
+     */
+    @Override
+    public void onEvent(SSEEvent event) {
+        if (guard.isExhausted()) {
+            // The rest of the chunk is still parsed, but nothing more is kept
+            return;
+        }
+        if (seenIds != null && isReplayed(event)) {
+            received(System.nanoTime());
+            firstEvent.complete(null);
+            replayedEventCount++;
+            return;
+        }
+        if (stopCondition.accept(event) && guard.admit(event, parser.getDispatchedDataLength())) {
+            long now = System.nanoTime();
+            if (firstEventNanos < 0) {
+                firstEventNanos = now;
+            }
+            received(now);
+            firstEvent.complete(null);
+            event.setReceivedNanos(now);
+            eventCounts.merge(event.getEvent(), 1, Integer::sum);
+            events.add(event);
+        } else {
+            received(System.nanoTime());
+            firstEvent.complete(null);
+            skippedEventCount++;
+        }
+    }
+
+    /**
+     * Lets the stop condition account for an event skipped by the filter.
+     *
+     * @param eventType the type of the skipped event
+     */
+    @Override
+    public void onSkippedEvent(String eventType) {
+        received(System.nanoTime());
+        firstEvent.complete(null);
+        skippedEventCount++;
+        stopCondition.acceptSkipped(eventType);
+    }
+
+    /**
+     * Returns the events parsed from the response body, once it is complete.
+     *
+     * @return a stage completed with the parsed events, in stream order
+     */
+    @Override
+    public CompletionStage<List<SSEEvent>> getBody() {
+        return body;
+    }
+
+    /**
+     * Records the time an event was received, and the gap since the previous one.
+     */
+    private void received(long now) {
+        if (lastEventNanos >= 0) {
+            maxEventGapNanos = Math.max(maxEventGapNanos, now - lastEventNanos);
+        }
+        lastEventNanos = now;
+    }
+
+    private void end() {
+        if (endNanos < 0) {
+            endNanos = System.nanoTime();
+        }
+        guard.release();
+    }
+
+    private void fail(Throwable throwable) {
+        if (body.isDone()) {
+            // The events already handed over may still need the spill file
+            return;
+        }
+        end();
+        if (!resumable) {
+            guard.discard();
+        }
+        body.completeExceptionally(throwable);
+    }
+
+    /**
+     * Tells whether an event of a resumed stream was already received by a previous attempt. The server may replay
+     * events from before the last event ID: an event with an ID of its own that was seen is a replay, and so are the
+     * events without one that follow it. The first event with a new ID ends the replay.
+     */
+    private boolean isReplayed(SSEEvent event) {
+        if (parser.isDispatchedIdExplicit()) {
+            if (seenIds.contains(event.getId())) {
+                replaying = true;
+                return true;
+            }
+            seenIds = null;
+            return false;
+        }
+        return replaying;
+    }
+
+    private long sinceStartMillis(long nanos) {
+        return nanos < 0 ? -1 : (nanos - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,149 @@
+package org.mule.extension.sse.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fails the requests of a configuration right away while its upstream is failing, as defined by its
+ * {@link CircuitBreakerParameters}.
+ * <p>
+ * The circuit is {@link State#CLOSED closed} while requests succeed, and {@link State#OPEN opens} after a number
+ * of consecutive failures. Once the open duration has elapsed, the next requests find it
+ * {@link State#HALF_OPEN half-open}: a few of them are let through as probes, and the others are rejected. The
+ * circuit closes once all the probes succeed, and opens again as soon as one of them fails. Each transition is
+ * logged and published in the {@link SSEMetrics} of the configuration.
+ * <p>
+ * Instances are thread-safe.
+ */
+class SSECircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSECircuitBreaker.class);
+
+    /**
+     * The states of a circuit.
+     */
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final SSEMetrics metrics;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    /**
+     * Creates a new, closed circuit breaker.
+     *
+     * @param parameters the circuit breaker settings of the configuration
+     * @param metrics    the metrics of the configuration, which publish the state of the circuit
+     */
+    SSECircuitBreaker(CircuitBreakerParameters parameters, SSEMetrics metrics) {
+        this.failureThreshold = Math.max(1, parameters.getFailureThreshold());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, parameters.getOpenDuration()));
+        this.halfOpenProbes = Math.max(1, parameters.getHalfOpenProbes());
+        this.metrics = metrics;
+        metrics.recordCircuitState(state.name());
+    }
+
+    /**
+     * Lets a new request through, if the circuit allows it.
+     *
+     * @return the state the request was let through in, to hand back to {@link #onSuccess(State)},
+     * {@link #onFailure(State)} or {@link #release(State)}; {@code null} if the request must fail right away
+     */
+    synchronized State tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                metrics.recordCircuitRejection();
+                return null;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                metrics.recordCircuitRejection();
+                return null;
+            }
+            probesInFlight++;
+        }
+        return state;
+    }
+
+    /**
+     * Records a request that succeeded.
+     *
+     * @param admittedIn the state returned by {@link #tryAcquire()} for the request
+     */
+    synchronized void onSuccess(State admittedIn) {
+        if (admittedIn == State.HALF_OPEN) {
+            if (state == State.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                if (++probeSuccesses >= halfOpenProbes) {
+                    transition(State.CLOSED);
+                }
+            }
+        } else if (state == State.CLOSED) {
+            consecutiveFailures = 0;
+        }
+    }
+
+    /**
+     * Records a request that failed, timed out, or was answered with a server error.
+     *
+     * @param admittedIn the state returned by {@link #tryAcquire()} for the request
+     */
+    synchronized void onFailure(State admittedIn) {
+        if (admittedIn == State.HALF_OPEN) {
+            if (state == State.HALF_OPEN) {
+                transition(State.OPEN);
+            }
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * Records a request that ended without telling anything about the upstream, e.g. because it was cancelled.
+     *
+     * @param admittedIn the state returned by {@link #tryAcquire()} for the request
+     */
+    synchronized void release(State admittedIn) {
+        if (admittedIn == State.HALF_OPEN && state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+        }
+    }
+
+    /**
+     * Returns the current state of the circuit.
+     *
+     * @return the state
+     */
+    synchronized State getState() {
+        return state;
+    }
+
+    private void transition(State next) {
+        State previous = state;
+        state = next;
+        consecutiveFailures = 0;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+            LOGGER.warn("SSE circuit breaker opened ({}); requests fail right away for {} ms",
+                    previous == State.HALF_OPEN ? "probe failed" : failureThreshold + " consecutive failures",
+                    TimeUnit.NANOSECONDS.toMillis(openNanos));
+        } else {
+            LOGGER.info("SSE circuit breaker {}",
+                    next == State.CLOSED ? "closed" : "half-open; sending probe requests");
+        }
+        metrics.recordCircuitState(next.name());
+    }
+}
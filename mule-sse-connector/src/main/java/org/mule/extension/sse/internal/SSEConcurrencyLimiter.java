@@ -0,0 +1,115 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * Caps the number of requests of a configuration in flight at once, as defined by its
+ * {@link ConcurrencyLimitParameters}.
+ * <p>
+ * The adaptive limit follows the additive increase, multiplicative decrease scheme of TCP congestion control: a
+ * request whose time to first event stays under the latency threshold raises the limit by one, provided the
+ * requests in flight actually used at least half of it, and a slower, timed out or failed request lowers it by
+ * {@value #BACKOFF_RATIO_PERCENT}%. Each change of the limit is published in the {@link SSEMetrics} of the
+ * configuration.
+ * <p>
+ * Instances are thread-safe.
+ */
+class SSEConcurrencyLimiter {
+
+    /**
+     * The initial adaptive limit, when no maximum is set.
+     */
+    static final int INITIAL_LIMIT = 100;
+
+    /**
+     * The highest adaptive limit, when no maximum is set.
+     */
+    static final int MAX_LIMIT = 1_000;
+
+    private static final int BACKOFF_RATIO_PERCENT = 10;
+
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdMillis;
+    private final SSEMetrics metrics;
+
+    // Guarded by this
+    private int limit;
+    private int inFlight;
+
+    /**
+     * Creates a new limiter.
+     *
+     * @param parameters the concurrency limit settings of the configuration
+     * @param metrics    the metrics of the configuration, which publish the limit and the rejected requests
+     */
+    SSEConcurrencyLimiter(ConcurrencyLimitParameters parameters, SSEMetrics metrics) {
+        this.adaptive = parameters.isAdaptive();
+        this.maxLimit = parameters.getMaxRequestsInFlight() > 0 ? parameters.getMaxRequestsInFlight() : MAX_LIMIT;
+        this.minLimit = Math.max(1, Math.min(parameters.getMinRequestsInFlight(), maxLimit));
+        this.latencyThresholdMillis = parameters.getLatencyThreshold();
+        this.metrics = metrics;
+        this.limit = parameters.getMaxRequestsInFlight() > 0 ? maxLimit : INITIAL_LIMIT;
+        metrics.recordConcurrencyLimit(limit);
+    }
+
+    /**
+     * Takes a slot for a new request, if the limit allows it.
+     *
+     * @return {@code true} if the request may be sent; it must then {@link #release(long, boolean) release} its slot
+     */
+    synchronized boolean tryAcquire() {
+        if (!tryAcquireExtra()) {
+            metrics.recordBulkheadRejection();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Takes a slot for an extra exchange of a request already in flight, e.g. a hedge, if the limit allows it. A
+     * refused slot is not a rejected request.
+     *
+     * @return {@code true} if the exchange may be sent; it must then {@link #release(long, boolean) release} its slot,
+     * with an unknown time to first event so the limit only follows the outcome of the request
+     */
+    synchronized boolean tryAcquireExtra() {
+        if (inFlight >= limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Releases the slot of a completed request, and adapts the limit to its outcome.
+     *
+     * @param timeToFirstEventMillis the time to first event of the request, or {@code -1} if it is unknown, in which
+     *                               case only a failure adapts the limit
+     * @param failed                 whether the request failed or timed out
+     */
+    synchronized void release(long timeToFirstEventMillis, boolean failed) {
+        int used = inFlight--;
+        if (!adaptive) {
+            return;
+        }
+        int next = limit;
+        if (failed || timeToFirstEventMillis > latencyThresholdMillis) {
+            next = Math.max(minLimit, limit - Math.max(1, limit * BACKOFF_RATIO_PERCENT / 100));
+        } else if (timeToFirstEventMillis >= 0 && used * 2 >= limit) {
+            next = Math.min(maxLimit, limit + 1);
+        }
+        if (next != limit) {
+            limit = next;
+            metrics.recordConcurrencyLimit(limit);
+        }
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the maximum number of requests in flight at once
+     */
+    synchronized int getLimit() {
+        return limit;
+    }
+}
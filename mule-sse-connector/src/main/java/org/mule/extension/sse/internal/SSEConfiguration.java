@@ -1,17 +1,30 @@
 package org.mule.extension.sse.internal;
 
+import org.mule.runtime.api.component.ConfigurationProperties;
+import org.mule.runtime.api.lifecycle.Disposable;
+import org.mule.runtime.api.lifecycle.Initialisable;
+import org.mule.runtime.api.lifecycle.Startable;
+import org.mule.runtime.api.lifecycle.Stoppable;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.api.scheduler.SchedulerService;
 import org.mule.runtime.extension.api.annotation.Operations;
+import org.mule.runtime.extension.api.annotation.Sources;
+import org.mule.runtime.extension.api.annotation.connectivity.ConnectionProviders;
 import org.mule.runtime.extension.api.annotation.param.Optional;
 import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
+import org.mule.runtime.extension.api.annotation.param.RefName;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 import org.mule.runtime.extension.api.annotation.param.display.Summary;
 
+import javax.inject.Inject;
+
 /**
  * Configuration class for the SSE (Server-Sent Events) Mule 4 connector.
  * <p>
  * This class defines the configuration parameters that are shared across
  * multiple operations within the connector. These values represent core
- * settings such as the base URL of the SSE server and the request timeout.
+ * settings such as the base URL of the SSE server and the request timeouts.
  * </p>
  *
  * <p>
@@ -22,7 +35,15 @@ import org.mule.runtime.extension.api.annotation.param.display.Summary;
  * @since 1.0
  */
 @Operations(SSEOperations.class)
-public class SSEConfiguration {
+@ConnectionProviders({SSEConnectionProvider.class, SSEReplayConnectionProvider.class})
+@Sources(SSEListener.class)
+public class SSEConfiguration implements Initialisable, Startable, Stoppable, Disposable {
+
+    /**
+     * The name of this configuration, as declared in the Mule application.
+     */
+    @RefName
+    private String configName;
 
     /**
      * The base URL of the SSE server to connect to.
@@ -41,8 +62,9 @@ public class SSEConfiguration {
      * The maximum time, in milliseconds, that the connector will block
      * while waiting for an SSE HTTP response.
      * <p>
-     * If the server does not respond within this period, the request will
-     * timeout. This parameter is optional, and if not set, defaults to
+     * If the server does not end the stream within this period, the exchange
+     * is aborted and the events received so far are returned, flagged as
+     * partial. This parameter is optional, and if not set, defaults to
      * 60,000 ms (1 minute).
      * </p>
      */
@@ -52,6 +74,156 @@ public class SSEConfiguration {
     @Summary("Maximum time in milliseconds that the request will block the execution of the flow waiting for the HTTP response (default: 60,000 milliseconds).")
     private long responseTimeout;
 
+    /**
+     * The maximum time, in milliseconds, to wait for the first event after
+     * sending the request, whether the event is kept or skipped by the
+     * filters of the request.
+     * <p>
+     * Fails fast on an upstream that accepts the request but never starts
+     * streaming. Like the response timeout, the events received so far, if
+     * any, are returned flagged as partial. Optional; defaults to {@code 0},
+     * meaning no limit besides the response timeout. The time to establish
+     * the connection is bounded by the connection timeout of the connection
+     * provider.
+     * </p>
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Time to first event timeout")
+    @Summary("Maximum time in milliseconds to wait for the first event after sending the request; the exchange is then aborted (default: 0, no limit).")
+    private long firstEventTimeout;
+
+    /**
+     * The maximum time, in milliseconds, to wait for the next event once the
+     * stream has started.
+     * <p>
+     * Stops waiting for an upstream that stalls mid-stream, and returns the
+     * events received so far, flagged as partial. Optional; defaults to
+     * {@code 0}, meaning no limit besides the response timeout.
+     * </p>
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Idle timeout")
+    @Summary("Maximum time in milliseconds between two events; the exchange is then aborted and the events received so far are returned (default: 0, no limit).")
+    private long idleTimeout;
+
+    /**
+     * The settings of the response cache of the {@code Get Events} operations.
+     */
+    @ParameterGroup(name = "Response Cache")
+    private ResponseCacheParameters responseCacheParameters;
+
+    /**
+     * The settings of the hedged requests of the {@code Get Events} operations.
+     */
+    @ParameterGroup(name = "Hedging")
+    private HedgingParameters hedgingParameters;
+
+    /**
+     * The memory limits of the {@code Get Events} operations.
+     */
+    @ParameterGroup(name = "Memory Limits")
+    private MemoryLimitParameters memoryLimitParameters;
+
+    /**
+     * The concurrency limit of the {@code Get Events} operations.
+     */
+    @ParameterGroup(name = "Concurrency Limit")
+    private ConcurrencyLimitParameters concurrencyLimitParameters;
+
+    /**
+     * The circuit breaker settings of the {@code Get Events} operations.
+     */
+    @ParameterGroup(name = "Circuit Breaker")
+    private CircuitBreakerParameters circuitBreakerParameters;
+
+    /**
+     * The reconnection settings of the {@code Get Events} operations.
+     */
+    @ParameterGroup(name = "Reconnection")
+    private ReconnectionParameters reconnectionParameters;
+
+    /**
+     * The event types of the SSE endpoint, which type the output of the operations and the listener.
+     */
+    @ParameterGroup(name = "Event Types")
+    private EventTypeParameters eventTypeParameters;
+
+    /**
+     * The settings of the connections opened when this configuration starts and kept warm.
+     */
+    @ParameterGroup(name = "Connection Warm-Up")
+    private WarmUpParameters warmUpParameters;
+
+    /**
+     * The settings of the timeouts derived from the latencies observed on each endpoint.
+     */
+    @ParameterGroup(name = "Adaptive Timeouts")
+    private AdaptiveTimeoutParameters adaptiveTimeoutParameters;
+
+    @Inject
+    private SchedulerService schedulerService;
+
+    @Inject
+    private ConfigurationProperties configurationProperties;
+
+    /**
+     * Scheduler of the warm-up and keep-alive requests; created when the configuration starts, if warm-up is
+     * enabled.
+     */
+    private Scheduler warmUpScheduler;
+
+    /**
+     * Shared upstream streams of the listeners defined on this configuration.
+     */
+    private final SSEStreamHub streamHub = new SSEStreamHub(this);
+
+    /**
+     * Aggregated metrics of the exchanges of this configuration, published through JMX.
+     */
+    private final SSEMetrics metrics = new SSEMetrics();
+
+    /**
+     * Response cache of the operations executed against this configuration; created on first use, if enabled.
+     */
+    private SSEResponseCache responseCache;
+
+    /**
+     * Hedging policy of the operations executed against this configuration; created on first use, if enabled.
+     */
+    private SSEHedgePolicy hedgePolicy;
+
+    /**
+     * Concurrency limiter of the operations executed against this configuration; created on first use, if enabled.
+     */
+    private SSEConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Circuit breaker of the operations executed against this configuration; created on first use, if enabled.
+     */
+    private SSECircuitBreaker circuitBreaker;
+
+    /**
+     * Reconnection policy of the operations executed against this configuration; created on first use, if enabled.
+     */
+    private SSEReconnectPolicy reconnectPolicy;
+
+    /**
+     * Reconnection policy of the listeners of this configuration, which always reconnect; created on first use.
+     */
+    private SSEReconnectPolicy streamReconnectPolicy;
+
+    /**
+     * Adaptive timeouts of the operations executed against this configuration; created on first use, if enabled.
+     */
+    private SSEAdaptiveTimeouts adaptiveTimeouts;
+
+    /**
+     * Data types of the event types of this configuration; loaded on first use, if any is defined.
+     */
+    private SSEEventTypes eventTypes;
+
     /**
      * Gets the configured base URL of the SSE server.
      *
@@ -69,4 +241,205 @@ public class SSEConfiguration {
     public long getResponseTimeout() {
         return this.responseTimeout;
     }
+
+    /**
+     * Gets the configured time-to-first-event timeout.
+     *
+     * @return the time-to-first-event timeout in milliseconds, or {@code 0} for no limit
+     */
+    public long getFirstEventTimeout() {
+        return this.firstEventTimeout;
+    }
+
+    /**
+     * Gets the configured idle timeout between events.
+     *
+     * @return the idle timeout in milliseconds, or {@code 0} for no limit
+     */
+    public long getIdleTimeout() {
+        return this.idleTimeout;
+    }
+
+    /**
+     * Gets the registry of the upstream streams shared by the listeners of this configuration.
+     *
+     * @return the stream hub
+     */
+    SSEStreamHub getStreamHub() {
+        return this.streamHub;
+    }
+
+    /**
+     * Gets the connection Mule caches for the operations of this configuration, which the listeners share.
+     *
+     * @return the connection, or {@code null} if the connection provider has not connected yet
+     */
+    SSEConnection getCachedConnection() {
+        return configName != null ? SSEConnectionWarmer.of(configName).getConnection() : null;
+    }
+
+    /**
+     * Gets the response cache of this configuration.
+     *
+     * @return the response cache, or {@code null} if it is disabled
+     */
+    synchronized SSEResponseCache getResponseCache() {
+        if (responseCache == null && responseCacheParameters != null && responseCacheParameters.isEnabled()) {
+            responseCache = new SSEResponseCache(responseCacheParameters, metrics);
+        }
+        return responseCache;
+    }
+
+    /**
+     * Gets the hedging policy of this configuration.
+     *
+     * @return the hedging policy, or {@code null} if hedging is disabled
+     */
+    synchronized SSEHedgePolicy getHedgePolicy() {
+        if (hedgePolicy == null && hedgingParameters != null && hedgingParameters.isEnabled()) {
+            hedgePolicy = new SSEHedgePolicy(hedgingParameters, metrics);
+        }
+        return hedgePolicy;
+    }
+
+    /**
+     * Gets the memory limits of this configuration.
+     *
+     * @return the memory limits, or {@code null} if none are set
+     */
+    MemoryLimitParameters getMemoryLimitParameters() {
+        return this.memoryLimitParameters;
+    }
+
+    /**
+     * Gets the concurrency limiter of this configuration.
+     *
+     * @return the concurrency limiter, or {@code null} if there is no limit
+     */
+    synchronized SSEConcurrencyLimiter getConcurrencyLimiter() {
+        if (concurrencyLimiter == null && concurrencyLimitParameters != null
+                && (concurrencyLimitParameters.getMaxRequestsInFlight() > 0
+                        || concurrencyLimitParameters.isAdaptive())) {
+            concurrencyLimiter = new SSEConcurrencyLimiter(concurrencyLimitParameters, metrics);
+        }
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Gets the circuit breaker of this configuration.
+     *
+     * @return the circuit breaker, or {@code null} if it is disabled
+     */
+    synchronized SSECircuitBreaker getCircuitBreaker() {
+        if (circuitBreaker == null && circuitBreakerParameters != null && circuitBreakerParameters.isEnabled()) {
+            circuitBreaker = new SSECircuitBreaker(circuitBreakerParameters, metrics);
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * Gets the reconnection policy of this configuration.
+     *
+     * @return the reconnection policy, or {@code null} if reconnection is disabled
+     */
+    synchronized SSEReconnectPolicy getReconnectPolicy() {
+        if (reconnectPolicy == null && reconnectionParameters != null && reconnectionParameters.isEnabled()) {
+            reconnectPolicy = new SSEReconnectPolicy(reconnectionParameters);
+        }
+        return reconnectPolicy;
+    }
+
+    /**
+     * Gets the reconnection policy of the listeners of this configuration. Listeners always reconnect, whether
+     * reconnection is enabled or not, with the delays and the maximum number of consecutive reconnections of the
+     * reconnection settings; the share of reconnections does not apply.
+     *
+     * @return the reconnection policy of the listeners
+     */
+    synchronized SSEReconnectPolicy getStreamReconnectPolicy() {
+        if (streamReconnectPolicy == null) {
+            streamReconnectPolicy = new SSEReconnectPolicy(
+                    reconnectionParameters != null ? reconnectionParameters : new ReconnectionParameters());
+        }
+        return streamReconnectPolicy;
+    }
+
+    /**
+     * Gets the data types of the event types of this configuration.
+     *
+     * @return the event types, or {@code null} if none is defined
+     * @throws IllegalArgumentException if a sample or schema cannot be loaded
+     */
+    synchronized SSEEventTypes getEventTypes() {
+        if (eventTypes == null && eventTypeParameters != null) {
+            eventTypes = SSEEventTypes.load(eventTypeParameters);
+        }
+        return eventTypes;
+    }
+
+    /**
+     * Gets the adaptive timeouts of this configuration.
+     *
+     * @return the adaptive timeouts, or {@code null} if they are disabled
+     */
+    synchronized SSEAdaptiveTimeouts getAdaptiveTimeouts() {
+        if (adaptiveTimeouts == null && adaptiveTimeoutParameters != null && adaptiveTimeoutParameters.isEnabled()) {
+            adaptiveTimeouts = new SSEAdaptiveTimeouts(adaptiveTimeoutParameters, this);
+        }
+        return adaptiveTimeouts;
+    }
+
+    /**
+     * Gets the aggregated metrics of the exchanges of this configuration.
+     *
+     * @return the metrics
+     */
+    SSEMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Publishes the metrics of this configuration through JMX.
+     */
+    @Override
+    public void initialise() {
+        // Configuration names are only unique within an application
+        String appName = configurationProperties != null
+                ? configurationProperties.resolveStringProperty("app.name").orElse(null)
+                : null;
+        metrics.register(appName, configName);
+    }
+
+    /**
+     * Starts reporting the connection metrics of this configuration and, if warm-up is enabled, opens its
+     * connections to the SSE server.
+     */
+    @Override
+    public void start() {
+        if (warmUpParameters != null && warmUpParameters.isEnabled() && schedulerService != null) {
+            warmUpScheduler = schedulerService.cpuLightScheduler();
+        }
+        SSEConnectionWarmer.of(configName).start(warmUpParameters, sseServerBaseURL, metrics, warmUpScheduler);
+    }
+
+    /**
+     * Stops keeping the connections of this configuration warm.
+     */
+    @Override
+    public void stop() {
+        SSEConnectionWarmer.of(configName).stop();
+        if (warmUpScheduler != null) {
+            warmUpScheduler.stop();
+            warmUpScheduler = null;
+        }
+    }
+
+    /**
+     * Withdraws the metrics of this configuration from JMX.
+     */
+    @Override
+    public void dispose() {
+        SSEConnectionWarmer.release(configName);
+        metrics.unregister();
+    }
 }
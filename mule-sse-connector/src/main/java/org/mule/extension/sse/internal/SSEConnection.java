@@ -0,0 +1,403 @@
+package org.mule.extension.sse.internal;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents a connection to an SSE server.
+ * <p>
+ * Wraps the {@link HttpClient} used to invoke SSE endpoints. The client is thread-safe and pools the underlying
+ * TCP connections, so a single instance is shared by all the operations executed against a configuration.
+ * <p>
+ * The number of exchanges in progress at the same time can be capped: once the cap is reached, new requests wait
+ * for a running exchange to end, so a burst of flows cannot open an unbounded number of streams to the server.
+ * Asynchronous requests wait without holding a thread; see {@link SSEStreamPermits}.
+ * <p>
+ * Compressed response bodies are decompressed as they arrive, before being handed to the body handler of the
+ * request.
+ * <p>
+ * The {@link HttpClient} does not expose its pooled connections, so they are told apart by their TLS session: a
+ * response received over a session not seen before went through a new connection and a TLS handshake, any other
+ * one reused a pooled connection. Connections to plain {@code http} servers are not counted.
+ * <p>
+ * The responses can be recorded, with their timing, by an {@link SSEStreamRecorder}, and replayed offline by an
+ * {@link SSEReplayConnection}.
+ * <p>
+ * Connections can be opened ahead of the first request, and kept open while no request is sent, with
+ * {@link #ping(URI, long) pings}; see {@link SSEConnectionWarmer}.
+ *
+ * @since 1.0
+ */
+public class SSEConnection {
+
+    private static final int MAX_TLS_SESSIONS = 1024;
+
+    private final HttpClient client;
+
+    private final ExecutorService executor;
+
+    private final SSEStreamPermits streamPermits;
+
+    private final boolean compression;
+
+    private final SSEStreamRecorder recorder;
+
+    private volatile boolean closed;
+
+    private volatile SSEMetrics metrics;
+
+    private final AtomicInteger exchangesInProgress = new AtomicInteger();
+
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    // The TLS sessions seen so far, by ID and creation time, evicting the least recently used ones
+    private final Map<String, Boolean> tlsSessions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_TLS_SESSIONS;
+        }
+    };
+
+    /**
+     * Creates a new connection backed by the given HTTP client, without any cap on concurrent streams.
+     *
+     * @param client the HTTP client used to send SSE requests
+     */
+    public SSEConnection(HttpClient client) {
+        this(client, null, 0, 0);
+    }
+
+    /**
+     * Creates a new connection backed by the given HTTP client.
+     *
+     * @param client               the HTTP client used to send SSE requests
+     * @param executor             the executor of the HTTP client, shut down when the connection is closed; may be
+     *                             {@code null} if the client uses its own
+     * @param maxConcurrentStreams the maximum number of exchanges in progress at the same time, or {@code 0} for no
+     *                             limit
+     * @param acquireTimeout       the maximum time, in milliseconds, a request waits for a stream to become
+     *                             available, or {@code 0} to wait indefinitely
+     */
+    public SSEConnection(HttpClient client, ExecutorService executor, int maxConcurrentStreams, long acquireTimeout) {
+        this(client, executor, maxConcurrentStreams, acquireTimeout, false);
+    }
+
+    /**
+     * Creates a new connection backed by the given HTTP client.
+     *
+     * @param client               the HTTP client used to send SSE requests
+     * @param executor             the executor of the HTTP client, shut down when the connection is closed; may be
+     *                             {@code null} if the client uses its own
+     * @param maxConcurrentStreams the maximum number of exchanges in progress at the same time, or {@code 0} for no
+     *                             limit
+     * @param acquireTimeout       the maximum time, in milliseconds, a request waits for a stream to become
+     *                             available, or {@code 0} to wait indefinitely
+     * @param compression          whether requests ask the server to compress responses
+     */
+    public SSEConnection(HttpClient client, ExecutorService executor, int maxConcurrentStreams, long acquireTimeout,
+                         boolean compression) {
+        this(client, executor, maxConcurrentStreams, acquireTimeout, compression, null);
+    }
+
+    /**
+     * Creates a new connection backed by the given HTTP client, recording its responses.
+     *
+     * @param client               the HTTP client used to send SSE requests
+     * @param executor             the executor of the HTTP client, shut down when the connection is closed; may be
+     *                             {@code null} if the client uses its own
+     * @param maxConcurrentStreams the maximum number of exchanges in progress at the same time, or {@code 0} for no
+     *                             limit
+     * @param acquireTimeout       the maximum time, in milliseconds, a request waits for a stream to become
+     *                             available, or {@code 0} to wait indefinitely
+     * @param compression          whether requests ask the server to compress responses
+     * @param recorder             records the responses, closed when the connection is closed; may be {@code null}
+     */
+    SSEConnection(HttpClient client, ExecutorService executor, int maxConcurrentStreams, long acquireTimeout,
+                  boolean compression, SSEStreamRecorder recorder) {
+        this.recorder = recorder;
+        this.client = client;
+        this.executor = executor;
+        this.streamPermits = maxConcurrentStreams > 0
+                ? new SSEStreamPermits(maxConcurrentStreams, acquireTimeout)
+                : null;
+        this.compression = compression;
+    }
+
+    /**
+     * Sends the given request, blocking until the response body has been fully handled.
+     *
+     * @param request     the request to send
+     * @param bodyHandler the handler of the response body
+     * @param <T>         the response body type
+     * @return the response
+     * @throws IOException          if an I/O error occurs when sending or receiving, or no stream becomes available
+     *                              in time
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the response
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        acquireStream();
+        exchangeStarted();
+        try {
+            HttpResponse<T> response = client.send(withAcceptEncoding(request),
+                    SSEContentDecoder.decoding(recording(request, bodyHandler)));
+            recordConnectionUse(response, true);
+            return response;
+        } finally {
+            exchangeEnded();
+            releaseStream();
+        }
+    }
+
+    /**
+     * Sends the given request asynchronously.
+     * <p>
+     * The calling thread never blocks: while the maximum number of concurrent streams is reached, the request is
+     * sent once a running exchange ends. The stream is released when the returned future completes; cancelling the
+     * future aborts the exchange, or stops waiting for a stream, and releases it too.
+     *
+     * @param request     the request to send
+     * @param bodyHandler the handler of the response body
+     * @param <T>         the response body type
+     * @return a future completed with the response once the body has been fully handled, or failed if no stream
+     * becomes available in time
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> bodyHandler) {
+        if (streamPermits == null) {
+            return start(request, bodyHandler);
+        }
+        CompletableFuture<Void> permit = streamPermits.acquire();
+        if (permit.isDone() && !permit.isCompletedExceptionally()) {
+            return start(request, bodyHandler);
+        }
+
+        CompletableFuture<HttpResponse<T>> response = new CompletableFuture<>();
+        permit.whenComplete((acquired, error) -> {
+            if (error != null) {
+                response.completeExceptionally(error);
+                return;
+            }
+            if (response.isDone()) {
+                // Abandoned while the stream was being handed over
+                streamPermits.release();
+                return;
+            }
+            CompletableFuture<HttpResponse<T>> exchange;
+            try {
+                exchange = start(request, bodyHandler);
+            } catch (RuntimeException e) {
+                response.completeExceptionally(e);
+                return;
+            }
+            exchange.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    response.completeExceptionally(failure);
+                } else {
+                    response.complete(result);
+                }
+            });
+            response.whenComplete((result, failure) -> {
+                if (response.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            });
+        });
+        response.whenComplete((result, error) -> {
+            if (response.isCancelled()) {
+                streamPermits.abandon(permit);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Sends the given request asynchronously, once its stream is acquired, and releases the stream when the
+     * exchange ends.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> start(HttpRequest request,
+                                                         HttpResponse.BodyHandler<T> bodyHandler) {
+        exchangeStarted();
+        CompletableFuture<HttpResponse<T>> response;
+        try {
+            response = client.sendAsync(withAcceptEncoding(request),
+                    SSEContentDecoder.decoding(recording(request, bodyHandler)));
+        } catch (RuntimeException e) {
+            exchangeEnded();
+            releaseStream();
+            throw e;
+        }
+        response.whenComplete((result, error) -> {
+            exchangeEnded();
+            releaseStream();
+            recordConnectionUse(result, true);
+        });
+        return response;
+    }
+
+    /**
+     * Sends a {@code HEAD} request to the given URI, to open a connection to the server, or keep one open. The
+     * request does not count against the maximum number of concurrent streams, and does not make the connection
+     * look used.
+     *
+     * @param uri     the URI to send the request to
+     * @param timeout the maximum time, in milliseconds, to wait for the response
+     * @return a future completed with the response, whatever its status code, or failed if the server cannot be
+     * reached
+     */
+    CompletableFuture<HttpResponse<Void>> ping(URI uri, long timeout) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofMillis(timeout))
+                .build();
+        CompletableFuture<HttpResponse<Void>> response =
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        response.whenComplete((result, error) -> recordConnectionUse(result, false));
+        return response;
+    }
+
+    /**
+     * Tells whether the streams of this connection are multiplexed over a single connection per server, in which
+     * case a single {@link #ping(URI, long) ping} opens it.
+     *
+     * @return {@code true} if the HTTP client prefers HTTP/2
+     */
+    boolean isMultiplexed() {
+        return client != null && client.version() == HttpClient.Version.HTTP_2;
+    }
+
+    /**
+     * Reports the TLS handshakes and the reuse of pooled connections to the given metrics.
+     *
+     * @param metrics the metrics of the configuration of this connection, or {@code null} to stop reporting
+     */
+    void bind(SSEMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the time elapsed since an exchange, other than a {@link #ping(URI, long)}, last ended.
+     *
+     * @return the idle time in nanoseconds, or {@code 0} while an exchange is in progress
+     */
+    long getIdleNanos() {
+        return exchangesInProgress.get() > 0 ? 0 : Math.max(0, System.nanoTime() - lastUsedNanos);
+    }
+
+    /**
+     * Tells whether the connection has been closed.
+     *
+     * @return {@code true} once {@link #close()} has been called
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the connection, shutting down its executor, if any, and closing its recording. Exchanges in progress
+     * are not interrupted, but may fail once the executor stops accepting tasks. Closing it again has no effect.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (recorder != null) {
+            recorder.close();
+        }
+    }
+
+    /**
+     * Wraps the given body handler so the response is recorded, if the responses of this connection are.
+     */
+    private <T> HttpResponse.BodyHandler<T> recording(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        return recorder != null ? recorder.recording(request, bodyHandler) : bodyHandler;
+    }
+
+    /**
+     * Adds the {@code Accept-Encoding} header to the given request, if compression is enabled and the request does
+     * not set the header itself.
+     */
+    private HttpRequest withAcceptEncoding(HttpRequest request) {
+        if (!compression || request.headers().firstValue("Accept-Encoding").isPresent()) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("Accept-Encoding", SSEContentDecoder.ACCEPT_ENCODING)
+                .build();
+    }
+
+    private void exchangeStarted() {
+        exchangesInProgress.incrementAndGet();
+        lastUsedNanos = System.nanoTime();
+    }
+
+    private void exchangeEnded() {
+        lastUsedNanos = System.nanoTime();
+        exchangesInProgress.decrementAndGet();
+    }
+
+    /**
+     * Records whether the given response was received over a new TLS connection or a reused one. The connections
+     * opened by pings are remembered but not reported, so the metrics only count the handshakes paid by flows.
+     */
+    private void recordConnectionUse(HttpResponse<?> response, boolean report) {
+        SSEMetrics current = metrics;
+        if (current == null || response == null) {
+            return;
+        }
+        SSLSession session = response.sslSession().orElse(null);
+        if (session == null) {
+            return;
+        }
+        String key = Base64.getEncoder().encodeToString(session.getId()) + '@' + session.getCreationTime();
+        boolean handshake;
+        synchronized (tlsSessions) {
+            handshake = tlsSessions.put(key, Boolean.TRUE) == null;
+        }
+        if (report) {
+            current.recordConnectionUse(handshake);
+        }
+    }
+
+    /**
+     * Waits for a stream, for the blocking {@link #send(HttpRequest, HttpResponse.BodyHandler)}.
+     */
+    private void acquireStream() throws IOException, InterruptedException {
+        if (streamPermits == null) {
+            return;
+        }
+        CompletableFuture<Void> permit = streamPermits.acquire();
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            if (!streamPermits.abandon(permit)) {
+                streamPermits.release();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private void releaseStream() {
+        if (streamPermits != null) {
+            streamPermits.release();
+        }
+    }
+}
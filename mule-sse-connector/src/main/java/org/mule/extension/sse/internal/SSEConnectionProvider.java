@@ -0,0 +1,242 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.api.connection.CachedConnectionProvider;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.api.lifecycle.Startable;
+import org.mule.runtime.api.lifecycle.Stoppable;
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.RefName;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Provides {@link SSEConnection} instances to the operations of the SSE connector.
+ * <p>
+ * The provider is cached: Mule creates a single connection per configuration and shares it among all the
+ * operations executed against that configuration, which lets the underlying {@link HttpClient} pool and reuse
+ * TCP connections. The connection is created when the configuration starts and closed, together with its executor,
+ * when it stops. It is handed to the {@link SSEConnectionWarmer} of the configuration, which opens its pooled
+ * connections ahead of the first request if the configuration asks for it.
+ *
+ * @since 1.0
+ */
+@Alias("connection")
+@DisplayName("Connection")
+public class SSEConnectionProvider implements CachedConnectionProvider<SSEConnection>, Startable, Stoppable {
+
+    /**
+     * The name of the configuration this provider belongs to.
+     */
+    @RefName
+    private String configName;
+
+    /**
+     * The preferred HTTP protocol version.
+     * <p>
+     * Optional; defaults to HTTP/2, which multiplexes the concurrent streams of a configuration over a single TCP
+     * connection per server and falls back to HTTP/1.1 when the server does not support it.
+     */
+    @Parameter
+    @Optional(defaultValue = "HTTP_2")
+    @DisplayName("HTTP version")
+    @Summary("Preferred HTTP protocol version; HTTP/2 falls back to HTTP/1.1 when the server does not support it (default: HTTP_2).")
+    private SSEHttpVersion httpVersion;
+
+    /**
+     * The maximum time, in milliseconds, to wait for a TCP connection to the SSE server to be established.
+     * <p>
+     * Optional; defaults to 10,000 ms. {@code 0} means no limit.
+     */
+    @Parameter
+    @Optional(defaultValue = "10000")
+    @DisplayName("Connection timeout")
+    @Summary("Maximum time in milliseconds to wait for a TCP connection to be established; 0 means no limit (default: 10,000 milliseconds).")
+    private long connectionTimeout;
+
+    /**
+     * The maximum number of SSE exchanges in progress at the same time on this configuration.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning no limit. When the limit is reached, new requests wait for up to the
+     * connection timeout, indefinitely if it is {@code 0}, for a running exchange to end, then fail. The
+     * non-blocking operations hold no thread while they wait. To reject requests over a limit right away instead, use
+     * the {@code Max requests in flight} of the concurrency limit of the configuration (see
+     * {@link ConcurrencyLimitParameters}).
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Max concurrent streams")
+    @Summary("Maximum number of SSE exchanges in progress at the same time; further requests wait for one to end (default: 0, no limit).")
+    private int maxConcurrentStreams;
+
+    /**
+     * The executor the HTTP client runs its asynchronous tasks on.
+     * <p>
+     * Optional; defaults to the executor of the HTTP client, an unbounded cached thread pool.
+     */
+    @Parameter
+    @Optional(defaultValue = "DEFAULT")
+    @DisplayName("Executor")
+    @Summary("Executor of the HTTP client: DEFAULT (cached thread pool), FIXED (bounded thread pool) or VIRTUAL (virtual threads, Java 21 or later).")
+    private SSEExecutorType executorType;
+
+    /**
+     * The number of threads of the executor, when it is {@link SSEExecutorType#FIXED}.
+     * <p>
+     * Optional; defaults to 4.
+     */
+    @Parameter
+    @Optional(defaultValue = "4")
+    @DisplayName("Executor threads")
+    @Summary("Number of threads of the FIXED executor (default: 4).")
+    private int executorThreads;
+
+    /**
+     * Whether the SSE server is asked to compress its responses.
+     * <p>
+     * Optional; defaults to {@code false}. When enabled, requests are sent with an {@code Accept-Encoding: gzip,
+     * deflate} header, unless they already set one, and compressed responses are decompressed as they arrive. Large,
+     * repetitive event data usually compresses very well, but some servers buffer compressed output before flushing
+     * it, which delays the events: check the time to first event when enabling it. Responses compressed because a
+     * request set its own {@code Accept-Encoding} header are decompressed either way.
+     */
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Accept compressed responses")
+    @Summary("Ask the server to compress responses with gzip or deflate; they are decompressed as they arrive (default: false).")
+    private boolean compression;
+
+    /**
+     * The file the responses are recorded to, to be replayed offline by the {@code Replay} connection.
+     * <p>
+     * Optional; responses are not recorded by default. The status, headers and body of every response are appended
+     * to the file, created if needed, with the time each chunk arrived; the values of secret query parameters, such
+     * as {@code key}, are redacted, and request headers are not recorded. Meant for diagnosing and benchmarking: the
+     * file grows with every response. Connections recording to the same file, from this configuration or another one,
+     * share it, and their responses are interleaved in it.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Recording file")
+    @Summary("File the responses are appended to, with their timing, to be replayed by the Replay connection; secret query parameters such as key are redacted (default: no recording).")
+    private String recordingFile;
+
+    /**
+     * The connection created when the provider started, until Mule asks for it.
+     */
+    private SSEConnection startedConnection;
+
+    /**
+     * Creates the connection as the configuration starts, so its pooled connections can be warmed up before Mule
+     * asks for it.
+     *
+     * @throws ConnectionException if the HTTP client cannot be created
+     */
+    @Override
+    public synchronized void start() throws ConnectionException {
+        if (configName != null && startedConnection == null) {
+            startedConnection = connect();
+        }
+    }
+
+    /**
+     * Closes the connection created when the provider started, if Mule never asked for it.
+     */
+    @Override
+    public synchronized void stop() {
+        if (startedConnection != null) {
+            disconnect(startedConnection);
+            startedConnection = null;
+        }
+    }
+
+    /**
+     * Returns the connection created when the provider started, or a new connection backed by an {@link HttpClient}
+     * built from the parameters of this provider. Only the connection Mule caches for the operations is warmed up:
+     * a connection created while it is open, e.g. by a listener, is not.
+     *
+     * @return an {@link SSEConnection}
+     * @throws ConnectionException if the HTTP client cannot be created
+     */
+    @Override
+    public synchronized SSEConnection connect() throws ConnectionException {
+        if (startedConnection != null) {
+            SSEConnection connection = startedConnection;
+            startedConnection = null;
+            return connection;
+        }
+        SSEConnection connection = newConnection();
+        if (configName != null) {
+            SSEConnectionWarmer.of(configName).attach(connection);
+        }
+        return connection;
+    }
+
+    private SSEConnection newConnection() throws ConnectionException {
+        SSEStreamRecorder recorder = null;
+        if (recordingFile != null && !recordingFile.isBlank()) {
+            try {
+                recorder = SSEStreamRecorder.open(Paths.get(recordingFile.trim()));
+            } catch (IOException | RuntimeException e) {
+                throw new ConnectionException("Failed to open the SSE recording file " + recordingFile, e);
+            }
+        }
+        ExecutorService executor = null;
+        try {
+            HttpClient.Builder builder = HttpClient.newBuilder()
+                    .version(httpVersion != null ? httpVersion.toClientVersion() : HttpClient.Version.HTTP_2);
+            if (connectionTimeout > 0) {
+                builder.connectTimeout(Duration.ofMillis(connectionTimeout));
+            }
+            executor = (executorType != null ? executorType : SSEExecutorType.DEFAULT).create(executorThreads);
+            if (executor != null) {
+                builder.executor(executor);
+            }
+            return new SSEConnection(builder.build(), executor, maxConcurrentStreams, connectionTimeout,
+                    compression, recorder);
+        } catch (RuntimeException e) {
+            if (executor != null) {
+                executor.shutdown();
+            }
+            if (recorder != null) {
+                recorder.close();
+            }
+            throw new ConnectionException("Failed to create the SSE HTTP client", e);
+        }
+    }
+
+    /**
+     * Closes the given connection and shuts down its executor, if any.
+     *
+     * @param connection the connection to disconnect
+     */
+    @Override
+    public void disconnect(SSEConnection connection) {
+        if (configName != null) {
+            SSEConnectionWarmer.of(configName).detach(connection);
+        }
+        connection.close();
+    }
+
+    /**
+     * Validates the given connection. No request is sent; the connection is valid as long as it is not closed.
+     *
+     * @param connection the connection to validate
+     * @return the validation result
+     */
+    @Override
+    public ConnectionValidationResult validate(SSEConnection connection) {
+        if (connection.isClosed()) {
+            return ConnectionValidationResult.failure("The SSE connection is closed", null);
+        }
+        return ConnectionValidationResult.success();
+    }
+}
@@ -0,0 +1,235 @@
+package org.mule.extension.sse.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens the connections of a configuration to the SSE server ahead of its first request, and keeps them open while
+ * the configuration is in use, following its {@link WarmUpParameters}.
+ * <p>
+ * The configuration and its connection provider are started separately by Mule, and neither can reach the other:
+ * they meet here, through a registry of warmers by configuration name, which is local to the application since each
+ * application loads the connector in its own class loader. The configuration {@link #start starts} its warmer and
+ * the provider {@link #attach attaches} its connection, in any order; the connections are warmed up once both are
+ * there, and again whenever a new connection is attached. Only the connection Mule caches for the operations of the
+ * configuration is attached: a connection connected while it is still open, e.g. by a listener, is left alone.
+ * <p>
+ * Warming up sends as many concurrent {@code HEAD} requests as there are warm connections, so the HTTP client opens,
+ * and completes the TLS handshake of, that many pooled connections. Over HTTP/2, the concurrent requests would be
+ * multiplexed over a single connection anyway, so a single one is sent. Every keep-alive interval without any exchange,
+ * they are sent again, so the server and the load balancers in between do not close the connections. Once the
+ * configuration has been idle for the max idle time, the connections are no longer kept warm: the
+ * {@link java.net.http.HttpClient HttpClient} does not let them be closed one by one, so they are left to be closed
+ * by its own idle timeout, and the next request warms the configuration up again.
+ */
+class SSEConnectionWarmer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEConnectionWarmer.class);
+
+    private static final Map<String, SSEConnectionWarmer> WARMERS = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum time, in milliseconds, to wait for the response to a warm-up request.
+     */
+    private static final long WARM_UP_TIMEOUT = 10_000;
+
+    private final String configName;
+
+    private SSEConnection connection;
+    private SSEMetrics metrics;
+    private WarmUpParameters parameters;
+    private URI uri;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> keepAlive;
+
+    // Whether the connections are kept warm, as opposed to released after the configuration was idle
+    private boolean warm;
+
+    private SSEConnectionWarmer(String configName) {
+        this.configName = configName;
+    }
+
+    /**
+     * Returns the warmer of a configuration, creating it if needed.
+     *
+     * @param configName the name of the configuration
+     * @return the warmer
+     */
+    static SSEConnectionWarmer of(String configName) {
+        return WARMERS.computeIfAbsent(configName, SSEConnectionWarmer::new);
+    }
+
+    /**
+     * Forgets the warmer of a configuration, once the configuration is disposed.
+     *
+     * @param configName the name of the configuration
+     */
+    static void release(String configName) {
+        WARMERS.remove(configName);
+    }
+
+    /**
+     * Starts reporting the connection metrics of the configuration and, if warm-up is enabled, warming up its
+     * connections.
+     *
+     * @param parameters the warm-up settings; may be {@code null}
+     * @param baseUrl    the base URL of the SSE server
+     * @param metrics    the metrics of the configuration
+     * @param scheduler  the scheduler the warm-up and keep-alive requests are sent from; may be {@code null} if
+     *                   warm-up is disabled
+     * @throws IllegalArgumentException if the warm-up URI is not valid
+     */
+    synchronized void start(WarmUpParameters parameters, String baseUrl, SSEMetrics metrics,
+                            ScheduledExecutorService scheduler) {
+        stop();
+        this.metrics = metrics;
+        if (connection != null) {
+            connection.bind(metrics);
+        }
+        if (parameters == null || !parameters.isEnabled() || scheduler == null) {
+            return;
+        }
+        String path = parameters.getWarmUpPath();
+        this.uri = URI.create(path == null || path.isEmpty() ? baseUrl : baseUrl + path);
+        this.parameters = parameters;
+        this.scheduler = scheduler;
+        this.warm = true;
+        long interval = parameters.getKeepAliveInterval();
+        if (interval > 0) {
+            keepAlive = scheduler.scheduleWithFixedDelay(this::keepAlive, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        if (connection != null) {
+            scheduler.execute(this::warmUp);
+        }
+    }
+
+    /**
+     * Stops warming up the connections and reporting their metrics.
+     */
+    synchronized void stop() {
+        if (keepAlive != null) {
+            keepAlive.cancel(false);
+            keepAlive = null;
+        }
+        if (connection != null) {
+            connection.bind(null);
+        }
+        parameters = null;
+        scheduler = null;
+        metrics = null;
+    }
+
+    /**
+     * Attaches the connection of the configuration, warming it up if the configuration is started, unless another
+     * open connection is attached already.
+     *
+     * @param connection the connection
+     * @return {@code true} if the connection was attached
+     */
+    synchronized boolean attach(SSEConnection connection) {
+        if (this.connection != null && this.connection != connection && !this.connection.isClosed()) {
+            return false;
+        }
+        this.connection = connection;
+        connection.bind(metrics);
+        if (scheduler != null) {
+            warm = true;
+            scheduler.execute(this::warmUp);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the attached connection of the configuration.
+     *
+     * @return the connection, or {@code null} if none is attached or it is closed
+     */
+    synchronized SSEConnection getConnection() {
+        return connection != null && !connection.isClosed() ? connection : null;
+    }
+
+    /**
+     * Detaches the connection of the configuration, once it is closed.
+     *
+     * @param connection the connection
+     */
+    synchronized void detach(SSEConnection connection) {
+        if (this.connection == connection) {
+            connection.bind(null);
+            this.connection = null;
+        }
+    }
+
+    /**
+     * Sends the warm-up requests, one per warm connection, at once, or a single one over HTTP/2.
+     */
+    private void warmUp() {
+        SSEConnection target;
+        URI warmUpUri;
+        SSEMetrics warmUpMetrics;
+        int count;
+        synchronized (this) {
+            if (connection == null || parameters == null || connection.isClosed()) {
+                return;
+            }
+            target = connection;
+            warmUpUri = uri;
+            warmUpMetrics = metrics;
+            count = target.isMultiplexed() ? 1 : Math.max(1, parameters.getWarmConnections());
+        }
+
+        AtomicInteger failures = new AtomicInteger();
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            warmUpMetrics.recordWarmUpRequest();
+            requests[i] = target.ping(warmUpUri, WARM_UP_TIMEOUT).whenComplete((response, error) -> {
+                if (error != null && failures.getAndIncrement() == 0) {
+                    LOGGER.warn("Failed to warm up the connections of SSE configuration {} to {}: {}", configName,
+                            warmUpUri, error.toString());
+                }
+            });
+        }
+        CompletableFuture.allOf(requests).whenComplete((result, error) ->
+                LOGGER.debug("Warmed up {} connection(s) of SSE configuration {} to {}, {} failed", count,
+                        configName, warmUpUri, failures.get()));
+    }
+
+    /**
+     * Keeps the connections warm if they were not used for the keep-alive interval, or releases them if the
+     * configuration has been idle for the max idle time.
+     */
+    private void keepAlive() {
+        long idleMillis;
+        synchronized (this) {
+            if (connection == null || parameters == null) {
+                return;
+            }
+            idleMillis = TimeUnit.NANOSECONDS.toMillis(connection.getIdleNanos());
+            long maxIdleTime = parameters.getMaxIdleTime();
+            if (maxIdleTime > 0 && idleMillis >= maxIdleTime) {
+                if (warm) {
+                    warm = false;
+                    metrics.recordIdleRelease();
+                    LOGGER.debug("SSE configuration {} has been idle for {} ms; its connections are no longer kept "
+                            + "warm", configName, idleMillis);
+                }
+                return;
+            }
+            // Used again since it was released: the request that used it opened a connection already
+            warm = true;
+            if (idleMillis < parameters.getKeepAliveInterval()) {
+                return;
+            }
+        }
+        warmUp();
+    }
+}
@@ -0,0 +1,383 @@
+package org.mule.extension.sse.internal;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * {@link HttpResponse.BodySubscriber} that decompresses a {@code gzip} or {@code deflate} encoded response body as
+ * it arrives, and hands the decompressed chunks over to another body subscriber.
+ * <p>
+ * Each compressed chunk is inflated as soon as it is received, so events are parsed while the server is still
+ * streaming, and only one decompressed chunk is held in memory at a time. Concatenated {@code gzip} members are
+ * supported, and both the zlib-wrapped {@code deflate} encoding mandated by HTTP and the raw one sent by some servers
+ * are accepted.
+ * <p>
+ * A chunk that decompresses to nothing, e.g. the {@code gzip} header alone, is not passed on; the next chunk is
+ * requested instead, so the demand of the downstream subscriber is preserved.
+ *
+ * @param <T> the response body type
+ */
+class SSEContentDecoder<T> implements HttpResponse.BodySubscriber<T> {
+
+    /**
+     * Receives the number of bytes of the response body before decompression.
+     */
+    interface Listener {
+
+        /**
+         * Called with the size of each compressed chunk, before its decompressed content is passed on.
+         *
+         * @param bytes the number of compressed bytes received
+         */
+        void onCompressedBytes(int bytes);
+    }
+
+    /**
+     * The value of the {@code Accept-Encoding} header sent when compressed responses are requested.
+     */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int OUTPUT_CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * The maximum size of a {@code gzip} member header, including the optional file name and comment.
+     */
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private enum State { GZIP_HEADER, DEFLATE_HEADER, DATA, GZIP_TRAILER, END }
+
+    private final HttpResponse.BodySubscriber<T> downstream;
+    private final Listener listener;
+    private final boolean gzip;
+    private final IOException unsupported;
+
+    // Guarded by this; only held while inflating, never while calling the downstream subscriber
+    private Inflater inflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] window = new byte[OUTPUT_CHUNK_SIZE];
+    private State state;
+    private byte[] pending = new byte[0];
+    private boolean released;
+    private boolean memberDone = true;
+
+    private volatile Flow.Subscription subscription;
+
+    private SSEContentDecoder(HttpResponse.BodySubscriber<T> downstream, String encoding) {
+        this.downstream = downstream;
+        this.listener = downstream instanceof Listener ? (Listener) downstream : null;
+        this.gzip = encoding.equals("gzip") || encoding.equals("x-gzip");
+        if (gzip || encoding.equals("deflate")) {
+            this.unsupported = null;
+            this.state = gzip ? State.GZIP_HEADER : State.DEFLATE_HEADER;
+        } else {
+            this.unsupported = new IOException("Unsupported Content-Encoding of the SSE response: " + encoding);
+            this.state = State.END;
+        }
+    }
+
+    /**
+     * Wraps the given body handler, so that the body of responses with a {@code Content-Encoding} is decompressed
+     * before being handed to the body subscriber it returns. Responses without a {@code Content-Encoding}, or with
+     * the {@code identity} encoding, are passed through unchanged; responses with an unsupported encoding fail with
+     * an {@link IOException} rather than being parsed as plain text.
+     * <p>
+     * If the body subscriber implements {@link Listener}, it is told the size of the compressed chunks.
+     *
+     * @param handler the handler of the decompressed body
+     * @param <T>     the response body type
+     * @return the decompressing body handler
+     */
+    static <T> HttpResponse.BodyHandler<T> decoding(HttpResponse.BodyHandler<T> handler) {
+        return responseInfo -> {
+            HttpResponse.BodySubscriber<T> downstream = handler.apply(responseInfo);
+            String encoding = responseInfo.headers().firstValue("Content-Encoding")
+                    .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                    .orElse("");
+            if (encoding.isEmpty() || encoding.equals("identity")) {
+                return downstream;
+            }
+            return new SSEContentDecoder<>(downstream, encoding);
+        };
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        downstream.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                subscription.request(n);
+            }
+
+            @Override
+            public void cancel() {
+                release();
+                subscription.cancel();
+            }
+        });
+        if (unsupported != null) {
+            subscription.cancel();
+            downstream.onError(unsupported);
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> chunks) {
+        List<ByteBuffer> decoded = new ArrayList<>();
+        int compressedBytes = 0;
+        try {
+            for (ByteBuffer chunk : chunks) {
+                compressedBytes += chunk.remaining();
+                decode(chunk, decoded);
+            }
+        } catch (IOException e) {
+            subscription.cancel();
+            release();
+            downstream.onError(e);
+            return;
+        }
+
+        if (listener != null) {
+            listener.onCompressedBytes(compressedBytes);
+        }
+        if (decoded.isEmpty()) {
+            subscription.request(1);
+        } else {
+            downstream.onNext(decoded);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        release();
+        downstream.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        boolean truncated;
+        synchronized (this) {
+            truncated = !released && !memberDone;
+        }
+        release();
+        if (truncated) {
+            downstream.onError(new IOException("Unexpected end of the compressed SSE response"));
+        } else {
+            downstream.onComplete();
+        }
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return downstream.getBody();
+    }
+
+    /**
+     * Decompresses the given chunk, appending the decompressed content to {@code output}.
+     */
+    private synchronized void decode(ByteBuffer chunk, List<ByteBuffer> output) throws IOException {
+        while (!released && chunk.hasRemaining()) {
+            switch (state) {
+                case GZIP_HEADER:
+                    memberDone = false;
+                    if (readGzipHeader(chunk)) {
+                        crc.reset();
+                        inflater = inflater != null ? reset(inflater) : new Inflater(true);
+                        state = State.DATA;
+                    }
+                    break;
+                case DEFLATE_HEADER:
+                    memberDone = false;
+                    if (buffer(chunk, 2)) {
+                        // A zlib header is a compression method of 8 and a header checksum that is a multiple of 31
+                        int header = ((pending[0] & 0xff) << 8) | (pending[1] & 0xff);
+                        boolean zlib = (pending[0] & 0x0f) == 8 && header % 31 == 0;
+                        inflater = new Inflater(!zlib);
+                        inflater.setInput(pending);
+                        pending = new byte[0];
+                        state = State.DATA;
+                        inflate(output);
+                    }
+                    break;
+                case DATA:
+                    inflater.setInput(chunk);
+                    inflate(output);
+                    break;
+                case GZIP_TRAILER:
+                    if (buffer(chunk, 8)) {
+                        long expectedCrc = readInt(pending, 0) & 0xffffffffL;
+                        long expectedSize = readInt(pending, 4) & 0xffffffffL;
+                        if (expectedCrc != crc.getValue()
+                                || expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+                            throw new IOException("Corrupt gzip trailer in the SSE response");
+                        }
+                        pending = new byte[0];
+                        memberDone = true;
+                        state = State.GZIP_HEADER;
+                    }
+                    break;
+                default:
+                    throw new IOException("Unexpected data after the end of the compressed SSE response");
+            }
+        }
+    }
+
+    /**
+     * Inflates the current input of the inflater; once the compressed data ends, the unused input is left in the
+     * chunk it was set from.
+     */
+    private void inflate(List<ByteBuffer> output) throws IOException {
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(window);
+                if (length == 0 && inflater.needsDictionary()) {
+                    throw new IOException("Compressed SSE response requires a preset dictionary");
+                }
+                if (length > 0) {
+                    if (gzip) {
+                        crc.update(window, 0, length);
+                    }
+                    // Copied out, as the downstream subscriber owns the chunks it receives
+                    output.add(ByteBuffer.wrap(Arrays.copyOf(window, length)));
+                }
+                // A full window may leave decompressed bytes behind even once the input is consumed: they
+                // must be handed over now, not when the next chunk arrives
+                if (length < OUTPUT_CHUNK_SIZE && inflater.needsInput()) {
+                    break;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed data in the SSE response", e);
+        }
+        if (inflater.finished()) {
+            if (gzip) {
+                state = State.GZIP_TRAILER;
+            } else {
+                memberDone = true;
+                state = State.END;
+            }
+        }
+    }
+
+    /**
+     * Accumulates the header of a {@code gzip} member, which may be split across chunks.
+     *
+     * @return {@code true} once the header is complete and has been consumed
+     */
+    private boolean readGzipHeader(ByteBuffer chunk) throws IOException {
+        while (chunk.hasRemaining()) {
+            if (pending.length >= MAX_HEADER_SIZE) {
+                throw new IOException("Invalid gzip header in the SSE response");
+            }
+            pending = append(pending, chunk.get());
+            int length = gzipHeaderLength(pending);
+            if (length > 0) {
+                pending = new byte[0];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the length of the {@code gzip} header at the start of the given bytes.
+     *
+     * @return the header length, or {@code -1} if more bytes are needed
+     */
+    private static int gzipHeaderLength(byte[] bytes) throws IOException {
+        if (bytes.length < 10) {
+            if (bytes.length >= 2 && (((bytes[1] & 0xff) << 8) | (bytes[0] & 0xff)) != GZIP_MAGIC) {
+                throw new IOException("Invalid gzip header in the SSE response");
+            }
+            return -1;
+        }
+        if (bytes[2] != 8) {
+            throw new IOException("Unsupported gzip compression method in the SSE response");
+        }
+        int flags = bytes[3] & 0xff;
+        int position = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (bytes.length < position + 2) {
+                return -1;
+            }
+            position += 2 + ((bytes[position] & 0xff) | ((bytes[position + 1] & 0xff) << 8));
+        }
+        if ((flags & FNAME) != 0) {
+            position = skipZeroTerminated(bytes, position);
+        }
+        if ((flags & FCOMMENT) != 0 && position >= 0) {
+            position = skipZeroTerminated(bytes, position);
+        }
+        if ((flags & FHCRC) != 0 && position >= 0) {
+            position += 2;
+        }
+        return position >= 0 && bytes.length >= position ? position : -1;
+    }
+
+    private static int skipZeroTerminated(byte[] bytes, int position) {
+        for (int i = position; i < bytes.length; i++) {
+            if (bytes[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Accumulates bytes from the chunk until {@code length} bytes are pending.
+     *
+     * @return {@code true} once enough bytes are pending
+     */
+    private boolean buffer(ByteBuffer chunk, int length) {
+        while (pending.length < length && chunk.hasRemaining()) {
+            pending = append(pending, chunk.get());
+        }
+        return pending.length >= length;
+    }
+
+    private static byte[] append(byte[] bytes, byte b) {
+        byte[] appended = Arrays.copyOf(bytes, bytes.length + 1);
+        appended[bytes.length] = b;
+        return appended;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8) | ((bytes[offset + 2] & 0xff) << 16)
+                | ((bytes[offset + 3] & 0xff) << 24);
+    }
+
+    private static Inflater reset(Inflater inflater) {
+        inflater.reset();
+        return inflater;
+    }
+
+    /**
+     * Releases the native memory of the inflater. Called on cancellation, possibly from another thread, or once the
+     * body ends.
+     */
+    private synchronized void release() {
+        if (!released) {
+            released = true;
+            state = State.END;
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+}
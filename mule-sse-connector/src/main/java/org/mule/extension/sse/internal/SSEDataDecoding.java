@@ -0,0 +1,127 @@
+package org.mule.extension.sse.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Defines how the {@code data} of an {@link SSEEvent} is decoded.
+ * <p>
+ * Decoding is lazy: the parser only keeps the raw bytes of the {@code data:} lines, and the selected decoding is
+ * applied the first time {@link SSEEvent#getData()} is called. Events that are filtered out or never read are
+ * therefore never decoded.
+ */
+public enum SSEDataDecoding {
+
+    /**
+     * JSON payloads are parsed into Java maps, lists and scalars; anything else is returned as a string.
+     * This is the most convenient mode for DataWeave, but also the most expensive one.
+     */
+    JAVA {
+        @Override
+        Object decode(byte[] bytes) {
+            if (looksLikeJson(bytes)) {
+                try {
+                    return SSEEventParser.MAPPER.readValue(bytes, Object.class);
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to parse SSE data as JSON; keeping it as a string", e);
+                }
+            }
+            return STRING.decode(bytes);
+        }
+    },
+
+    /**
+     * The payload is returned as a UTF-8 string, without any parsing. Use it to forward the data as-is or to read
+     * it with {@code read(payload.data, "application/json")} only when needed.
+     */
+    STRING {
+        @Override
+        Object decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    },
+
+    /**
+     * The payload is returned as the raw bytes received from the server.
+     */
+    BYTES {
+        @Override
+        Object decode(byte[] bytes) {
+            return bytes;
+        }
+    },
+
+    /**
+     * JSON payloads are parsed into a Jackson {@link com.fasterxml.jackson.databind.JsonNode} tree, which is more
+     * compact than maps and lists; anything else is returned as a string. Meant for custom Java code.
+     */
+    JSON_NODE {
+        @Override
+        Object decode(byte[] bytes) {
+            if (looksLikeJson(bytes)) {
+                try {
+                    return SSEEventParser.MAPPER.readTree(bytes);
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to parse SSE data as JSON; keeping it as a string", e);
+                }
+            }
+            return STRING.decode(bytes);
+        }
+    },
+
+    /**
+     * JSON payloads of the event types defined on the configuration are decoded straight into compact records
+     * shaped after their sample or schema, with typed values, and described by the output metadata; the others are
+     * decoded as with {@link #JAVA}. Records are unmodifiable maps, so DataWeave reads them like the maps of
+     * {@link #JAVA}. Projected data is not typed.
+     */
+    TYPED {
+        @Override
+        Object decode(byte[] bytes) {
+            return JAVA.decode(bytes);
+        }
+    };
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEDataDecoding.class);
+
+    /**
+     * Decodes the raw bytes of an event's data.
+     *
+     * @param bytes the raw data bytes; never {@code null}
+     * @return the decoded data
+     */
+    abstract Object decode(byte[] bytes);
+
+    /**
+     * Tells whether the payload can start a JSON value, so plain text does not pay for an exception on every event.
+     *
+     * @param bytes the raw data bytes
+     * @return {@code true} if the first non-whitespace byte can start a JSON value
+     */
+    static boolean looksLikeJson(byte[] bytes) {
+        return looksLikeJson(bytes, bytes.length);
+    }
+
+    /**
+     * Tells whether the first {@code length} bytes of the payload can start a JSON value.
+     *
+     * @param bytes  the raw data bytes
+     * @param length the number of bytes to consider
+     * @return {@code true} if the first non-whitespace byte can start a JSON value
+     */
+    static boolean looksLikeJson(byte[] bytes, int length) {
+        int first = 0;
+        while (first < length && Character.isWhitespace(bytes[first])) {
+            first++;
+        }
+        if (first == length) {
+            return false;
+        }
+        byte b = bytes[first];
+        return b == '{' || b == '[' || b == '"' || b == '-' || (b >= '0' && b <= '9') || b == 't' || b == 'f'
+                || b == 'n';
+    }
+}
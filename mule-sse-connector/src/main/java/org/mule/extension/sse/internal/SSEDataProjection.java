@@ -0,0 +1,177 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts a subset of the fields of a JSON event payload while it is being parsed.
+ * <p>
+ * The projection is defined by a set of JSON pointers, e.g. <code>/response/results/&#42;/data</code>, where a
+ * {@code *} segment matches every element of an array, or every field of an object. The payload is read with Jackson's
+ * streaming {@link JsonParser}: subtrees that no pointer leads to are skipped without being materialized, and only
+ * the values the pointers resolve to are built. The result keeps the shape of the original document, so the
+ * projected payload can be navigated with the same expressions, e.g. {@code payload.data.response.results.data}.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+class SSEDataProjection {
+
+    /**
+     * Marker for a subtree that holds none of the projected fields.
+     */
+    private static final Object ABSENT = new Object();
+
+    private static final String WILDCARD = "*";
+
+    private final Node root = new Node();
+
+    /**
+     * Compiles a projection from the given JSON pointers.
+     *
+     * @param pointers the JSON pointers of the fields to keep
+     * @throws IllegalArgumentException if a pointer is not a valid JSON pointer
+     */
+    SSEDataProjection(List<String> pointers) {
+        for (String pointer : pointers) {
+            if (pointer == null || pointer.isBlank()) {
+                continue;
+            }
+            Node node = root;
+            for (JsonPointer segment = JsonPointer.compile(pointer.trim()); !segment.matches();
+                 segment = segment.tail()) {
+                node = node.children.computeIfAbsent(segment.getMatchingProperty(), key -> new Node());
+            }
+            node.terminal = true;
+        }
+    }
+
+    /**
+     * Creates a projection from the given JSON pointers, if any.
+     *
+     * @param pointers the JSON pointers of the fields to keep; may be {@code null}
+     * @return the projection, or {@code null} if no pointer was provided
+     */
+    static SSEDataProjection of(List<String> pointers) {
+        if (pointers == null || pointers.stream().allMatch(pointer -> pointer == null || pointer.isBlank())) {
+            return null;
+        }
+        return new SSEDataProjection(pointers);
+    }
+
+    /**
+     * Projects the given payload and converts the result according to the given decoding.
+     * <p>
+     * Payloads that are not JSON are decoded as a whole, as the projection does not apply to them.
+     *
+     * @param bytes    the raw data bytes
+     * @param length   the number of bytes to read
+     * @param decoding how the projected payload is returned
+     * @return the projected payload, or {@code null} if the payload holds none of the projected fields
+     */
+    Object project(byte[] bytes, int length, SSEDataDecoding decoding) {
+        if (!SSEDataDecoding.looksLikeJson(bytes, length)) {
+            return decoding.decode(Arrays.copyOf(bytes, length));
+        }
+
+        Object projected;
+        try (JsonParser parser = SSEEventParser.MAPPER.getFactory().createParser(bytes, 0, length)) {
+            parser.nextToken();
+            projected = project(parser, root);
+        } catch (IOException e) {
+            // Malformed JSON: fall back to the regular decoding, which handles it
+            return decoding.decode(Arrays.copyOf(bytes, length));
+        }
+        if (projected == ABSENT) {
+            projected = null;
+        }
+
+        try {
+            switch (decoding) {
+                case STRING:
+                    return SSEEventParser.MAPPER.writeValueAsString(projected);
+                case BYTES:
+                    return SSEEventParser.MAPPER.writeValueAsBytes(projected);
+                case JSON_NODE:
+                    return SSEEventParser.MAPPER.valueToTree(projected);
+                default:
+                    return projected;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize the projected SSE data", e);
+        }
+    }
+
+    /**
+     * Projects the value the parser is positioned on.
+     *
+     * @return the projected value, or {@link #ABSENT} if it holds none of the projected fields
+     */
+    private static Object project(JsonParser parser, Node node) throws IOException {
+        if (node.terminal) {
+            return SSEEventParser.MAPPER.readValue(parser, Object.class);
+        }
+
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                Node child = node.child(name);
+                if (child == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                Object value = project(parser, child);
+                if (value != ABSENT) {
+                    result.put(name, value);
+                }
+            }
+            return result.isEmpty() ? ABSENT : result;
+        }
+
+        if (token == JsonToken.START_ARRAY) {
+            List<Object> result = new ArrayList<>();
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                Node child = node.child(Integer.toString(index++));
+                if (child == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                Object value = project(parser, child);
+                if (value != ABSENT) {
+                    result.add(value);
+                }
+            }
+            return result.isEmpty() ? ABSENT : result;
+        }
+
+        // A scalar where the pointer expects a container
+        return ABSENT;
+    }
+
+    /**
+     * A segment of the compiled pointers.
+     */
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+
+        private boolean terminal;
+
+        private Node child(String name) {
+            Node child = children.get(name);
+            return child != null ? child : children.get(WILDCARD);
+        }
+    }
+}
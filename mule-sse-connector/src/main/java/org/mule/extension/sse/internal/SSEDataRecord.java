@@ -0,0 +1,121 @@
+package org.mule.extension.sse.internal;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A JSON object decoded by the {@link SSEDataDecoding#TYPED TYPED} decoding, as an unmodifiable map.
+ * <p>
+ * The declared fields of the {@link SSEDataType} of the object share their names and index across all its records,
+ * and the values are held in an array: a record costs little more than its values, instead of a hash table per
+ * object. Fields that are not declared by the type are kept in a regular map. The entries iterate in the order of
+ * the declared fields, then of the undeclared ones, in the order they were received.
+ */
+class SSEDataRecord extends AbstractMap<String, Object> {
+
+    /**
+     * Marks a declared field that is absent from the object, as opposed to present with a {@code null} value.
+     */
+    static final Object ABSENT = new Object();
+
+    private final String[] names;
+    private final Map<String, Integer> index;
+    private final Object[] values;
+    private final Map<String, Object> undeclared;
+
+    private Set<Entry<String, Object>> entries;
+
+    /**
+     * Creates a new record.
+     *
+     * @param names      the names of the declared fields, shared by the records of the type
+     * @param index      the position of each declared field, shared by the records of the type
+     * @param values     the value of each declared field, or {@link #ABSENT}
+     * @param undeclared the fields that are not declared by the type; may be {@code null}
+     */
+    SSEDataRecord(String[] names, Map<String, Integer> index, Object[] values, Map<String, Object> undeclared) {
+        this.names = names;
+        this.index = index;
+        this.values = values;
+        this.undeclared = undeclared != null ? undeclared : Collections.emptyMap();
+    }
+
+    @Override
+    public Object get(Object key) {
+        Integer position = index.get(key);
+        if (position != null) {
+            Object value = values[position];
+            return value == ABSENT ? null : value;
+        }
+        return undeclared.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Integer position = index.get(key);
+        return position != null ? values[position] != ABSENT : undeclared.containsKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entries == null) {
+            entries = new Entries();
+        }
+        return entries;
+    }
+
+    private final class Entries extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public int size() {
+            int size = undeclared.size();
+            for (Object value : values) {
+                if (value != ABSENT) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            return new Iterator<>() {
+
+                private final Iterator<Entry<String, Object>> rest = undeclared.entrySet().iterator();
+                private int next = advance(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next < values.length || rest.hasNext();
+                }
+
+                @Override
+                public Entry<String, Object> next() {
+                    if (next < values.length) {
+                        Entry<String, Object> entry = new SimpleImmutableEntry<>(names[next], values[next]);
+                        next = advance(next + 1);
+                        return entry;
+                    }
+                    if (!rest.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Entry<String, Object> entry = rest.next();
+                    return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+                }
+
+                private int advance(int from) {
+                    int position = from;
+                    while (position < values.length && values[position] == ABSENT) {
+                        position++;
+                    }
+                    return position;
+                }
+            };
+        }
+    }
+}
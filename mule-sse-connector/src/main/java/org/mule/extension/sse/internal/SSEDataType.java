@@ -0,0 +1,363 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The type of the data of an event type, derived from a sample of the data or from its JSON schema, which the
+ * {@link SSEDataDecoding#TYPED TYPED} decoding decodes the data into.
+ * <p>
+ * Objects are decoded into {@link SSEDataRecord}s, which share the field names of their type and hold the values in
+ * an array, instead of a hash map per object; integers are decoded as {@link Long}s, decimal numbers as
+ * {@link Double}s, and arrays as lists of their item type. Values that do not match the type, e.g. a field that is a
+ * string in the sample but an object in the payload, and fields that are not declared, are decoded as with the
+ * {@link SSEDataDecoding#JAVA JAVA} decoding.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+class SSEDataType {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEDataType.class);
+
+    /**
+     * The kinds of values.
+     */
+    enum Kind {
+        /**
+         * No value seen yet, e.g. a {@code null} or an empty array in a sample; merged away by any other kind.
+         */
+        UNKNOWN,
+        OBJECT, ARRAY, STRING, INTEGER, NUMBER, BOOLEAN,
+        /**
+         * Values of different kinds.
+         */
+        ANY
+    }
+
+    private static final SSEDataType UNKNOWN = new SSEDataType(Kind.UNKNOWN);
+    private static final SSEDataType ANY = new SSEDataType(Kind.ANY);
+    private static final SSEDataType STRING = new SSEDataType(Kind.STRING);
+    private static final SSEDataType INTEGER = new SSEDataType(Kind.INTEGER);
+    private static final SSEDataType NUMBER = new SSEDataType(Kind.NUMBER);
+    private static final SSEDataType BOOLEAN = new SSEDataType(Kind.BOOLEAN);
+
+    private final Kind kind;
+
+    // OBJECT: the declared fields, in declaration order, and the index of each name
+    private final String[] names;
+    private final SSEDataType[] fieldTypes;
+    private final Map<String, Integer> index;
+
+    // ARRAY: the type of the items
+    private final SSEDataType items;
+
+    private SSEDataType(Kind kind) {
+        this(kind, null, null, null);
+    }
+
+    private SSEDataType(Kind kind, Map<String, SSEDataType> fields, SSEDataType items) {
+        this(kind, fields.keySet().toArray(new String[0]), fields.values().toArray(new SSEDataType[0]), items);
+    }
+
+    private SSEDataType(Kind kind, String[] names, SSEDataType[] fieldTypes, SSEDataType items) {
+        this.kind = kind;
+        this.names = names;
+        this.fieldTypes = fieldTypes;
+        this.items = items;
+        if (names != null) {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                positions.put(names[i], i);
+            }
+            this.index = positions;
+        } else {
+            this.index = null;
+        }
+    }
+
+    private static SSEDataType object(Map<String, SSEDataType> fields) {
+        return new SSEDataType(Kind.OBJECT, fields, null);
+    }
+
+    private static SSEDataType array(SSEDataType items) {
+        return new SSEDataType(Kind.ARRAY, null, null, items);
+    }
+
+    /**
+     * Derives a type from a JSON document, which is either a JSON schema, when it declares {@code $schema}, or a
+     * {@code type} along with {@code properties} or {@code items}, or a sample of the data otherwise.
+     *
+     * @param document the JSON schema or sample
+     * @return the type
+     */
+    static SSEDataType of(JsonNode document) {
+        return isSchema(document) ? fromSchema(document) : fromSample(document);
+    }
+
+    /**
+     * Derives a type from a sample of the data. The items of an array are merged into a single type.
+     *
+     * @param sample the sample
+     * @return the type
+     */
+    static SSEDataType fromSample(JsonNode sample) {
+        if (sample == null || sample.isNull() || sample.isMissingNode()) {
+            return UNKNOWN;
+        }
+        if (sample.isObject()) {
+            Map<String, SSEDataType> fields = new LinkedHashMap<>();
+            sample.fields().forEachRemaining(field -> fields.put(field.getKey(), fromSample(field.getValue())));
+            return object(fields);
+        }
+        if (sample.isArray()) {
+            SSEDataType itemType = UNKNOWN;
+            for (JsonNode item : sample) {
+                itemType = itemType.merge(fromSample(item));
+            }
+            return array(itemType);
+        }
+        if (sample.isTextual()) {
+            return STRING;
+        }
+        if (sample.isIntegralNumber()) {
+            return INTEGER;
+        }
+        if (sample.isNumber()) {
+            return NUMBER;
+        }
+        if (sample.isBoolean()) {
+            return BOOLEAN;
+        }
+        return ANY;
+    }
+
+    /**
+     * Derives a type from a JSON schema. Only {@code type}, {@code properties} and {@code items} are considered;
+     * references and combinations of schemas are typed as anything.
+     *
+     * @param schema the JSON schema
+     * @return the type
+     */
+    static SSEDataType fromSchema(JsonNode schema) {
+        if (schema == null || !schema.isObject()) {
+            return ANY;
+        }
+        JsonNode type = schema.path("type");
+        if (type.isArray()) {
+            // e.g. ["string", "null"]
+            for (JsonNode alternative : type) {
+                if (!"null".equals(alternative.asText())) {
+                    type = alternative;
+                    break;
+                }
+            }
+        }
+        String name = type.isTextual() ? type.asText()
+                : schema.has("properties") ? "object" : schema.has("items") ? "array" : "";
+        switch (name) {
+            case "object":
+                Map<String, SSEDataType> fields = new LinkedHashMap<>();
+                schema.path("properties").fields()
+                        .forEachRemaining(field -> fields.put(field.getKey(), fromSchema(field.getValue())));
+                return object(fields);
+            case "array":
+                return array(schema.has("items") ? fromSchema(schema.get("items")) : ANY);
+            case "string":
+                return STRING;
+            case "integer":
+                return INTEGER;
+            case "number":
+                return NUMBER;
+            case "boolean":
+                return BOOLEAN;
+            default:
+                return ANY;
+        }
+    }
+
+    private static boolean isSchema(JsonNode document) {
+        return document.isObject() && (document.has("$schema")
+                || document.path("type").isTextual() && (document.has("properties") || document.has("items")));
+    }
+
+    /**
+     * Merges this type with another one, e.g. derived from another sample of the same event type: objects keep the
+     * fields of both, and values of different kinds are typed as anything, except integers and decimal numbers,
+     * which make decimal numbers.
+     *
+     * @param other the other type
+     * @return the merged type
+     */
+    SSEDataType merge(SSEDataType other) {
+        if (other.kind == Kind.UNKNOWN || this == other) {
+            return this;
+        }
+        if (kind == Kind.UNKNOWN) {
+            return other;
+        }
+        if (kind != other.kind) {
+            boolean numbers = (kind == Kind.INTEGER || kind == Kind.NUMBER)
+                    && (other.kind == Kind.INTEGER || other.kind == Kind.NUMBER);
+            return numbers ? NUMBER : ANY;
+        }
+        if (kind == Kind.ARRAY) {
+            return array(items.merge(other.items));
+        }
+        if (kind == Kind.OBJECT) {
+            Map<String, SSEDataType> fields = new LinkedHashMap<>(getFields());
+            other.getFields().forEach((name, type) -> fields.merge(name, type, SSEDataType::merge));
+            return object(fields);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the kind of the values of this type.
+     *
+     * @return the kind
+     */
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the declared fields of an object type.
+     *
+     * @return the type of each field, in declaration order; empty if this is not an object type
+     */
+    Map<String, SSEDataType> getFields() {
+        if (names == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, SSEDataType> fields = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            fields.put(names[i], fieldTypes[i]);
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the type of the items of an array type.
+     *
+     * @return the item type, or {@code null} if this is not an array type
+     */
+    SSEDataType getItems() {
+        return items;
+    }
+
+    /**
+     * Decodes the raw bytes of an event's data into this type. Payloads that are not JSON are returned as strings,
+     * and malformed ones are decoded as with the {@link SSEDataDecoding#JAVA JAVA} decoding.
+     *
+     * @param bytes the raw data bytes
+     * @return the decoded data
+     */
+    Object decode(byte[] bytes) {
+        if (!SSEDataDecoding.looksLikeJson(bytes)) {
+            return SSEDataDecoding.STRING.decode(bytes);
+        }
+        try (JsonParser parser = SSEEventParser.MAPPER.getFactory().createParser(bytes)) {
+            parser.nextToken();
+            return read(parser);
+        } catch (IOException e) {
+            LOGGER.debug("Failed to decode SSE data into its type; decoding it as Java values", e);
+            return SSEDataDecoding.JAVA.decode(bytes);
+        }
+    }
+
+    /**
+     * Reads the value the parser is positioned on.
+     */
+    private Object read(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case START_OBJECT:
+                return kind == Kind.OBJECT ? readRecord(parser) : readValue(parser);
+            case START_ARRAY:
+                return kind == Kind.ARRAY ? readList(parser) : readValue(parser);
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return parser.getBooleanValue();
+            case VALUE_NUMBER_INT:
+                if (kind == Kind.NUMBER) {
+                    return parser.getDoubleValue();
+                }
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+                        ? parser.getBigIntegerValue() : (Object) parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            default:
+                return readValue(parser);
+        }
+    }
+
+    private SSEDataRecord readRecord(JsonParser parser) throws IOException {
+        Object[] values = new Object[names.length];
+        Arrays.fill(values, SSEDataRecord.ABSENT);
+        Map<String, Object> undeclared = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            Integer position = index.get(name);
+            if (position != null) {
+                values[position] = fieldTypes[position].read(parser);
+            } else {
+                if (undeclared == null) {
+                    undeclared = new LinkedHashMap<>();
+                }
+                undeclared.put(name, readValue(parser));
+            }
+        }
+        return new SSEDataRecord(names, index, values, undeclared);
+    }
+
+    private List<Object> readList(JsonParser parser) throws IOException {
+        List<Object> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(items.read(parser));
+        }
+        return list;
+    }
+
+    private static Object readValue(JsonParser parser) throws IOException {
+        return SSEEventParser.MAPPER.readValue(parser, Object.class);
+    }
+
+    /**
+     * Returns a compact description of this type, e.g. {@code {id: string, tags: [string]}}.
+     *
+     * @return the description
+     */
+    @Override
+    public String toString() {
+        switch (kind) {
+            case OBJECT:
+                StringBuilder builder = new StringBuilder("{");
+                for (int i = 0; i < names.length; i++) {
+                    builder.append(i > 0 ? ", " : "").append(names[i]).append(": ").append(fieldTypes[i]);
+                }
+                return builder.append('}').toString();
+            case ARRAY:
+                return "[" + items + "]";
+            default:
+                return kind.name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.error.ErrorTypeDefinition;
+import org.mule.runtime.extension.api.error.MuleErrors;
+
+import java.util.Optional;
+
+/**
+ * Defines the errors raised by the operations of the connector, in the {@code SSE} namespace, so flows can handle
+ * them apart from connectivity failures.
+ */
+public enum SSEErrorType implements ErrorTypeDefinition<SSEErrorType> {
+
+    /**
+     * A response exceeded a memory limit whose action is {@link SSELimitAction#FAIL}, and the exchange was aborted.
+     */
+    LIMIT_EXCEEDED,
+
+    /**
+     * The request was not sent, because the concurrency limit of the configuration is reached or its circuit breaker
+     * is open.
+     */
+    REJECTED,
+
+    /**
+     * The SSE server could not be reached, the connection dropped, or a stream was answered with an error status.
+     */
+    CONNECTIVITY(MuleErrors.CONNECTIVITY),
+
+    /**
+     * The connection to the SSE server, or its response headers, timed out.
+     */
+    TIMEOUT(MuleErrors.CONNECTIVITY);
+
+    private final ErrorTypeDefinition<? extends Enum<?>> parent;
+
+    SSEErrorType() {
+        this(null);
+    }
+
+    SSEErrorType(ErrorTypeDefinition<? extends Enum<?>> parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public Optional<ErrorTypeDefinition<? extends Enum<?>>> getParent() {
+        return Optional.ofNullable(parent);
+    }
+}
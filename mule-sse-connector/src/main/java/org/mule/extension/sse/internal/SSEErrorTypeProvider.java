@@ -0,0 +1,21 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.error.ErrorTypeProvider;
+import org.mule.runtime.extension.api.error.ErrorTypeDefinition;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Declares the errors the {@code Get Events} operations may raise.
+ */
+public class SSEErrorTypeProvider implements ErrorTypeProvider {
+
+    @Override
+    public Set<ErrorTypeDefinition> getErrorTypes() {
+        Set<ErrorTypeDefinition> errorTypes = new LinkedHashSet<>();
+        Collections.addAll(errorTypes, SSEErrorType.values());
+        return errorTypes;
+    }
+}
@@ -1,5 +1,11 @@
 package org.mule.extension.sse.internal;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Represents a parsed Server-Sent Event (SSE).
  * <p>
@@ -43,6 +49,40 @@ public class SSEEvent {
      */
     private Object data;
 
+    /**
+     * The request the event was received from.
+     * <p>
+     * Only set by the {@code Get Events (Fan-Out)} operation, which merges the events of several requests;
+     * {@code null} otherwise.
+     */
+    private String source;
+
+    /**
+     * The raw bytes of the {@code data:} lines, kept until {@link #getData()} decodes them.
+     */
+    private byte[] rawData;
+
+    /**
+     * Where the raw bytes of the {@code data:} lines were spilled to, when they are not kept in memory.
+     */
+    private SSESpillFile.Region spilledData;
+
+    /**
+     * How {@link #rawData} or {@link #spilledData} is decoded on first access.
+     */
+    private SSEDataDecoding decoding;
+
+    /**
+     * The type {@link #rawData} or {@link #spilledData} is decoded into, with the {@link SSEDataDecoding#TYPED}
+     * decoding; {@code null} to apply the decoding as is.
+     */
+    private SSEDataType dataType;
+
+    /**
+     * When the event was received, as a {@link System#nanoTime()} value; {@code 0} if unknown.
+     */
+    private long receivedNanos;
+
     /**
      * Returns the unique identifier of this event.
      *
@@ -79,12 +119,43 @@ public class SSEEvent {
         this.event = event;
     }
 
+    /**
+     * Returns the request this event was received from.
+     *
+     * @return the ID of the request of a {@code Get Events (Fan-Out)} operation, or {@code null}
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Sets the request this event was received from.
+     *
+     * @param source the ID of the request
+     */
+    public void setSource(String source) {
+        this.source = source;
+    }
+
     /**
      * Returns the payload of this event.
+     * <p>
+     * If the event was created from raw bytes, they are decoded on the first call according to the selected
+     * {@link SSEDataDecoding}, and the decoded value is kept for subsequent calls. Spilled bytes are read back from
+     * their temporary file first.
      *
      * @return the event payload as an {@link Object}, which may be JSON, text, or another format
+     * @throws UncheckedIOException if spilled data cannot be read back
      */
-    public Object getData() {
+    public synchronized Object getData() {
+        if (spilledData != null) {
+            rawData = spilledData.read();
+            spilledData = null;
+        }
+        if (rawData != null) {
+            data = dataType != null ? dataType.decode(rawData) : decoding.decode(rawData);
+            rawData = null;
+        }
         return data;
     }
 
@@ -93,8 +164,139 @@ public class SSEEvent {
      *
      * @param data the event payload to assign
      */
-    public void setData(Object data) {
+    public synchronized void setData(Object data) {
         this.data = data;
+        this.rawData = null;
+        this.spilledData = null;
+    }
+
+    /**
+     * Sets the undecoded payload of this event.
+     *
+     * @param rawData  the raw bytes of the {@code data:} lines
+     * @param decoding how the bytes are decoded on first access
+     */
+    synchronized void setRawData(byte[] rawData, SSEDataDecoding decoding) {
+        this.rawData = rawData;
+        this.decoding = decoding;
+        this.data = null;
+        this.spilledData = null;
+    }
+
+    /**
+     * Sets the undecoded payload of this event, spilled to a temporary file.
+     *
+     * @param spilledData the region of the spill file holding the raw bytes of the {@code data:} lines
+     * @param decoding    how the bytes are decoded on first access
+     */
+    synchronized void setSpilledData(SSESpillFile.Region spilledData, SSEDataDecoding decoding) {
+        this.spilledData = spilledData;
+        this.decoding = decoding;
+        this.data = null;
+        this.rawData = null;
+    }
+
+    /**
+     * Sets the type the undecoded payload of this event is decoded into.
+     *
+     * @param dataType the data type of the event type, with the {@link SSEDataDecoding#TYPED} decoding
+     */
+    synchronized void setDataType(SSEDataType dataType) {
+        this.dataType = dataType;
+    }
+
+    /**
+     * Moves the payload of this event to the given spill file. Data that was already decoded, e.g. by a
+     * projection, is written in a form its decoding reads back as the same value.
+     *
+     * @param file the spill file
+     * @return the number of bytes written
+     * @throws UncheckedIOException if the data cannot be written
+     */
+    synchronized int spill(SSESpillFile file) {
+        if (spilledData != null) {
+            return 0;
+        }
+        byte[] bytes;
+        SSEDataDecoding spilledDecoding;
+        if (rawData != null) {
+            bytes = rawData;
+            spilledDecoding = decoding;
+        } else if (data == null) {
+            return 0;
+        } else if (data instanceof String) {
+            bytes = ((String) data).getBytes(StandardCharsets.UTF_8);
+            spilledDecoding = SSEDataDecoding.STRING;
+        } else if (data instanceof byte[]) {
+            bytes = (byte[]) data;
+            spilledDecoding = SSEDataDecoding.BYTES;
+        } else {
+            try {
+                bytes = SSEEventParser.MAPPER.writeValueAsBytes(data);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException("Failed to serialize SSE event data to spill it", e);
+            }
+            spilledDecoding = data instanceof JsonNode ? SSEDataDecoding.JSON_NODE : SSEDataDecoding.JAVA;
+        }
+        setSpilledData(file.write(bytes, 0, bytes.length), spilledDecoding);
+        return bytes.length;
+    }
+
+    /**
+     * Tells whether the payload of this event is held in a spill file rather than in memory.
+     *
+     * @return {@code true} if the data was spilled and has not been read back yet
+     */
+    synchronized boolean isSpilled() {
+        return spilledData != null;
+    }
+
+    /**
+     * Returns the raw bytes of the {@code data:} lines, if they have not been decoded yet.
+     *
+     * @return the raw data bytes, or {@code null} once decoded or if the data was set directly
+     */
+    synchronized byte[] getRawData() {
+        return rawData;
+    }
+
+    /**
+     * Returns when this event was received.
+     *
+     * @return a {@link System#nanoTime()} value, or {@code 0} if unknown
+     */
+    long getReceivedNanos() {
+        return receivedNanos;
+    }
+
+    /**
+     * Records when this event was received.
+     *
+     * @param receivedNanos a {@link System#nanoTime()} value
+     */
+    void setReceivedNanos(long receivedNanos) {
+        this.receivedNanos = receivedNanos;
+    }
+
+    /**
+     * Returns a copy of this event tagged with the request it was received from, leaving this event, which may be
+     * shared through the response cache, untouched.
+     *
+     * @param source the ID of the request
+     * @return the tagged copy
+     */
+    synchronized SSEEvent withSource(String source) {
+        SSEEvent copy = new SSEEvent();
+        copy.id = id;
+        copy.event = event;
+        copy.data = data;
+        copy.rawData = rawData;
+        copy.spilledData = spilledData;
+        copy.decoding = decoding;
+        copy.dataType = dataType;
+        copy.receivedNanos = receivedNanos;
+        copy.source = source;
+        return copy;
     }
 
     /**
@@ -108,8 +310,9 @@ public class SSEEvent {
     public String toString() {
         return "SSEEvent{" +
                 "id='" + id + '\'' +
+                (source != null ? ", source='" + source + '\'' : "") +
                 ", event='" + event + '\'' +
-                ", data=" + data +
+                ", data=" + getData() +
                 '}';
     }
 }
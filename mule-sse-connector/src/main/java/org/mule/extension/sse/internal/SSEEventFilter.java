@@ -0,0 +1,111 @@
+package org.mule.extension.sse.internal;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Selects which events the {@link SSEEventParser} dispatches, and which part of their data it keeps.
+ * <p>
+ * Events whose type is not included, or is excluded, are skipped by the parser before their data is copied or
+ * decoded. The data of the events that are kept is reduced to the fields selected by the {@link SSEDataProjection},
+ * if any, or decoded into the {@link SSEDataType} of their event type, with the
+ * {@link SSEDataDecoding#TYPED TYPED} decoding.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+class SSEEventFilter {
+
+    /**
+     * Filter that keeps every event, with its whole data.
+     */
+    static final SSEEventFilter ALL = new SSEEventFilter(null, null, null, null);
+
+    private final Set<String> includedTypes;
+    private final Set<String> excludedTypes;
+    private final SSEDataProjection projection;
+    private final SSEEventTypes eventTypes;
+
+    /**
+     * Creates a new filter.
+     *
+     * @param includedTypes the event types to keep; {@code null} or empty to keep every type
+     * @param excludedTypes the event types to skip; may be {@code null}
+     * @param projection    the fields to keep from the data of the events; {@code null} to keep the whole data
+     * @param eventTypes    the types to decode the data of the events into; {@code null} to decode it as is
+     */
+    SSEEventFilter(List<String> includedTypes, List<String> excludedTypes, SSEDataProjection projection,
+                   SSEEventTypes eventTypes) {
+        this.includedTypes = toSet(includedTypes);
+        this.excludedTypes = toSet(excludedTypes);
+        this.projection = projection;
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * Creates the filter defined by the given operation parameters.
+     *
+     * @param parameters the request parameters
+     * @return the filter
+     * @throws IllegalArgumentException if a projection pointer is not a valid JSON pointer
+     */
+    static SSEEventFilter of(GetEventsParameters parameters) {
+        return of(parameters, null);
+    }
+
+    /**
+     * Creates the filter defined by the given operation parameters, which decodes the data of the events into the
+     * given types if the {@link SSEDataDecoding#TYPED TYPED} decoding is selected.
+     *
+     * @param parameters the request parameters
+     * @param eventTypes the event types of the configuration; may be {@code null}
+     * @return the filter
+     * @throws IllegalArgumentException if a projection pointer is not a valid JSON pointer
+     */
+    static SSEEventFilter of(GetEventsParameters parameters, SSEEventTypes eventTypes) {
+        return new SSEEventFilter(parameters.getIncludeEventTypes(), parameters.getExcludeEventTypes(),
+                SSEDataProjection.of(parameters.getDataProjection()),
+                parameters.getDataDecoding() == SSEDataDecoding.TYPED ? eventTypes : null);
+    }
+
+    /**
+     * Tells whether events of the given type are kept.
+     *
+     * @param eventType the event type
+     * @return {@code true} if the event should be dispatched
+     */
+    boolean accepts(String eventType) {
+        return (includedTypes.isEmpty() || includedTypes.contains(eventType)) && !excludedTypes.contains(eventType);
+    }
+
+    /**
+     * Returns the projection applied to the data of the kept events.
+     *
+     * @return the projection, or {@code null} to keep the whole data
+     */
+    SSEDataProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Returns the type to decode the data of the events of the given type into.
+     *
+     * @param eventType the event type
+     * @return the data type, or {@code null} to decode the data as is
+     */
+    SSEDataType getDataType(String eventType) {
+        return eventTypes != null ? eventTypes.get(eventType) : null;
+    }
+
+    private static Set<String> toSet(List<String> values) {
+        Set<String> set = new HashSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    set.add(value.trim());
+                }
+            }
+        }
+        return set;
+    }
+}
@@ -0,0 +1,153 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.runtime.streaming.PagingProvider;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link PagingProvider} that streams the events of an SSE endpoint to the flow as they are parsed.
+ * <p>
+ * The request is sent when the first page is requested. Each page holds the events received since the previous
+ * page (at least one, at most {@code pageSize}), so a downstream {@code foreach} or DataWeave script can process
+ * the first events while the server is still streaming. The HTTP exchange is aborted when the consumer finishes or
+ * abandons the iterator, since Mule then calls {@link #close(SSEConnection)}.
+ * <p>
+ * A connection failure, or a response with an error status, is raised by the page that follows the events received
+ * before it, as a {@link org.mule.runtime.extension.api.exception.ModuleException} of the matching
+ * {@link SSEErrorType}.
+ */
+class SSEEventPagingProvider implements PagingProvider<SSEConnection, SSEEvent> {
+
+    private final HttpRequest request;
+    private final int pageSize;
+    private final SSETimeouts timeouts;
+    private final StopConditionParameters stopConditions;
+    private final SSEDataDecoding decoding;
+    private final SSEEventFilter filter;
+    private final SSEMemoryGuard guard;
+
+    private SSEEventStream stream;
+    private CompletableFuture<HttpResponse<Void>> response;
+    private long deadlineNanos;
+
+    /**
+     * Creates a new paging provider.
+     *
+     * @param request         the request to the SSE endpoint
+     * @param pageSize        the maximum number of events per page
+     * @param timeouts        the timeouts of the stream
+     * @param stopConditions  the conditions that end the stream early
+     * @param decoding        how the data of the events is decoded
+     * @param filter          selects the events to keep and the part of their data to decode
+     * @param guard           enforces the maximum event bytes
+     */
+    SSEEventPagingProvider(HttpRequest request, int pageSize, SSETimeouts timeouts,
+                           StopConditionParameters stopConditions, SSEDataDecoding decoding,
+                           SSEEventFilter filter, SSEMemoryGuard guard) {
+        this.request = request;
+        this.pageSize = Math.max(1, pageSize);
+        this.timeouts = timeouts;
+        this.stopConditions = stopConditions;
+        this.decoding = decoding;
+        this.filter = filter;
+        this.guard = guard;
+    }
+
+    /**
+     * Returns the next events of the stream, blocking until at least one is available.
+     *
+     * @param connection the connection used to send the request on the first page
+     * @return the next events; an empty list once the stream has ended
+     * @throws org.mule.runtime.extension.api.exception.ModuleException {@code SSE:CONNECTIVITY},
+     *                                                                  {@code SSE:TIMEOUT} or
+     *                                                                  {@code SSE:LIMIT_EXCEEDED} once the events
+     *                                                                  received before the stream failed have been
+     *                                                                  returned
+     */
+    @Override
+    public List<SSEEvent> getPage(SSEConnection connection) {
+        if (stream == null) {
+            open(connection);
+        }
+
+        List<SSEEvent> events;
+        try {
+            events = stream.nextBatch(pageSize, deadlineNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stream.close();
+            return Collections.emptyList();
+        }
+        Throwable failure = stream.getFailure();
+        if (events.isEmpty() && failure != null) {
+            throw SSEOperations.toException(failure);
+        }
+        return events;
+    }
+
+    /**
+     * The number of events is unknown until the server closes the stream.
+     *
+     * @param connection the connection
+     * @return an empty optional
+     */
+    @Override
+    public Optional<Integer> getTotalResults(SSEConnection connection) {
+        return Optional.empty();
+    }
+
+    /**
+     * Aborts the HTTP exchange if it is still in progress.
+     *
+     * @param connection the connection
+     */
+    @Override
+    public void close(SSEConnection connection) {
+        if (stream != null) {
+            stream.close();
+        }
+        if (response != null && (stream == null || !stream.isComplete())) {
+            // A cancelled body never completes the response on its own; this also releases the stream of the
+            // connection
+            response.cancel(true);
+        }
+    }
+
+    /**
+     * Pages must be fetched with the connection that opened the stream.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean useStickyConnections() {
+        return true;
+    }
+
+    private void open(SSEConnection connection) {
+        // Buffer up to two pages ahead of the consumer before applying backpressure to the server
+        stream = new SSEEventStream(pageSize * 2, new SSEStopCondition(stopConditions), decoding,
+                filter, guard);
+        deadlineNanos = timeouts.deadlineNanos(stream.getStartNanos());
+
+        // The body of an error response is not parsed as events
+        response = connection.sendAsync(request, responseInfo -> responseInfo.statusCode() < 300
+                ? HttpResponse.BodySubscribers.fromSubscriber(stream)
+                : HttpResponse.BodySubscribers.replacing(null));
+        response.whenComplete((result, error) -> {
+            if (error != null && !(error instanceof CancellationException)) {
+                stream.onError(error);
+            } else if (result != null && result.statusCode() >= 300) {
+                stream.onError(new IOException("SSE server responded with HTTP status " + result.statusCode()));
+            }
+        });
+        // The time-to-first-event and idle timeouts; the consumer also stops waiting at the total deadline
+        timeouts.watch(stream, stream::expire);
+    }
+}
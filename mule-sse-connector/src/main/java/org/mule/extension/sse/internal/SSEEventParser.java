@@ -0,0 +1,618 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental, byte-level parser for {@code text/event-stream} payloads.
+ * <p>
+ * The parser is fed raw response bytes as they arrive from the network and dispatches an {@link SSEEvent} to the
+ * supplied listener every time a blank line terminates an event block. It follows the event stream interpretation
+ * rules of the HTML Living Standard:
+ * <ul>
+ *   <li>Lines may be terminated by {@code CRLF}, {@code LF} or {@code CR}, including a {@code CRLF} pair that is
+ *       split across two network chunks.</li>
+ *   <li>Lines starting with {@code :} are comments and are ignored.</li>
+ *   <li>The {@code id:}, {@code event:}, {@code data:} and {@code retry:} fields are recognized; any other field
+ *       is ignored. A single space after the colon is stripped from the value.</li>
+ *   <li>Multiple {@code data:} lines are joined with {@code \n}.</li>
+ *   <li>The last event ID persists across events until the server sends a new one.</li>
+ * </ul>
+ * <p>
+ * Bytes are only copied into two reusable buffers (the current line and the current event's data), so there is no
+ * intermediate {@link String} for the whole response, no regular expression and no repeated substring copies. The
+ * data of a dispatched event is kept as raw bytes and only decoded, as selected by {@link SSEDataDecoding}, when it
+ * is first read.
+ * <p>
+ * With an {@link SSEMemoryGuard}, neither buffer grows past the maximum event bytes: the data of an oversized event
+ * is truncated, or written to a spill file as it arrives, down to a single line that never ends.
+ * <p>
+ * <b>Note:</b> The standard discards an event that is not terminated by a blank line when the stream ends. The
+ * Constructor "Retrieve by intent" API closes the stream right after the last {@code data:} line of its
+ * {@code end} event, so {@link #finish()} dispatches a pending event instead of discarding it.
+ * <p>
+ * Instances are stateful and not thread-safe; use one parser per response.
+ */
+class SSEEventParser {
+
+    /**
+     * Shared Jackson ObjectMapper for parsing SSE data payloads, which Constructor sends as JSON objects (thread-safe
+     * after configuration).
+     */
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Event type assigned to events that do not carry an {@code event:} field, as mandated by the SSE standard.
+     */
+    static final String DEFAULT_EVENT_TYPE = "message";
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte COLON = ':';
+    private static final byte SPACE = ' ';
+
+    private static final byte[] FIELD_DATA = "data".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIELD_EVENT = "event".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIELD_ID = "id".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIELD_RETRY = "retry".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private static final byte[] LINE_FEED = {LF};
+
+    // Room for the field name, colon and space of a line, on top of the maximum event bytes
+    private static final int FIELD_PREFIX_LENGTH = 8;
+
+    /**
+     * What happens to the bytes of a line longer than the maximum event bytes.
+     */
+    private enum LineOverflow { NONE, DROP, SPILL }
+
+    private final Listener listener;
+
+    private final SSEDataDecoding decoding;
+
+    private final SSEEventFilter filter;
+
+    private final SSEMemoryGuard guard;
+
+    private final long maxEventBytes;
+
+    private final long maxLineLength;
+
+    // Bytes of the line currently being read; survives across chunks
+    private byte[] line = new byte[256];
+    private int lineLength;
+
+    // Accumulated data: lines of the event currently being read, joined with LF
+    private byte[] data = new byte[1024];
+    private int dataLength;
+    private boolean hasData;
+
+    // Set once the data of the current event exceeds the maximum event bytes
+    private boolean truncating;
+    private boolean spilling;
+    private int spilledLength;
+    private LineOverflow lineOverflow = LineOverflow.NONE;
+
+    // Size of the data of the event being dispatched, before projection
+    private int dispatchedDataLength;
+
+    // Whether the current event, and the one being dispatched, has an id field of its own
+    private boolean idInEvent;
+    private boolean dispatchedIdExplicit;
+
+    private String eventType;
+    private String lastEventId;
+    private long retry = -1;
+
+    // True when the previous chunk ended with CR, so a leading LF in the next chunk belongs to the same line break
+    private boolean skipLeadingLF;
+
+    // Number of leading bytes checked so far against the optional UTF-8 byte order mark
+    private int bomChecked;
+
+    private long eventCount;
+
+    /**
+     * Creates a parser that dispatches every parsed event to the given listener, with the {@link SSEDataDecoding#JAVA}
+     * data decoding.
+     *
+     * @param listener callback invoked, in stream order, for each dispatched {@link SSEEvent}
+     */
+    SSEEventParser(Listener listener) {
+        this(listener, SSEDataDecoding.JAVA);
+    }
+
+    /**
+     * Creates a parser that dispatches every parsed event to the given listener.
+     *
+     * @param listener callback invoked, in stream order, for each dispatched {@link SSEEvent}
+     * @param decoding how the data of the dispatched events is decoded, on first access
+     */
+    SSEEventParser(Listener listener, SSEDataDecoding decoding) {
+        this(listener, decoding, SSEEventFilter.ALL);
+    }
+
+    /**
+     * Creates a parser that dispatches the events selected by the given filter to the given listener.
+     *
+     * @param listener callback invoked, in stream order, for each dispatched {@link SSEEvent}
+     * @param decoding how the data of the dispatched events is decoded
+     * @param filter   selects the events to dispatch and the part of their data to keep
+     */
+    SSEEventParser(Listener listener, SSEDataDecoding decoding, SSEEventFilter filter) {
+        this(listener, decoding, filter, null);
+    }
+
+    /**
+     * Creates a parser that dispatches the events selected by the given filter to the given listener, and bounds
+     * the size of each event.
+     *
+     * @param listener callback invoked, in stream order, for each dispatched {@link SSEEvent}
+     * @param decoding how the data of the dispatched events is decoded
+     * @param filter   selects the events to dispatch and the part of their data to keep
+     * @param guard    enforces the maximum event bytes; {@code null} for no limit
+     */
+    SSEEventParser(Listener listener, SSEDataDecoding decoding, SSEEventFilter filter, SSEMemoryGuard guard) {
+        this.listener = listener;
+        this.decoding = decoding != null ? decoding : SSEDataDecoding.JAVA;
+        this.filter = filter != null ? filter : SSEEventFilter.ALL;
+        this.guard = guard;
+        this.maxEventBytes = guard != null ? guard.getMaxEventBytes() : 0;
+        this.maxLineLength = maxEventBytes > 0 ? maxEventBytes + FIELD_PREFIX_LENGTH : 0;
+    }
+
+    /**
+     * Feeds the next chunk of the response body to the parser.
+     * <p>
+     * All remaining bytes of the buffer are consumed. Complete events found in the chunk are dispatched before this
+     * method returns; a trailing partial line is retained until the next chunk arrives.
+     *
+     * @param chunk the next bytes of the event stream
+     * @throws SSELimitExceededException if an event exceeds the maximum event bytes, and the guard fails the
+     *                                   response
+     */
+    void feed(ByteBuffer chunk) {
+        while (chunk.hasRemaining()) {
+            if (bomChecked < UTF8_BOM.length) {
+                if (!skipByteOrderMark(chunk)) {
+                    continue;
+                }
+            }
+
+            if (skipLeadingLF) {
+                skipLeadingLF = false;
+                if (chunk.get(chunk.position()) == LF) {
+                    chunk.get();
+                    continue;
+                }
+            }
+
+            // Find the next line terminator in the chunk
+            int start = chunk.position();
+            int limit = chunk.limit();
+            int end = start;
+            byte terminator = 0;
+            while (end < limit) {
+                byte b = chunk.get(end);
+                if (b == LF || b == CR) {
+                    terminator = b;
+                    break;
+                }
+                end++;
+            }
+
+            appendToLine(chunk, end - start);
+
+            if (terminator == 0) {
+                // Partial line; wait for the next chunk
+                return;
+            }
+
+            // Consume the terminator, and the LF of a CRLF pair when it is in this chunk
+            chunk.get();
+            if (terminator == CR) {
+                if (chunk.hasRemaining()) {
+                    if (chunk.get(chunk.position()) == LF) {
+                        chunk.get();
+                    }
+                } else {
+                    skipLeadingLF = true;
+                }
+            }
+
+            endLine();
+        }
+    }
+
+    /**
+     * Signals the end of the stream.
+     * <p>
+     * Processes a trailing unterminated line, if any, and dispatches the pending event if it carries data.
+     */
+    void finish() {
+        if (lineLength > 0 || lineOverflow != LineOverflow.NONE) {
+            endLine();
+        }
+        dispatch();
+    }
+
+    /**
+     * Returns the last event ID received from the server, which persists across events.
+     *
+     * @return the last event ID, or {@code null} if the server has not sent one
+     */
+    String getLastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * Seeds the last event ID, e.g. with the one received on a previous connection to the same stream, so events
+     * that do not carry an {@code id:} field keep reporting it.
+     *
+     * @param lastEventId the last event ID, or {@code null}
+     */
+    void setLastEventId(String lastEventId) {
+        this.lastEventId = lastEventId;
+    }
+
+    /**
+     * Returns the reconnection time most recently requested by the server through the {@code retry:} field.
+     *
+     * @return the reconnection time in milliseconds, or {@code -1} if the server has not sent one
+     */
+    long getRetry() {
+        return retry;
+    }
+
+    /**
+     * Returns the size of the raw data of the event being dispatched, before projection. Only meaningful while the
+     * listener handles the event.
+     *
+     * @return the data size in bytes
+     */
+    int getDispatchedDataLength() {
+        return dispatchedDataLength;
+    }
+
+    /**
+     * Tells whether the event being dispatched has an {@code id:} field of its own, rather than the ID of an earlier
+     * event. Only meaningful while the listener handles the event.
+     *
+     * @return {@code true} if the server sent an ID with the event
+     */
+    boolean isDispatchedIdExplicit() {
+        return dispatchedIdExplicit;
+    }
+
+    /**
+     * Returns the number of events dispatched so far.
+     *
+     * @return the dispatched event count
+     */
+    long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Consumes the UTF-8 byte order mark, if present, at the very beginning of the stream.
+     *
+     * @return {@code true} once the check is complete and normal parsing can proceed
+     */
+    private boolean skipByteOrderMark(ByteBuffer chunk) {
+        while (bomChecked < UTF8_BOM.length && chunk.hasRemaining()) {
+            if (chunk.get(chunk.position()) != UTF8_BOM[bomChecked]) {
+                // Not a BOM; re-inject any partially matched bytes as regular line content
+                if (bomChecked > 0) {
+                    appendToLine(UTF8_BOM, 0, bomChecked);
+                }
+                bomChecked = UTF8_BOM.length;
+                return true;
+            }
+            chunk.get();
+            bomChecked++;
+        }
+        return bomChecked == UTF8_BOM.length;
+    }
+
+    private void appendToLine(ByteBuffer chunk, int length) {
+        if (length == 0) {
+            return;
+        }
+        if (lineOverflow == LineOverflow.NONE && maxLineLength > 0 && lineLength + length > maxLineLength) {
+            // Keep what fits, then decide what to do with the rest of the line
+            int fit = (int) (maxLineLength - lineLength);
+            ensureLineCapacity(lineLength + fit);
+            chunk.get(line, lineLength, fit);
+            lineLength += fit;
+            length -= fit;
+            overflowLine();
+        }
+        if (lineOverflow == LineOverflow.SPILL) {
+            byte[] bytes = new byte[length];
+            chunk.get(bytes);
+            guard.getSpillFile().append(bytes, 0, length);
+            spilledLength += length;
+            return;
+        }
+        if (lineOverflow == LineOverflow.DROP) {
+            chunk.position(chunk.position() + length);
+            return;
+        }
+        ensureLineCapacity(lineLength + length);
+        chunk.get(line, lineLength, length);
+        lineLength += length;
+    }
+
+    /**
+     * Handles a line that reached the maximum line length: the rest of a {@code data:} line is spilled, if the
+     * guard says so, and the rest of any other line is dropped.
+     */
+    private void overflowLine() {
+        SSELimitAction action = guard.onOversizedEvent();
+        int colon = indexOf(line, lineLength, COLON);
+        if (action != SSELimitAction.SPILL || colon < 0 || !fieldEquals(FIELD_DATA, colon)) {
+            // Truncated: the line is processed as it is when it ends, and a data line then truncates its event
+            lineOverflow = LineOverflow.DROP;
+            return;
+        }
+        int valueStart = colon + 1 < lineLength && line[colon + 1] == SPACE ? colon + 2 : colon + 1;
+        startSpilling();
+        spillData(valueStart, lineLength - valueStart);
+        lineLength = 0;
+        lineOverflow = LineOverflow.SPILL;
+    }
+
+    /**
+     * Processes the line that just ended, unless its value was spilled as it arrived.
+     */
+    private void endLine() {
+        LineOverflow overflow = lineOverflow;
+        lineOverflow = LineOverflow.NONE;
+        if (overflow == LineOverflow.SPILL) {
+            lineLength = 0;
+            return;
+        }
+        processLine();
+    }
+
+    private void appendToLine(byte[] bytes, int offset, int length) {
+        ensureLineCapacity(lineLength + length);
+        System.arraycopy(bytes, offset, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private void ensureLineCapacity(int capacity) {
+        if (capacity > line.length) {
+            line = Arrays.copyOf(line, Math.max(capacity, line.length << 1));
+        }
+    }
+
+    /**
+     * Interprets the line accumulated in {@link #line} and resets it.
+     */
+    private void processLine() {
+        int length = lineLength;
+        lineLength = 0;
+
+        // A blank line dispatches the pending event
+        if (length == 0) {
+            dispatch();
+            return;
+        }
+
+        // Comment line
+        if (line[0] == COLON) {
+            return;
+        }
+
+        // Split "field: value"; a line without a colon is a field name with an empty value
+        int colon = indexOf(line, length, COLON);
+        int nameLength = colon < 0 ? length : colon;
+        int valueStart = colon < 0 ? length : colon + 1;
+        if (valueStart < length && line[valueStart] == SPACE) {
+            valueStart++;
+        }
+        int valueLength = length - valueStart;
+
+        if (fieldEquals(FIELD_DATA, nameLength)) {
+            appendData(valueStart, valueLength);
+        } else if (fieldEquals(FIELD_EVENT, nameLength)) {
+            eventType = new String(line, valueStart, valueLength, StandardCharsets.UTF_8);
+        } else if (fieldEquals(FIELD_ID, nameLength)) {
+            // Per the standard, an id containing NULL is ignored
+            if (indexOf(line, valueStart, length, (byte) 0) < 0) {
+                lastEventId = new String(line, valueStart, valueLength, StandardCharsets.UTF_8);
+                idInEvent = true;
+            }
+        } else if (fieldEquals(FIELD_RETRY, nameLength)) {
+            parseRetry(valueStart, valueLength);
+        }
+        // Any other field is ignored
+    }
+
+    private void appendData(int offset, int length) {
+        if (spilling) {
+            spillData(offset, length);
+            return;
+        }
+        if (truncating) {
+            // The rest of the data of an oversized event is dropped
+            return;
+        }
+        int required = dataLength + length + (hasData ? 1 : 0);
+        if (maxEventBytes > 0 && required > maxEventBytes) {
+            if (guard.onOversizedEvent() == SSELimitAction.SPILL) {
+                startSpilling();
+                spillData(offset, length);
+                return;
+            }
+            // Keep what fits
+            truncating = true;
+            length = (int) Math.max(0, Math.min(length, maxEventBytes - dataLength - (hasData ? 1 : 0)));
+            required = (int) Math.min(required, maxEventBytes);
+            if (hasData && dataLength >= maxEventBytes) {
+                return;
+            }
+        }
+        if (required > data.length) {
+            data = Arrays.copyOf(data, Math.max(required, data.length << 1));
+        }
+        if (hasData) {
+            data[dataLength++] = LF;
+        }
+        System.arraycopy(line, offset, data, dataLength, length);
+        dataLength += length;
+        hasData = true;
+    }
+
+    /**
+     * Moves the data accumulated so far for the current event to the spill file, where the rest of its data goes.
+     */
+    private void startSpilling() {
+        if (spilling) {
+            return;
+        }
+        SSESpillFile file = guard.getSpillFile();
+        file.begin();
+        file.append(data, 0, dataLength);
+        spilledLength = dataLength;
+        dataLength = 0;
+        spilling = true;
+    }
+
+    private void spillData(int offset, int length) {
+        SSESpillFile file = guard.getSpillFile();
+        if (hasData) {
+            file.append(LINE_FEED, 0, 1);
+            spilledLength++;
+        }
+        file.append(line, offset, length);
+        spilledLength += length;
+        hasData = true;
+    }
+
+    private void parseRetry(int offset, int length) {
+        if (length == 0 || length > 18) {
+            return;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = line[i];
+            if (b < '0' || b > '9') {
+                return;
+            }
+            value = value * 10 + (b - '0');
+        }
+        retry = value;
+    }
+
+    /**
+     * Builds and dispatches the pending event, if it has data, then resets the per-event state.
+     */
+    private void dispatch() {
+        dispatchedIdExplicit = idInEvent;
+        idInEvent = false;
+        if (!hasData) {
+            // Per the standard, an event without data is not dispatched
+            eventType = null;
+            return;
+        }
+
+        String type = eventType == null || eventType.isEmpty() ? DEFAULT_EVENT_TYPE : eventType;
+        eventType = null;
+        SSESpillFile.Region spilled = spilling ? guard.getSpillFile().end() : null;
+        dispatchedDataLength = spilled != null ? spilledLength : dataLength;
+        truncating = false;
+        spilling = false;
+
+        if (!filter.accepts(type)) {
+            // Skipped before its data is copied or decoded
+            dataLength = 0;
+            hasData = false;
+            listener.onSkippedEvent(type);
+            return;
+        }
+
+        SSEEvent event = new SSEEvent();
+        event.setId(lastEventId);
+        event.setEvent(type);
+        SSEDataProjection projection = filter.getProjection();
+        if (spilled != null) {
+            if (projection != null) {
+                // The projection needs the data in memory, but only keeps the projected fields
+                byte[] bytes = spilled.read();
+                event.setData(projection.project(bytes, bytes.length, decoding));
+            } else {
+                event.setSpilledData(spilled, decoding);
+            }
+        } else if (projection != null) {
+            // Only the projected fields are extracted, with a streaming parser, and kept
+            event.setData(projection.project(data, dataLength, decoding));
+        } else {
+            // Keep an exact-size copy of the data; decoding is deferred until the data is first read
+            event.setRawData(Arrays.copyOf(data, dataLength), decoding);
+        }
+        if (projection == null) {
+            event.setDataType(filter.getDataType(type));
+        }
+
+        dataLength = 0;
+        hasData = false;
+        eventCount++;
+
+        listener.onEvent(event);
+    }
+
+    private boolean fieldEquals(byte[] field, int nameLength) {
+        if (nameLength != field.length) {
+            return false;
+        }
+        for (int i = 0; i < nameLength; i++) {
+            if (line[i] != field[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, int length, byte value) {
+        return indexOf(bytes, 0, length, value);
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Receives the events dispatched by the parser.
+     */
+    @FunctionalInterface
+    interface Listener {
+
+        /**
+         * Called for each dispatched event, in stream order.
+         *
+         * @param event the parsed event
+         */
+        void onEvent(SSEEvent event);
+
+        /**
+         * Called for each event skipped by the {@link SSEEventFilter}, in stream order.
+         *
+         * @param eventType the type of the skipped event
+         */
+        default void onSkippedEvent(String eventType) {
+            // Ignored by default
+        }
+    }
+}
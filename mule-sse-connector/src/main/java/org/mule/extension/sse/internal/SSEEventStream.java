@@ -0,0 +1,325 @@
+package org.mule.extension.sse.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Flow.Subscriber} that parses an SSE response body as it arrives and hands the parsed events over to a
+ * consumer thread, one batch at a time.
+ * <p>
+ * The network side pushes events into a queue while the consumer side pulls them with {@link #nextBatch(int, long)},
+ * so a flow can start processing the first events while the server is still streaming the rest. Backpressure is
+ * applied to the HTTP client: a new body chunk is only requested while fewer than {@code highWatermark} events are
+ * waiting to be consumed.
+ * <p>
+ * The stream also ends as soon as the {@link SSEStopCondition} of the request is met. A stream that ends with an error
+ * keeps it, so the consumer can raise it once it has taken the events received before. The maximum event bytes of
+ * the {@link SSEMemoryGuard} of the stream apply to its parser; an event over the limit whose action is
+ * {@link SSELimitAction#FAIL} ends the stream with an {@link SSELimitExceededException}.
+ * <p>
+ * {@link #close()} cancels the subscription, which makes the HTTP client abort the exchange and release the
+ * connection; it is safe to call at any time, including before the response has started.
+ */
+class SSEEventStream implements Flow.Subscriber<List<ByteBuffer>>, SSEEventParser.Listener, AutoCloseable,
+        SSETimeouts.Progress {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEEventStream.class);
+
+    /**
+     * Marker queued after the last event of the stream.
+     */
+    private static final SSEEvent END_OF_STREAM = new SSEEvent();
+
+    private final BlockingQueue<SSEEvent> queue = new LinkedBlockingQueue<>();
+
+    private final SSEEventParser parser;
+
+    private final SSEStopCondition stopCondition;
+
+    private final int highWatermark;
+
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    private volatile boolean complete;
+
+    private volatile Throwable failure;
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile long lastEventNanos = -1;
+
+    private final Object demandLock = new Object();
+
+    // Guarded by demandLock
+    private Flow.Subscription subscription;
+    private boolean demandPending;
+    private boolean closed;
+
+    // Only accessed by the consumer thread
+    private boolean ended;
+
+    /**
+     * Creates a new stream.
+     *
+     * @param highWatermark the number of queued events above which no more body chunks are requested
+     * @param stopCondition the early termination condition of the request
+     * @param decoding      how the data of the parsed events is decoded
+     * @param filter        selects the events to keep and the part of their data to decode
+     * @param guard         enforces the maximum event bytes
+     */
+    SSEEventStream(int highWatermark, SSEStopCondition stopCondition, SSEDataDecoding decoding,
+                   SSEEventFilter filter, SSEMemoryGuard guard) {
+        this.highWatermark = Math.max(1, highWatermark);
+        this.stopCondition = stopCondition;
+        this.parser = new SSEEventParser(this, decoding, filter, guard);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        synchronized (demandLock) {
+            if (closed) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> chunks) {
+        for (ByteBuffer chunk : chunks) {
+            int length = chunk.remaining();
+            try {
+                parser.feed(chunk);
+            } catch (SSELimitExceededException e) {
+                // The event is over the limit: abort the exchange, and end the stream with the failure
+                close();
+                onError(e);
+                return;
+            }
+            stopCondition.onBytes(length);
+            if (stopCondition.isMet()) {
+                // The answer is complete: abort the exchange and end the stream
+                close();
+                if (terminated.compareAndSet(false, true)) {
+                    queue.add(END_OF_STREAM);
+                }
+                return;
+            }
+        }
+        synchronized (demandLock) {
+            demandPending = true;
+        }
+        requestMoreIfBelowWatermark();
+    }
+
+    /**
+     * Queues a parsed event for the consumer, unless the stop condition discards it.
+     *
+     * @param event the parsed event
+     */
+    @Override
+    public void onEvent(SSEEvent event) {
+        lastEventNanos = System.nanoTime();
+        if (stopCondition.accept(event)) {
+            queue.add(event);
+        }
+    }
+
+    /**
+     * Lets the stop condition account for an event skipped by the filter.
+     *
+     * @param eventType the type of the skipped event
+     */
+    @Override
+    public void onSkippedEvent(String eventType) {
+        lastEventNanos = System.nanoTime();
+        stopCondition.acceptSkipped(eventType);
+    }
+
+    /**
+     * Ends the stream after an error. May also be called when the exchange fails before the body is subscribed to,
+     * e.g. when the server is unreachable or responds with an error status; only the first termination signal is
+     * taken into account.
+     *
+     * @param throwable the error that terminated the stream
+     */
+    @Override
+    public void onError(Throwable throwable) {
+        if (terminated.compareAndSet(false, true)) {
+            LOGGER.warn("SSE stream terminated with an error after {} event(s)", parser.getEventCount(), throwable);
+            failure = throwable;
+            queue.add(END_OF_STREAM);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        complete = true;
+        if (terminated.compareAndSet(false, true)) {
+            try {
+                parser.finish();
+            } catch (SSELimitExceededException | UncheckedIOException e) {
+                // The pending event is over the limit, or its data could not be decoded: end the stream with the
+                // failure, as onError does
+                LOGGER.warn("SSE stream terminated with an error after {} event(s)", parser.getEventCount(), e);
+                failure = e;
+            }
+            queue.add(END_OF_STREAM);
+        }
+    }
+
+    /**
+     * Ends the stream because one of its timeouts expired: the exchange is aborted, and the events already parsed
+     * are still handed over.
+     *
+     * @param timeout the timeout that expired
+     */
+    void expire(SSETimeoutType timeout) {
+        if (terminated.compareAndSet(false, true)) {
+            LOGGER.warn("SSE stream timed out ({}); closing it after {} event(s)", timeout, parser.getEventCount());
+            close();
+            queue.add(END_OF_STREAM);
+        }
+    }
+
+    @Override
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Returns when the last event was parsed. While events wait in the queue, the consumer, not the server, is
+     * holding the stream back, so the stream counts as active.
+     *
+     * @return a {@link System#nanoTime()} value, or {@code -1} if no event was parsed yet
+     */
+    @Override
+    public long getLastEventNanos() {
+        return queue.isEmpty() ? lastEventNanos : System.nanoTime();
+    }
+
+    @Override
+    public boolean isDone() {
+        if (terminated.get()) {
+            return true;
+        }
+        synchronized (demandLock) {
+            return closed;
+        }
+    }
+
+    /**
+     * Returns the next batch of events, blocking until at least one event is available, the stream ends, or the
+     * deadline is reached.
+     * <p>
+     * Events that are already queued are returned together, up to {@code maxSize}, so a fast stream is consumed
+     * in larger batches while a slow stream is consumed as soon as each event arrives.
+     *
+     * @param maxSize       the maximum number of events to return
+     * @param deadlineNanos the {@link System#nanoTime()} value after which the stream is closed and the batch returned
+     * @return the next events, in stream order; an empty list once the stream has ended
+     * @throws InterruptedException if the consumer thread is interrupted while waiting
+     */
+    List<SSEEvent> nextBatch(int maxSize, long deadlineNanos) throws InterruptedException {
+        List<SSEEvent> batch = new ArrayList<>(Math.min(maxSize, 64));
+        if (ended) {
+            return batch;
+        }
+
+        long remaining = deadlineNanos - System.nanoTime();
+        SSEEvent event = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+        if (event == null) {
+            // Deadline reached: abort the exchange, but still hand over the events that were already parsed
+            LOGGER.warn("SSE stream timed out; closing it after {} event(s)", parser.getEventCount());
+            close();
+            queue.add(END_OF_STREAM);
+            event = queue.poll();
+        }
+
+        while (event != null) {
+            if (event == END_OF_STREAM) {
+                ended = true;
+                break;
+            }
+            batch.add(event);
+            if (batch.size() >= maxSize) {
+                break;
+            }
+            event = queue.poll();
+        }
+
+        requestMoreIfBelowWatermark();
+        return batch;
+    }
+
+    /**
+     * Cancels the subscription to the response body, aborting the HTTP exchange, unless the response has already
+     * been received in full.
+     */
+    @Override
+    public void close() {
+        Flow.Subscription toCancel;
+        synchronized (demandLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toCancel = subscription;
+        }
+        // Once the body is complete, the HTTP client has returned the connection to its pool: cancelling now would
+        // close a connection that the next request may already be using
+        if (toCancel != null && !complete) {
+            toCancel.cancel();
+        }
+    }
+
+    /**
+     * Returns the error that ended the stream.
+     *
+     * @return the error, or {@code null} if the stream ended normally, was closed or timed out
+     */
+    Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Indicates whether the response body has been received in full.
+     *
+     * @return {@code true} if the server ended the response
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Requests the next body chunk if one is owed and the consumer is keeping up. Called from both the network
+     * thread, after a chunk has been parsed, and the consumer thread, after a batch has been taken.
+     */
+    private void requestMoreIfBelowWatermark() {
+        Flow.Subscription toRequest = null;
+        synchronized (demandLock) {
+            if (subscription == null || closed || !demandPending) {
+                return;
+            }
+            if (queue.size() < highWatermark) {
+                demandPending = false;
+                toRequest = subscription;
+            }
+        }
+        if (toRequest != null) {
+            toRequest.request(1);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The data types of the event types of a configuration, loaded from its {@link EventTypeParameters}.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+class SSEEventTypes {
+
+    private final Map<String, SSEDataType> types;
+
+    private SSEEventTypes(Map<String, SSEDataType> types) {
+        this.types = Collections.unmodifiableMap(types);
+    }
+
+    /**
+     * Loads the event types defined by the given parameters.
+     *
+     * @param parameters the event type settings of the configuration
+     * @return the event types, or {@code null} if none is defined
+     * @throws IllegalArgumentException if a resource cannot be found or is not valid JSON
+     */
+    static SSEEventTypes load(EventTypeParameters parameters) {
+        Map<String, SSEDataType> types = new LinkedHashMap<>();
+        if (parameters.getEventSamples() != null) {
+            for (String location : parameters.getEventSamples()) {
+                if (location != null && !location.isBlank()) {
+                    fromSampleEvents(read(location), null, types);
+                }
+            }
+        }
+        if (parameters.getEventDataTypes() != null) {
+            parameters.getEventDataTypes().forEach((eventType, location) -> {
+                JsonNode document = read(location);
+                Map<String, SSEDataType> sampled = new LinkedHashMap<>();
+                if (fromSampleEvents(document, eventType, sampled)) {
+                    types.put(eventType, sampled.getOrDefault(eventType, SSEDataType.fromSample(null)));
+                } else {
+                    types.put(eventType, SSEDataType.of(document));
+                }
+            });
+        }
+        return types.isEmpty() ? null : new SSEEventTypes(types);
+    }
+
+    /**
+     * Builds event types from sample events.
+     *
+     * @param events    the sample events
+     * @param eventType the only event type to consider, or {@code null} for every type
+     * @param types     the types to add to, merged with those already present
+     * @return {@code false} if the document is not an array of sample events
+     */
+    static boolean fromSampleEvents(JsonNode events, String eventType, Map<String, SSEDataType> types) {
+        if (!events.isArray() || events.isEmpty()) {
+            return false;
+        }
+        for (JsonNode event : events) {
+            if (!event.isObject() || !event.has("event") || !event.has("data")) {
+                return false;
+            }
+        }
+        for (JsonNode event : events) {
+            String type = event.get("event").isNull() ? SSEEventParser.DEFAULT_EVENT_TYPE : event.get("event").asText();
+            if (eventType == null || eventType.equals(type)) {
+                types.merge(type, SSEDataType.fromSample(event.get("data")), SSEDataType::merge);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the data type of an event type.
+     *
+     * @param eventType the event type
+     * @return the data type, or {@code null} if the event type is not defined
+     */
+    SSEDataType get(String eventType) {
+        return types.get(eventType);
+    }
+
+    /**
+     * Returns the data type of every event type.
+     *
+     * @return the data types, by event type, in the order they were defined
+     */
+    Map<String, SSEDataType> getTypes() {
+        return types;
+    }
+
+    private static JsonNode read(String location) {
+        try (InputStream stream = open(location.trim())) {
+            return SSEEventParser.MAPPER.readTree(stream);
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalArgumentException("Failed to read the SSE event type resource '" + location + "': "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private static InputStream open(String location) throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        URL resource = classLoader != null ? classLoader.getResource(location) : null;
+        if (resource == null) {
+            resource = SSEEventTypes.class.getClassLoader().getResource(location);
+        }
+        if (resource != null) {
+            return resource.openStream();
+        }
+        Path path = Paths.get(location);
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("no such resource or file");
+        }
+        return Files.newInputStream(path);
+    }
+}
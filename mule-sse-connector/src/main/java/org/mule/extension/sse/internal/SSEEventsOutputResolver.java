@@ -0,0 +1,100 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.metadata.api.builder.BaseTypeBuilder;
+import org.mule.metadata.api.builder.ObjectTypeBuilder;
+import org.mule.metadata.api.builder.UnionTypeBuilder;
+import org.mule.metadata.api.model.MetadataFormat;
+import org.mule.metadata.api.model.MetadataType;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.metadata.MetadataContext;
+import org.mule.runtime.api.metadata.resolving.FailureCode;
+import org.mule.runtime.api.metadata.resolving.MetadataResolvingException;
+import org.mule.runtime.api.metadata.resolving.OutputTypeResolver;
+
+import java.util.Map;
+
+/**
+ * Resolves the output metadata of the operations and the listener that return a list of {@link SSEEvent}s, from the
+ * event types of their configuration.
+ * <p>
+ * The {@code data} of the events is described as the union of the data types of the event types defined in the
+ * {@link EventTypeParameters} of the configuration, each derived from its samples or JSON schema, so DataWeave and
+ * Studio can map it; it is left as anything when no event type is defined.
+ */
+public class SSEEventsOutputResolver implements OutputTypeResolver<String> {
+
+    @Override
+    public String getCategoryName() {
+        return "SSE";
+    }
+
+    @Override
+    public String getResolverName() {
+        return "SSEEventsOutputResolver";
+    }
+
+    @Override
+    public MetadataType getOutputType(MetadataContext context, String key)
+            throws MetadataResolvingException, ConnectionException {
+        SSEEventTypes eventTypes;
+        try {
+            eventTypes = context.<SSEConfiguration>getConfig().map(SSEConfiguration::getEventTypes).orElse(null);
+        } catch (IllegalArgumentException e) {
+            throw new MetadataResolvingException(e.getMessage(), FailureCode.INVALID_CONFIGURATION, e);
+        }
+
+        ObjectTypeBuilder event = builder().objectType().id(SSEEvent.class.getName());
+        event.addField().key("id").value(builder().stringType().build());
+        event.addField().key("event").value(builder().stringType().build());
+        event.addField().key("source").value(builder().stringType().build());
+        event.addField().key("data").value(toDataType(eventTypes));
+        return builder().arrayType().of(event.build()).build();
+    }
+
+    /**
+     * Describes the data of the events of the given types.
+     */
+    private static MetadataType toDataType(SSEEventTypes eventTypes) {
+        if (eventTypes == null) {
+            return builder().anyType().build();
+        }
+        Map<String, SSEDataType> types = eventTypes.getTypes();
+        if (types.size() == 1) {
+            return toMetadataType(types.values().iterator().next(), types.keySet().iterator().next());
+        }
+        UnionTypeBuilder union = builder().unionType();
+        types.forEach((eventType, type) -> union.of(toMetadataType(type, eventType)));
+        return union.build();
+    }
+
+    /**
+     * Describes a data type; the root object of the data of an event type is labelled with the event type.
+     */
+    private static MetadataType toMetadataType(SSEDataType type, String eventType) {
+        switch (type.getKind()) {
+            case OBJECT:
+                ObjectTypeBuilder object = builder().objectType();
+                if (eventType != null) {
+                    object.label(eventType);
+                }
+                type.getFields().forEach((name, fieldType) ->
+                        object.addField().key(name).value(toMetadataType(fieldType, null)));
+                return object.build();
+            case ARRAY:
+                return builder().arrayType().of(toMetadataType(type.getItems(), null)).build();
+            case STRING:
+                return builder().stringType().build();
+            case INTEGER:
+            case NUMBER:
+                return builder().numberType().build();
+            case BOOLEAN:
+                return builder().booleanType().build();
+            default:
+                return builder().anyType().build();
+        }
+    }
+
+    private static BaseTypeBuilder builder() {
+        return BaseTypeBuilder.create(MetadataFormat.JAVA);
+    }
+}
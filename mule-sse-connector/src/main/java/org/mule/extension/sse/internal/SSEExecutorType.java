@@ -0,0 +1,81 @@
+package org.mule.extension.sse.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executor the HTTP client of a connection runs its asynchronous tasks on: delivering response body chunks,
+ * parsing them and completing the response futures.
+ */
+public enum SSEExecutorType {
+
+    /**
+     * The executor of the HTTP client, an unbounded cached thread pool.
+     */
+    DEFAULT {
+        @Override
+        ExecutorService create(int threads) {
+            return null;
+        }
+    },
+
+    /**
+     * A fixed pool of daemon threads, which bounds the number of threads used by the connection however many
+     * streams are open.
+     */
+    FIXED {
+        @Override
+        ExecutorService create(int threads) {
+            return Executors.newFixedThreadPool(Math.max(1, threads), new DaemonThreadFactory());
+        }
+    },
+
+    /**
+     * One virtual thread per task, which suits a large number of mostly idle streams. Requires Java 21 or later;
+     * the default executor is used on older runtimes.
+     */
+    VIRTUAL {
+        @Override
+        ExecutorService create(int threads) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.warn("Virtual threads are not available on Java {}; using the default executor",
+                        Runtime.version().feature());
+                return null;
+            }
+        }
+    };
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEExecutorType.class);
+
+    /**
+     * Creates the executor of a new connection.
+     *
+     * @param threads the number of threads of a {@link #FIXED} pool
+     * @return the executor, or {@code null} to let the HTTP client use its own
+     */
+    abstract ExecutorService create(int threads);
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+        private final String prefix = "sse-http-" + POOL_COUNT.incrementAndGet() + "-";
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
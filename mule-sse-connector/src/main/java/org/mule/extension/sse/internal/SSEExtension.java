@@ -3,6 +3,7 @@ package org.mule.extension.sse.internal;
 import org.mule.runtime.extension.api.annotation.Configurations;
 import org.mule.runtime.extension.api.annotation.Extension;
 import org.mule.runtime.extension.api.annotation.dsl.xml.Xml;
+import org.mule.runtime.extension.api.annotation.error.ErrorTypes;
 import org.mule.sdk.api.annotation.JavaVersionSupport;
 
 import static org.mule.sdk.api.meta.JavaVersion.JAVA_17;
@@ -21,6 +22,8 @@ import static org.mule.sdk.api.meta.JavaVersion.JAVA_17;
  *   <li>Associates the connector with its configuration class
  *       ({@link SSEConfiguration}) using the {@link Configurations} annotation.</li>
  *   <li>Defines the XML namespace prefix (<code>sse</code>) for usage in Mule flows.</li>
+ *   <li>Declares the errors raised by the operations ({@link SSEErrorType}) using the {@link ErrorTypes}
+ *       annotation.</li>
  *   <li>Declares Java 17 as the minimum supported runtime for this connector.</li>
  * </ul>
  *
@@ -37,6 +40,7 @@ import static org.mule.sdk.api.meta.JavaVersion.JAVA_17;
 @Extension(name = "SSE Connector")          // Registers the extension in Mule runtime
 @JavaVersionSupport(JAVA_17)                // Declares Java 17 compatibility
 @Configurations(SSEConfiguration.class)     // Registers the connector's configuration class
+@ErrorTypes(SSEErrorType.class)             // Declares the SSE:* errors raised by the operations
 public class SSEExtension {
     // No implementation needed here. Mule runtime uses annotations
     // to wire configurations, operations, and sources dynamically.
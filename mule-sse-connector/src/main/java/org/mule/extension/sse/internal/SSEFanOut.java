@@ -0,0 +1,228 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs the requests of a {@code Get Events (Fan-Out)} operation concurrently, and merges their events.
+ * <p>
+ * At most {@code maxConcurrency} requests are in flight at once; the next request is sent as soon as one
+ * completes. Requests are isolated from one another: a request that fails is recorded as a failure, and the others
+ * carry on. All of them share the overall deadline of the operation: a request in flight when it is reached is
+ * aborted by its own total timeout and keeps the events received so far, and a request not sent yet is recorded as a
+ * failure.
+ * <p>
+ * A request may still overrun the deadline, e.g. while it waits for an identical request of the response cache, so
+ * the fan-out does not wait for them: shortly after the deadline, it completes with the requests completed so far,
+ * records the others as failures, and cancels them.
+ */
+class SSEFanOut {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEFanOut.class);
+
+    /**
+     * The time, in milliseconds, the requests aborted at the deadline are given to hand over their events.
+     */
+    private static final long DEADLINE_GRACE_MILLIS = 100;
+
+    /**
+     * Sends one of the requests of the operation.
+     */
+    interface Exchange {
+
+        /**
+         * Sends the request at the given position.
+         *
+         * @param index         the position of the request
+         * @param timeoutMillis the time left before the deadline, in milliseconds; {@code 0} if there is none
+         * @param cancellation  completed once the fan-out no longer waits for the request, which must then be
+         *                      cancelled
+         * @return a future completed with the events and the attributes of the response
+         */
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> send(int index, long timeoutMillis,
+                                                                               CompletionStage<Void> cancellation);
+    }
+
+    private final List<String> sources;
+    private final int maxConcurrency;
+    private final Exchange exchange;
+    private final long startNanos = System.nanoTime();
+    private final long deadlineNanos;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger pending;
+    private final AtomicReferenceArray<Result<List<SSEEvent>, SSEResponseAttributes>> results;
+    private final AtomicReferenceArray<Throwable> errors;
+
+    private final CompletableFuture<Result<List<SSEEvent>, SSEFanOutAttributes>> outcome = new CompletableFuture<>();
+    private final CompletableFuture<Void> cancellation = new CompletableFuture<>();
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private SSEFanOutOrder order;
+
+    /**
+     * Creates a new fan-out. Nothing is sent until {@link #run} is called.
+     *
+     * @param sources        the IDs of the requests, which must be unique
+     * @param maxConcurrency the maximum number of requests in flight
+     * @param deadlineMillis the overall deadline, in milliseconds; {@code 0} for none
+     * @param exchange       sends a single request
+     */
+    SSEFanOut(List<String> sources, int maxConcurrency, long deadlineMillis, Exchange exchange) {
+        this.sources = sources;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.exchange = exchange;
+        this.deadlineNanos = deadlineMillis > 0 ? startNanos + deadlineMillis * 1_000_000L : 0;
+        this.pending = new AtomicInteger(sources.size());
+        this.results = new AtomicReferenceArray<>(sources.size());
+        this.errors = new AtomicReferenceArray<>(sources.size());
+    }
+
+    /**
+     * Sends the requests.
+     *
+     * @param order how the events of the requests are merged
+     * @return a future completed with the merged events, tagged with their source, and the outcome of every
+     * request, once all the requests have completed or shortly after the deadline; it is only completed
+     * exceptionally if the events cannot be merged
+     */
+    CompletableFuture<Result<List<SSEEvent>, SSEFanOutAttributes>> run(SSEFanOutOrder order) {
+        this.order = order;
+        if (sources.isEmpty()) {
+            finish();
+        }
+        if (deadlineNanos != 0) {
+            long delayNanos = deadlineNanos - System.nanoTime() + DEADLINE_GRACE_MILLIS * 1_000_000L;
+            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(this::expire);
+        }
+        for (int i = 0; i < Math.min(maxConcurrency, sources.size()); i++) {
+            sendNext();
+        }
+        return outcome;
+    }
+
+    private void sendNext() {
+        for (int index = next.getAndIncrement(); index < sources.size() && !finished.get();
+             index = next.getAndIncrement()) {
+            long timeoutMillis = 0;
+            if (deadlineNanos != 0) {
+                timeoutMillis = (deadlineNanos - System.nanoTime() + 999_999) / 1_000_000;
+                if (timeoutMillis <= 0) {
+                    complete(index, null, new TimeoutException("Not sent before the deadline of the operation"));
+                    continue;
+                }
+            }
+
+            CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> response;
+            try {
+                response = exchange.send(index, timeoutMillis, cancellation);
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+
+            int sent = index;
+            // Asynchronously: sending the next request may wait for a stream of the connection, which the
+            // completed exchange only releases once this callback has returned
+            response.whenCompleteAsync((result, error) -> {
+                complete(sent, result, error);
+                sendNext();
+            });
+            return;
+        }
+    }
+
+    private void complete(int index, Result<List<SSEEvent>, SSEResponseAttributes> result, Throwable error) {
+        if (finished.get()) {
+            // Already recorded as cut off by the deadline
+            return;
+        }
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            LOGGER.warn("Fan-out request {} failed: {}", sources.get(index), cause.toString());
+            errors.set(index, cause);
+        } else {
+            results.set(index, result);
+        }
+        if (pending.decrementAndGet() == 0) {
+            finish();
+        }
+    }
+
+    /**
+     * Gives up on the requests still in flight shortly after the deadline, and cancels them.
+     */
+    private void expire() {
+        if (!finished.get()) {
+            LOGGER.warn("Fan-out deadline reached; {} request(s) cancelled", pending.get());
+            finish();
+        }
+        cancellation.complete(null);
+    }
+
+    private void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            outcome.complete(merge());
+        } catch (RuntimeException e) {
+            outcome.completeExceptionally(e);
+        }
+    }
+
+    private Result<List<SSEEvent>, SSEFanOutAttributes> merge() {
+        List<SSEEvent> events = new ArrayList<>();
+        Map<String, SSEResponseAttributes> responses = new LinkedHashMap<>();
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        boolean deadlineExceeded = false;
+
+        for (int i = 0; i < sources.size(); i++) {
+            String source = sources.get(i);
+            Result<List<SSEEvent>, SSEResponseAttributes> result = results.get(i);
+            if (result == null) {
+                Throwable error = errors.get(i);
+                if (error == null) {
+                    error = new TimeoutException("Cancelled at the deadline of the operation");
+                }
+                failures.put(i, error.getMessage() != null ? error.getMessage() : error.toString());
+                deadlineExceeded |= error instanceof TimeoutException;
+                continue;
+            }
+            result.getAttributes().ifPresent(attributes -> responses.put(source, attributes));
+            // Cached events are shared with other callers: tag copies
+            for (SSEEvent event : result.getOutput()) {
+                events.add(event.withSource(source));
+            }
+        }
+
+        if (order == SSEFanOutOrder.ARRIVAL) {
+            // Stable: the events of a request keep their stream order
+            events.sort(Comparator.comparingLong(SSEEvent::getReceivedNanos));
+        }
+
+        long now = System.nanoTime();
+        deadlineExceeded |= deadlineNanos != 0 && now - deadlineNanos >= 0;
+        return Result.<List<SSEEvent>, SSEFanOutAttributes>builder()
+                .output(events)
+                .attributes(new SSEFanOutAttributes(responses, failures, deadlineExceeded,
+                        (now - startNanos) / 1_000_000))
+                .build();
+    }
+}
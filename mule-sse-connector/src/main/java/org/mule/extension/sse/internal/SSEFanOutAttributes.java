@@ -0,0 +1,82 @@
+package org.mule.extension.sse.internal;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Attributes of the response to a {@code Get Events (Fan-Out)} operation: the outcome of each of its requests.
+ * <p>
+ * Every request appears either in {@code responses}, by ID, with the attributes of its response, or in
+ * {@code failures}, by position, with the reason it failed or was not sent, so one failing request never hides the
+ * results of the others.
+ *
+ * @since 1.0
+ */
+public class SSEFanOutAttributes implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, SSEResponseAttributes> responses;
+    private final Map<Integer, String> failures;
+    private final boolean deadlineExceeded;
+    private final long totalDurationMillis;
+
+    SSEFanOutAttributes(Map<String, SSEResponseAttributes> responses, Map<Integer, String> failures,
+                        boolean deadlineExceeded, long totalDurationMillis) {
+        this.responses = unmodifiableMap(responses);
+        this.failures = unmodifiableMap(failures);
+        this.deadlineExceeded = deadlineExceeded;
+        this.totalDurationMillis = totalDurationMillis;
+    }
+
+    /**
+     * Returns the attributes of the responses received, by request ID, in the order of the requests.
+     * <p>
+     * This includes error responses from the server, and responses cut short by the deadline.
+     *
+     * @return a map of request IDs and response attributes
+     */
+    public Map<String, SSEResponseAttributes> getResponses() {
+        return responses;
+    }
+
+    /**
+     * Returns the requests that got no response, by position in the list of requests, starting at 0, with the
+     * reason. Positions identify every request, including those without an ID or a path.
+     *
+     * @return a map of request positions and error messages
+     */
+    public Map<Integer, String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Tells whether the deadline of the operation was reached before every request completed.
+     *
+     * @return {@code true} if some events may be missing
+     */
+    public boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    /**
+     * Returns the time from the start of the operation until every request completed or the deadline was reached.
+     *
+     * @return the duration in milliseconds
+     */
+    public long getTotalDurationMillis() {
+        return totalDurationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SSEFanOutAttributes{" +
+                "responses=" + responses +
+                ", failures=" + failures +
+                ", deadlineExceeded=" + deadlineExceeded +
+                ", totalDurationMillis=" + totalDurationMillis +
+                '}';
+    }
+}
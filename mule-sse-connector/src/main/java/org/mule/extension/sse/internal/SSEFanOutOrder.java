@@ -0,0 +1,18 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * Defines how the {@code Get Events (Fan-Out)} operation orders the events of its requests.
+ */
+public enum SSEFanOutOrder {
+
+    /**
+     * The events of all the requests are interleaved in the order they were received, e.g. to process the first
+     * results of the fastest request first.
+     */
+    ARRIVAL,
+
+    /**
+     * The events are grouped per request, in the order of the requests, and in stream order within a request.
+     */
+    GROUPED
+}
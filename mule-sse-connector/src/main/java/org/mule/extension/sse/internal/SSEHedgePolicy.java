@@ -0,0 +1,77 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * Decides when the requests of a configuration are hedged, and how many of them may be.
+ * <p>
+ * The hedge delay is either fixed, or follows a percentile of the time to first event recorded by the
+ * {@link SSEMetrics} of the configuration. The share of hedged requests is capped with a token bucket: every request
+ * earns a fraction of a token, every hedge spends a whole one, and the bucket holds at most {@value #MAX_TOKENS}
+ * tokens, so hedges can come in short bursts but never exceed the configured share over time. Tokens are counted in
+ * hundredths, so a share of {@code n} percent earns exactly {@code n} tokens every 100 requests.
+ * <p>
+ * Instances are thread-safe.
+ */
+class SSEHedgePolicy {
+
+    /**
+     * The number of exchanges to observe before trusting the percentile of the time to first event.
+     */
+    static final int MIN_SAMPLES = 20;
+
+    private static final int MAX_TOKENS = 10;
+
+    private static final long TOKEN = 100;
+
+    private final HedgingParameters parameters;
+    private final SSEMetrics metrics;
+    private final long tokensPerRequest;
+
+    // Guarded by this; in hundredths of a token
+    private long tokens;
+
+    /**
+     * Creates a new policy.
+     *
+     * @param parameters the hedging settings of the configuration
+     * @param metrics    the metrics of the configuration, which record the time to first event and the hedges
+     */
+    SSEHedgePolicy(HedgingParameters parameters, SSEMetrics metrics) {
+        this.parameters = parameters;
+        this.metrics = metrics;
+        this.tokensPerRequest = Math.max(0, Math.min(100, parameters.getMaxHedgedPercentage()));
+        this.tokens = tokensPerRequest > 0 ? MAX_TOKENS * TOKEN : 0;
+    }
+
+    /**
+     * Returns the time without any event after which a request is hedged.
+     *
+     * @return the hedge delay in milliseconds
+     */
+    long delayMillis() {
+        double percentile = parameters.getHedgeDelayPercentile();
+        if (percentile > 0 && metrics.getTimeToFirstEventSampleCount() >= MIN_SAMPLES) {
+            return Math.max(1, metrics.timeToFirstEventPercentileMicros(Math.min(percentile, 100)) / 1_000);
+        }
+        return Math.max(1, parameters.getHedgeDelay());
+    }
+
+    /**
+     * Records a request that may be hedged, earning its share of the hedge budget.
+     */
+    synchronized void onRequest() {
+        tokens = Math.min(MAX_TOKENS * TOKEN, tokens + tokensPerRequest);
+    }
+
+    /**
+     * Spends the budget of a hedge, if there is enough left.
+     *
+     * @return {@code true} if the request may be hedged
+     */
+    synchronized boolean tryAcquire() {
+        if (tokens < TOKEN) {
+            return false;
+        }
+        tokens -= TOKEN;
+        return true;
+    }
+}
@@ -0,0 +1,170 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * A {@code Get Events} exchange that is sent a second time if it has not received any event after the hedge delay.
+ * <p>
+ * The first attempt to produce an event wins and the other one is cancelled, without being recorded in the metrics.
+ * If an attempt ends before either produced an event, e.g. with an empty response, it wins only if it completed
+ * successfully or no other attempt is left. Hedging is not a retry, so a request that fails before the hedge delay
+ * is never hedged. The result is the one of the winning attempt, whose attributes are measured from its own start.
+ * <p>
+ * The hedge opens a second upstream stream, so it takes a slot of its own from the concurrency limiter of the
+ * configuration, if any, until it completes; the request is not hedged if no slot is free.
+ */
+class SSEHedgedExchange {
+
+    private final SSEHedgePolicy policy;
+    private final SSEMetrics metrics;
+    private final SSEConcurrencyLimiter limiter;
+    private final Supplier<SSEBodySubscriber> subscriberFactory;
+    private final BiFunction<SSEBodySubscriber, SSETimeouts,
+            CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> exchange;
+    private final SSETimeouts timeouts;
+    private final long startNanos = System.nanoTime();
+
+    private final CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> outcome = new CompletableFuture<>();
+
+    // Guarded by this
+    private final List<SSEBodySubscriber> attempts = new ArrayList<>(2);
+    private SSEBodySubscriber winner;
+    private int running;
+
+    /**
+     * Creates a new hedged exchange. Nothing is sent until {@link #start()} is called.
+     *
+     * @param policy            the hedging policy of the configuration
+     * @param metrics           the metrics of the configuration
+     * @param limiter           the concurrency limiter of the configuration, or {@code null} if there is no limit
+     * @param subscriberFactory creates the subscriber of an attempt
+     * @param exchange          sends an attempt with the given subscriber and timeouts
+     * @param timeouts          the timeouts of the whole exchange
+     */
+    SSEHedgedExchange(SSEHedgePolicy policy, SSEMetrics metrics, SSEConcurrencyLimiter limiter,
+                      Supplier<SSEBodySubscriber> subscriberFactory,
+                      BiFunction<SSEBodySubscriber, SSETimeouts,
+                              CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> exchange,
+                      SSETimeouts timeouts) {
+        this.policy = policy;
+        this.metrics = metrics;
+        this.limiter = limiter;
+        this.subscriberFactory = subscriberFactory;
+        this.exchange = exchange;
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * Sends the first attempt, and schedules the hedge.
+     *
+     * @return a future completed with the result of the winning attempt
+     */
+    CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> start() {
+        policy.onRequest();
+        SSEBodySubscriber primary;
+        synchronized (this) {
+            primary = launch(timeouts, false);
+        }
+        CompletableFuture.delayedExecutor(policy.delayMillis(), TimeUnit.MILLISECONDS).execute(() -> hedge(primary));
+        return outcome;
+    }
+
+    private synchronized void hedge(SSEBodySubscriber primary) {
+        if (outcome.isDone() || winner != null || running == 0
+                || primary.getFirstEvent().toCompletableFuture().isDone()) {
+            return;
+        }
+        SSETimeouts remaining = timeouts.after(System.nanoTime() - startNanos);
+        if (remaining == null) {
+            return;
+        }
+        // A second stream to the upstream: it needs a slot of its own, and must not spend the budget without one
+        if (limiter != null && !limiter.tryAcquireExtra()) {
+            metrics.recordHedgeDenied();
+            return;
+        }
+        if (!policy.tryAcquire()) {
+            if (limiter != null) {
+                limiter.release(-1, false);
+            }
+            metrics.recordHedgeDenied();
+            return;
+        }
+        metrics.recordHedgedRequest();
+        launch(remaining, true);
+    }
+
+    // Must be called while holding this
+    private SSEBodySubscriber launch(SSETimeouts attemptTimeouts, boolean hedge) {
+        SSEBodySubscriber subscriber = subscriberFactory.get();
+        attempts.add(subscriber);
+        running++;
+
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> result;
+        try {
+            result = exchange.apply(subscriber, attemptTimeouts);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        if (hedge && limiter != null) {
+            result.whenComplete((events, error) -> limiter.release(-1, false));
+        }
+
+        // Asynchronously: both may be signalled while the lock of the subscriber is held, and picking the winner
+        // cancels the other subscriber
+        subscriber.getFirstEvent().thenRunAsync(() -> onFirstEvent(subscriber));
+        result.whenCompleteAsync((events, error) -> onComplete(subscriber, events, error));
+        return subscriber;
+    }
+
+    private synchronized void onFirstEvent(SSEBodySubscriber subscriber) {
+        if (winner == null && !outcome.isDone()) {
+            win(subscriber);
+        }
+    }
+
+    private synchronized void onComplete(SSEBodySubscriber subscriber,
+                                         Result<List<SSEEvent>, SSEResponseAttributes> result, Throwable error) {
+        running--;
+        if (outcome.isDone() || (winner != null && winner != subscriber)) {
+            // Lost the race, and was cancelled
+            return;
+        }
+        if (winner == null) {
+            boolean succeeded = error == null && result.getAttributes()
+                    .map(attributes -> !attributes.isPartial() && attributes.getStatusCode() < 300)
+                    .orElse(false);
+            if (!succeeded && running > 0) {
+                // Let the other attempt finish
+                return;
+            }
+            win(subscriber);
+        }
+        if (error != null) {
+            outcome.completeExceptionally(error);
+        } else {
+            outcome.complete(result);
+        }
+    }
+
+    // Must be called while holding this
+    private void win(SSEBodySubscriber subscriber) {
+        winner = subscriber;
+        if (subscriber != attempts.get(0)) {
+            metrics.recordHedgeWin();
+        }
+        for (SSEBodySubscriber attempt : attempts) {
+            if (attempt != subscriber) {
+                attempt.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.mule.extension.sse.internal;
+
+import java.net.http.HttpClient;
+
+/**
+ * The HTTP protocol version the connector prefers when talking to the SSE server.
+ */
+public enum SSEHttpVersion {
+
+    /**
+     * HTTP/1.1: every concurrent stream uses its own TCP connection.
+     */
+    HTTP_1_1(HttpClient.Version.HTTP_1_1),
+
+    /**
+     * HTTP/2, negotiated through ALPN over TLS: concurrent streams to the same server are multiplexed over a single
+     * TCP connection. Falls back to HTTP/1.1 when the server does not support it.
+     */
+    HTTP_2(HttpClient.Version.HTTP_2);
+
+    private final HttpClient.Version version;
+
+    SSEHttpVersion(HttpClient.Version version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns the matching {@link HttpClient} version.
+     *
+     * @return the HTTP client version
+     */
+    HttpClient.Version toClientVersion() {
+        return version;
+    }
+}
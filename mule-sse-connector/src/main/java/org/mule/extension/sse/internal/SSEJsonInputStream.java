@@ -0,0 +1,266 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link InputStream} that writes the events of an SSE endpoint as JSON while they are parsed, for the
+ * {@code Stream Events as JSON} operation.
+ * <p>
+ * Events are pulled from an {@link SSEEventStream} one batch at a time, as the stream is read, and written to a
+ * small buffer; no list of events or Java object graph of their data is ever built. The data of an event is copied
+ * as-is when it is valid JSON, which is checked with a streaming parser, and written as a JSON string otherwise.
+ * Backpressure is applied to the HTTP client while the reader falls behind, so memory stays bounded however long
+ * the stream is.
+ * <p>
+ * Closing the input stream aborts the HTTP exchange if it is still in progress. A stream that ends early, because
+ * of a stop condition or a timeout, still produces a well-formed document with the events received so far. A
+ * connection failure, a response with an error status, or an event that exceeds the maximum event bytes with the
+ * {@link SSELimitAction#FAIL} limit action makes reading fail instead, once the events received before it have been
+ * read, with the error the operations raise for it.
+ */
+class SSEJsonInputStream extends InputStream {
+
+    private static final int BATCH_SIZE = 64;
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID = "{\"id\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT = ",\"event\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATA = ",\"data\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final SSEOutputFormat format;
+    private final SSEEventStream stream;
+    private final long deadlineNanos;
+    private final Buffer buffer = new Buffer();
+    private final CompletableFuture<HttpResponse<Void>> response;
+
+    private int position;
+    private boolean started;
+    private boolean ended;
+    private boolean firstEvent = true;
+    private volatile boolean closed;
+
+    /**
+     * Sends the request, and returns the stream of its events.
+     *
+     * @param connection     the connection used to send the request
+     * @param request        the request to the SSE endpoint
+     * @param timeouts       the timeouts of the stream
+     * @param stopConditions the conditions that end the stream early
+     * @param filter         selects the events to keep and the part of their data to write
+     * @param format         how the events are written
+     * @param guard          enforces the maximum event bytes
+     */
+    SSEJsonInputStream(SSEConnection connection, HttpRequest request, SSETimeouts timeouts,
+                       StopConditionParameters stopConditions, SSEEventFilter filter, SSEOutputFormat format,
+                       SSEMemoryGuard guard) {
+        this.format = format;
+        // The data is only ever copied as bytes, never decoded; buffer a couple of batches ahead of the reader
+        this.stream = new SSEEventStream(BATCH_SIZE * 2, new SSEStopCondition(stopConditions),
+                SSEDataDecoding.BYTES, filter, guard);
+        this.deadlineNanos = timeouts.deadlineNanos(stream.getStartNanos());
+
+        // The body of an error response is not parsed as events
+        response = connection.sendAsync(request, responseInfo -> responseInfo.statusCode() < 300
+                ? HttpResponse.BodySubscribers.fromSubscriber(stream)
+                : HttpResponse.BodySubscribers.replacing(null));
+        response.whenComplete((result, error) -> {
+            if (error != null && !(error instanceof CancellationException)) {
+                stream.onError(error);
+            } else if (result != null && result.statusCode() >= 300) {
+                stream.onError(new IOException("SSE server responded with HTTP status " + result.statusCode()));
+            }
+        });
+        timeouts.watch(stream, stream::expire);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer.bytes()[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.size() - position);
+        System.arraycopy(buffer.bytes(), position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return closed ? 0 : buffer.size() - position;
+    }
+
+    /**
+     * Aborts the HTTP exchange, unless the response has already been received in full.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stream.close();
+        if (!stream.isComplete()) {
+            // A cancelled body never completes the response on its own; this also releases the stream of the
+            // connection
+            response.cancel(true);
+        }
+    }
+
+    /**
+     * Makes sure unread bytes are buffered, writing the next batch of events if needed.
+     *
+     * @return {@code false} once the whole document has been read
+     */
+    private boolean fill() throws IOException {
+        if (closed) {
+            return false;
+        }
+        while (position == buffer.size()) {
+            if (ended) {
+                return false;
+            }
+            buffer.reset();
+            position = 0;
+            if (!started) {
+                started = true;
+                if (format == SSEOutputFormat.JSON_ARRAY) {
+                    buffer.write('[');
+                }
+            }
+
+            List<SSEEvent> batch;
+            try {
+                batch = stream.nextBatch(BATCH_SIZE, deadlineNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new InterruptedIOException("Interrupted while waiting for SSE events");
+            }
+
+            if (batch.isEmpty()) {
+                if (stream.getFailure() != null) {
+                    close();
+                    throw SSEOperations.toException(stream.getFailure());
+                }
+                ended = true;
+                if (format == SSEOutputFormat.JSON_ARRAY) {
+                    buffer.write(']');
+                }
+            }
+            for (SSEEvent event : batch) {
+                write(event);
+            }
+        }
+        return true;
+    }
+
+    private void write(SSEEvent event) throws IOException {
+        if (format == SSEOutputFormat.JSON_ARRAY && !firstEvent) {
+            buffer.write(',');
+        }
+        firstEvent = false;
+
+        buffer.writeBytes(ID);
+        writeString(event.getId());
+        buffer.writeBytes(EVENT);
+        writeString(event.getEvent());
+        buffer.writeBytes(DATA);
+        writeData(event.getData());
+        buffer.write('}');
+
+        if (format == SSEOutputFormat.NDJSON) {
+            buffer.write('\n');
+        }
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            buffer.writeBytes(NULL);
+            return;
+        }
+        buffer.write('"');
+        byte[] quoted = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+        buffer.writeBytes(quoted);
+        buffer.write('"');
+    }
+
+    private void writeData(Object data) throws IOException {
+        if (data == null) {
+            buffer.writeBytes(NULL);
+            return;
+        }
+        // The data is decoded as bytes, projected data included
+        byte[] bytes = data instanceof byte[]
+                ? (byte[]) data
+                : SSEEventParser.MAPPER.writeValueAsBytes(data);
+        if (!isJson(bytes)) {
+            writeString(new String(bytes, StandardCharsets.UTF_8));
+            return;
+        }
+        int start = buffer.size();
+        buffer.writeBytes(bytes);
+        // Multi-line data is joined with line feeds; outside of strings, where JSON forbids raw line breaks, they
+        // are insignificant whitespace, and must go so an NDJSON record stays on a single line
+        byte[] written = buffer.bytes();
+        for (int i = start, end = start + bytes.length; i < end; i++) {
+            if (written[i] == '\n' || written[i] == '\r') {
+                written[i] = ' ';
+            }
+        }
+    }
+
+    /**
+     * Tells whether the given bytes hold exactly one valid JSON value.
+     */
+    private static boolean isJson(byte[] bytes) {
+        if (!SSEDataDecoding.looksLikeJson(bytes)) {
+            return false;
+        }
+        try (JsonParser parser = SSEEventParser.MAPPER.getFactory().createParser(bytes)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Output buffer that exposes its content, so it can be read without being copied.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer() {
+            super(8192);
+        }
+
+        private byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.mule.extension.sse.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations, in microseconds.
+ * <p>
+ * Values are counted in log-linear buckets: each power of two is split into 8 sub-buckets, so a percentile is
+ * reported within 12.5% of its exact value while the histogram keeps a fixed, small footprint however many values
+ * are recorded. Recording is a couple of atomic increments, cheap enough to be done on every exchange.
+ */
+class SSELatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values are ignored
+     */
+    void recordNanos(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        long micros = nanos / 1_000;
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the number of recorded durations
+     */
+    long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the given percentile of the recorded durations.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the upper bound, in microseconds, of the bucket holding the percentile, or {@code 0} if nothing was
+     * recorded
+     */
+    long percentileMicros(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Takes a snapshot of the histogram, in milliseconds.
+     *
+     * @return the snapshot
+     */
+    SSELatencySnapshot snapshot() {
+        long total = count.get();
+        return new SSELatencySnapshot(total,
+                total > 0 ? sum.get() / 1_000.0 / total : 0,
+                percentileMicros(50) / 1_000.0,
+                percentileMicros(90) / 1_000.0,
+                percentileMicros(99) / 1_000.0,
+                max.get() / 1_000.0);
+    }
+
+    /**
+     * Clears the recorded durations.
+     */
+    void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+}
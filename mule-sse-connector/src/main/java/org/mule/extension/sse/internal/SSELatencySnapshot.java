@@ -0,0 +1,100 @@
+package org.mule.extension.sse.internal;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A point-in-time summary of a latency histogram, exposed through JMX.
+ * <p>
+ * All durations are in milliseconds; percentiles are approximated within 12.5%.
+ *
+ * @since 1.0
+ */
+public class SSELatencySnapshot {
+
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double max;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param count the number of recorded durations
+     * @param mean  the mean duration
+     * @param p50   the median duration
+     * @param p90   the 90th percentile
+     * @param p99   the 99th percentile
+     * @param max   the maximum duration
+     */
+    @ConstructorProperties({"count", "mean", "p50", "p90", "p99", "max"})
+    public SSELatencySnapshot(long count, double mean, double p50, double p90, double p99, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean duration.
+     *
+     * @return the mean duration in milliseconds
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the median duration.
+     *
+     * @return the median duration in milliseconds
+     */
+    public double getP50() {
+        return p50;
+    }
+
+    /**
+     * Returns the 90th percentile.
+     *
+     * @return the 90th percentile in milliseconds
+     */
+    public double getP90() {
+        return p90;
+    }
+
+    /**
+     * Returns the 99th percentile.
+     *
+     * @return the 99th percentile in milliseconds
+     */
+    public double getP99() {
+        return p99;
+    }
+
+    /**
+     * Returns the maximum duration.
+     *
+     * @return the maximum duration in milliseconds
+     */
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.3f ms, p50=%.3f ms, p90=%.3f ms, p99=%.3f ms, max=%.3f ms",
+                count, mean, p50, p90, p99, max);
+    }
+}
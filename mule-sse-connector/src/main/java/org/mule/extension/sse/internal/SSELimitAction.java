@@ -0,0 +1,25 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * Defines what happens when a response exceeds one of the memory limits of a configuration.
+ */
+public enum SSELimitAction {
+
+    /**
+     * The exchange is aborted and the operation fails with an {@code SSE:LIMIT_EXCEEDED} error, so a runaway upstream
+     * is reported rather than hidden.
+     */
+    FAIL,
+
+    /**
+     * The exchange is aborted, or the data of an oversized event is cut, and the events received so far are
+     * returned, flagged as partial in the attributes.
+     */
+    TRUNCATE,
+
+    /**
+     * The data of the events over the limit is written to a temporary file instead of being kept in memory, and
+     * read back when the flow first reads it. The file is deleted once the events are no longer referenced.
+     */
+    SPILL
+}
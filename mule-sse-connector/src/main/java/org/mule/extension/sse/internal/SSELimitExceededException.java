@@ -0,0 +1,34 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * Thrown while a response is parsed when it exceeds a memory limit whose action is {@link SSELimitAction#FAIL}.
+ * <p>
+ * The exchange is aborted, and the operation fails with an {@code SSE:LIMIT_EXCEEDED} error whose cause is this
+ * exception.
+ */
+class SSELimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SSELimitType limit;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param limit   the limit that was exceeded
+     * @param message the detail message
+     */
+    SSELimitExceededException(SSELimitType limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the limit that was exceeded.
+     *
+     * @return the limit
+     */
+    SSELimitType getLimit() {
+        return limit;
+    }
+}
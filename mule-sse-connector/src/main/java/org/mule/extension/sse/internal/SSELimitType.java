@@ -0,0 +1,27 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * Identifies the memory limit that cut an SSE response short.
+ */
+public enum SSELimitType {
+
+    /**
+     * The data of the events of the response exceeded the maximum response bytes.
+     */
+    RESPONSE_BYTES,
+
+    /**
+     * The data of a single event exceeded the maximum event bytes.
+     */
+    EVENT_BYTES,
+
+    /**
+     * The response held more events than the maximum event count.
+     */
+    EVENT_COUNT,
+
+    /**
+     * The data buffered by all the requests in flight on the configuration exceeded its memory budget.
+     */
+    MEMORY_BUDGET
+}
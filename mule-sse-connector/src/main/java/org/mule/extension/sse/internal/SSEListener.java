@@ -0,0 +1,145 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.api.scheduler.SchedulerService;
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.metadata.MetadataScope;
+import org.mule.runtime.extension.api.annotation.param.Config;
+import org.mule.runtime.extension.api.annotation.param.Connection;
+import org.mule.runtime.extension.api.annotation.param.MediaType;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+import org.mule.runtime.extension.api.annotation.source.BackPressure;
+import org.mule.runtime.extension.api.runtime.source.Source;
+import org.mule.runtime.extension.api.runtime.source.SourceCallback;
+
+import javax.inject.Inject;
+import java.net.http.HttpRequest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.mule.runtime.extension.api.runtime.source.BackPressureMode.DROP;
+import static org.mule.runtime.extension.api.runtime.source.BackPressureMode.WAIT;
+
+/**
+ * Message source that listens to a long-lived SSE endpoint and triggers the flow with micro-batches of events.
+ * <p>
+ * All the listeners of a configuration that subscribe to the same endpoint (same path, query parameters, HTTP
+ * headers, filters and data decoding) share a single upstream connection; each received event is fanned out to
+ * every one of them. Each listener buffers events in its own queue and triggers its flow with a list of up to
+ * {@code maxBatchSize} events, or with whatever arrived within {@code batchWindow} milliseconds, rather than once per
+ * event.
+ * <p>
+ * When a flow cannot keep up, its queue fills up and the shared connection stops reading from the server until the
+ * queue drains, so memory stays bounded and no event is lost; with the {@code DROP} backpressure mode, Mule drops
+ * the messages the flow is too busy to accept instead. The connection is re-established automatically, resuming
+ * from the last received event ID, whenever the server closes it.
+ *
+ * @since 1.0
+ */
+@Alias("listener")
+@DisplayName("On New Events")
+@MediaType(value = MediaType.ANY, strict = false)
+@MetadataScope(outputResolver = SSEEventsOutputResolver.class)
+@BackPressure(defaultMode = WAIT, supportedModes = {WAIT, DROP})
+public class SSEListener extends Source<List<SSEEvent>, Void> {
+
+    @Config
+    private SSEConfiguration config;
+
+    @Connection
+    private ConnectionProvider<SSEConnection> connectionProvider;
+
+    @Inject
+    private SchedulerService schedulerService;
+
+    /**
+     * The SSE resource to listen to.
+     */
+    @ParameterGroup(name = "Request")
+    private GetEventsParameters requestParameters;
+
+    /**
+     * The maximum number of events delivered to the flow in a single message.
+     */
+    @Parameter
+    @Optional(defaultValue = "100")
+    @DisplayName("Max batch size")
+    @Summary("Maximum number of events delivered to the flow in a single message (default: 100).")
+    private int maxBatchSize;
+
+    /**
+     * The maximum time, in milliseconds, to wait for a batch to fill up after its first event arrived.
+     */
+    @Parameter
+    @Optional(defaultValue = "1000")
+    @DisplayName("Batch window")
+    @Summary("Maximum time in milliseconds to wait for a batch to fill up after its first event arrived (default: 1,000 milliseconds).")
+    private long batchWindow;
+
+    /**
+     * The number of events buffered for this flow while it is busy past which reading from the server pauses; the
+     * events of the network chunk being read are still buffered, so the queue may briefly exceed it.
+     */
+    @Parameter
+    @Optional(defaultValue = "10000")
+    @DisplayName("Queue capacity")
+    @Summary("Maximum number of events buffered for this flow; reading from the server pauses when the queue is filling up (default: 10,000).")
+    private int queueCapacity;
+
+    private String streamKey;
+    private SSEBatchDispatcher dispatcher;
+    private Scheduler scheduler;
+
+    @Override
+    public void onStart(SourceCallback<List<SSEEvent>, Void> sourceCallback) throws MuleException {
+        String url = SSEOperations.buildUrl(config.getSSEServerBaseURL(), requestParameters.getPath(),
+                requestParameters.getQueryParams());
+        Map<String, String> headers = requestParameters.getHeaders();
+
+        // Listeners of the same endpoint share a stream; header order must not matter. Events are shared by the
+        // flows of a stream, so they must agree on which events to keep and how to decode them.
+        streamKey = url + " " + new TreeMap<>(headers != null ? headers : Map.of()) + " "
+                + requestParameters.getDataDecoding() + " " + requestParameters.getIncludeEventTypes() + " "
+                + requestParameters.getExcludeEventTypes() + " " + requestParameters.getDataProjection();
+
+        dispatcher = new SSEBatchDispatcher(sourceCallback, maxBatchSize, batchWindow, queueCapacity);
+        scheduler = schedulerService.ioScheduler();
+        scheduler.execute(dispatcher);
+
+        // No request timeout: the stream is meant to stay open indefinitely
+        config.getStreamHub().subscribe(streamKey, url,
+                lastEventId -> buildRequest(url, headers, lastEventId), connectionProvider,
+                requestParameters.getDataDecoding(), SSEEventFilter.of(requestParameters, config.getEventTypes()),
+                dispatcher);
+    }
+
+    @Override
+    public void onStop() {
+        if (dispatcher != null) {
+            config.getStreamHub().unsubscribe(streamKey, dispatcher);
+            dispatcher.stop();
+            dispatcher = null;
+        }
+        if (scheduler != null) {
+            scheduler.stop();
+            scheduler = null;
+        }
+    }
+
+    private static HttpRequest buildRequest(String url, Map<String, String> headers, String lastEventId) {
+        if (lastEventId == null) {
+            return SSEOperations.buildGetRequest(url, headers, 0);
+        }
+        Map<String, String> resumeHeaders = new HashMap<>(headers != null ? headers : Map.of());
+        resumeHeaders.put("Last-Event-ID", lastEventId);
+        return SSEOperations.buildGetRequest(url, resumeHeaders, 0);
+    }
+}
@@ -0,0 +1,242 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * Enforces the {@link MemoryLimitParameters} of a configuration on a single response.
+ * <p>
+ * The {@link SSEEventParser} checks the size of each event while it accumulates its data, and the
+ * {@link SSEBodySubscriber} {@link #admit(SSEEvent, long) admits} each event it keeps. Every admitted byte kept in
+ * memory is reserved in the {@link SSEMetrics} of the configuration, whose memory budget is shared by all the
+ * responses in flight, until the response is complete and {@link #release() released}.
+ * <p>
+ * A limit whose action is {@link SSELimitAction#FAIL} makes the guard throw an {@link SSELimitExceededException},
+ * which aborts the exchange. With {@link SSELimitAction#TRUNCATE}, the guard reports the response as
+ * {@link #isExhausted() exhausted}, and the subscriber stops reading. With {@link SSELimitAction#SPILL}, the data of
+ * the event is moved to the {@link SSESpillFile} of the response.
+ * <p>
+ * A resumed response keeps the guard of its first attempt, so the limits apply to the whole response.
+ * <p>
+ * The streaming operations and the listeners only hand their parser a guard, so only the maximum event bytes
+ * applies to them. A listener stream never ends, and neither would its spill file: its guard truncates the data of
+ * an oversized event instead of spilling it.
+ * <p>
+ * Instances are not thread-safe; they are used by the single thread that parses a response.
+ */
+class SSEMemoryGuard {
+
+    private final long maxResponseBytes;
+    private final SSELimitAction responseBytesAction;
+    private final long maxEventBytes;
+    private final SSELimitAction eventBytesAction;
+    private final int maxEventCount;
+    private final SSELimitAction eventCountAction;
+    private final long memoryBudget;
+    private final SSEMetrics metrics;
+
+    private long bufferedBytes;
+    private long reservedBytes;
+    private int eventCount;
+    private SSESpillFile spillFile;
+    private long spilledBytes;
+    private SSELimitType exceededLimit;
+    private boolean exhausted;
+
+    /**
+     * Creates a guard for a new response.
+     *
+     * @param limits  the memory limits of the configuration; may be {@code null}, in which case the data kept in
+     *                memory is only accounted for
+     * @param metrics the metrics of the configuration, which account for the bytes buffered by all its responses
+     */
+    SSEMemoryGuard(MemoryLimitParameters limits, SSEMetrics metrics) {
+        this(limits, metrics, true);
+    }
+
+    /**
+     * Creates a guard for a new response, or a long-lived stream.
+     *
+     * @param limits  the memory limits of the configuration; may be {@code null}, in which case the data kept in
+     *                memory is only accounted for
+     * @param metrics the metrics of the configuration, which account for the bytes buffered by all its responses
+     * @param spill   whether data may be spilled to a file; if not, a {@link SSELimitAction#SPILL} action truncates
+     *                instead
+     */
+    SSEMemoryGuard(MemoryLimitParameters limits, SSEMetrics metrics, boolean spill) {
+        if (limits == null) {
+            limits = new MemoryLimitParameters();
+        }
+        this.maxResponseBytes = limits.getMaxResponseBytes();
+        this.responseBytesAction = spillOrTruncate(actionOrFail(limits.getResponseBytesAction()), spill);
+        this.maxEventBytes = limits.getMaxEventBytes();
+        this.eventBytesAction = spillOrTruncate(actionOrFail(limits.getEventBytesAction()), spill);
+        this.maxEventCount = limits.getMaxEventCount();
+        this.eventCountAction = spillOrTruncate(actionOrFail(limits.getEventCountAction()), spill);
+        this.memoryBudget = limits.getMemoryBudget();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the maximum size of the data of a single event, enforced by the parser.
+     *
+     * @return the maximum event bytes; {@code 0} for no limit
+     */
+    long getMaxEventBytes() {
+        return maxEventBytes;
+    }
+
+    /**
+     * Called by the parser when the data of an event grows past the maximum event bytes.
+     *
+     * @return the action the parser must take: {@link SSELimitAction#TRUNCATE} to drop the rest of the data of the
+     * event, or {@link SSELimitAction#SPILL} to write it to {@link #getSpillFile()}
+     * @throws SSELimitExceededException if the action is {@link SSELimitAction#FAIL}
+     */
+    SSELimitAction onOversizedEvent() {
+        if (eventBytesAction == SSELimitAction.FAIL) {
+            throw fail(SSELimitType.EVENT_BYTES, "SSE event data exceeds the maximum of " + maxEventBytes + " bytes");
+        }
+        if (eventBytesAction == SSELimitAction.TRUNCATE) {
+            exceeded(SSELimitType.EVENT_BYTES);
+        }
+        return eventBytesAction;
+    }
+
+    /**
+     * Accounts for an event the subscriber is about to keep, spilling its data if a limit requires it.
+     *
+     * @param event     the event
+     * @param dataBytes the size of the raw data of the event, before projection
+     * @return {@code true} if the event is kept; {@code false} if the response is truncated, in which case the
+     * event must be dropped and reading stop
+     * @throws SSELimitExceededException if a limit whose action is {@link SSELimitAction#FAIL} is exceeded
+     */
+    boolean admit(SSEEvent event, long dataBytes) {
+        if (exhausted) {
+            return false;
+        }
+
+        SSELimitType limit;
+        SSELimitAction action;
+        if (maxEventCount > 0 && eventCount >= maxEventCount) {
+            limit = SSELimitType.EVENT_COUNT;
+            action = eventCountAction;
+        } else if (event.isSpilled()) {
+            // Spilled by the parser, as it exceeded the maximum event bytes: nothing is kept in memory
+            eventCount++;
+            spilledBytes += dataBytes;
+            return true;
+        } else if (maxResponseBytes > 0 && bufferedBytes + dataBytes > maxResponseBytes) {
+            limit = SSELimitType.RESPONSE_BYTES;
+            action = responseBytesAction;
+        } else if (!metrics.reserveBufferedBytes(dataBytes, memoryBudget)) {
+            limit = SSELimitType.MEMORY_BUDGET;
+            action = responseBytesAction;
+        } else {
+            bufferedBytes += dataBytes;
+            reservedBytes += dataBytes;
+            eventCount++;
+            return true;
+        }
+
+        switch (action) {
+            case FAIL:
+                throw fail(limit, describe(limit));
+            case TRUNCATE:
+                exceeded(limit);
+                exhausted = true;
+                return false;
+            default:
+                spilledBytes += event.spill(getSpillFile());
+                eventCount++;
+                return true;
+        }
+    }
+
+    /**
+     * Tells whether the response was truncated, and reading must stop.
+     *
+     * @return {@code true} once a limit whose action is {@link SSELimitAction#TRUNCATE} cut the response short
+     */
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Returns the spill file of the response, creating it on first use.
+     *
+     * @return the spill file
+     */
+    SSESpillFile getSpillFile() {
+        if (spillFile == null) {
+            spillFile = SSESpillFile.create();
+        }
+        return spillFile;
+    }
+
+    /**
+     * Returns the first limit that truncated the response, or the data of one of its events.
+     *
+     * @return the limit, or {@code null} if nothing was truncated
+     */
+    SSELimitType getExceededLimit() {
+        return exceededLimit;
+    }
+
+    /**
+     * Returns the number of bytes of event data written to the spill file.
+     *
+     * @return the number of spilled bytes
+     */
+    long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Returns the reserved bytes to the memory budget of the configuration, once the response, or the attempt of a
+     * resumed response, is complete. Does nothing if no bytes were reserved since the last call.
+     */
+    void release() {
+        metrics.releaseBufferedBytes(reservedBytes);
+        reservedBytes = 0;
+    }
+
+    /**
+     * Releases the reserved bytes and deletes the spill file, if any, as the events of the response are dropped.
+     */
+    void discard() {
+        release();
+        if (spillFile != null) {
+            spillFile.discard();
+        }
+    }
+
+    private void exceeded(SSELimitType limit) {
+        if (exceededLimit == null) {
+            exceededLimit = limit;
+            metrics.recordLimitExceeded();
+        }
+    }
+
+    private SSELimitExceededException fail(SSELimitType limit, String message) {
+        metrics.recordLimitExceeded();
+        return new SSELimitExceededException(limit, message);
+    }
+
+    private String describe(SSELimitType limit) {
+        switch (limit) {
+            case EVENT_COUNT:
+                return "SSE response exceeds the maximum of " + maxEventCount + " events";
+            case RESPONSE_BYTES:
+                return "SSE response exceeds the maximum of " + maxResponseBytes + " bytes of event data";
+            default:
+                return "SSE responses in flight exceed the memory budget of " + memoryBudget + " bytes";
+        }
+    }
+
+    private static SSELimitAction actionOrFail(SSELimitAction action) {
+        return action != null ? action : SSELimitAction.FAIL;
+    }
+
+    private static SSELimitAction spillOrTruncate(SSELimitAction action, boolean spill) {
+        return action == SSELimitAction.SPILL && !spill ? SSELimitAction.TRUNCATE : action;
+    }
+}
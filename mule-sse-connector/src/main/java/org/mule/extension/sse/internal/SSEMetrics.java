@@ -0,0 +1,539 @@
+package org.mule.extension.sse.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated counters and latency histograms of the exchanges of a configuration.
+ * <p>
+ * Recording only touches {@link LongAdder}s and lock-free histograms, so it adds no contention between concurrent
+ * flows. The metrics are published through JMX while the configuration is started.
+ */
+class SSEMetrics implements SSEMetricsMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEMetrics.class);
+
+    private static final String DOMAIN = "org.mule.extension.sse";
+
+    private final LongAdder exchanges = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder errorResponses = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder skippedEvents = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder compressedBytesRead = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder coalescedRequests = new LongAdder();
+    private final LongAdder hedgedRequests = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder hedgesDenied = new LongAdder();
+    private final LongAdder spilledBytes = new LongAdder();
+    private final LongAdder limitsExceeded = new LongAdder();
+    private final LongAdder bulkheadRejections = new LongAdder();
+    private final LongAdder concurrencyLimitChanges = new LongAdder();
+    private final LongAdder circuitRejections = new LongAdder();
+    private final LongAdder circuitOpenings = new LongAdder();
+    private final LongAdder reconnections = new LongAdder();
+    private final LongAdder replayedEvents = new LongAdder();
+    private final LongAdder reconnectionsDenied = new LongAdder();
+    private final LongAdder tlsHandshakes = new LongAdder();
+    private final LongAdder connectionReuses = new LongAdder();
+    private final LongAdder warmUpRequests = new LongAdder();
+    private final LongAdder idleReleases = new LongAdder();
+
+    // Gauges, not counters: bytes of event data held by the responses in flight, the concurrency limit and the
+    // state of the circuit breaker
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicInteger concurrencyLimit = new AtomicInteger();
+    private volatile String circuitState = SSECircuitBreaker.State.CLOSED.name();
+
+    private final SSELatencyHistogram connectTime = new SSELatencyHistogram();
+    private final SSELatencyHistogram timeToFirstByte = new SSELatencyHistogram();
+    private final SSELatencyHistogram timeToFirstEvent = new SSELatencyHistogram();
+    private final SSELatencyHistogram totalDuration = new SSELatencyHistogram();
+    private final SSELatencyHistogram maxEventGap = new SSELatencyHistogram();
+    private final SSELatencyHistogram parseTime = new SSELatencyHistogram();
+
+    private volatile SSEAdaptiveTimeouts adaptiveTimeouts;
+
+    private ObjectName objectName;
+
+    /**
+     * Records a completed exchange, including one aborted by a stop condition or the response timeout.
+     *
+     * @param attributes the attributes of the response
+     * @param timedOut   whether the exchange was aborted because the response timeout was exceeded
+     */
+    void recordExchange(SSEResponseAttributes attributes, boolean timedOut) {
+        exchanges.increment();
+        if (timedOut) {
+            timeouts.increment();
+        }
+        if (attributes.getStatusCode() >= 400) {
+            errorResponses.increment();
+        }
+        attributes.getEventCounts().values().forEach(events::add);
+        skippedEvents.add(attributes.getSkippedEventCount());
+        bytesRead.add(attributes.getBytesRead());
+        compressedBytesRead.add(attributes.getCompressedBytesRead());
+        spilledBytes.add(attributes.getSpilledBytes());
+
+        recordMillis(connectTime, attributes.getConnectTimeMillis());
+        recordMillis(timeToFirstByte, attributes.getTimeToFirstByteMillis());
+        recordMillis(timeToFirstEvent, attributes.getTimeToFirstEventMillis());
+        recordMillis(totalDuration, attributes.getTotalDurationMillis());
+        recordMillis(maxEventGap, attributes.getMaxEventGapMillis());
+        parseTime.recordNanos(TimeUnit.MICROSECONDS.toNanos(attributes.getParseTimeMicros()));
+    }
+
+    /**
+     * Records an exchange that failed before completing.
+     */
+    void recordFailure() {
+        exchanges.increment();
+        failures.increment();
+    }
+
+    /**
+     * Records a request served from the response cache.
+     */
+    void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    /**
+     * Records a request that joined an identical exchange in progress.
+     */
+    void recordCoalescedRequest() {
+        coalescedRequests.increment();
+    }
+
+    /**
+     * Records a hedge, i.e. a second identical request sent because the first one was slow.
+     */
+    void recordHedgedRequest() {
+        hedgedRequests.increment();
+    }
+
+    /**
+     * Records a hedge that produced an event before the request it hedged.
+     */
+    void recordHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * Records a slow request that was not hedged because the hedge budget was spent.
+     */
+    void recordHedgeDenied() {
+        hedgesDenied.increment();
+    }
+
+    /**
+     * Records a reconnection, i.e. a request sent again, with the last event ID, after its connection dropped.
+     */
+    void recordReconnection() {
+        reconnections.increment();
+    }
+
+    /**
+     * Records events sent again by the server after a reconnection, and dropped as duplicates.
+     *
+     * @param count the number of replayed events
+     */
+    void recordReplayedEvents(int count) {
+        replayedEvents.add(count);
+    }
+
+    /**
+     * Records a dropped request that was not resumed because the reconnection budget was spent.
+     */
+    void recordReconnectionDenied() {
+        reconnectionsDenied.increment();
+    }
+
+    /**
+     * Records a response received over a connection: a new one, whose TLS handshake the request paid for, or one
+     * reused from the pool.
+     *
+     * @param handshake whether the connection was new
+     */
+    void recordConnectionUse(boolean handshake) {
+        (handshake ? tlsHandshakes : connectionReuses).increment();
+    }
+
+    /**
+     * Records a request sent to open a connection ahead of use, or to keep it open.
+     */
+    void recordWarmUpRequest() {
+        warmUpRequests.increment();
+    }
+
+    /**
+     * Records warm connections no longer kept open because the configuration was idle.
+     */
+    void recordIdleRelease() {
+        idleReleases.increment();
+    }
+
+    /**
+     * Reserves bytes of event data about to be held in memory by a response in flight.
+     *
+     * @param bytes  the number of bytes
+     * @param budget the maximum number of bytes held by all the responses in flight; {@code 0} for no limit
+     * @return {@code true} if the bytes were reserved; {@code false} if they would exceed the budget
+     */
+    boolean reserveBufferedBytes(long bytes, long budget) {
+        if (budget <= 0) {
+            bufferedBytes.addAndGet(bytes);
+            return true;
+        }
+        long current;
+        do {
+            current = bufferedBytes.get();
+            if (current + bytes > budget) {
+                return false;
+            }
+        } while (!bufferedBytes.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    /**
+     * Releases bytes reserved by {@link #reserveBufferedBytes(long, long)}, once the response holding them is
+     * complete.
+     *
+     * @param bytes the number of bytes
+     */
+    void releaseBufferedBytes(long bytes) {
+        if (bytes != 0) {
+            bufferedBytes.addAndGet(-bytes);
+        }
+    }
+
+    /**
+     * Records a response that exceeded one of the memory limits of the configuration, and was failed or truncated.
+     */
+    void recordLimitExceeded() {
+        limitsExceeded.increment();
+    }
+
+    /**
+     * Records a request rejected because the concurrency limit of the configuration was reached.
+     */
+    void recordBulkheadRejection() {
+        bulkheadRejections.increment();
+    }
+
+    /**
+     * Records the concurrency limit of the configuration, when it is set or adapted.
+     *
+     * @param limit the maximum number of requests in flight at once
+     */
+    void recordConcurrencyLimit(int limit) {
+        if (concurrencyLimit.getAndSet(limit) != 0) {
+            concurrencyLimitChanges.increment();
+        }
+    }
+
+    /**
+     * Records a request rejected because the circuit breaker of the configuration was open.
+     */
+    void recordCircuitRejection() {
+        circuitRejections.increment();
+    }
+
+    /**
+     * Records the state of the circuit breaker of the configuration, when it is created or changes.
+     *
+     * @param state the name of the state
+     */
+    void recordCircuitState(String state) {
+        if (SSECircuitBreaker.State.OPEN.name().equals(state)) {
+            circuitOpenings.increment();
+        }
+        circuitState = state;
+    }
+
+    /**
+     * Publishes the adaptive timeouts of the configuration, once they are created.
+     *
+     * @param adaptiveTimeouts the adaptive timeouts
+     */
+    void setAdaptiveTimeouts(SSEAdaptiveTimeouts adaptiveTimeouts) {
+        this.adaptiveTimeouts = adaptiveTimeouts;
+    }
+
+    /**
+     * Returns the number of exchanges whose time to first event was recorded.
+     *
+     * @return the number of samples
+     */
+    long getTimeToFirstEventSampleCount() {
+        return timeToFirstEvent.getCount();
+    }
+
+    /**
+     * Returns a percentile of the time to first event.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the time to first event in microseconds, or {@code 0} if none was recorded
+     */
+    long timeToFirstEventPercentileMicros(double percentile) {
+        return timeToFirstEvent.percentileMicros(percentile);
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server, under a name qualified by the application, as the
+     * applications of a Mule runtime share the server. Failures are logged, as metrics are not worth failing the
+     * application for; metrics already registered under the same name are left alone.
+     *
+     * @param appName    the name of the application the configuration belongs to, or {@code null} if unknown
+     * @param configName the name of the configuration the metrics belong to
+     */
+    synchronized void register(String appName, String configName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":type=Metrics"
+                    + (appName != null ? ",app=" + ObjectName.quote(appName) : "")
+                    + ",config=" + ObjectName.quote(String.valueOf(configName)));
+            if (server.isRegistered(name)) {
+                LOGGER.warn("The JMX metrics of SSE configuration {} are not published: {} is already registered",
+                        configName, name);
+                return;
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException | RuntimeException e) {
+            LOGGER.warn("Failed to register the JMX metrics of SSE configuration {}", configName, e);
+        }
+    }
+
+    /**
+     * Unregisters these metrics from the platform MBean server, if {@link #register} registered them.
+     */
+    synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            LOGGER.debug("Failed to unregister the JMX metrics {}", objectName, e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getExchangeCount() {
+        return exchanges.sum();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getErrorResponseCount() {
+        return errorResponses.sum();
+    }
+
+    @Override
+    public long getEventCount() {
+        return events.sum();
+    }
+
+    @Override
+    public long getSkippedEventCount() {
+        return skippedEvents.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getCompressedBytesRead() {
+        return compressedBytesRead.sum();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCoalescedRequestCount() {
+        return coalescedRequests.sum();
+    }
+
+    @Override
+    public long getHedgedRequestCount() {
+        return hedgedRequests.sum();
+    }
+
+    @Override
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    @Override
+    public long getHedgeDeniedCount() {
+        return hedgesDenied.sum();
+    }
+
+    @Override
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    @Override
+    public long getSpilledBytes() {
+        return spilledBytes.sum();
+    }
+
+    @Override
+    public long getLimitExceededCount() {
+        return limitsExceeded.sum();
+    }
+
+    @Override
+    public long getBulkheadRejectedCount() {
+        return bulkheadRejections.sum();
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return concurrencyLimit.get();
+    }
+
+    @Override
+    public long getConcurrencyLimitChangeCount() {
+        return concurrencyLimitChanges.sum();
+    }
+
+    @Override
+    public String getCircuitState() {
+        return circuitState;
+    }
+
+    @Override
+    public long getCircuitOpenedCount() {
+        return circuitOpenings.sum();
+    }
+
+    @Override
+    public long getCircuitRejectedCount() {
+        return circuitRejections.sum();
+    }
+
+    @Override
+    public long getReconnectionCount() {
+        return reconnections.sum();
+    }
+
+    @Override
+    public long getReplayedEventCount() {
+        return replayedEvents.sum();
+    }
+
+    @Override
+    public long getReconnectionDeniedCount() {
+        return reconnectionsDenied.sum();
+    }
+
+    @Override
+    public long getTlsHandshakeCount() {
+        return tlsHandshakes.sum();
+    }
+
+    @Override
+    public long getConnectionReuseCount() {
+        return connectionReuses.sum();
+    }
+
+    @Override
+    public long getWarmUpRequestCount() {
+        return warmUpRequests.sum();
+    }
+
+    @Override
+    public long getIdleReleaseCount() {
+        return idleReleases.sum();
+    }
+
+    @Override
+    public SSELatencySnapshot getConnectTime() {
+        return connectTime.snapshot();
+    }
+
+    @Override
+    public SSELatencySnapshot getTimeToFirstByte() {
+        return timeToFirstByte.snapshot();
+    }
+
+    @Override
+    public SSELatencySnapshot getTimeToFirstEvent() {
+        return timeToFirstEvent.snapshot();
+    }
+
+    @Override
+    public SSELatencySnapshot getTotalDuration() {
+        return totalDuration.snapshot();
+    }
+
+    @Override
+    public SSELatencySnapshot getMaxEventGap() {
+        return maxEventGap.snapshot();
+    }
+
+    @Override
+    public SSELatencySnapshot getParseTime() {
+        return parseTime.snapshot();
+    }
+
+    @Override
+    public Map<String, SSEAdaptiveTimeoutSnapshot> getAdaptiveTimeouts() {
+        SSEAdaptiveTimeouts timeouts = adaptiveTimeouts;
+        return timeouts != null ? timeouts.snapshot() : Collections.emptyMap();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : new LongAdder[]{exchanges, failures, timeouts, errorResponses, events,
+                skippedEvents, bytesRead, compressedBytesRead, cacheHits, coalescedRequests, hedgedRequests, hedgeWins,
+                hedgesDenied, spilledBytes, limitsExceeded, bulkheadRejections, concurrencyLimitChanges,
+                circuitRejections, circuitOpenings, reconnections, replayedEvents, reconnectionsDenied, tlsHandshakes,
+                connectionReuses, warmUpRequests, idleReleases}) {
+            counter.reset();
+        }
+        for (SSELatencyHistogram histogram : new SSELatencyHistogram[]{connectTime, timeToFirstByte,
+                timeToFirstEvent, totalDuration, maxEventGap, parseTime}) {
+            histogram.reset();
+        }
+    }
+
+    private static void recordMillis(SSELatencyHistogram histogram, long millis) {
+        if (millis >= 0) {
+            histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+}
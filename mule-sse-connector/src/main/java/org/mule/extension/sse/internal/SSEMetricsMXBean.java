@@ -0,0 +1,284 @@
+package org.mule.extension.sse.internal;
+
+import java.util.Map;
+
+/**
+ * Management interface of the metrics of an SSE configuration, registered in the platform MBean server under
+ * {@code org.mule.extension.sse:type=Metrics,app=<application name>,config=<config name>}.
+ * <p>
+ * Counters are cumulative since the configuration started, or since the last {@link #reset()}. Latencies of the
+ * upstream server ({@code ConnectTime}, {@code TimeToFirstByte}, {@code TimeToFirstEvent}) are reported separately
+ * from the time spent by the connector itself ({@code ParseTime}), so alerts can tell them apart.
+ *
+ * @since 1.0
+ */
+public interface SSEMetricsMXBean {
+
+    /**
+     * Returns the number of HTTP exchanges sent to the SSE server.
+     *
+     * @return the number of exchanges
+     */
+    long getExchangeCount();
+
+    /**
+     * Returns the number of HTTP exchanges that failed, e.g. because the server was unreachable.
+     *
+     * @return the number of failed exchanges
+     */
+    long getFailureCount();
+
+    /**
+     * Returns the number of HTTP exchanges aborted because the response timeout was exceeded.
+     *
+     * @return the number of timed out exchanges
+     */
+    long getTimeoutCount();
+
+    /**
+     * Returns the number of responses with an HTTP status code of 400 or above.
+     *
+     * @return the number of error responses
+     */
+    long getErrorResponseCount();
+
+    /**
+     * Returns the number of events returned to flows.
+     *
+     * @return the number of events
+     */
+    long getEventCount();
+
+    /**
+     * Returns the number of events skipped by filters or discarded by stop conditions.
+     *
+     * @return the number of skipped events
+     */
+    long getSkippedEventCount();
+
+    /**
+     * Returns the number of response body bytes read, after decompression.
+     *
+     * @return the number of bytes
+     */
+    long getBytesRead();
+
+    /**
+     * Returns the number of response body bytes received from the server, before decompression. The same as
+     * {@code BytesRead} when responses are not compressed.
+     *
+     * @return the number of bytes
+     */
+    long getCompressedBytesRead();
+
+    /**
+     * Returns the number of requests served from the response cache.
+     *
+     * @return the number of cache hits
+     */
+    long getCacheHitCount();
+
+    /**
+     * Returns the number of requests that joined an identical exchange in progress instead of sending their own.
+     *
+     * @return the number of coalesced requests
+     */
+    long getCoalescedRequestCount();
+
+    /**
+     * Returns the number of hedges, i.e. second identical requests sent because the first one had not received any
+     * event after the hedge delay.
+     *
+     * @return the number of hedged requests
+     */
+    long getHedgedRequestCount();
+
+    /**
+     * Returns the number of hedges that produced an event before the request they hedged.
+     *
+     * @return the number of hedges kept
+     */
+    long getHedgeWinCount();
+
+    /**
+     * Returns the number of slow requests that were not hedged because the hedge budget was spent.
+     *
+     * @return the number of hedges denied
+     */
+    long getHedgeDeniedCount();
+
+    /**
+     * Returns the number of bytes of event data currently held in memory by the responses in flight, which the
+     * memory budget of the configuration applies to. A gauge, not cleared by {@link #reset()}.
+     *
+     * @return the number of buffered bytes
+     */
+    long getBufferedBytes();
+
+    /**
+     * Returns the number of bytes of event data written to temporary files instead of being kept in memory.
+     *
+     * @return the number of spilled bytes
+     */
+    long getSpilledBytes();
+
+    /**
+     * Returns the number of responses failed or truncated because they exceeded a memory limit.
+     *
+     * @return the number of responses over a limit
+     */
+    long getLimitExceededCount();
+
+    /**
+     * Returns the number of requests rejected because the concurrency limit was reached.
+     *
+     * @return the number of requests rejected by the bulkhead
+     */
+    long getBulkheadRejectedCount();
+
+    /**
+     * Returns the maximum number of requests in flight at once, which the adaptive limit moves as the latency of
+     * the upstream changes. A gauge, not cleared by {@link #reset()}.
+     *
+     * @return the concurrency limit, or {@code 0} if there is none
+     */
+    int getConcurrencyLimit();
+
+    /**
+     * Returns the number of times the adaptive limit was raised or lowered.
+     *
+     * @return the number of limit changes
+     */
+    long getConcurrencyLimitChangeCount();
+
+    /**
+     * Returns the state of the circuit breaker: {@code CLOSED}, {@code OPEN} or {@code HALF_OPEN}. A gauge, not
+     * cleared by {@link #reset()}; always {@code CLOSED} if the circuit breaker is disabled.
+     *
+     * @return the state of the circuit
+     */
+    String getCircuitState();
+
+    /**
+     * Returns the number of times the circuit breaker opened.
+     *
+     * @return the number of openings
+     */
+    long getCircuitOpenedCount();
+
+    /**
+     * Returns the number of requests rejected because the circuit breaker was open.
+     *
+     * @return the number of requests rejected by the circuit breaker
+     */
+    long getCircuitRejectedCount();
+
+    /**
+     * Returns the number of reconnections, i.e. requests sent again, with the last event ID, after their connection
+     * dropped.
+     *
+     * @return the number of reconnections
+     */
+    long getReconnectionCount();
+
+    /**
+     * Returns the number of events sent again by the server after a reconnection, and dropped as duplicates.
+     *
+     * @return the number of replayed events
+     */
+    long getReplayedEventCount();
+
+    /**
+     * Returns the number of dropped requests that were not resumed because the reconnection budget was spent.
+     *
+     * @return the number of reconnections denied
+     */
+    long getReconnectionDeniedCount();
+
+    /**
+     * Returns the number of responses received over a new connection, whose TCP and TLS handshakes the request paid
+     * for. Only counted for {@code https} servers; the handshakes of warm-up requests are not included, so the count
+     * stays flat once the connections are kept warm.
+     *
+     * @return the number of TLS handshakes
+     */
+    long getTlsHandshakeCount();
+
+    /**
+     * Returns the number of responses received over a connection reused from the pool. Only counted for
+     * {@code https} servers.
+     *
+     * @return the number of reused connections
+     */
+    long getConnectionReuseCount();
+
+    /**
+     * Returns the number of requests sent to open connections when the configuration starts, or to keep them open.
+     *
+     * @return the number of warm-up requests
+     */
+    long getWarmUpRequestCount();
+
+    /**
+     * Returns the number of times the warm connections were no longer kept open because the configuration was
+     * idle for longer than the max idle time.
+     *
+     * @return the number of idle releases
+     */
+    long getIdleReleaseCount();
+
+    /**
+     * Returns the distribution of the time until the response headers were received.
+     *
+     * @return the latency snapshot
+     */
+    SSELatencySnapshot getConnectTime();
+
+    /**
+     * Returns the distribution of the time until the first byte of the response body was received.
+     *
+     * @return the latency snapshot
+     */
+    SSELatencySnapshot getTimeToFirstByte();
+
+    /**
+     * Returns the distribution of the time until the first event was parsed.
+     *
+     * @return the latency snapshot
+     */
+    SSELatencySnapshot getTimeToFirstEvent();
+
+    /**
+     * Returns the distribution of the duration of whole exchanges.
+     *
+     * @return the latency snapshot
+     */
+    SSELatencySnapshot getTotalDuration();
+
+    /**
+     * Returns the distribution of the longest gap between two events of each exchange.
+     *
+     * @return the latency snapshot
+     */
+    SSELatencySnapshot getMaxEventGap();
+
+    /**
+     * Returns the distribution of the time spent by the connector parsing response bodies.
+     *
+     * @return the latency snapshot
+     */
+    SSELatencySnapshot getParseTime();
+
+    /**
+     * Returns the latencies observed on each endpoint and the timeouts derived from them, when adaptive timeouts
+     * are enabled. They are not cleared by {@link #reset()}.
+     *
+     * @return the snapshot of each endpoint, by path; empty if adaptive timeouts are disabled
+     */
+    Map<String, SSEAdaptiveTimeoutSnapshot> getAdaptiveTimeouts();
+
+    /**
+     * Clears all counters and histograms; gauges are left untouched.
+     */
+    void reset();
+}
@@ -1,23 +1,45 @@
 package org.mule.extension.sse.internal;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mule.runtime.extension.api.annotation.error.Throws;
+import org.mule.runtime.extension.api.annotation.metadata.OutputResolver;
 import org.mule.runtime.extension.api.annotation.param.Config;
+import org.mule.runtime.extension.api.annotation.param.Connection;
 import org.mule.runtime.extension.api.annotation.param.MediaType;
+import org.mule.runtime.extension.api.annotation.param.Optional;
 import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+import org.mule.runtime.extension.api.exception.ModuleException;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
+import org.mule.runtime.extension.api.runtime.streaming.PagingProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 /**
  * Defines the operations available for the SSE (Server-Sent Events) Mule 4 connector.
@@ -31,32 +53,17 @@ import java.util.StringJoiner;
  * <ul>
  *   <li>Builds properly configured HTTP requests for SSE endpoints.</li>
  *   <li>Constructs URLs by combining base URL, path, and query parameters.</li>
- *   <li>Executes blocking HTTP GET calls to SSE servers.</li>
- *   <li>Parses raw SSE event blocks into {@link SSEEvent} POJOs.</li>
+ *   <li>Executes blocking and non-blocking HTTP GET calls to SSE servers.</li>
+ *   <li>Parses the event stream incrementally into {@link SSEEvent} POJOs as it
+ *       arrives (see {@link SSEEventParser}).</li>
  * </ul>
  *
- * <p>
- * <b>Note:</b> Current parsing logic is intentionally simplistic and optimized
- * for a proof-of-concept with the Constructor “Retrieve by intent” API.
- * It should be refactored for production-grade usage.
- * </p>
- *
  * @since 1.0
  */
 @DisplayName("SSE Connector Operations")
 public class SSEOperations {
 
-
-    /**
-     * Shared Jackson ObjectMapper for parsing SSE data payloads, which Constructor sends as JSON objects (thread-safe
-     * after configuration).
-     */
-    private static final ObjectMapper MAPPER = new ObjectMapper();
-
-    /**
-     * Shared HttpClient instance (thread-safe, supports connection pooling).
-     */
-    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEOperations.class);
 
     /**
      * Utility method to build a fully configured {@link HttpRequest} for sending HTTP GET requests.
@@ -77,7 +84,7 @@ public class SSEOperations {
      * @param responseTimeout Optional response timeout in milliseconds. Ignored if <= 0.
      * @return A configured {@link HttpRequest} object ready to be sent, or {@code null} if the URL is invalid.
      */
-    private static HttpRequest buildGetRequest(String url, Map<String, String> headers, long responseTimeout) {
+    static HttpRequest buildGetRequest(String url, Map<String, String> headers, long responseTimeout) {
         // Defensive check: URL must not be null or blank
         if (url == null || url.isBlank()) {
             return null;
@@ -129,65 +136,680 @@ public class SSEOperations {
      * <p>
      * This operation executes synchronously, blocking until:
      * <ul>
-     *   <li>The SSE server closes the connection, or</li>
-     *   <li>The configured timeout is exceeded.</li>
+     *   <li>The SSE server closes the connection,</li>
+     *   <li>One of the stop conditions is met, in which case the HTTP exchange is aborted, or</li>
+     *   <li>One of the configured timeouts (response, time to first event, idle) expires, in which case the HTTP
+     *       exchange is aborted and the events received so far are returned, flagged as partial in the
+     *       attributes.</li>
      * </ul>
+     * If the response cache of the configuration is enabled, a cached response is returned when available, and
+     * concurrent identical requests share a single exchange.
+     * <p>
+     * A connection failure raises an {@code SSE:CONNECTIVITY} error, or an {@code SSE:TIMEOUT} error if connecting
+     * timed out, a response that exceeds a memory limit whose action is {@code FAIL} raises an
+     * {@code SSE:LIMIT_EXCEEDED} error, and a request rejected by the concurrency limit or the circuit breaker of the
+     * configuration raises an {@code SSE:REJECTED} error.
      *
      * @param operationParameters A group of request parameters (headers, path, query params).
+     * @param stopConditions      Conditions that end the stream early, once the useful events have been received.
      * @param config      Connector-level configuration (base URL, response timeout).
-     * @return A list of parsed {@link SSEEvent} objects. May be empty if no events are received.
+     * @param connection  The connection used to send the request.
+     * @return The parsed {@link SSEEvent} objects, which may be empty if no events are received, and the
+     *         {@link SSEResponseAttributes} of the response, absent if the thread was interrupted.
+     * @throws ModuleException {@code SSE:CONNECTIVITY} or {@code SSE:TIMEOUT} if the server cannot be reached,
+     *                         {@code SSE:LIMIT_EXCEEDED} if the response exceeds a memory limit, or
+     *                         {@code SSE:REJECTED} if the request is rejected.
      */
     @MediaType(value = MediaType.ANY, strict = false)
+    @OutputResolver(output = SSEEventsOutputResolver.class)
+    @Throws(SSEErrorTypeProvider.class)
     @DisplayName("Get Events")
-    public List<SSEEvent> getSSEEvents(
+    public Result<List<SSEEvent>, SSEResponseAttributes> getSSEEvents(
             @ParameterGroup(name = "Request") GetEventsParameters operationParameters,
-            @Config SSEConfiguration config
+            @ParameterGroup(name = "Stop Conditions") StopConditionParameters stopConditions,
+            @Config SSEConfiguration config,
+            @Connection SSEConnection connection
     ) {
-        List<SSEEvent> events = new ArrayList<>();
-
         // Build the SSE endpoint's URL using the base URL and path settings, and any provided query parameters
         String url = buildUrl(config.getSSEServerBaseURL(), operationParameters.getPath(), operationParameters.getQueryParams());
 
-        // Create a new GET request for invoking the SSE endpoint. This request is intentionally synchronous, blocking
-        // to receive all SSE events, waiting for the SSE endpoint to close the connection, or the specified timeout to
-        // be exceeded.
-        HttpRequest request = buildGetRequest(url, operationParameters.getHeaders(), config.getResponseTimeout());
+        // Create a new GET request for invoking the SSE endpoint. The operation blocks to receive all SSE events,
+        // waiting for the SSE endpoint to close the connection, or a timeout to expire. No request timeout: it only
+        // covers the response headers. The timeouts of the configuration are enforced on the whole exchange instead,
+        // which also covers a stream that trickles in, and hand over the events received so far when they expire.
+        HttpRequest request = buildGetRequest(url, operationParameters.getHeaders(), 0);
 
         try {
-            // Send the request and capture the entire response - i.e., all streamed events.
-            HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Get the response body
-            String responseBody = response.body();
-
-            if (responseBody != null && !responseBody.isBlank()) {
-                // TODO: Refactor this code block to make it more generic and handle any SSE event. It is a temporary
-                //       implementation specific to the Constructor Retrieve by intent API, which does not send the id:
-                //       line as witnessed while testing with over 30 requests; it only sends the event: and data: lines.
-                //       Hence, the regular expression below successfully splits the response into individual events
-                //       during the proof of concept and demo.
-                //
-                // Split the response into individual events intentionally using the regular expression below, as some
-                // of the search results may contain "\n\n", which causes parsing issues.
-                String[] eventBlocks = responseBody.split("(?=\\nevent:)");
-
-                // Loop through all events and parse them using the convenience method below.
-                for (String eventBlock : eventBlocks) {
-                    events.add(parseEvent(eventBlock));
-                }
+            if (request == null) {
+                throw new IllegalArgumentException("Invalid SSE endpoint URL");
             }
-        } catch (IOException ioe) {
-            // Network issues, server unreachable, or broken connection.
-            ioe.printStackTrace();
+
+            // Send the request and parse the streamed events as the response body arrives, so the body is never
+            // buffered as a whole. The exchange is aborted as soon as a stop condition is met. If the response cache
+            // is enabled, identical requests in progress share one exchange, and the response is kept for the next
+            // ones.
+            return fetch(config, connection, operationParameters, stopConditions, request,
+                    SSETimeouts.of(config, request)).get();
         } catch (InterruptedException ie) {
             // Thread interrupted waiting for response
-            ie.printStackTrace();
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while retrieving SSE events from path {}", operationParameters.getPath());
         } catch (Exception e) {
-            // Any other exception
-            e.printStackTrace();
+            // Raised like Get Events (Async) does: an empty list would pass for a stream without events
+            throw toException(e);
+        }
+
+        // No attributes: the exchange did not complete
+        return Result.<List<SSEEvent>, SSEResponseAttributes>builder()
+                .output(Collections.<SSEEvent>emptyList())
+                .build();
+    }
+
+    /**
+     * Retrieves SSE events from the configured SSE endpoint without blocking a Mule thread.
+     * <p>
+     * Returns the same events as {@link #getSSEEvents}, but the request is sent asynchronously: no thread of the
+     * runtime is held while the stream trickles in, and the flow resumes once the response is complete, i.e. when:
+     * <ul>
+     *   <li>The SSE server closes the connection,</li>
+     *   <li>One of the stop conditions is met, in which case the HTTP exchange is aborted, or</li>
+     *   <li>One of the configured timeouts expires, in which case the HTTP exchange is aborted and the events
+     *       received so far are returned, flagged as partial in the attributes.</li>
+     * </ul>
+     * The response cache of the configuration, if enabled, is shared with {@link #getSSEEvents}.
+     *
+     * @param operationParameters A group of request parameters (headers, path, query params).
+     * @param stopConditions      Conditions that end the stream early, once the useful events have been received.
+     * @param config              Connector-level configuration (base URL, response timeout).
+     * @param connection          The connection used to send the request.
+     * @param callback            Completed with the parsed {@link SSEEvent} objects and the
+     *                            {@link SSEResponseAttributes} of the response once it is complete.
+     */
+    @MediaType(value = MediaType.ANY, strict = false)
+    @OutputResolver(output = SSEEventsOutputResolver.class)
+    @Throws(SSEErrorTypeProvider.class)
+    @DisplayName("Get Events (Non-Blocking)")
+    public void getSSEEventsAsync(
+            @ParameterGroup(name = "Request") GetEventsParameters operationParameters,
+            @ParameterGroup(name = "Stop Conditions") StopConditionParameters stopConditions,
+            @Config SSEConfiguration config,
+            @Connection SSEConnection connection,
+            CompletionCallback<List<SSEEvent>, SSEResponseAttributes> callback
+    ) {
+        String url = buildUrl(config.getSSEServerBaseURL(), operationParameters.getPath(),
+                operationParameters.getQueryParams());
+
+        // No request timeout: it only covers the response headers. The timeouts of the configuration are enforced on
+        // the whole exchange instead, as for Get Events.
+        HttpRequest request = buildGetRequest(url, operationParameters.getHeaders(), 0);
+        if (request == null) {
+            callback.error(new IllegalArgumentException("Invalid SSE endpoint URL: " + url));
+            return;
+        }
+
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> events;
+        try {
+            events = fetch(config, connection, operationParameters, stopConditions, request,
+                    SSETimeouts.of(config, request));
+        } catch (RuntimeException e) {
+            callback.error(e);
+            return;
+        }
+
+        // The callback runs on the thread that completes the exchange, which is never a runtime thread
+        events.whenComplete((result, error) -> {
+            if (error == null) {
+                callback.success(result);
+            } else {
+                callback.error(toError(error));
+            }
+        });
+    }
+
+    /**
+     * Retrieves SSE events from several requests at once, e.g. several Constructor domains or prompt variants for a
+     * single user request, and merges their events.
+     * <p>
+     * The requests are sent concurrently, at most {@code maxConcurrency} at a time, without blocking a Mule thread.
+     * Each one behaves like {@link #getSSEEventsAsync}, with the same stop conditions, and shares the response
+     * cache of the configuration, if enabled. The flow resumes once every request has completed, or the deadline has
+     * been reached, in which case the requests still in flight are aborted and keep the events received so far; a
+     * request that still has not completed shortly after the deadline is cancelled, and listed as a failure.
+     * <p>
+     * Every event is tagged with the ID of its request, its path if it has no ID, in its {@code source} field.
+     * Requests are isolated from one another: a request that fails does not fail the operation, but is listed by
+     * position in the {@code failures} of the {@link SSEFanOutAttributes}, next to the response attributes of the
+     * other requests. Only a failure of the
+     * operation itself, before or after the requests, raises an error.
+     *
+     * @param requests       The requests to send.
+     * @param stopConditions Conditions that end each stream early, once its useful events have been received.
+     * @param maxConcurrency The maximum number of requests in flight at once.
+     * @param order          Whether events are merged in arrival order or grouped per request.
+     * @param deadline       The overall deadline of the operation, in milliseconds.
+     * @param config         Connector-level configuration (base URL, response timeout).
+     * @param connection     The connection used to send the requests.
+     * @param callback       Completed with the merged {@link SSEEvent} objects and the {@link SSEFanOutAttributes}
+     *                       of the requests once they are complete.
+     */
+    @MediaType(value = MediaType.ANY, strict = false)
+    @OutputResolver(output = SSEEventsOutputResolver.class)
+    @Throws(SSEErrorTypeProvider.class)
+    @DisplayName("Get Events (Fan-Out)")
+    public void getSSEEventsFanOut(
+            @DisplayName("Requests")
+            @Summary("The requests to send concurrently; the events of each request are tagged with its ID.")
+            List<SSERequestSpec> requests,
+            @ParameterGroup(name = "Stop Conditions") StopConditionParameters stopConditions,
+            @Optional(defaultValue = "4")
+            @DisplayName("Max concurrency")
+            @Summary("Maximum number of requests in flight at once (default: 4).")
+            int maxConcurrency,
+            @Optional(defaultValue = "ARRIVAL")
+            @DisplayName("Event order")
+            @Summary("Whether events are merged in the order they arrive, or grouped per request (default: ARRIVAL).")
+            SSEFanOutOrder order,
+            @Optional(defaultValue = "0")
+            @DisplayName("Deadline")
+            @Summary("Overall deadline in milliseconds; requests still in flight are aborted and keep the events "
+                    + "received so far (default: 0, the response timeout of the configuration).")
+            long deadline,
+            @Config SSEConfiguration config,
+            @Connection SSEConnection connection,
+            CompletionCallback<List<SSEEvent>, SSEFanOutAttributes> callback
+    ) {
+        List<SSERequestSpec> specs = requests != null ? requests : Collections.emptyList();
+
+        // Request IDs key the responses and tag the events, so they must be unique; failures are keyed by position
+        List<String> sources = new ArrayList<>(specs.size());
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < specs.size(); i++) {
+            String requestId = specs.get(i).getRequestId();
+            String path = specs.get(i).getPath();
+            String source = requestId != null && !requestId.isBlank() ? requestId
+                    : path != null && !path.isBlank() ? path : "#" + i;
+            sources.add(used.add(source) ? source : source + "#" + i);
+        }
+
+        SSEFanOut fanOut = new SSEFanOut(sources, maxConcurrency, deadline > 0 ? deadline : config.getResponseTimeout(),
+                (index, timeout, cancellation) -> {
+                    SSERequestSpec spec = specs.get(index);
+                    String url = buildUrl(config.getSSEServerBaseURL(), spec.getPath(), spec.getQueryParams());
+                    // The time left before the deadline replaces the response timeout of the configuration
+                    HttpRequest request = buildGetRequest(url, spec.getHeaders(), 0);
+                    if (request == null) {
+                        return CompletableFuture.failedFuture(
+                                new IllegalArgumentException("Invalid SSE endpoint URL: " + url));
+                    }
+                    return fetch(config, connection, spec, stopConditions, request,
+                            SSETimeouts.of(config, request).withTotal(timeout), null, cancellation);
+                });
+
+        fanOut.run(order != null ? order : SSEFanOutOrder.ARRIVAL).whenComplete((result, error) -> {
+            if (error != null) {
+                callback.error(toError(error));
+            } else {
+                callback.success(result);
+            }
+        });
+    }
+
+    /**
+     * Retrieves SSE events from the configured SSE endpoint and returns the results they hold as a single list,
+     * e.g. the products of the {@code search_result} events of the Constructor Retrieve by Intent API.
+     * <p>
+     * Replaces the transforms that filter the result events, flatten their results and pick the fields of each
+     * item: the results array of every result event is located with a JSON pointer, each result is reduced to its
+     * item, and the items of all the events are merged in stream order, de-duplicated by their key field and capped.
+     * Events of other types are skipped, and the unused parts of the result events are never decoded, as the
+     * aggregation is applied while the response is parsed; the event type filter, data projection and data
+     * decoding of the request are therefore ignored.
+     * <p>
+     * The request is sent without blocking a Mule thread, and behaves like {@link #getSSEEventsAsync}: it ends on
+     * the stop conditions and timeouts, shares the response cache of the configuration, if enabled, and raises an
+     * error in the flow if the connection fails.
+     *
+     * @param operationParameters A group of request parameters (headers, path, query params).
+     * @param resultParameters    How the results are located, de-duplicated and capped.
+     * @param stopConditions      Conditions that end the stream early, once the useful events have been received.
+     * @param config              Connector-level configuration (base URL, response timeout).
+     * @param connection          The connection used to send the request.
+     * @param callback            Completed with the collected items and the {@link SSEResponseAttributes} of the
+     *                            response once it is complete.
+     */
+    @MediaType(value = MediaType.ANY, strict = false)
+    @Throws(SSEErrorTypeProvider.class)
+    @DisplayName("Collect Results")
+    public void collectResults(
+            @ParameterGroup(name = "Request") GetEventsParameters operationParameters,
+            @ParameterGroup(name = "Results") CollectResultsParameters resultParameters,
+            @ParameterGroup(name = "Stop Conditions") StopConditionParameters stopConditions,
+            @Config SSEConfiguration config,
+            @Connection SSEConnection connection,
+            CompletionCallback<List<Object>, SSEResponseAttributes> callback
+    ) {
+        String url = buildUrl(config.getSSEServerBaseURL(), operationParameters.getPath(),
+                operationParameters.getQueryParams());
+
+        // No request timeout, as for Get Events
+        HttpRequest request = buildGetRequest(url, operationParameters.getHeaders(), 0);
+        if (request == null) {
+            callback.error(new IllegalArgumentException("Invalid SSE endpoint URL: " + url));
+            return;
+        }
+
+        SSEResultCollector collector;
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> events;
+        try {
+            collector = new SSEResultCollector(resultParameters);
+            // The exchange ends as soon as the maximum number of items is collected
+            events = fetch(config, connection, collector.toRequest(operationParameters), stopConditions, request,
+                    SSETimeouts.of(config, request), collector, null);
+        } catch (RuntimeException e) {
+            callback.error(e);
+            return;
+        }
+
+        events.whenComplete((result, error) -> {
+            if (error != null) {
+                callback.error(toError(error));
+                return;
+            }
+            List<Object> items;
+            try {
+                items = collector.collect(result.getOutput());
+            } catch (RuntimeException e) {
+                callback.error(e);
+                return;
+            }
+            callback.success(Result.<List<Object>, SSEResponseAttributes>builder()
+                    .output(items)
+                    .attributes(result.getAttributes().orElse(null))
+                    .build());
+        });
+    }
+
+    /**
+     * Streams SSE events from the configured SSE endpoint.
+     * <p>
+     * Unlike {@link #getSSEEvents}, this operation does not wait for the SSE server to close the connection: events
+     * are handed to the flow in pages as soon as they are parsed, so a downstream {@code foreach} or DataWeave
+     * script can process the first events while the rest are still being streamed. The stream is closed, and the
+     * HTTP exchange aborted, when:
+     * <ul>
+     *   <li>The SSE server closes the connection,</li>
+     *   <li>One of the stop conditions is met,</li>
+     *   <li>One of the configured timeouts expires, or</li>
+     *   <li>The flow finishes or abandons iterating over the events.</li>
+     * </ul>
+     * A connection failure, or a response with an error status, raises an {@code SSE:CONNECTIVITY} error, or an
+     * {@code SSE:TIMEOUT} error if connecting timed out, once the events received before it have been iterated over.
+     *
+     * @param operationParameters A group of request parameters (headers, path, query params).
+     * @param stopConditions      Conditions that end the stream early, once the useful events have been received.
+     * @param pageSize            The maximum number of events handed to the flow at once.
+     * @param config              Connector-level configuration (base URL, response timeout).
+     * @return A {@link PagingProvider} that lazily streams the parsed {@link SSEEvent} objects.
+     */
+    @MediaType(value = MediaType.ANY, strict = false)
+    @Throws(SSEErrorTypeProvider.class)
+    @DisplayName("Stream Events")
+    public PagingProvider<SSEConnection, SSEEvent> streamSSEEvents(
+            @ParameterGroup(name = "Request") GetEventsParameters operationParameters,
+            @ParameterGroup(name = "Stop Conditions") StopConditionParameters stopConditions,
+            @Optional(defaultValue = "50")
+            @DisplayName("Page size")
+            @Summary("Maximum number of events fetched at once; events are handed over as soon as they are available, "
+                    + "without waiting for a page to fill up (default: 50).")
+            int pageSize,
+            @Config SSEConfiguration config
+    ) {
+        String url = buildUrl(config.getSSEServerBaseURL(), operationParameters.getPath(),
+                operationParameters.getQueryParams());
+
+        // No request timeout here: it would abort the stream mid-way. The paging provider enforces the timeouts of
+        // the configuration on the whole stream instead.
+        HttpRequest request = buildGetRequest(url, operationParameters.getHeaders(), 0);
+        if (request == null) {
+            throw new IllegalArgumentException("Invalid SSE endpoint URL: " + url);
+        }
+
+        return new SSEEventPagingProvider(request, pageSize, SSETimeouts.of(config, request), stopConditions,
+                operationParameters.getDataDecoding(), SSEEventFilter.of(operationParameters, config.getEventTypes()),
+                new SSEMemoryGuard(config.getMemoryLimitParameters(), config.getMetrics()));
+    }
+
+    /**
+     * Streams SSE events from the configured SSE endpoint as NDJSON or as a JSON array.
+     * <p>
+     * Meant for flows that serialize the events to JSON anyway: the events are written as JSON while they are
+     * parsed, without building {@link SSEEvent} objects or decoding their data, and the output is a stream that
+     * Mule makes repeatable according to the streaming strategy of the operation (a file-store repeatable stream by
+     * default), so memory stays bounded for large streams and DataWeave reads the events lazily. Each event is an
+     * object with its {@code id}, {@code event} type and {@code data}; the data is embedded as JSON when it is valid
+     * JSON, and as a string otherwise, so the data decoding parameter does not apply.
+     * <p>
+     * The request is sent right away. Like {@link #streamSSEEvents}, the exchange ends when the server closes the
+     * connection, a stop condition is met, a timeout expires, or the flow closes the stream; the output is then a
+     * well-formed document. A connection failure, or a response with an error status, raises an
+     * {@code SSE:CONNECTIVITY} error, or an {@code SSE:TIMEOUT} error if connecting timed out, once the events
+     * received before it have been read.
+     *
+     * @param operationParameters A group of request parameters (headers, path, query params, filters, projection).
+     * @param stopConditions      Conditions that end the stream early, once the useful events have been received.
+     * @param outputFormat        How the events are written.
+     * @param config              Connector-level configuration (base URL, timeouts).
+     * @param connection          The connection used to send the request.
+     * @return A stream of the events, serialized as JSON.
+     */
+    @MediaType(value = MediaType.ANY, strict = false)
+    @Throws(SSEErrorTypeProvider.class)
+    @DisplayName("Stream Events as JSON")
+    public Result<InputStream, Void> streamSSEEventsAsJson(
+            @ParameterGroup(name = "Request") GetEventsParameters operationParameters,
+            @ParameterGroup(name = "Stop Conditions") StopConditionParameters stopConditions,
+            @Optional(defaultValue = "NDJSON")
+            @DisplayName("Output format")
+            @Summary("NDJSON (one event per line) or JSON_ARRAY (a single JSON array of events) (default: NDJSON).")
+            SSEOutputFormat outputFormat,
+            @Config SSEConfiguration config,
+            @Connection SSEConnection connection
+    ) {
+        SSEOutputFormat format = outputFormat != null ? outputFormat : SSEOutputFormat.NDJSON;
+        String url = buildUrl(config.getSSEServerBaseURL(), operationParameters.getPath(),
+                operationParameters.getQueryParams());
+
+        // No request timeout here either: the timeouts of the configuration are enforced on the whole stream
+        HttpRequest request = buildGetRequest(url, operationParameters.getHeaders(), 0);
+        if (request == null) {
+            throw new IllegalArgumentException("Invalid SSE endpoint URL: " + url);
+        }
+
+        InputStream events = new SSEJsonInputStream(connection, request, SSETimeouts.of(config, request),
+                stopConditions, SSEEventFilter.of(operationParameters), format,
+                new SSEMemoryGuard(config.getMemoryLimitParameters(), config.getMetrics()));
+        return Result.<InputStream, Void>builder()
+                .output(events)
+                .mediaType(format.getMediaType())
+                .build();
+    }
+
+    /**
+     * Sends the given request asynchronously through the response cache of the configuration, if enabled, hedges it
+     * if hedging is enabled, and resumes it when its connection drops if reconnection is enabled. Requests that reach
+     * the upstream go through the concurrency limit and the circuit breaker of the configuration, if enabled. The
+     * latencies of the request feed the adaptive timeouts of the configuration, if enabled.
+     *
+     * @param config          the configuration
+     * @param connection      the connection used to send the request
+     * @param parameters      the parameters of the request, which select the events and their decoding
+     * @param stopConditions  the stop conditions of the request
+     * @param request         the request to send
+     * @param timeouts        the timeouts of the exchange
+     * @return a future completed with the parsed events and the attributes of the response; for a hedged request,
+     * those of the attempt that won
+     */
+    private static CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> fetch(
+            SSEConfiguration config, SSEConnection connection, GetEventsParameters parameters,
+            StopConditionParameters stopConditions, HttpRequest request, SSETimeouts timeouts) {
+        return fetch(config, connection, parameters, stopConditions, request, timeouts, null, null);
+    }
+
+    /**
+     * Sends the given request like {@link #fetch(SSEConfiguration, SSEConnection, GetEventsParameters,
+     * StopConditionParameters, HttpRequest, SSETimeouts)}, ending the exchange once the given collector has
+     * collected its maximum number of items.
+     *
+     * @param config          the configuration
+     * @param connection      the connection used to send the request
+     * @param parameters      the parameters of the request, which select the events and their decoding
+     * @param stopConditions  the stop conditions of the request
+     * @param request         the request to send
+     * @param timeouts        the timeouts of the exchange
+     * @param collector       the collector of the {@code Collect Results} operation, or {@code null} for none
+     * @param cancellation    cancels the exchange once completed, or {@code null} for none; an exchange shared
+     *                        with other requests through the response cache is not cancelled, only abandoned
+     * @return a future completed with the parsed events and the attributes of the response
+     */
+    private static CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> fetch(
+            SSEConfiguration config, SSEConnection connection, GetEventsParameters parameters,
+            StopConditionParameters stopConditions, HttpRequest request, SSETimeouts timeouts,
+            SSEResultCollector collector, CompletionStage<Void> cancellation) {
+        SSEEventFilter filter = SSEEventFilter.of(parameters, config.getEventTypes());
+        SSEMetrics metrics = config.getMetrics();
+        SSEResponseCache cache = config.getResponseCache();
+        Supplier<SSEBodySubscriber> subscriberFactory = () -> {
+            SSEBodySubscriber subscriber = new SSEBodySubscriber(
+                    new SSEStopCondition(stopConditions, collector), parameters.getDataDecoding(), filter,
+                    new SSEMemoryGuard(config.getMemoryLimitParameters(), metrics));
+            if (cancellation != null && cache == null) {
+                // Also aborts the exchange, which releases the stream of the connection
+                cancellation.thenRun(subscriber::cancel);
+            }
+            return subscriber;
+        };
+
+        SSEReconnectPolicy reconnectPolicy = config.getReconnectPolicy();
+        BiFunction<SSEBodySubscriber, SSETimeouts, CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>>
+                attempt = reconnectPolicy == null
+                        ? (subscriber, attemptTimeouts) ->
+                                exchange(connection, request, subscriber, attemptTimeouts, metrics)
+                        : (subscriber, attemptTimeouts) -> new SSEResumingExchange(reconnectPolicy, metrics,
+                                (resumed, lastEventId, resumedTimeouts) -> exchange(connection,
+                                        withLastEventId(request, lastEventId), resumed, resumedTimeouts, metrics),
+                                attemptTimeouts).start(subscriber);
+
+        SSEHedgePolicy hedgePolicy = config.getHedgePolicy();
+        Supplier<CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> send = hedgePolicy == null
+                ? () -> attempt.apply(subscriberFactory.get(), timeouts)
+                : () -> new SSEHedgedExchange(hedgePolicy, metrics, config.getConcurrencyLimiter(), subscriberFactory,
+                        attempt, timeouts).start();
+
+        SSEAdaptiveTimeouts adaptiveTimeouts = config.getAdaptiveTimeouts();
+        Supplier<CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> observedSend =
+                adaptiveTimeouts == null ? send : () -> send.get().whenComplete((result, error) -> {
+                    // One observation per request, whether it was hedged or resumed
+                    if (result != null) {
+                        result.getAttributes()
+                                .ifPresent(attributes -> adaptiveTimeouts.record(request.uri(), attributes));
+                    }
+                });
+
+        Supplier<CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> guardedSend =
+                () -> guard(config.getConcurrencyLimiter(), config.getCircuitBreaker(), observedSend);
+
+        if (cache == null) {
+            return guardedSend.get();
+        }
+        String key = cache.key(config.getSSEServerBaseURL(), parameters, stopConditions)
+                + (collector != null ? collector.cacheKey() : "");
+        return cache.get(key, guardedSend);
+    }
+
+    /**
+     * Sends a request unless the concurrency limit is reached or the circuit breaker is open, in which case it fails
+     * right away with an {@link SSERejectedException}, and feeds the outcome of the exchange back to both. A request
+     * fails, for their purpose, if it cannot complete, times out, or is answered with a 5xx or 429 status.
+     *
+     * @param limiter the concurrency limiter of the configuration, or {@code null} if there is no limit
+     * @param breaker the circuit breaker of the configuration, or {@code null} if it is disabled
+     * @param send    sends the request
+     * @return a future completed with the parsed events and the attributes of the response
+     */
+    private static CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> guard(
+            SSEConcurrencyLimiter limiter, SSECircuitBreaker breaker,
+            Supplier<CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> send) {
+        if (limiter == null && breaker == null) {
+            return send.get();
+        }
+        if (limiter != null && !limiter.tryAcquire()) {
+            return CompletableFuture.failedFuture(new SSERejectedException(
+                    "SSE request rejected: " + limiter.getLimit() + " requests are already in flight"));
+        }
+        SSECircuitBreaker.State admittedIn = breaker != null ? breaker.tryAcquire() : null;
+        if (breaker != null && admittedIn == null) {
+            if (limiter != null) {
+                limiter.release(-1, false);
+            }
+            return CompletableFuture.failedFuture(new SSERejectedException(
+                    "SSE request rejected: the circuit breaker is open"));
+        }
+
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> response;
+        try {
+            response = send.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response.whenComplete((result, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            if (cause instanceof CancellationException || cause instanceof SSELimitExceededException) {
+                // Says nothing about the upstream
+                if (limiter != null) {
+                    limiter.release(-1, false);
+                }
+                if (breaker != null) {
+                    breaker.release(admittedIn);
+                }
+                return;
+            }
+            SSEResponseAttributes attributes = result != null ? result.getAttributes().orElse(null) : null;
+            boolean failed = attributes == null || attributes.getExpiredTimeout() != null
+                    || attributes.getStatusCode() >= 500 || attributes.getStatusCode() == 429;
+            if (limiter != null) {
+                limiter.release(attributes != null ? attributes.getTimeToFirstEventMillis() : -1, failed);
+            }
+            if (breaker != null) {
+                if (failed) {
+                    breaker.onFailure(admittedIn);
+                } else {
+                    breaker.onSuccess(admittedIn);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sends the given request asynchronously, aborting the exchange once one of its timeouts expires, and records
+     * the exchange in the metrics.
+     *
+     * @param connection the connection used to send the request
+     * @param request    the request to send
+     * @param subscriber the subscriber that parses the response body
+     * @param timeouts   the timeouts of the exchange
+     * @param metrics    the metrics of the configuration
+     * @return a future completed with the parsed events and the attributes of the response, with the events
+     * received so far, flagged as partial, if a timeout expires
+     */
+    private static CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> exchange(
+            SSEConnection connection, HttpRequest request, SSEBodySubscriber subscriber, SSETimeouts timeouts,
+            SSEMetrics metrics) {
+        CompletableFuture<HttpResponse<List<SSEEvent>>> response =
+                connection.sendAsync(request, subscriber::onResponse);
+
+        timeouts.watch(subscriber, timeout -> {
+            if (!response.isDone() && subscriber.abort(timeout)) {
+                // Completes the response with the aborted body if the headers were received, and aborts the
+                // exchange otherwise
+                response.cancel(true);
+            }
+        });
+        subscriber.getBody().whenComplete((events, error) -> {
+            if (subscriber.isCancelled()) {
+                // Abandoned, e.g. by a hedged request: release the connection even if no headers were received
+                response.cancel(true);
+            }
+        });
+
+        return response.handle((result, error) -> {
+            if (error == null) {
+                return toResult(result.body(), subscriber, metrics);
+            }
+            if (subscriber.isAborted()) {
+                // Timed out before the headers: hand over the events received so far, if any
+                return toResult(subscriber.getBody().toCompletableFuture().getNow(Collections.emptyList()),
+                        subscriber, metrics);
+            }
+            if (!subscriber.isCancelled()) {
+                metrics.recordFailure();
+            }
+            throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+        });
+    }
+
+    /**
+     * Returns a copy of the given request resuming the stream after the given event ID.
+     *
+     * @param request     the request
+     * @param lastEventId the ID to send in the {@code Last-Event-ID} header, or {@code null} for none
+     * @return the request to send
+     */
+    private static HttpRequest withLastEventId(HttpRequest request, String lastEventId) {
+        if (lastEventId == null) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> !"Last-Event-ID".equalsIgnoreCase(name))
+                .header("Last-Event-ID", lastEventId)
+                .build();
+    }
+
+    /**
+     * Unwraps the cause of a failed exchange, and turns the failures reported as errors of the connector into a
+     * {@link ModuleException} of the matching {@link SSEErrorType}: limits, rejections, timeouts and connectivity
+     * failures.
+     *
+     * @param error the failure, possibly wrapped in a {@link CompletionException} or an {@link ExecutionException}
+     * @return the error to raise in the flow
+     */
+    static Throwable toError(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof SSELimitExceededException) {
+            return new ModuleException(cause.getMessage(), SSEErrorType.LIMIT_EXCEEDED, cause);
+        }
+        if (cause instanceof SSERejectedException) {
+            return new ModuleException(cause.getMessage(), SSEErrorType.REJECTED, cause);
         }
+        if (cause instanceof HttpTimeoutException || cause instanceof TimeoutException) {
+            return new ModuleException(describe(cause), SSEErrorType.TIMEOUT, cause);
+        }
+        if (cause instanceof IOException) {
+            return new ModuleException(describe(cause), SSEErrorType.CONNECTIVITY, cause);
+        }
+        return cause;
+    }
+
+    /**
+     * Turns the cause of a failed exchange into an exception to throw from a blocking operation or a paging provider.
+     *
+     * @param error the failure, possibly wrapped in a {@link CompletionException} or an {@link ExecutionException}
+     * @return the error to raise in the flow; a checked exception is raised as an {@code SSE:CONNECTIVITY} error
+     */
+    static RuntimeException toException(Throwable error) {
+        Throwable cause = toError(error);
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new ModuleException(describe(cause), SSEErrorType.CONNECTIVITY, cause);
+    }
+
+    private static String describe(Throwable cause) {
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
 
-        return events; // return List<SSEEvent> directly
+    /**
+     * Builds the result of a completed exchange and records it in the metrics.
+     */
+    private static Result<List<SSEEvent>, SSEResponseAttributes> toResult(
+            List<SSEEvent> events, SSEBodySubscriber subscriber, SSEMetrics metrics) {
+        SSEResponseAttributes attributes = subscriber.toAttributes();
+        metrics.recordExchange(attributes, attributes.getExpiredTimeout() != null);
+        return Result.<List<SSEEvent>, SSEResponseAttributes>builder().output(events).attributes(attributes).build();
     }
 
     /**
@@ -210,7 +832,7 @@ public class SSEOperations {
      * @param queryParams A map of query parameters to append, may be {@code null} or empty.
      * @return A fully constructed URL string with query parameters appended if present.
      */
-    private String buildUrl(String baseUrl, String path, Map<String, String> queryParams) {
+    static String buildUrl(String baseUrl, String path, Map<String, String> queryParams) {
         // Base URL is a required connector setting.
         // Checking regardless that it non-null and non-blank
         if (baseUrl == null || baseUrl.isBlank()) {
@@ -262,82 +884,4 @@ public class SSEOperations {
         // Return the final URL string
         return urlBuilder.toString();
     }
-
-    /**
-     * Parses a raw Server-Sent Event (SSE) block string into an {@link SSEEvent} object.
-     * <p>
-     * <b>Important:</b> This implementation is rudimentary and was designed as a quick-and-dirty solution.
-     * It may not handle all edge cases correctly, and performance could be improved. For example:
-     * <ul>
-     *     <li>The do-while loop logic may be inefficient and could risk an infinite loop.</li>
-     *     <li>Substring operations assume a newline character exists; malformed events could throw exceptions.</li>
-     * </ul>
-     * <p>
-     * The parser currently handles the following SSE fields:
-     * <ul>
-     *     <li><code>id:</code> ? sets {@link SSEEvent#setId(String)}</li>
-     *     <li><code>event:</code> ? sets {@link SSEEvent#setEvent(String)}</li>
-     *     <li><code>data:</code> ? attempts to parse JSON and sets {@link SSEEvent#setData(Object)}; falls back
-     *     to raw string if parsing fails.</li>
-     * </ul>
-     *
-     * @param eventBlock The raw SSE event block as a string.
-     * @return An {@link SSEEvent} object with parsed fields. If the input is empty or malformed, some fields may be null.
-     */
-    private SSEEvent parseEvent(String eventBlock) {
-        SSEEvent event = new SSEEvent();
-        String str = eventBlock.trim();
-
-        // Find the first newline to separate key:value
-        int firstNewline = str.indexOf('\n');
-
-        if (firstNewline > 0) {
-            do {
-                // Parse 'id:' field for sake of completeness
-                // As stated above, the Constructor Retrieve by intent API does not send the id: line.
-                if (str.startsWith("id:")) {
-                    try {
-                        event.setId(str.substring(3, firstNewline).trim());
-                    } catch (StringIndexOutOfBoundsException e) {
-                        System.err.println("Failed to parse SSE id field: " + str);
-                    }
-                    str = str.substring(firstNewline + 1).trim();
-
-                    // Parse 'event:' field
-                } else if (str.startsWith("event:")) {
-                    try {
-                        event.setEvent(str.substring(6, firstNewline).trim());
-                    } catch (StringIndexOutOfBoundsException e) {
-                        System.err.println("Failed to parse SSE event field: " + str);
-                    }
-                    str = str.substring(firstNewline + 1).trim();
-
-                    // Parse 'data:' field
-                } else if (str.startsWith("data:")) {
-                    String dataStr = str.substring(5).trim();
-                    try {
-                        // Attempt to parse JSON data
-                        Object dataObj = MAPPER.readValue(dataStr, Object.class);
-                        event.setData(dataObj);
-                    } catch (Exception e) {
-                        // Fallback: store raw string if JSON parsing fails
-                        System.err.println("Failed to parse data as JSON: " + dataStr);
-                        event.setData(dataStr);
-                    }
-                    break;
-
-                } else {
-                    // Unknown field ? log and break to avoid infinite loop
-                    System.err.println("Malformed SSE Event: " + eventBlock);
-                    break;
-                }
-
-                // Recompute newline position for next iteration
-                firstNewline = str.indexOf('\n');
-
-            } while (str != null && !str.isEmpty());
-        }
-
-        return event;
-    }
 }
@@ -0,0 +1,39 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.api.metadata.MediaType;
+
+/**
+ * Defines how the {@code Stream Events as JSON} operation writes the events it streams.
+ * <p>
+ * Every event is written as a JSON object with its {@code id}, {@code event} type and {@code data}, the same shape
+ * DataWeave produces from an {@link SSEEvent}. The data is embedded as JSON when it is valid JSON, and as a string
+ * otherwise.
+ */
+public enum SSEOutputFormat {
+
+    /**
+     * Newline-delimited JSON: one event object per line, so DataWeave and other consumers can read the events one
+     * at a time without loading the whole output.
+     */
+    NDJSON("application/x-ndjson"),
+
+    /**
+     * A single JSON array of event objects, for consumers that expect one JSON document.
+     */
+    JSON_ARRAY("application/json");
+
+    private final String mediaType;
+
+    SSEOutputFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Returns the media type of the output, with its UTF-8 charset.
+     *
+     * @return the media type
+     */
+    MediaType getMediaType() {
+        return MediaType.parse(mediaType + "; charset=UTF-8");
+    }
+}
@@ -0,0 +1,82 @@
+package org.mule.extension.sse.internal;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides how long the requests of a configuration wait before reconnecting, and how many reconnections they may
+ * make.
+ * <p>
+ * The delay starts at the {@code retry:} field of the server, or the configured reconnection delay, doubles at each
+ * new attempt up to the maximum delay, and is spread by a random jitter of up to 50%; it is never shorter than what
+ * the server requested. The share of reconnections is capped with a token bucket, like the hedges of
+ * {@link SSEHedgePolicy}: every request earns a fraction of a token, every reconnection spends a whole one, and the
+ * bucket holds at most {@value #MAX_TOKENS} tokens, counted in hundredths.
+ * <p>
+ * Instances are thread-safe.
+ */
+class SSEReconnectPolicy {
+
+    private static final int MAX_TOKENS = 10;
+
+    private static final long TOKEN = 100;
+
+    private final ReconnectionParameters parameters;
+    private final long tokensPerRequest;
+
+    // Guarded by this; in hundredths of a token
+    private long tokens;
+
+    /**
+     * Creates a new policy.
+     *
+     * @param parameters the reconnection settings of the configuration
+     */
+    SSEReconnectPolicy(ReconnectionParameters parameters) {
+        this.parameters = parameters;
+        this.tokensPerRequest = Math.max(0, Math.min(100, parameters.getMaxReconnectionPercentage()));
+        this.tokens = tokensPerRequest > 0 ? MAX_TOKENS * TOKEN : 0;
+    }
+
+    /**
+     * Returns the maximum number of reconnections of a single request.
+     *
+     * @return the maximum number of reconnections
+     */
+    int getMaxReconnections() {
+        return Math.max(0, parameters.getMaxReconnections());
+    }
+
+    /**
+     * Returns the time to wait before a reconnection.
+     *
+     * @param attempt     the number of the reconnection, starting at 1
+     * @param serverRetry the reconnection time requested by the server, or {@code -1} if it has not sent one
+     * @return the delay in milliseconds
+     */
+    long delayMillis(int attempt, long serverRetry) {
+        long base = serverRetry >= 0 ? serverRetry : Math.max(0, parameters.getReconnectionDelay());
+        long backoff = Math.min(Math.max(base, parameters.getMaxReconnectionDelay()),
+                base << Math.min(Math.max(attempt - 1, 0), 20));
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Records a request that may be resumed, earning its share of the reconnection budget.
+     */
+    synchronized void onRequest() {
+        tokens = Math.min(MAX_TOKENS * TOKEN, tokens + tokensPerRequest);
+    }
+
+    /**
+     * Spends the budget of a reconnection, if there is enough left.
+     *
+     * @return {@code true} if the request may reconnect
+     */
+    synchronized boolean tryAcquire() {
+        if (tokens < TOKEN) {
+            return false;
+        }
+        tokens -= TOKEN;
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * Thrown when a request is not sent, because the concurrency limit of the configuration is reached or its circuit
+ * breaker is open.
+ * <p>
+ * The operation fails right away, without reaching the upstream, with an {@code SSE:REJECTED} error whose cause is
+ * this exception.
+ */
+class SSERejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param message the detail message
+     */
+    SSERejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,324 @@
+package org.mule.extension.sse.internal;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link SSEConnection} that serves the responses recorded in an {@link SSEStreamLog} instead of sending requests
+ * to a server, so flows and the parser can be measured on real traffic, offline.
+ * <p>
+ * A request is answered with a response recorded for the same path and query, secrets redacted, or with any
+ * recorded response if there is none; the responses of a same request are served in turn. The headers and the
+ * chunks of the body are delivered with the timing of the recording, scaled, or as fast as they are consumed,
+ * depending on the {@link SSEReplaySpeed}; the chunks are read-only slices of the mapped log, and are never copied.
+ * A response whose recording failed, e.g. because the connection dropped, fails the same way.
+ */
+class SSEReplayConnection extends SSEConnection {
+
+    private final SSEStreamLog log;
+
+    // How much faster than recorded the responses are served; 0 for as fast as possible
+    private final double speedFactor;
+
+    private final Map<String, List<SSEStreamLog.Stream>> targets;
+
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+
+    private final Executor executor = ForkJoinPool.commonPool();
+
+    /**
+     * Creates a new replay connection.
+     *
+     * @param log         the recorded responses
+     * @param speed       the pace at which the responses are served
+     * @param speedFactor how much faster than recorded the responses are served, with {@link SSEReplaySpeed#SCALED}
+     * @throws IllegalArgumentException if the log holds no response, or the speed factor is not positive
+     */
+    SSEReplayConnection(SSEStreamLog log, SSEReplaySpeed speed, double speedFactor) {
+        super(null);
+        if (log.getStreams().isEmpty()) {
+            throw new IllegalArgumentException("The SSE stream log " + log.getFile() + " holds no response");
+        }
+        if (speed == SSEReplaySpeed.SCALED && !(speedFactor > 0)) {
+            throw new IllegalArgumentException("The replay speed factor must be positive: " + speedFactor);
+        }
+        this.log = log;
+        this.speedFactor = speed == SSEReplaySpeed.MAX ? 0 : speed == SSEReplaySpeed.SCALED ? speedFactor : 1;
+        this.targets = log.byTarget();
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        try {
+            return sendAsync(request, bodyHandler).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> bodyHandler) {
+        Replay<T> replay = new Replay<>(request, bodyHandler, next(request));
+        replay.start();
+        return replay.response;
+    }
+
+    /**
+     * Opens no connection: there is nothing to warm up.
+     */
+    @Override
+    CompletableFuture<HttpResponse<Void>> ping(URI uri, long timeout) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Picks the recorded response to serve to a request.
+     */
+    private SSEStreamLog.Stream next(HttpRequest request) {
+        String target = SSEStreamLog.target(request.uri());
+        List<SSEStreamLog.Stream> candidates = targets.get(target);
+        if (candidates == null) {
+            target = "";
+            candidates = log.getStreams();
+        }
+        int index = cursors.computeIfAbsent(target, key -> new AtomicInteger()).getAndIncrement();
+        return candidates.get(Math.floorMod(index, candidates.size()));
+    }
+
+    /**
+     * Serves a recorded response to the body subscriber of a request, honoring its demand.
+     */
+    private final class Replay<T> implements Flow.Subscription {
+
+        private final HttpRequest request;
+        private final HttpResponse.BodyHandler<T> handler;
+        private final SSEStreamLog.Stream stream;
+        private final CompletableFuture<HttpResponse<T>> response = new CompletableFuture<>();
+        private final long startNanos = System.nanoTime();
+
+        private HttpResponse.BodySubscriber<T> subscriber;
+
+        // All guarded by this
+        private long demand;
+        private int next;
+        private boolean draining;
+        private boolean waiting;
+        private boolean done;
+        private boolean cancelled;
+
+        Replay(HttpRequest request, HttpResponse.BodyHandler<T> handler, SSEStreamLog.Stream stream) {
+            this.request = request;
+            this.handler = handler;
+            this.stream = stream;
+        }
+
+        void start() {
+            response.whenComplete((result, error) -> {
+                if (response.isCancelled()) {
+                    cancel();
+                }
+            });
+            at(stream.getHeadersNanos(), this::open);
+        }
+
+        private void open() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+            }
+            HttpHeaders headers = HttpHeaders.of(stream.getHeaders(), (name, value) -> true);
+            try {
+                subscriber = handler.apply(new HttpResponse.ResponseInfo() {
+                    @Override
+                    public int statusCode() {
+                        return stream.getStatusCode();
+                    }
+
+                    @Override
+                    public HttpHeaders headers() {
+                        return headers;
+                    }
+
+                    @Override
+                    public HttpClient.Version version() {
+                        return HttpClient.Version.HTTP_1_1;
+                    }
+                });
+            } catch (RuntimeException e) {
+                response.completeExceptionally(e);
+                return;
+            }
+            subscriber.getBody().whenComplete((body, error) -> {
+                if (error == null) {
+                    response.complete(new ReplayedResponse<>(request, stream.getStatusCode(), headers, body));
+                } else {
+                    response.completeExceptionally(error);
+                }
+            });
+            subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            drain();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Delivers the chunks that are due, as long as there is demand for them, then schedules the next one.
+         */
+        private void drain() {
+            synchronized (this) {
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            while (true) {
+                ByteBuffer chunk;
+                synchronized (this) {
+                    if (cancelled || done || waiting || demand == 0 && next < stream.getChunkCount()) {
+                        draining = false;
+                        return;
+                    }
+                    long due = next < stream.getChunkCount() ? stream.getChunkNanos(next) : stream.getEndNanos();
+                    if (delayNanos(due) > 0) {
+                        waiting = true;
+                        draining = false;
+                        at(due, () -> {
+                            synchronized (this) {
+                                waiting = false;
+                            }
+                            drain();
+                        });
+                        return;
+                    }
+                    if (next == stream.getChunkCount()) {
+                        done = true;
+                        draining = false;
+                        break;
+                    }
+                    chunk = stream.getChunk(next++);
+                    demand--;
+                }
+                subscriber.onNext(List.of(chunk));
+            }
+            if (stream.getOutcome() == SSEStreamLog.FAILED) {
+                subscriber.onError(new IOException("The recorded SSE response ended abruptly"));
+            } else {
+                subscriber.onComplete();
+            }
+        }
+
+        /**
+         * Runs a task once the given time of the recording is reached.
+         */
+        private void at(long recordedNanos, Runnable task) {
+            long delay = delayNanos(recordedNanos);
+            if (delay > 0) {
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor).execute(task);
+            } else {
+                executor.execute(task);
+            }
+        }
+
+        private long delayNanos(long recordedNanos) {
+            if (speedFactor == 0) {
+                return 0;
+            }
+            return startNanos + (long) (recordedNanos / speedFactor) - System.nanoTime();
+        }
+    }
+
+    /**
+     * A response served from the log.
+     */
+    private static final class ReplayedResponse<T> implements HttpResponse<T> {
+
+        private final HttpRequest request;
+        private final int statusCode;
+        private final HttpHeaders headers;
+        private final T body;
+
+        ReplayedResponse(HttpRequest request, int statusCode, HttpHeaders headers, T body) {
+            this.request = request;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return request;
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public T body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.api.connection.CachedConnectionProvider;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Provides {@link SSEReplayConnection}s, which serve the responses recorded by the {@code Connection} provider, with
+ * its {@code Recording file} parameter, instead of sending requests to the SSE server.
+ * <p>
+ * Swapping the connection of a configuration for this one replays real traffic through the flows, offline, with
+ * its original timing or faster, e.g. to reproduce a production issue or to benchmark the flows and the parser.
+ * Everything else, from the timeouts and stop conditions to the response cache, applies as with a live server.
+ *
+ * @since 1.0
+ */
+@Alias("replay")
+@DisplayName("Replay")
+public class SSEReplayConnectionProvider implements CachedConnectionProvider<SSEConnection> {
+
+    /**
+     * The file the responses were recorded to.
+     */
+    @Parameter
+    @DisplayName("Recording file")
+    @Summary("File the responses were recorded to by the Recording file parameter of the Connection provider.")
+    private String recordingFile;
+
+    /**
+     * The pace at which the recorded responses are served.
+     * <p>
+     * Optional; defaults to {@link SSEReplaySpeed#ORIGINAL}, the timing of the recording.
+     */
+    @Parameter
+    @Optional(defaultValue = "ORIGINAL")
+    @DisplayName("Replay speed")
+    @Summary("Pace of the replay: ORIGINAL (timing of the recording), SCALED (sped up by the speed factor) or MAX (as fast as the events are consumed) (default: ORIGINAL).")
+    private SSEReplaySpeed replaySpeed;
+
+    /**
+     * How much faster than recorded the responses are served, with the {@link SSEReplaySpeed#SCALED} speed, e.g.
+     * {@code 2} for twice as fast or {@code 0.5} for half as fast.
+     * <p>
+     * Optional; defaults to {@code 1}.
+     */
+    @Parameter
+    @Optional(defaultValue = "1")
+    @DisplayName("Speed factor")
+    @Summary("How much faster than recorded the responses are served with the SCALED speed, e.g. 2 for twice as fast (default: 1).")
+    private double speedFactor;
+
+    /**
+     * Maps the recording file into memory and creates a connection replaying it.
+     *
+     * @return a new {@link SSEReplayConnection}
+     * @throws ConnectionException if the recording file cannot be read, or holds no response
+     */
+    @Override
+    public SSEConnection connect() throws ConnectionException {
+        try {
+            return new SSEReplayConnection(SSEStreamLog.open(Paths.get(recordingFile.trim())),
+                    replaySpeed != null ? replaySpeed : SSEReplaySpeed.ORIGINAL, speedFactor);
+        } catch (IOException | RuntimeException e) {
+            throw new ConnectionException("Failed to open the SSE recording file " + recordingFile, e);
+        }
+    }
+
+    /**
+     * Closes the given connection.
+     *
+     * @param connection the connection to disconnect
+     */
+    @Override
+    public void disconnect(SSEConnection connection) {
+        connection.close();
+    }
+
+    /**
+     * Validates the given connection; it is valid as long as it is not closed.
+     *
+     * @param connection the connection to validate
+     * @return the validation result
+     */
+    @Override
+    public ConnectionValidationResult validate(SSEConnection connection) {
+        if (connection.isClosed()) {
+            return ConnectionValidationResult.failure("The SSE connection is closed", null);
+        }
+        return ConnectionValidationResult.success();
+    }
+}
@@ -0,0 +1,24 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * The pace at which an {@link SSEReplayConnection} serves the recorded responses.
+ */
+public enum SSEReplaySpeed {
+
+    /**
+     * The timing of the recording: the headers and every chunk of the body arrive as long after the request as they
+     * did when they were recorded.
+     */
+    ORIGINAL,
+
+    /**
+     * The timing of the recording, sped up or slowed down by the speed factor, e.g. twice as fast with a factor of
+     * {@code 2}.
+     */
+    SCALED,
+
+    /**
+     * As fast as the parser consumes the chunks, which measures the throughput of the connector alone.
+     */
+    MAX
+}
@@ -0,0 +1,45 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Represents one of the requests of the {@code Get Events (Fan-Out)} operation.
+ * <p>
+ * Besides the parameters of a single {@code Get Events} request, each request has an ID that tags its events and
+ * its outcome in the result of the operation.
+ */
+public class SSERequestSpec extends GetEventsParameters {
+
+    /**
+     * The ID of the request, set as the {@code source} of its events.
+     * <p>
+     * Optional; defaults to the path of the request, followed by {@code #} and the position of the request in the
+     * list if another request already uses that ID.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Request ID")
+    @Summary("Tags the events and the outcome of this request (default: the path of the request).")
+    private String requestId;
+
+    /**
+     * Returns the ID of the request.
+     *
+     * @return the request ID, or {@code null}
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Sets the ID of the request.
+     *
+     * @param requestId the request ID
+     */
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+}
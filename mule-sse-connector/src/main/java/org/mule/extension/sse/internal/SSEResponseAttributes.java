@@ -0,0 +1,324 @@
+package org.mule.extension.sse.internal;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Attributes of the response to a {@code Get Events} operation: the HTTP status and headers, and where the time of
+ * the exchange was spent.
+ * <p>
+ * All durations are measured from the moment the request was handed to the HTTP client. Comparing them tells
+ * upstream slowness apart from connector overhead: {@code connectTime} and {@code timeToFirstByte} are spent
+ * waiting for the server, while {@code parseTime} is spent by the connector parsing and decoding the stream.
+ * <p>
+ * When a timeout expires before the server ends the stream, the events received so far are still returned:
+ * {@code partial} is then {@code true}, and {@code expiredTimeout} tells which timeout expired. The same goes for a
+ * response truncated by one of the memory limits of the configuration, which {@code exceededLimit} tells.
+ * <p>
+ * When the connection dropped and the stream was resumed, the attributes cover the whole response: the status and
+ * headers are those of the last connection, and the counters add up those of every connection.
+ *
+ * @since 1.0
+ */
+public class SSEResponseAttributes implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final long connectTimeMillis;
+    private final long timeToFirstByteMillis;
+    private final long timeToFirstEventMillis;
+    private final long totalDurationMillis;
+    private final long maxEventGapMillis;
+    private final long bytesRead;
+    private final long compressedBytesRead;
+    private final Map<String, Integer> eventCounts;
+    private final int skippedEventCount;
+    private final long parseTimeMicros;
+    private final SSETimeoutType expiredTimeout;
+    private final SSELimitType exceededLimit;
+    private final long spilledBytes;
+    private final int reconnectCount;
+    private final int replayedEventCount;
+    private final boolean fromCache;
+
+    SSEResponseAttributes(int statusCode, Map<String, List<String>> headers, long connectTimeMillis,
+                          long timeToFirstByteMillis, long timeToFirstEventMillis, long totalDurationMillis,
+                          long maxEventGapMillis, long bytesRead, long compressedBytesRead,
+                          Map<String, Integer> eventCounts, int skippedEventCount, long parseTimeMicros,
+                          SSETimeoutType expiredTimeout, SSELimitType exceededLimit, long spilledBytes,
+                          int reconnectCount, int replayedEventCount, boolean fromCache) {
+        this.statusCode = statusCode;
+        this.headers = unmodifiableMap(headers);
+        this.connectTimeMillis = connectTimeMillis;
+        this.timeToFirstByteMillis = timeToFirstByteMillis;
+        this.timeToFirstEventMillis = timeToFirstEventMillis;
+        this.totalDurationMillis = totalDurationMillis;
+        this.maxEventGapMillis = maxEventGapMillis;
+        this.bytesRead = bytesRead;
+        this.compressedBytesRead = compressedBytesRead;
+        this.eventCounts = unmodifiableMap(eventCounts);
+        this.skippedEventCount = skippedEventCount;
+        this.parseTimeMicros = parseTimeMicros;
+        this.expiredTimeout = expiredTimeout;
+        this.exceededLimit = exceededLimit;
+        this.spilledBytes = spilledBytes;
+        this.reconnectCount = reconnectCount;
+        this.replayedEventCount = replayedEventCount;
+        this.fromCache = fromCache;
+    }
+
+    /**
+     * Returns a copy of these attributes for a response served from the response cache.
+     *
+     * @return the attributes of the cached response
+     */
+    SSEResponseAttributes asCached() {
+        return new SSEResponseAttributes(statusCode, headers, connectTimeMillis, timeToFirstByteMillis,
+                timeToFirstEventMillis, totalDurationMillis, maxEventGapMillis, bytesRead, compressedBytesRead,
+                eventCounts, skippedEventCount, parseTimeMicros, expiredTimeout, exceededLimit, spilledBytes,
+                reconnectCount, replayedEventCount, true);
+    }
+
+    /**
+     * Returns the attributes of a response resumed on a new connection, combining these attributes, of the
+     * connections so far, with those of the new one.
+     *
+     * @param next                the attributes of the new connection
+     * @param nextStartMillis     when the new connection started, from the start of the response
+     * @param totalDurationMillis the duration of the whole response
+     * @return the attributes of the whole response
+     */
+    SSEResponseAttributes resumedBy(SSEResponseAttributes next, long nextStartMillis, long totalDurationMillis) {
+        Map<String, Integer> counts = new HashMap<>(eventCounts);
+        next.eventCounts.forEach((type, count) -> counts.merge(type, count, Integer::sum));
+        return new SSEResponseAttributes(next.statusCode, next.headers,
+                firstOf(connectTimeMillis, next.connectTimeMillis, nextStartMillis),
+                firstOf(timeToFirstByteMillis, next.timeToFirstByteMillis, nextStartMillis),
+                firstOf(timeToFirstEventMillis, next.timeToFirstEventMillis, nextStartMillis),
+                totalDurationMillis, Math.max(maxEventGapMillis, next.maxEventGapMillis), bytesRead + next.bytesRead,
+                compressedBytesRead + next.compressedBytesRead, counts,
+                skippedEventCount + next.skippedEventCount, parseTimeMicros + next.parseTimeMicros,
+                next.expiredTimeout, exceededLimit != null ? exceededLimit : next.exceededLimit,
+                Math.max(spilledBytes, next.spilledBytes), reconnectCount + 1,
+                replayedEventCount + next.replayedEventCount, false);
+    }
+
+    /**
+     * Returns the HTTP status code of the response.
+     *
+     * @return the status code, or {@code 0} if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns the HTTP headers of the response, keyed by lower-case name.
+     *
+     * @return the response headers
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the time until the response headers were received.
+     * <p>
+     * It includes establishing the TCP connection and TLS session, unless a pooled connection was reused, sending
+     * the request, and the time the server took to start responding; the HTTP client does not report these phases
+     * separately.
+     *
+     * @return the time in milliseconds, or {@code -1} if no response was received
+     */
+    public long getConnectTimeMillis() {
+        return connectTimeMillis;
+    }
+
+    /**
+     * Returns the time until the first byte of the response body was received.
+     *
+     * @return the time in milliseconds, or {@code -1} if the body was empty
+     */
+    public long getTimeToFirstByteMillis() {
+        return timeToFirstByteMillis;
+    }
+
+    /**
+     * Returns the time until the first event kept by the filters was parsed.
+     *
+     * @return the time in milliseconds, or {@code -1} if no event was kept
+     */
+    public long getTimeToFirstEventMillis() {
+        return timeToFirstEventMillis;
+    }
+
+    /**
+     * Returns the duration of the whole exchange, until the stream ended or was aborted.
+     *
+     * @return the duration in milliseconds
+     */
+    public long getTotalDurationMillis() {
+        return totalDurationMillis;
+    }
+
+    /**
+     * Returns the longest time between two consecutive events, whether they were kept or skipped by the filters,
+     * including the wait cut short by the idle timeout, if it expired.
+     *
+     * @return the time in milliseconds, or {@code -1} if fewer than two events were received
+     */
+    public long getMaxEventGapMillis() {
+        return maxEventGapMillis;
+    }
+
+    /**
+     * Returns the number of response body bytes read, after decompression if the response was compressed.
+     *
+     * @return the number of bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of response body bytes received from the server, before decompression. Compared with
+     * {@link #getBytesRead()}, it tells how much bandwidth compression saved.
+     *
+     * @return the number of compressed bytes read, the same as {@link #getBytesRead()} if the response was not
+     * compressed
+     */
+    public long getCompressedBytesRead() {
+        return compressedBytesRead;
+    }
+
+    /**
+     * Returns the number of events returned, per event type.
+     *
+     * @return a map of event types and counts
+     */
+    public Map<String, Integer> getEventCounts() {
+        return eventCounts;
+    }
+
+    /**
+     * Returns the number of events skipped by the event type filters or discarded by the stop conditions.
+     *
+     * @return the number of skipped events
+     */
+    public int getSkippedEventCount() {
+        return skippedEventCount;
+    }
+
+    /**
+     * Returns the time spent by the connector parsing the response body, including the decoding or projection of
+     * the data done while parsing.
+     *
+     * @return the time in microseconds
+     */
+    public long getParseTimeMicros() {
+        return parseTimeMicros;
+    }
+
+    /**
+     * Tells whether the events are only a part of the response, because a timeout expired before the server ended
+     * the stream, or because a memory limit truncated the response or the data of one of its events.
+     *
+     * @return {@code true} if the exchange was aborted by a timeout, or truncated by a memory limit
+     */
+    public boolean isPartial() {
+        return expiredTimeout != null || exceededLimit != null;
+    }
+
+    /**
+     * Returns the timeout that cut the response short.
+     *
+     * @return the expired timeout, or {@code null} if the response is complete
+     */
+    public SSETimeoutType getExpiredTimeout() {
+        return expiredTimeout;
+    }
+
+    /**
+     * Returns the memory limit that truncated the response, or the data of one of its events.
+     *
+     * @return the exceeded limit, or {@code null} if nothing was truncated
+     */
+    public SSELimitType getExceededLimit() {
+        return exceededLimit;
+    }
+
+    /**
+     * Returns the number of bytes of event data written to a temporary file instead of being kept in memory; the
+     * spilled data is read back when the flow first reads it.
+     *
+     * @return the number of spilled bytes
+     */
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Returns the number of times the connection dropped and the stream was resumed.
+     *
+     * @return the number of reconnections
+     */
+    public int getReconnectCount() {
+        return reconnectCount;
+    }
+
+    /**
+     * Returns the number of events the server sent again after a reconnection, and that were dropped as they had
+     * already been received.
+     *
+     * @return the number of replayed events
+     */
+    public int getReplayedEventCount() {
+        return replayedEventCount;
+    }
+
+    /**
+     * Returns whether the events were served from the response cache, in which case the other attributes describe
+     * the exchange that filled the cache.
+     *
+     * @return {@code true} if the response was served from the cache
+     */
+    public boolean isFromCache() {
+        return fromCache;
+    }
+
+    @Override
+    public String toString() {
+        return "SSEResponseAttributes{" +
+                "statusCode=" + statusCode +
+                ", connectTimeMillis=" + connectTimeMillis +
+                ", timeToFirstByteMillis=" + timeToFirstByteMillis +
+                ", timeToFirstEventMillis=" + timeToFirstEventMillis +
+                ", totalDurationMillis=" + totalDurationMillis +
+                ", maxEventGapMillis=" + maxEventGapMillis +
+                ", bytesRead=" + bytesRead +
+                ", compressedBytesRead=" + compressedBytesRead +
+                ", eventCounts=" + eventCounts +
+                ", skippedEventCount=" + skippedEventCount +
+                ", parseTimeMicros=" + parseTimeMicros +
+                ", expiredTimeout=" + expiredTimeout +
+                ", exceededLimit=" + exceededLimit +
+                ", spilledBytes=" + spilledBytes +
+                ", reconnectCount=" + reconnectCount +
+                ", replayedEventCount=" + replayedEventCount +
+                ", fromCache=" + fromCache +
+                '}';
+    }
+
+    /**
+     * Returns a time of the earliest connection that measured it, from the start of the response.
+     */
+    private static long firstOf(long millis, long nextMillis, long nextStartMillis) {
+        return millis >= 0 ? millis : nextMillis >= 0 ? nextStartMillis + nextMillis : -1;
+    }
+}
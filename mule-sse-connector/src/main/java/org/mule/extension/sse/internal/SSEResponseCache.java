@@ -0,0 +1,239 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * In-memory cache of the events returned by the {@code Get Events} operations of a configuration.
+ * <p>
+ * Responses are kept for a fixed time to live, and the least recently used ones are evicted once the cache holds
+ * more than a maximum number of responses or of response body bytes. Concurrent identical requests are coalesced:
+ * the first one opens the upstream stream, and the others wait for it and receive the same list of events.
+ * <p>
+ * Only successful (2xx) responses read until their natural end, or until a stop condition was met, are cached;
+ * error responses, failed exchanges, exchanges aborted by a timeout or truncated by a memory limit, and responses
+ * with events spilled to disk are handed over to the requests waiting for them but not kept. The data of cached
+ * events is decoded before the events are shared, so the same instances can be read by several flows at once.
+ * <p>
+ * Instances are thread-safe.
+ */
+class SSEResponseCache {
+
+    private final ResponseCacheParameters parameters;
+
+    private final SSEMetrics metrics;
+
+    private final Map<String, CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> inFlight =
+            new ConcurrentHashMap<>();
+
+    // Guarded by itself; in access order, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Guarded by entries
+    private long totalBytes;
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param parameters the settings of the cache
+     * @param metrics    the metrics the cache hits are recorded in
+     */
+    SSEResponseCache(ResponseCacheParameters parameters, SSEMetrics metrics) {
+        this.parameters = parameters;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Builds the cache key of a request.
+     * <p>
+     * The key is made of the URL built from the base URL, path and query parameters of the request, without the
+     * excluded query parameters, followed by the values of the key headers and every parameter that changes the
+     * returned events.
+     *
+     * @param baseUrl             the base URL of the configuration
+     * @param operationParameters the request parameters
+     * @param stopConditions      the stop conditions of the request; may be {@code null}
+     * @return the cache key
+     */
+    String key(String baseUrl, GetEventsParameters operationParameters, StopConditionParameters stopConditions) {
+        Map<String, String> queryParams = operationParameters.getQueryParams();
+        if (queryParams != null && parameters.getExcludedQueryParams() != null
+                && !parameters.getExcludedQueryParams().isEmpty()) {
+            queryParams = new HashMap<>(queryParams);
+            queryParams.keySet().removeAll(parameters.getExcludedQueryParams());
+        }
+        if (queryParams != null) {
+            // Parameter order must not matter
+            queryParams = new TreeMap<>(queryParams);
+        }
+
+        StringBuilder key = new StringBuilder(
+                String.valueOf(SSEOperations.buildUrl(baseUrl, operationParameters.getPath(), queryParams)));
+
+        Map<String, String> headers = operationParameters.getHeaders();
+        if (headers != null && parameters.getKeyHeaders() != null) {
+            // Header names are case-insensitive
+            Map<String, String> keyHeaders = new TreeMap<>();
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                for (String keyHeader : parameters.getKeyHeaders()) {
+                    if (header.getKey() != null && header.getKey().trim().equalsIgnoreCase(keyHeader)) {
+                        keyHeaders.put(keyHeader.toLowerCase(), header.getValue());
+                    }
+                }
+            }
+            key.append(' ').append(keyHeaders);
+        }
+
+        key.append(' ').append(operationParameters.getDataDecoding())
+                .append(' ').append(operationParameters.getIncludeEventTypes())
+                .append(' ').append(operationParameters.getExcludeEventTypes())
+                .append(' ').append(operationParameters.getDataProjection());
+        if (stopConditions != null) {
+            key.append(' ').append(stopConditions.getTerminalEventType())
+                    .append(' ').append(stopConditions.getMaxEventsPerType() != null
+                            ? new TreeMap<>(stopConditions.getMaxEventsPerType())
+                            : null)
+                    .append(' ').append(stopConditions.getMaxTotalBytes())
+                    .append(' ').append(stopConditions.getStopWhenDataPointer())
+                    .append(' ').append(stopConditions.getStopWhenDataEquals());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the events of the given request, from the cache, from an identical exchange in progress, or from a
+     * new exchange.
+     *
+     * @param key      the cache key of the request
+     * @param exchange sends the request and returns the resulting events; responses cut short by a timeout are
+     *                 not kept
+     * @return a future completed with the events of the request and the attributes of the exchange they come from
+     */
+    CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> get(
+            String key, Supplier<CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> exchange) {
+        Result<List<SSEEvent>, SSEResponseAttributes> cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> leader = new CompletableFuture<>();
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            metrics.recordCoalescedRequest();
+            return existing;
+        }
+
+        // Another request may have stored the response between the lookup and the registration
+        cached = lookup(key);
+        if (cached != null) {
+            inFlight.remove(key, leader);
+            leader.complete(cached);
+            return leader;
+        }
+
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> response;
+        try {
+            response = exchange.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, leader);
+            leader.completeExceptionally(e);
+            return leader;
+        }
+
+        response.whenComplete((result, error) -> {
+            if (error != null) {
+                inFlight.remove(key, leader);
+                leader.completeExceptionally(error);
+                return;
+            }
+            List<SSEEvent> events = unmodifiableList(result.getOutput());
+            for (SSEEvent event : events) {
+                // Decode now, so waiters never race on the lazy decoding of a shared event; spilled data stays on
+                // disk, and is read back under the lock of the event
+                if (!event.isSpilled()) {
+                    event.getData();
+                }
+            }
+            Result<List<SSEEvent>, SSEResponseAttributes> shared =
+                    Result.<List<SSEEvent>, SSEResponseAttributes>builder()
+                            .output(events)
+                            .attributes(result.getAttributes().orElse(null))
+                            .build();
+            SSEResponseAttributes attributes = result.getAttributes().orElse(null);
+            if (attributes != null && attributes.getStatusCode() >= 200 && attributes.getStatusCode() < 300
+                    && !attributes.isPartial() && attributes.getSpilledBytes() == 0) {
+                store(key, shared, attributes.getBytesRead());
+            }
+            inFlight.remove(key, leader);
+            leader.complete(shared);
+        });
+        return leader;
+    }
+
+    private Result<List<SSEEvent>, SSEResponseAttributes> lookup(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - System.nanoTime() <= 0) {
+                entries.remove(key);
+                totalBytes -= entry.bytes;
+                return null;
+            }
+            metrics.recordCacheHit();
+            return Result.<List<SSEEvent>, SSEResponseAttributes>builder()
+                    .output(entry.result.getOutput())
+                    .attributes(entry.result.getAttributes().map(SSEResponseAttributes::asCached).orElse(null))
+                    .build();
+        }
+    }
+
+    private void store(String key, Result<List<SSEEvent>, SSEResponseAttributes> result, long bytes) {
+        if (parameters.getTimeToLive() <= 0 || parameters.getMaxEntries() <= 0 || bytes > parameters.getMaxBytes()) {
+            return;
+        }
+        Entry entry = new Entry(result, bytes, System.nanoTime() + parameters.getTimeToLive() * 1_000_000L);
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.bytes;
+            }
+            totalBytes += bytes;
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (eldest.hasNext() && (entries.size() > parameters.getMaxEntries()
+                    || totalBytes > parameters.getMaxBytes())) {
+                totalBytes -= eldest.next().bytes;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * A cached response.
+     */
+    private static final class Entry {
+
+        private final Result<List<SSEEvent>, SSEResponseAttributes> result;
+        private final long bytes;
+        private final long expiresAt;
+
+        private Entry(Result<List<SSEEvent>, SSEResponseAttributes> result, long bytes, long expiresAt) {
+            this.result = result;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
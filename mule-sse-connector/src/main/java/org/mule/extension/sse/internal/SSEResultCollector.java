@@ -0,0 +1,258 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.core.JsonPointer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Aggregates the results of the events of a single request into one list, as defined by the
+ * {@link CollectResultsParameters} of the {@code Collect Results} operation.
+ * <p>
+ * Most of the work happens while the response is parsed: the request is sent with an event type filter and a
+ * {@link SSEDataProjection} derived from the settings, so events of other types are skipped without being decoded,
+ * and only the items, or the listed fields of the items, are built from the data of the result events. What is
+ * left for {@link #collect(List)} is walking the projected data, de-duplicating the items and capping their number.
+ * With a maximum number of items, the stop condition of the request also collects the items as the events are
+ * parsed, through {@link #newItems()}, and ends the exchange once the maximum is reached.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+class SSEResultCollector {
+
+    private static final String WILDCARD = "*";
+
+    private final String eventType;
+    private final JsonPointer resultsPointer;
+    private final JsonPointer itemPointer;
+    private final String keyField;
+    private final List<String> itemFields;
+    private final int maxItems;
+
+    /**
+     * Compiles the given settings.
+     *
+     * @param parameters the aggregation settings
+     * @throws IllegalArgumentException if a pointer is not a valid JSON pointer
+     */
+    SSEResultCollector(CollectResultsParameters parameters) {
+        this.eventType = blankToNull(parameters.getResultEventType());
+        this.resultsPointer = compile(parameters.getResultsPointer());
+        this.itemPointer = compile(parameters.getItemPointer());
+        this.keyField = blankToNull(parameters.getKeyField());
+        this.itemFields = new ArrayList<>();
+        if (parameters.getItemFields() != null) {
+            for (String field : parameters.getItemFields()) {
+                if (field != null && !field.isBlank() && !itemFields.contains(field.trim())) {
+                    itemFields.add(field.trim());
+                }
+            }
+        }
+        this.maxItems = parameters.getMaxItems();
+    }
+
+    /**
+     * Returns the parameters of the request to send: those of the given request, with the event type filter, the
+     * data projection and the data decoding replaced by the ones the aggregation needs.
+     *
+     * @param parameters the request parameters of the operation
+     * @return the parameters of the request to send
+     */
+    GetEventsParameters toRequest(GetEventsParameters parameters) {
+        GetEventsParameters request = new GetEventsParameters();
+        request.setPath(parameters.getPath());
+        request.setHeaders(parameters.getHeaders());
+        request.setQueryParams(parameters.getQueryParams());
+        request.setDataDecoding(SSEDataDecoding.JAVA);
+        request.setIncludeEventTypes(eventType != null ? List.of(eventType) : emptyList());
+        request.setExcludeEventTypes(emptyList());
+        request.setDataProjection(projection());
+        return request;
+    }
+
+    /**
+     * Returns what, besides the request, changes the events kept for it: the stop condition of
+     * {@link #newItems()} ends the exchange once enough unique items are collected.
+     *
+     * @return a suffix for the cache key of the request, empty if the number of items is not capped
+     */
+    String cacheKey() {
+        return maxItems > 0 ? " items " + keyField + ' ' + maxItems : "";
+    }
+
+    /**
+     * Returns an empty collection of items, to be filled as the events of a response are parsed.
+     *
+     * @return the items, or {@code null} if their number is not capped, in which case every event is needed
+     */
+    Items newItems() {
+        return maxItems > 0 ? new Items() : null;
+    }
+
+    /**
+     * Collects the items of the given events, in stream order.
+     *
+     * @param events the events returned by the request built with {@link #toRequest(GetEventsParameters)}
+     * @return the de-duplicated items, at most {@code maxItems} of them
+     */
+    List<Object> collect(List<SSEEvent> events) {
+        Items items = new Items();
+        for (SSEEvent event : events) {
+            if (items.add(event)) {
+                break;
+            }
+        }
+        return items.items;
+    }
+
+    /**
+     * The items collected from the events of a response, one event at a time.
+     * <p>
+     * Instances are not thread-safe; they are used by the single thread that parses a response.
+     */
+    final class Items {
+
+        private final List<Object> items = new ArrayList<>();
+        private final Set<Object> keys = new HashSet<>();
+        private final List<Object> found = new ArrayList<>();
+
+        private Items() {
+        }
+
+        /**
+         * Collects the items of the given event, until the maximum number of items is reached.
+         *
+         * @param event a parsed event
+         * @return {@code true} once the maximum number of items is reached
+         */
+        boolean add(SSEEvent event) {
+            if (isFull() || eventType != null && !eventType.equals(event.getEvent())) {
+                return isFull();
+            }
+            found.clear();
+            resolve(event.getData(), resultsPointer, found);
+            for (Object results : found) {
+                if (!(results instanceof List)) {
+                    continue;
+                }
+                for (Object result : (List<?>) results) {
+                    List<Object> resultItems = new ArrayList<>(1);
+                    resolve(result, itemPointer, resultItems);
+                    for (Object item : resultItems) {
+                        if (item == null || !isNew(item, keys)) {
+                            continue;
+                        }
+                        items.add(select(item));
+                        if (isFull()) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean isFull() {
+            return maxItems > 0 && items.size() >= maxItems;
+        }
+    }
+
+    /**
+     * Returns the JSON pointers of the parts of the data needed to collect the items.
+     */
+    private List<String> projection() {
+        String items = resultsPointer.toString() + "/" + WILDCARD + itemPointer;
+        if (itemFields.isEmpty()) {
+            return List.of(items);
+        }
+        List<String> pointers = new ArrayList<>();
+        for (String field : itemFields) {
+            pointers.add(items + "/" + escape(field));
+        }
+        if (keyField != null && !itemFields.contains(keyField)) {
+            pointers.add(items + "/" + escape(keyField));
+        }
+        return pointers;
+    }
+
+    /**
+     * Records the key of the given item, and tells whether no item with the same key was collected yet.
+     */
+    private boolean isNew(Object item, Set<Object> keys) {
+        if (keyField == null || !(item instanceof Map)) {
+            return true;
+        }
+        Object key = ((Map<?, ?>) item).get(keyField);
+        return key == null || keys.add(key);
+    }
+
+    /**
+     * Reduces an item to the listed fields, in the listed order.
+     */
+    private Object select(Object item) {
+        if (itemFields.isEmpty() || !(item instanceof Map)) {
+            return item;
+        }
+        Map<?, ?> fields = (Map<?, ?>) item;
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (String field : itemFields) {
+            if (fields.containsKey(field)) {
+                selected.put(field, fields.get(field));
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Resolves a JSON pointer, where a {@code *} segment matches every array element or object field, against the
+     * Java structure produced by Jackson for a JSON document.
+     */
+    private static void resolve(Object value, JsonPointer pointer, List<Object> found) {
+        if (pointer.matches()) {
+            found.add(value);
+            return;
+        }
+        String property = pointer.getMatchingProperty();
+        JsonPointer tail = pointer.tail();
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            if (WILDCARD.equals(property)) {
+                for (Object child : map.values()) {
+                    resolve(child, tail, found);
+                }
+            } else if (map.containsKey(property)) {
+                resolve(map.get(property), tail, found);
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            if (WILDCARD.equals(property)) {
+                for (Object child : list) {
+                    resolve(child, tail, found);
+                }
+            } else {
+                int index = pointer.getMatchingIndex();
+                if (index >= 0 && index < list.size()) {
+                    resolve(list.get(index), tail, found);
+                }
+            }
+        }
+    }
+
+    private static JsonPointer compile(String pointer) {
+        return pointer == null || pointer.isBlank() ? JsonPointer.empty() : JsonPointer.compile(pointer.trim());
+    }
+
+    private static String escape(String field) {
+        return field.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
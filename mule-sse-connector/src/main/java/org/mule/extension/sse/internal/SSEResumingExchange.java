@@ -0,0 +1,190 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code Get Events} exchange that reconnects when its connection drops, as defined by the
+ * {@link SSEReconnectPolicy} of the configuration.
+ * <p>
+ * Each new attempt sends the ID of the last event received in the {@code Last-Event-ID} header, after the delay
+ * requested by the server or the backoff of the policy, and drops the events the server replays. The events of all
+ * the attempts are returned as one list, with attributes covering the whole exchange. Only I/O errors are retried: a
+ * response with an error status, a timeout or a stop condition ends the exchange as usual. A stream without event
+ * IDs is only retried while no event was received, as it could not be resumed without duplicates. Once the
+ * reconnections or the timeouts are exhausted, the exchange fails with the error of its last attempt.
+ */
+class SSEResumingExchange {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEResumingExchange.class);
+
+    /**
+     * Sends an attempt of the exchange.
+     */
+    @FunctionalInterface
+    interface Attempt {
+
+        /**
+         * Sends an attempt.
+         *
+         * @param subscriber  the subscriber that parses the response body
+         * @param lastEventId the ID to send in the {@code Last-Event-ID} header, or {@code null} for none
+         * @param timeouts    the timeouts of the attempt
+         * @return a future completed with the parsed events and the attributes of the response
+         */
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> send(SSEBodySubscriber subscriber,
+                                                                              String lastEventId, SSETimeouts timeouts);
+    }
+
+    private final SSEReconnectPolicy policy;
+    private final SSEMetrics metrics;
+    private final Attempt attempt;
+    private final SSETimeouts timeouts;
+    private final long startNanos = System.nanoTime();
+
+    private final CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> outcome = new CompletableFuture<>();
+
+    // Only used by the attempt in progress, one at a time
+    private SSEBodySubscriber first;
+    private final List<SSEEvent> events = new ArrayList<>();
+    private final Set<String> seenIds = new HashSet<>();
+    private SSEResponseAttributes attributes;
+    private int reconnections;
+    private long serverRetry = -1;
+
+    /**
+     * Creates a new exchange. Nothing is sent until {@link #start(SSEBodySubscriber)} is called.
+     *
+     * @param policy   the reconnection policy of the configuration
+     * @param metrics  the metrics of the configuration
+     * @param attempt  sends an attempt
+     * @param timeouts the timeouts of the whole exchange
+     */
+    SSEResumingExchange(SSEReconnectPolicy policy, SSEMetrics metrics, Attempt attempt, SSETimeouts timeouts) {
+        this.policy = policy;
+        this.metrics = metrics;
+        this.attempt = attempt;
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * Sends the first attempt.
+     *
+     * @param subscriber the subscriber of the first attempt; cancelling it cancels the attempt in progress
+     * @return a future completed with the events of all the attempts
+     */
+    CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> start(SSEBodySubscriber subscriber) {
+        policy.onRequest();
+        first = subscriber;
+        subscriber.setResumable();
+        launch(subscriber, null, timeouts, 0);
+        return outcome;
+    }
+
+    private void launch(SSEBodySubscriber subscriber, String lastEventId, SSETimeouts attemptTimeouts,
+                        long attemptStartNanos) {
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> result;
+        try {
+            result = attempt.send(subscriber, lastEventId, attemptTimeouts);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((next, error) -> {
+            if (error == null) {
+                complete(next, attemptStartNanos);
+            } else {
+                resumeOrFail(subscriber, error, attemptStartNanos);
+            }
+        });
+    }
+
+    private void complete(Result<List<SSEEvent>, SSEResponseAttributes> next, long attemptStartNanos) {
+        if (attributes == null) {
+            outcome.complete(next);
+            return;
+        }
+        events.addAll(next.getOutput());
+        SSEResponseAttributes merged = attributes;
+        SSEResponseAttributes nextAttributes = next.getAttributes().orElse(null);
+        if (nextAttributes != null) {
+            metrics.recordReplayedEvents(nextAttributes.getReplayedEventCount());
+            merged = attributes.resumedBy(nextAttributes, toMillis(attemptStartNanos),
+                    toMillis(System.nanoTime() - startNanos));
+        }
+        outcome.complete(Result.<List<SSEEvent>, SSEResponseAttributes>builder()
+                .output(events).attributes(merged).build());
+    }
+
+    private void resumeOrFail(SSEBodySubscriber subscriber, Throwable error, long attemptStartNanos) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        List<SSEEvent> received = subscriber.getEvents();
+        String lastEventId = subscriber.getLastEventId();
+        if (subscriber.getRetry() >= 0) {
+            serverRetry = subscriber.getRetry();
+        }
+
+        long delay = policy.delayMillis(reconnections + 1, serverRetry);
+        SSETimeouts remaining = timeouts.after(System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(delay));
+        boolean resumable = cause instanceof IOException && !first.isCancelled()
+                && (lastEventId != null || events.isEmpty() && received.isEmpty())
+                && reconnections < policy.getMaxReconnections() && remaining != null;
+        if (resumable && !policy.tryAcquire()) {
+            metrics.recordReconnectionDenied();
+            resumable = false;
+        }
+        if (!resumable) {
+            subscriber.discard();
+            outcome.completeExceptionally(error);
+            return;
+        }
+
+        events.addAll(received);
+        for (SSEEvent event : received) {
+            if (event.getId() != null) {
+                seenIds.add(event.getId());
+            }
+        }
+        if (lastEventId != null) {
+            seenIds.add(lastEventId);
+        }
+        SSEResponseAttributes failed = subscriber.toAttributes();
+        metrics.recordReplayedEvents(failed.getReplayedEventCount());
+        attributes = attributes == null ? failed : attributes.resumedBy(failed, toMillis(attemptStartNanos),
+                toMillis(System.nanoTime() - startNanos));
+        reconnections++;
+        metrics.recordReconnection();
+        LOGGER.info("SSE connection dropped ({}); reconnecting in {} ms from event ID {} (attempt {} of {})",
+                cause.getMessage(), delay, lastEventId, reconnections, policy.getMaxReconnections());
+
+        SSEBodySubscriber next = subscriber.resume(seenIds);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (first.isCancelled()) {
+                next.discard();
+                outcome.cancel(false);
+                return;
+            }
+            long nextStartNanos = System.nanoTime() - startNanos;
+            SSETimeouts nextTimeouts = timeouts.after(nextStartNanos);
+            if (nextTimeouts == null) {
+                next.discard();
+                outcome.completeExceptionally(error);
+                return;
+            }
+            launch(next, lastEventId, nextTimeouts, nextStartNanos);
+        });
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
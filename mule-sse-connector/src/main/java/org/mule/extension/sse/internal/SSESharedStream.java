@@ -0,0 +1,391 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A single, long-lived upstream connection to an SSE endpoint whose events are fanned out to every subscribed
+ * {@link SSEBatchDispatcher}.
+ * <p>
+ * The stream connects when its first dispatcher is added and disconnects when its last dispatcher is removed. It is
+ * read through the connection Mule caches for the operations of the configuration, so it counts against the max
+ * concurrent streams of that connection; only if there is none yet does the stream connect its own.
+ * <p>
+ * While dispatchers are subscribed, the stream reconnects whenever the server closes the connection, the connection
+ * fails or the server responds with a server error, sending the last received event ID in the
+ * {@code Last-Event-ID} header so the server can resume the stream. The delay before reconnecting follows the
+ * {@link SSEReconnectPolicy} of the listeners: it starts at the {@code retry:} field of the server, or the
+ * reconnection delay, and backs off exponentially while the attempts receive no event. Once the max reconnections
+ * attempts in a row received no event, or as soon as the server rejects the request with a client error, the stream
+ * fails for good and reports it to the sources of its dispatchers, which Mule restarts following their reconnection
+ * strategy.
+ * <p>
+ * The body is read one chunk at a time, and the next chunk is only requested while no dispatcher is saturated, so
+ * the slowest subscribed flow throttles the upstream connection instead of growing the queues. The max event bytes of
+ * the configuration bound the data of each event: an oversized event is truncated, or fails the stream for good if
+ * its limit action is {@code FAIL}.
+ */
+class SSESharedStream {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSESharedStream.class);
+
+    private final SSEConfiguration config;
+    private final String url;
+    private final Function<String, HttpRequest> requestFactory;
+    private final ConnectionProvider<SSEConnection> connectionProvider;
+    private final SSEDataDecoding decoding;
+    private final SSEEventFilter filter;
+    private final SSEReconnectPolicy reconnectPolicy;
+    private final List<SSEBatchDispatcher> dispatchers = new CopyOnWriteArrayList<>();
+
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private SSEConnection ownConnection;
+    private Upstream upstream;
+    private boolean closed;
+    private int failedAttempts;
+
+    private volatile String lastEventId;
+    private volatile long serverRetry = -1;
+    private volatile boolean eventsReceived;
+    private volatile boolean failed;
+
+    /**
+     * Creates a new shared stream. Nothing is sent until the first dispatcher is added.
+     *
+     * @param config             the configuration of the listeners
+     * @param url                the URL of the SSE endpoint, used for logging
+     * @param requestFactory     builds the request to send, given the last received event ID (may be {@code null})
+     * @param connectionProvider provides the connection the stream is read through, if the configuration has none
+     * @param decoding           how the data of the events is decoded
+     * @param filter             selects the events to deliver and the part of their data to decode
+     */
+    SSESharedStream(SSEConfiguration config, String url, Function<String, HttpRequest> requestFactory,
+                    ConnectionProvider<SSEConnection> connectionProvider, SSEDataDecoding decoding,
+                    SSEEventFilter filter) {
+        this.config = config;
+        this.url = url;
+        this.requestFactory = requestFactory;
+        this.connectionProvider = connectionProvider;
+        this.decoding = decoding;
+        this.filter = filter;
+        this.reconnectPolicy = config.getStreamReconnectPolicy();
+    }
+
+    /**
+     * Subscribes a dispatcher to this stream, connecting to the server if it is the first one.
+     *
+     * @param dispatcher the dispatcher to add
+     * @throws ConnectionException if a connection cannot be obtained
+     */
+    void add(SSEBatchDispatcher dispatcher) throws ConnectionException {
+        dispatcher.setStream(this);
+        dispatchers.add(dispatcher);
+        synchronized (lock) {
+            if (upstream == null && !closed) {
+                try {
+                    connect();
+                } catch (ConnectionException e) {
+                    dispatchers.remove(dispatcher);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Unsubscribes a dispatcher from this stream, closing the upstream connection if it was the last one.
+     *
+     * @param dispatcher the dispatcher to remove
+     * @return {@code true} if the dispatcher was subscribed to this stream, no dispatcher remains and the stream was
+     * closed
+     */
+    boolean remove(SSEBatchDispatcher dispatcher) {
+        if (!dispatchers.remove(dispatcher) || !dispatchers.isEmpty()) {
+            return false;
+        }
+        close();
+        return true;
+    }
+
+    /**
+     * Tells whether this stream failed for good, and must be replaced.
+     *
+     * @return {@code true} if the stream gave up reconnecting
+     */
+    boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Resumes reading from the server after a dispatcher has drained its queue, unless another one is still
+     * saturated.
+     */
+    void resume() {
+        Upstream current;
+        synchronized (lock) {
+            current = upstream;
+        }
+        if (current != null) {
+            current.requestIfOwed();
+        }
+    }
+
+    private void close() {
+        synchronized (lock) {
+            closed = true;
+            if (upstream != null) {
+                upstream.cancel();
+                upstream = null;
+            }
+            if (ownConnection != null) {
+                connectionProvider.disconnect(ownConnection);
+                ownConnection = null;
+            }
+        }
+    }
+
+    // Must be called while holding lock
+    private void connect() throws ConnectionException {
+        SSEConnection connection = config.getCachedConnection();
+        if (connection == null) {
+            if (ownConnection == null || ownConnection.isClosed()) {
+                ownConnection = connectionProvider.connect();
+            }
+            connection = ownConnection;
+        }
+        Upstream next = new Upstream();
+        upstream = next;
+        HttpRequest request = requestFactory.apply(lastEventId);
+        LOGGER.debug("Opening shared SSE stream to {} (Last-Event-ID: {})", url, lastEventId);
+        try {
+            // The body of an error response is not parsed as events
+            next.response = connection.sendAsync(request, responseInfo -> responseInfo.statusCode() < 300
+                    ? HttpResponse.BodySubscribers.fromSubscriber(next)
+                    : HttpResponse.BodySubscribers.replacing(null));
+        } catch (RuntimeException e) {
+            throw new ConnectionException("Failed to open the shared SSE stream to " + url, e);
+        }
+        next.response.whenComplete((response, error) -> {
+            if (error != null) {
+                next.onError(error);
+            } else if (response.statusCode() >= 300) {
+                next.onStatus(response.statusCode());
+            }
+        });
+    }
+
+    private void reconnect(Upstream ended) {
+        synchronized (lock) {
+            // Only reconnect if no other connection replaced the one that ended, and the stream is still in use
+            if (closed || upstream != ended) {
+                return;
+            }
+            try {
+                connect();
+                return;
+            } catch (ConnectionException e) {
+                upstream = ended;
+                onAttemptEnded(ended, e);
+            }
+        }
+    }
+
+    private void onAttemptEnded(Upstream ended, Throwable error) {
+        long delay;
+        int attempt;
+        synchronized (lock) {
+            if (closed || upstream != ended) {
+                return;
+            }
+            // An attempt that received events starts a new series of reconnections
+            failedAttempts = eventsReceived ? 1 : failedAttempts + 1;
+            eventsReceived = false;
+            attempt = failedAttempts;
+            if (attempt > reconnectPolicy.getMaxReconnections()) {
+                fail(new ConnectionException("Shared SSE stream to " + url + " failed " + attempt
+                        + " consecutive attempt(s)", error));
+                return;
+            }
+            delay = reconnectPolicy.delayMillis(attempt, serverRetry);
+        }
+        if (error != null) {
+            LOGGER.warn("Shared SSE stream to {} failed; reconnecting in {} ms (attempt {})", url, delay, attempt,
+                    error);
+        } else {
+            LOGGER.debug("Shared SSE stream to {} closed by the server; reconnecting in {} ms (attempt {})", url,
+                    delay, attempt);
+        }
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> reconnect(ended));
+    }
+
+    private void fail(ConnectionException exception) {
+        LOGGER.warn("Shared SSE stream to {} failed for good: {}", url, exception.getMessage());
+        failed = true;
+        close();
+        // Asynchronously: the sources stop, and unsubscribe from the hub, while they handle the exception
+        CompletableFuture.runAsync(() -> {
+            for (SSEBatchDispatcher dispatcher : dispatchers) {
+                dispatcher.onConnectionException(exception);
+            }
+        });
+    }
+
+    private boolean anyDispatcherSaturated() {
+        for (SSEBatchDispatcher dispatcher : dispatchers) {
+            if (dispatcher.isSaturated()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Subscriber for a single connection attempt; a new one is created on every reconnection so late signals from a
+     * previous connection are ignored.
+     */
+    private class Upstream implements Flow.Subscriber<List<ByteBuffer>> {
+
+        // Only the maximum event bytes apply, and the data of an oversized event is never spilled
+        private final SSEEventParser parser = new SSEEventParser(this::deliver, decoding, filter,
+                new SSEMemoryGuard(config.getMemoryLimitParameters(), config.getMetrics(), false));
+
+        private final Object demandLock = new Object();
+
+        private volatile CompletableFuture<HttpResponse<Void>> response;
+
+        // Guarded by demandLock
+        private Flow.Subscription subscription;
+        private boolean demandPending;
+        private boolean cancelled;
+        private boolean terminated;
+
+        Upstream() {
+            parser.setLastEventId(lastEventId);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (demandLock) {
+                if (cancelled) {
+                    subscription.cancel();
+                    return;
+                }
+                this.subscription = subscription;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> chunks) {
+            try {
+                for (ByteBuffer chunk : chunks) {
+                    parser.feed(chunk);
+                }
+            } catch (SSELimitExceededException e) {
+                // Asking again would only resume at the same event
+                if (terminate()) {
+                    fail(new ConnectionException(e.getMessage(), e));
+                }
+                return;
+            }
+            lastEventId = parser.getLastEventId();
+            if (parser.getRetry() >= 0) {
+                serverRetry = parser.getRetry();
+            }
+            synchronized (demandLock) {
+                demandPending = true;
+            }
+            requestIfOwed();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (terminate()) {
+                onAttemptEnded(this, throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (terminate()) {
+                parser.finish();
+                onAttemptEnded(this, null);
+            }
+        }
+
+        void onStatus(int statusCode) {
+            if (!terminate()) {
+                return;
+            }
+            String message = "SSE server responded to " + url + " with HTTP status " + statusCode;
+            if (statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 429) {
+                // A client error is not going away by asking again
+                fail(new ConnectionException(message));
+            } else {
+                onAttemptEnded(this, new IOException(message));
+            }
+        }
+
+        void requestIfOwed() {
+            Flow.Subscription toRequest = null;
+            synchronized (demandLock) {
+                if (subscription != null && !cancelled && demandPending && !anyDispatcherSaturated()) {
+                    demandPending = false;
+                    toRequest = subscription;
+                }
+            }
+            if (toRequest != null) {
+                toRequest.request(1);
+            }
+        }
+
+        void cancel() {
+            Flow.Subscription toCancel;
+            synchronized (demandLock) {
+                cancelled = true;
+                toCancel = subscription;
+            }
+            if (toCancel != null) {
+                toCancel.cancel();
+            }
+            // A cancelled body never completes the response on its own; this also releases the stream of the
+            // connection
+            CompletableFuture<HttpResponse<Void>> toAbort = response;
+            if (toAbort != null) {
+                toAbort.cancel(true);
+            }
+        }
+
+        private boolean terminate() {
+            synchronized (demandLock) {
+                if (terminated || cancelled) {
+                    return false;
+                }
+                terminated = true;
+                return true;
+            }
+        }
+
+        private void deliver(SSEEvent event) {
+            eventsReceived = true;
+            for (SSEBatchDispatcher dispatcher : dispatchers) {
+                dispatcher.offer(event);
+            }
+        }
+    }
+}
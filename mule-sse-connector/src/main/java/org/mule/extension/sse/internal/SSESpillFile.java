@@ -0,0 +1,191 @@
+package org.mule.extension.sse.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only temporary file holding the data of the events spilled by a single response, see
+ * {@link SSELimitAction#SPILL}.
+ * <p>
+ * The data of an event is written as one {@link Region}, either at once or, for an event still being parsed, line
+ * by line. Regions hold a reference to their file, and events hold their region until their data is read back, so
+ * the file is closed and deleted once no event needs it anymore, or right away when the response is
+ * {@link #discard() discarded}.
+ * <p>
+ * Writes must come from a single thread, the one parsing the response; reads may come from any thread.
+ */
+final class SSESpillFile {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSESpillFile.class);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final FileChannel channel;
+    private final Cleaner.Cleanable cleanable;
+
+    // Only accessed by the writing thread
+    private long size;
+    private long regionStart = -1;
+
+    private SSESpillFile(Path path, FileChannel channel) {
+        this.channel = channel;
+        this.cleanable = CLEANER.register(this, new Deletion(path, channel));
+    }
+
+    /**
+     * Creates a new, empty spill file in the default temporary directory.
+     *
+     * @return the spill file
+     * @throws UncheckedIOException if the file cannot be created
+     */
+    static SSESpillFile create() {
+        try {
+            Path path = Files.createTempFile("mule-sse-", ".spill");
+            return new SSESpillFile(path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create a file to spill SSE events to", e);
+        }
+    }
+
+    /**
+     * Writes the given bytes as a region of their own.
+     *
+     * @param bytes  the bytes to write
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @return the region holding the bytes
+     * @throws UncheckedIOException if the bytes cannot be written
+     */
+    Region write(byte[] bytes, int offset, int length) {
+        begin();
+        append(bytes, offset, length);
+        return end();
+    }
+
+    /**
+     * Starts a new region, filled by {@link #append(byte[], int, int)} and completed by {@link #end()}.
+     */
+    void begin() {
+        regionStart = size;
+    }
+
+    /**
+     * Appends bytes to the region started by {@link #begin()}.
+     *
+     * @param bytes  the bytes to write
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @throws UncheckedIOException if the bytes cannot be written
+     */
+    void append(byte[] bytes, int offset, int length) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        try {
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer, size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill SSE event data to disk", e);
+        }
+    }
+
+    /**
+     * Completes the region started by {@link #begin()}.
+     *
+     * @return the region
+     */
+    Region end() {
+        Region region = new Region(this, regionStart, (int) (size - regionStart));
+        regionStart = -1;
+        return region;
+    }
+
+    /**
+     * Closes and deletes the file right away, e.g. because the response failed and its events are dropped.
+     */
+    void discard() {
+        cleanable.clean();
+    }
+
+    private byte[] read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the SSE spill file");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * The data of one event in a spill file.
+     */
+    static final class Region {
+
+        private final SSESpillFile file;
+        private final long position;
+        private final int length;
+
+        private Region(SSESpillFile file, long position, int length) {
+            this.file = file;
+            this.position = position;
+            this.length = length;
+        }
+
+        /**
+         * Returns the number of bytes of the region.
+         *
+         * @return the length
+         */
+        int length() {
+            return length;
+        }
+
+        /**
+         * Reads the region back into memory.
+         *
+         * @return the bytes of the region
+         * @throws UncheckedIOException if the bytes cannot be read, e.g. because the response was discarded
+         */
+        byte[] read() {
+            try {
+                return file.read(position, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read spilled SSE event data", e);
+            }
+        }
+    }
+
+    /**
+     * Closes the channel, which deletes the file; holds no reference to the spill file, so it can be cleaned.
+     */
+    private static final class Deletion implements Runnable {
+
+        private final Path path;
+        private final FileChannel channel;
+
+        private Deletion(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete the SSE spill file {}", path, e);
+            }
+        }
+    }
+}
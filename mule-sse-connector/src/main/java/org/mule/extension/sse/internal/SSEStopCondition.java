@@ -0,0 +1,219 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stateful evaluator of the {@link StopConditionParameters} of a single request.
+ * <p>
+ * The subscribers reading the response body report every parsed event through {@link #accept(SSEEvent)} and every
+ * chunk of bytes through {@link #onBytes(long)}, and stop reading once {@link #isMet()} returns {@code true}. For the
+ * {@code Collect Results} operation, the condition is also met once the maximum number of items is collected.
+ * <p>
+ * Instances are not thread-safe; they are used by the single thread that parses a response.
+ */
+class SSEStopCondition {
+
+    /**
+     * Marker for a pointer that does not resolve, as {@code null} is a valid JSON value.
+     */
+    private static final Object MISSING = new Object();
+
+    private final String terminalEventType;
+    private final Map<String, Integer> maxEventsPerType;
+    private final long maxTotalBytes;
+    private final JsonPointer dataPointer;
+    private final String dataEquals;
+    private final SSEResultCollector.Items items;
+
+    private final Map<String, Integer> countsPerType = new HashMap<>();
+    private int typesAtMax;
+    private long totalBytes;
+    private boolean met;
+
+    /**
+     * Creates an evaluator for the given conditions.
+     *
+     * @param parameters the stop conditions; may be {@code null}, in which case the condition is never met
+     * @throws IllegalArgumentException if the data pointer is not a valid JSON pointer, or a maximum number of events
+     *                                  per type is missing or lower than 1
+     */
+    SSEStopCondition(StopConditionParameters parameters) {
+        this(parameters, null);
+    }
+
+    /**
+     * Creates an evaluator for the given conditions, also met once the given collector has collected its maximum
+     * number of items from the kept events.
+     *
+     * @param parameters the stop conditions; may be {@code null}
+     * @param collector  the collector of the {@code Collect Results} operation; may be {@code null}
+     * @throws IllegalArgumentException if the data pointer is not a valid JSON pointer, or a maximum number of events
+     *                                  per type is missing or lower than 1
+     */
+    SSEStopCondition(StopConditionParameters parameters, SSEResultCollector collector) {
+        this.items = collector != null ? collector.newItems() : null;
+        if (parameters == null) {
+            parameters = new StopConditionParameters();
+        }
+        this.terminalEventType = blankToNull(parameters.getTerminalEventType());
+        this.maxEventsPerType = parameters.getMaxEventsPerType() != null
+                ? parameters.getMaxEventsPerType()
+                : Map.of();
+        // A maximum below 1 could never be reached, so the condition would never be met
+        maxEventsPerType.forEach((type, max) -> {
+            if (max == null || max < 1) {
+                throw new IllegalArgumentException("Invalid maximum number of events for event type '" + type
+                        + "': " + max + "; it must be at least 1");
+            }
+        });
+        this.maxTotalBytes = parameters.getMaxTotalBytes();
+        String pointer = blankToNull(parameters.getStopWhenDataPointer());
+        this.dataPointer = pointer != null ? JsonPointer.compile(pointer.trim()) : null;
+        this.dataEquals = parameters.getStopWhenDataEquals();
+    }
+
+    /**
+     * Accounts for a parsed event and tells whether it should be kept.
+     * <p>
+     * Events parsed after the condition is met, and events of a type that already reached its maximum, are
+     * discarded.
+     *
+     * @param event the parsed event
+     * @return {@code true} if the event should be included in the result
+     */
+    boolean accept(SSEEvent event) {
+        if (met) {
+            return false;
+        }
+
+        String type = event.getEvent();
+        Integer max = type != null ? maxEventsPerType.get(type) : null;
+        if (max != null) {
+            int count = countsPerType.merge(type, 1, Integer::sum);
+            if (count > max) {
+                return false;
+            }
+            if (count == max && ++typesAtMax == maxEventsPerType.size()) {
+                met = true;
+            }
+        }
+
+        if (terminalEventType != null && terminalEventType.equals(type)) {
+            met = true;
+        }
+
+        if (dataPointer != null && !met && matchesDataPointer(event)) {
+            met = true;
+        }
+
+        if (items != null && !met && items.add(event)) {
+            met = true;
+        }
+
+        return true;
+    }
+
+    /**
+     * Accounts for an event skipped by the {@link SSEEventFilter}. Only the terminal event type applies to skipped
+     * events, as their data is not available.
+     *
+     * @param eventType the type of the skipped event
+     */
+    void acceptSkipped(String eventType) {
+        if (terminalEventType != null && terminalEventType.equals(eventType)) {
+            met = true;
+        }
+    }
+
+    /**
+     * Accounts for bytes read from the response body.
+     *
+     * @param bytes the number of bytes read
+     */
+    void onBytes(long bytes) {
+        totalBytes += bytes;
+        if (maxTotalBytes > 0 && totalBytes >= maxTotalBytes) {
+            met = true;
+        }
+    }
+
+    /**
+     * Tells whether reading should stop.
+     *
+     * @return {@code true} once any of the conditions is met
+     */
+    boolean isMet() {
+        return met;
+    }
+
+    private boolean matchesDataPointer(SSEEvent event) {
+        Object data = event.getData();
+        Object value;
+        if (data instanceof JsonNode) {
+            JsonNode node = ((JsonNode) data).at(dataPointer);
+            value = node.isMissingNode() ? MISSING : node.isValueNode() ? node.asText() : node;
+        } else if (data instanceof String || data instanceof byte[]) {
+            // Raw decodings: parse a throwaway tree, but only for payloads that may be JSON
+            value = resolveRaw(data instanceof String
+                    ? ((String) data).getBytes(StandardCharsets.UTF_8)
+                    : (byte[]) data);
+        } else {
+            value = resolve(data, dataPointer);
+        }
+        if (value == MISSING) {
+            return false;
+        }
+        return dataEquals == null || dataEquals.equals(String.valueOf(value));
+    }
+
+    private Object resolveRaw(byte[] bytes) {
+        if (!SSEDataDecoding.looksLikeJson(bytes)) {
+            return MISSING;
+        }
+        try {
+            JsonNode node = SSEEventParser.MAPPER.readTree(bytes).at(dataPointer);
+            return node.isMissingNode() ? MISSING : node.isValueNode() ? node.asText() : node;
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    /**
+     * Resolves a JSON pointer against the Java structure produced by Jackson for a JSON document, without
+     * converting it back to a tree.
+     */
+    private static Object resolve(Object data, JsonPointer pointer) {
+        Object current = data;
+        for (JsonPointer segment = pointer; !segment.matches(); segment = segment.tail()) {
+            if (current instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) current;
+                String property = segment.getMatchingProperty();
+                if (!map.containsKey(property)) {
+                    return MISSING;
+                }
+                current = map.get(property);
+            } else if (current instanceof List) {
+                List<?> list = (List<?>) current;
+                int index = segment.getMatchingIndex();
+                if (index < 0 || index >= list.size()) {
+                    return MISSING;
+                }
+                current = list.get(index);
+            } else {
+                return MISSING;
+            }
+        }
+        return current;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
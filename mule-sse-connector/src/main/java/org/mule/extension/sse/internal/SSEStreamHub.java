@@ -0,0 +1,70 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionProvider;
+
+import java.net.http.HttpRequest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Registry of the {@link SSESharedStream}s opened by the listeners of a configuration.
+ * <p>
+ * Listeners subscribing to the same endpoint (same URL and HTTP headers) share one upstream connection instead of
+ * opening a socket per flow. A stream is opened by its first subscriber and closed when its last subscriber leaves.
+ * A stream that failed for good is replaced by the next subscriber, once Mule restarts the listeners.
+ */
+class SSEStreamHub {
+
+    private final SSEConfiguration config;
+    private final Map<String, SSESharedStream> streams = new HashMap<>();
+
+    /**
+     * Creates a new registry.
+     *
+     * @param config the configuration of the listeners
+     */
+    SSEStreamHub(SSEConfiguration config) {
+        this.config = config;
+    }
+
+    /**
+     * Subscribes a dispatcher to the stream identified by the given key, opening the stream if needed.
+     *
+     * @param key                identifies the endpoint; requests with the same key share one stream
+     * @param url                the URL of the endpoint
+     * @param requestFactory     builds the request, given the last received event ID
+     * @param connectionProvider provides the connection to open the stream with, if the configuration has none
+     * @param decoding           how the data of the events is decoded, if the stream is not open yet
+     * @param filter             selects the events to deliver, if the stream is not open yet
+     * @param dispatcher         the dispatcher to subscribe
+     * @throws ConnectionException if the stream cannot be opened
+     */
+    synchronized void subscribe(String key, String url, Function<String, HttpRequest> requestFactory,
+                                ConnectionProvider<SSEConnection> connectionProvider, SSEDataDecoding decoding,
+                                SSEEventFilter filter, SSEBatchDispatcher dispatcher) throws ConnectionException {
+        SSESharedStream stream = streams.get(key);
+        boolean created = stream == null || stream.isFailed();
+        if (created) {
+            stream = new SSESharedStream(config, url, requestFactory, connectionProvider, decoding, filter);
+        }
+        stream.add(dispatcher);
+        if (created) {
+            streams.put(key, stream);
+        }
+    }
+
+    /**
+     * Unsubscribes a dispatcher, closing its stream if no other dispatcher is subscribed to it.
+     *
+     * @param key        the key the dispatcher was subscribed with
+     * @param dispatcher the dispatcher to unsubscribe
+     */
+    synchronized void unsubscribe(String key, SSEBatchDispatcher dispatcher) {
+        SSESharedStream stream = streams.get(key);
+        if (stream != null && stream.remove(dispatcher)) {
+            streams.remove(key);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package org.mule.extension.sse.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A log of recorded SSE responses, written by an {@link SSEStreamRecorder} and read back through a memory-mapped
+ * buffer, so the chunks of a response are served to the parser straight from the page cache, without being copied.
+ * <p>
+ * The log is an append-only sequence of records, after an 8-byte magic number. Every record starts with its type
+ * (one byte), the ID of the response it belongs to (an {@code int}) and the time it was written, in nanoseconds
+ * since the request of the response was sent (a {@code long}); the responses of a connection are interleaved.
+ * All numbers are big-endian, and strings are UTF-8 bytes prefixed with their length, as an {@code int}.
+ * <ul>
+ *   <li>{@code S}, a recording session: the wall-clock time it started, in milliseconds. Response IDs are unique
+ *       within a session.</li>
+ *   <li>{@code O}, the response headers were received: the wall-clock time, the status code, the number of headers,
+ *       the redacted URI of the request, then the name and the value of each header.</li>
+ *   <li>{@code D}, a chunk of the body was received: its length, then its bytes.</li>
+ *   <li>{@code C}, the body ended: {@code 0} if it completed, {@code 1} if it failed, {@code 2} if it was cancelled,
+ *       e.g. by a stop condition.</li>
+ * </ul>
+ * A record cut short by a crash ends the log; a response without a {@code C} record is read as failed.
+ * <p>
+ * Instances are immutable and thread-safe. The mapping is released once the log is no longer referenced.
+ */
+class SSEStreamLog {
+
+    static final byte[] MAGIC = "SSELOG\u00001".getBytes(StandardCharsets.US_ASCII);
+
+    static final byte SESSION = 'S';
+    static final byte OPEN = 'O';
+    static final byte DATA = 'D';
+    static final byte CLOSE = 'C';
+
+    static final byte COMPLETED = 0;
+    static final byte FAILED = 1;
+    static final byte CANCELLED = 2;
+
+    /**
+     * The size of the type, response ID and time that start every record.
+     */
+    static final int RECORD_HEADER_SIZE = 1 + Integer.BYTES + Long.BYTES;
+
+    private final Path file;
+    private final List<Stream> streams;
+
+    private SSEStreamLog(Path file, List<Stream> streams) {
+        this.file = file;
+        this.streams = Collections.unmodifiableList(streams);
+    }
+
+    /**
+     * Maps a log into memory and indexes its responses.
+     *
+     * @param file the log file
+     * @return the log
+     * @throws IOException if the file cannot be read, is not a stream log, or is larger than 2 GB
+     */
+    static SSEStreamLog open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("SSE stream logs larger than 2 GB are not supported: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (!hasMagic(buffer.duplicate())) {
+            throw new IOException("Not an SSE stream log: " + file);
+        }
+
+        List<Stream> streams = new ArrayList<>();
+        Map<Integer, Stream> open = new HashMap<>();
+        ByteBuffer records = buffer.duplicate().position(MAGIC.length);
+        try {
+            while (records.remaining() >= RECORD_HEADER_SIZE) {
+                byte type = records.get();
+                int streamId = records.getInt();
+                long nanos = records.getLong();
+                switch (type) {
+                    case SESSION:
+                        records.getLong();
+                        open.clear();
+                        break;
+                    case OPEN:
+                        Stream stream = readOpen(records, nanos);
+                        open.put(streamId, stream);
+                        streams.add(stream);
+                        break;
+                    case DATA:
+                        int length = records.getInt();
+                        if (length < 0 || length > records.remaining()) {
+                            throw new BufferUnderflowException();
+                        }
+                        Stream receiving = open.get(streamId);
+                        if (receiving != null) {
+                            receiving.addChunk(nanos, records.position(), length);
+                        }
+                        records.position(records.position() + length);
+                        break;
+                    case CLOSE:
+                        byte outcome = records.get();
+                        Stream closing = open.remove(streamId);
+                        if (closing != null) {
+                            closing.close(nanos, outcome);
+                        }
+                        break;
+                    default:
+                        throw new IOException("Corrupted SSE stream log " + file + ": unknown record type " + type
+                                + " at offset " + (records.position() - RECORD_HEADER_SIZE));
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // A record cut short: the recording was interrupted
+        }
+        for (Stream stream : streams) {
+            stream.seal(buffer);
+        }
+        return new SSEStreamLog(file, streams);
+    }
+
+    /**
+     * Tells whether the given file starts with the magic number of a stream log.
+     *
+     * @param file the file
+     * @return {@code true} if the file is a stream log
+     * @throws IOException if the file cannot be read
+     */
+    static boolean hasMagic(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return hasMagic(ByteBuffer.wrap(in.readNBytes(MAGIC.length)));
+        }
+    }
+
+    private static boolean hasMagic(ByteBuffer buffer) {
+        if (buffer.remaining() < MAGIC.length) {
+            return false;
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        return Arrays.equals(magic, MAGIC);
+    }
+
+    private static Stream readOpen(ByteBuffer records, long nanos) {
+        records.getLong();
+        int status = records.getInt();
+        int headerCount = records.getInt();
+        String uri = readString(records);
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < headerCount; i++) {
+            String name = readString(records);
+            headers.computeIfAbsent(name, key -> new ArrayList<>()).add(readString(records));
+        }
+        return new Stream(uri, status, headers, nanos);
+    }
+
+    private static String readString(ByteBuffer records) {
+        int length = records.getInt();
+        if (length < 0 || length > records.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        records.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the log file.
+     *
+     * @return the path of the file
+     */
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the recorded responses, in the order their headers were received.
+     *
+     * @return the responses
+     */
+    List<Stream> getStreams() {
+        return streams;
+    }
+
+    /**
+     * Returns the path and query of a URI, with the values of its secret query parameters redacted.
+     *
+     * @param uri the URI
+     * @return the path and query
+     */
+    static String target(URI uri) {
+        URI redacted = URI.create(SSEStreamRecorder.redact(uri));
+        String path = redacted.getRawPath() == null || redacted.getRawPath().isEmpty() ? "/" : redacted.getRawPath();
+        return redacted.getRawQuery() == null ? path : path + '?' + redacted.getRawQuery();
+    }
+
+    /**
+     * Groups the responses of this log by {@link Stream#getTarget() target}.
+     *
+     * @return the responses of each target, in the order their headers were received
+     */
+    Map<String, List<Stream>> byTarget() {
+        Map<String, List<Stream>> targets = new LinkedHashMap<>();
+        for (Stream stream : streams) {
+            targets.computeIfAbsent(stream.getTarget(), key -> new ArrayList<>()).add(stream);
+        }
+        return targets;
+    }
+
+    /**
+     * A recorded response.
+     */
+    static final class Stream {
+
+        private final String uri;
+        private final int statusCode;
+        private final Map<String, List<String>> headers;
+        private final long headersNanos;
+
+        private long[] chunkNanos = new long[16];
+        private int[] chunkOffsets = new int[16];
+        private int[] chunkLengths = new int[16];
+        private int chunkCount;
+        private long endNanos = -1;
+        private byte outcome = FAILED;
+        private ByteBuffer buffer;
+
+        private Stream(String uri, int statusCode, Map<String, List<String>> headers, long headersNanos) {
+            this.uri = uri;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.headersNanos = headersNanos;
+        }
+
+        private void addChunk(long nanos, int offset, int length) {
+            if (chunkCount == chunkNanos.length) {
+                chunkNanos = Arrays.copyOf(chunkNanos, chunkCount * 2);
+                chunkOffsets = Arrays.copyOf(chunkOffsets, chunkCount * 2);
+                chunkLengths = Arrays.copyOf(chunkLengths, chunkCount * 2);
+            }
+            chunkNanos[chunkCount] = nanos;
+            chunkOffsets[chunkCount] = offset;
+            chunkLengths[chunkCount] = length;
+            chunkCount++;
+        }
+
+        private void close(long nanos, byte outcome) {
+            this.endNanos = nanos;
+            this.outcome = outcome;
+        }
+
+        private void seal(ByteBuffer buffer) {
+            this.buffer = buffer;
+            if (endNanos < 0) {
+                // Never closed: the recording stopped while the response was in progress
+                endNanos = chunkCount > 0 ? chunkNanos[chunkCount - 1] : headersNanos;
+            }
+        }
+
+        /**
+         * Returns the redacted URI of the request.
+         *
+         * @return the URI
+         */
+        String getUri() {
+            return uri;
+        }
+
+        /**
+         * Returns the path and query of the request, which requests are matched on when the response is replayed.
+         *
+         * @return the path and query of the redacted URI
+         */
+        String getTarget() {
+            return target(URI.create(uri));
+        }
+
+        /**
+         * Returns the status code of the response.
+         *
+         * @return the status code
+         */
+        int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Returns the headers of the response.
+         *
+         * @return the values of each header, by case-insensitive name
+         */
+        Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * Returns the time the headers of the response were received.
+         *
+         * @return the time in nanoseconds since the request was sent
+         */
+        long getHeadersNanos() {
+            return headersNanos;
+        }
+
+        /**
+         * Returns the number of chunks of the body.
+         *
+         * @return the number of chunks
+         */
+        int getChunkCount() {
+            return chunkCount;
+        }
+
+        /**
+         * Returns the time a chunk of the body was received.
+         *
+         * @param index the index of the chunk
+         * @return the time in nanoseconds since the request was sent
+         */
+        long getChunkNanos(int index) {
+            return chunkNanos[index];
+        }
+
+        /**
+         * Returns a chunk of the body.
+         *
+         * @param index the index of the chunk
+         * @return a read-only buffer over the bytes of the chunk in the mapped log
+         */
+        ByteBuffer getChunk(int index) {
+            return buffer.duplicate()
+                    .position(chunkOffsets[index])
+                    .limit(chunkOffsets[index] + chunkLengths[index])
+                    .slice()
+                    .asReadOnlyBuffer();
+        }
+
+        /**
+         * Returns the time the body ended.
+         *
+         * @return the time in nanoseconds since the request was sent
+         */
+        long getEndNanos() {
+            return endNanos;
+        }
+
+        /**
+         * Returns how the body ended.
+         *
+         * @return {@link #COMPLETED}, {@link #FAILED} or {@link #CANCELLED}
+         */
+        byte getOutcome() {
+            return outcome;
+        }
+    }
+}
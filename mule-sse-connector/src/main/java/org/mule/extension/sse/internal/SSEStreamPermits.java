@@ -0,0 +1,92 @@
+package org.mule.extension.sse.internal;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The streams of an {@link SSEConnection} with a maximum number of concurrent streams, handed out without blocking.
+ * <p>
+ * A request that finds no stream available gets a pending future, completed once a running exchange releases its
+ * stream, so no thread is held while it waits. Waiting requests are served in arrival order, and fail with an
+ * {@link IOException} if no stream becomes available within the acquire timeout. The timeouts run on the shared
+ * scheduler of {@link CompletableFuture#delayedExecutor}.
+ * <p>
+ * Instances are thread-safe.
+ */
+final class SSEStreamPermits {
+
+    private final long acquireTimeout;
+
+    // Guarded by this
+    private int available;
+    private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+    /**
+     * Creates new permits.
+     *
+     * @param streams        the maximum number of concurrent streams
+     * @param acquireTimeout the maximum time, in milliseconds, a request waits for a stream, or {@code 0} to wait
+     *                       indefinitely
+     */
+    SSEStreamPermits(int streams, long acquireTimeout) {
+        this.available = streams;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Acquires a stream.
+     *
+     * @return a future completed once the stream is acquired, right away if one is available, or failed with an
+     * {@link IOException} if none becomes available in time
+     */
+    CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> permit;
+        synchronized (this) {
+            if (available > 0 && waiting.isEmpty()) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            permit = new CompletableFuture<>();
+            waiting.add(permit);
+        }
+        if (acquireTimeout > 0) {
+            CompletableFuture.delayedExecutor(acquireTimeout, TimeUnit.MILLISECONDS).execute(() -> {
+                if (abandon(permit)) {
+                    permit.completeExceptionally(new IOException("No SSE stream became available within "
+                            + acquireTimeout + " ms; the maximum number of concurrent streams is reached"));
+                }
+            });
+        }
+        return permit;
+    }
+
+    /**
+     * Stops waiting for a stream.
+     *
+     * @param permit a future returned by {@link #acquire()}
+     * @return {@code true} if the request was still waiting, and no longer is; {@code false} if the stream was
+     * already acquired, in which case it must be {@link #release() released}
+     */
+    synchronized boolean abandon(CompletableFuture<Void> permit) {
+        return waiting.remove(permit);
+    }
+
+    /**
+     * Releases an acquired stream, handing it over to the first waiting request, if any. The exchange of that
+     * request starts on the calling thread.
+     */
+    void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                available++;
+                return;
+            }
+        }
+        next.complete(null);
+    }
+}
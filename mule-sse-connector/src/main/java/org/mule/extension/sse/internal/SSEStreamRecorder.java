@@ -0,0 +1,328 @@
+package org.mule.extension.sse.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the responses of a connection in an {@link SSEStreamLog}: their status and headers, and the bytes of their
+ * body along with the time each chunk arrived, so they can be replayed by an {@link SSEReplayConnection}.
+ * <p>
+ * The body is recorded after decompression, as handed to the parser. The secrets of the request are not recorded:
+ * the values of query parameters such as {@code key} or {@code token} are redacted from the URI, and neither the
+ * request headers nor the {@code Set-Cookie} response headers are written.
+ * <p>
+ * Records are appended to the log as the chunks arrive, on the thread that delivers them; a log that cannot be
+ * written to is reported once and the responses are no longer recorded, without failing the exchanges.
+ * <p>
+ * The connections recording to the same file share a single recorder, so their records are appended under one lock,
+ * within one session, and with response IDs unique to the log; the file is closed once every one of them closed it.
+ */
+class SSEStreamRecorder implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSEStreamRecorder.class);
+
+    /**
+     * The query parameters whose values are redacted, in lower case.
+     */
+    static final Set<String> SECRET_PARAMETERS = Set.of("key", "api_key", "apikey", "token", "access_token",
+            "client_secret", "secret", "password", "signature", "sig");
+
+    static final String REDACTED = "REDACTED";
+
+    private static final Set<String> SKIPPED_HEADERS = Set.of("set-cookie", "content-encoding", "content-length",
+            "transfer-encoding");
+
+    // The open recorders, by normalized path of their file; guarded by itself
+    private static final Map<Path, SSEStreamRecorder> RECORDERS = new HashMap<>();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final AtomicInteger streamIds = new AtomicInteger();
+
+    // The number of connections the recorder was opened for, and not yet closed; guarded by RECORDERS
+    private int references;
+
+    private volatile boolean failed;
+
+    private SSEStreamRecorder(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a log to append recorded responses to, creating it if needed. A log that is already open, under the same
+     * normalized path, is shared rather than opened again; each call must be matched by a call to {@link #close()}.
+     *
+     * @param file the log file
+     * @return the recorder
+     * @throws IOException if the file cannot be opened, or is not a stream log
+     */
+    static SSEStreamRecorder open(Path file) throws IOException {
+        Path normalized = file.toAbsolutePath().normalize();
+        synchronized (RECORDERS) {
+            SSEStreamRecorder recorder = RECORDERS.get(normalized);
+            if (recorder == null) {
+                recorder = create(normalized);
+                RECORDERS.put(normalized, recorder);
+            }
+            recorder.references++;
+            return recorder;
+        }
+    }
+
+    private static SSEStreamRecorder create(Path file) throws IOException {
+        if (Files.isRegularFile(file) && Files.size(file) > 0 && !SSEStreamLog.hasMagic(file)) {
+            throw new IOException("Not an SSE stream log: " + file);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        try {
+            if (channel.size() == 0) {
+                write(channel, ByteBuffer.wrap(SSEStreamLog.MAGIC));
+            }
+            ByteBuffer session = header(SSEStreamLog.SESSION, 0, 0, Long.BYTES);
+            write(channel, session.putLong(System.currentTimeMillis()).flip());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new SSEStreamRecorder(file, channel);
+    }
+
+    /**
+     * Wraps the given body handler, so that the response it handles is recorded.
+     *
+     * @param request the request the response is for, whose redacted URI is recorded
+     * @param handler the body handler
+     * @param <T>     the response body type
+     * @return the recording body handler
+     */
+    <T> HttpResponse.BodyHandler<T> recording(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        if (failed) {
+            return handler;
+        }
+        int streamId = streamIds.incrementAndGet();
+        long startNanos = System.nanoTime();
+        return responseInfo -> {
+            HttpResponse.BodySubscriber<T> downstream = handler.apply(responseInfo);
+            if (failed) {
+                return downstream;
+            }
+            writeOpen(streamId, System.nanoTime() - startNanos, request.uri(), responseInfo);
+            return new Recording<>(downstream, streamId, startNanos);
+        };
+    }
+
+    /**
+     * Releases the log, and closes it once every connection it was opened for released it.
+     */
+    @Override
+    public void close() {
+        synchronized (RECORDERS) {
+            if (references == 0 || --references > 0) {
+                return;
+            }
+            RECORDERS.remove(file, this);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close the SSE stream log {}", file, e);
+        }
+    }
+
+    /**
+     * Redacts the secrets of a URI: the values of its secret query parameters, and its user information.
+     *
+     * @param uri the URI
+     * @return the URI, with its secrets replaced by {@value #REDACTED}
+     */
+    static String redact(URI uri) {
+        String query = uri.getRawQuery();
+        String target = uri.toString();
+        if (uri.getRawUserInfo() != null) {
+            target = target.replace(uri.getRawUserInfo() + '@', REDACTED + '@');
+        }
+        if (query == null || query.isEmpty()) {
+            return target;
+        }
+        StringBuilder redacted = new StringBuilder(query.length());
+        for (String pair : query.split("&")) {
+            if (redacted.length() > 0) {
+                redacted.append('&');
+            }
+            int separator = pair.indexOf('=');
+            String name = separator >= 0 ? pair.substring(0, separator) : pair;
+            String decoded = URLDecoder.decode(name, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+            redacted.append(separator >= 0 && SECRET_PARAMETERS.contains(decoded) ? name + '=' + REDACTED : pair);
+        }
+        int start = target.indexOf('?');
+        int end = target.indexOf('#', start);
+        return target.substring(0, start + 1) + redacted + (end >= 0 ? target.substring(end) : "");
+    }
+
+    private void writeOpen(int streamId, long nanos, URI uri, HttpResponse.ResponseInfo info) {
+        List<byte[]> fields = new ArrayList<>();
+        fields.add(redact(uri).getBytes(StandardCharsets.UTF_8));
+        for (Map.Entry<String, List<String>> header : info.headers().map().entrySet()) {
+            if (SKIPPED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                fields.add(header.getKey().getBytes(StandardCharsets.UTF_8));
+                fields.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int length = Long.BYTES + Integer.BYTES * 2;
+        for (byte[] field : fields) {
+            length += Integer.BYTES + field.length;
+        }
+        ByteBuffer record = header(SSEStreamLog.OPEN, streamId, nanos, length);
+        record.putLong(System.currentTimeMillis()).putInt(info.statusCode()).putInt((fields.size() - 1) / 2);
+        for (byte[] field : fields) {
+            record.putInt(field.length).put(field);
+        }
+        append(record.flip());
+    }
+
+    private void writeData(int streamId, long nanos, List<ByteBuffer> chunks) {
+        int length = 0;
+        for (ByteBuffer chunk : chunks) {
+            length += chunk.remaining();
+        }
+        // The chunks are written as they are, after the header, without being copied
+        ByteBuffer[] record = new ByteBuffer[chunks.size() + 1];
+        record[0] = header(SSEStreamLog.DATA, streamId, nanos, Integer.BYTES).putInt(length).flip();
+        for (int i = 0; i < chunks.size(); i++) {
+            record[i + 1] = chunks.get(i).duplicate();
+        }
+        append(record);
+    }
+
+    private void writeClose(int streamId, long nanos, byte outcome) {
+        ByteBuffer record = header(SSEStreamLog.CLOSE, streamId, nanos, 1);
+        append(record.put(outcome).flip());
+    }
+
+    private static ByteBuffer header(byte type, int streamId, long nanos, int length) {
+        return ByteBuffer.allocate(SSEStreamLog.RECORD_HEADER_SIZE + length)
+                .put(type).putInt(streamId).putLong(nanos);
+    }
+
+    private void append(ByteBuffer... buffers) {
+        if (failed) {
+            return;
+        }
+        try {
+            synchronized (channel) {
+                write(channel, buffers);
+            }
+        } catch (IOException e) {
+            failed = true;
+            LOGGER.warn("Failed to write to the SSE stream log {}; responses are no longer recorded", file, e);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer... buffers) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    /**
+     * Records the body of a response, handing it over to the body subscriber of the request unchanged.
+     */
+    private final class Recording<T> implements HttpResponse.BodySubscriber<T>, SSEContentDecoder.Listener {
+
+        private final HttpResponse.BodySubscriber<T> downstream;
+        private final int streamId;
+        private final long startNanos;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Recording(HttpResponse.BodySubscriber<T> downstream, int streamId, long startNanos) {
+            this.downstream = downstream;
+            this.streamId = streamId;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    close(SSEStreamLog.CANCELLED);
+                    subscription.cancel();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> chunks) {
+            if (!closed.get()) {
+                writeData(streamId, System.nanoTime() - startNanos, chunks);
+            }
+            downstream.onNext(chunks);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            close(SSEStreamLog.FAILED);
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            close(SSEStreamLog.COMPLETED);
+            downstream.onComplete();
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onCompressedBytes(int bytes) {
+            if (downstream instanceof SSEContentDecoder.Listener) {
+                ((SSEContentDecoder.Listener) downstream).onCompressedBytes(bytes);
+            }
+        }
+
+        private void close(byte outcome) {
+            if (closed.compareAndSet(false, true)) {
+                writeClose(streamId, System.nanoTime() - startNanos, outcome);
+            }
+        }
+    }
+}
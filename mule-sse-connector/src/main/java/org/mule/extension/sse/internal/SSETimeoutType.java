@@ -0,0 +1,22 @@
+package org.mule.extension.sse.internal;
+
+/**
+ * Identifies the timeout that cut an SSE response short.
+ */
+public enum SSETimeoutType {
+
+    /**
+     * No event was received within the time-to-first-event timeout, counted from the moment the request was sent.
+     */
+    FIRST_EVENT,
+
+    /**
+     * No event was received within the idle timeout since the previous event.
+     */
+    IDLE,
+
+    /**
+     * The response was not complete within the response timeout, or within the deadline of the operation.
+     */
+    TOTAL
+}
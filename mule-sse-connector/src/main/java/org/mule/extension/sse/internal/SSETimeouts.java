@@ -0,0 +1,191 @@
+package org.mule.extension.sse.internal;
+
+import java.net.http.HttpRequest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The time-to-first-event, idle and total timeouts of an SSE exchange, and the watchdog that enforces them.
+ * <p>
+ * Rather than re-arming a timer on every event, the watchdog wakes up when the earliest timeout could expire,
+ * checks the progress of the exchange, and goes back to sleep until the next one could; an exchange therefore costs
+ * at most one scheduled task per idle period. The tasks run on the shared scheduler of
+ * {@link CompletableFuture#delayedExecutor}, and only do bookkeeping.
+ * <p>
+ * Instances are immutable and thread-safe. A timeout of {@code 0} or less is disabled.
+ */
+final class SSETimeouts {
+
+    /**
+     * The progress of an exchange, as seen by the watchdog.
+     */
+    interface Progress {
+
+        /**
+         * Returns when the request was sent.
+         *
+         * @return a {@link System#nanoTime()} value
+         */
+        long getStartNanos();
+
+        /**
+         * Returns when the last event was received, whether it was kept or skipped by the filters.
+         *
+         * @return a {@link System#nanoTime()} value, or {@code -1} if no event was received yet
+         */
+        long getLastEventNanos();
+
+        /**
+         * Tells whether the exchange is over, in which case the watchdog stops.
+         *
+         * @return {@code true} if the response is complete, failed or was aborted
+         */
+        boolean isDone();
+    }
+
+    private final long firstEventNanos;
+    private final long idleNanos;
+    private final long totalNanos;
+
+    /**
+     * Creates a new set of timeouts.
+     *
+     * @param firstEventMillis the time-to-first-event timeout, in milliseconds
+     * @param idleMillis       the idle timeout between events, in milliseconds
+     * @param totalMillis      the total timeout of the exchange, in milliseconds
+     */
+    SSETimeouts(long firstEventMillis, long idleMillis, long totalMillis) {
+        this.firstEventNanos = toNanos(firstEventMillis);
+        this.idleNanos = toNanos(idleMillis);
+        this.totalNanos = toNanos(totalMillis);
+    }
+
+    /**
+     * Returns the timeouts of the given configuration.
+     *
+     * @param config the configuration
+     * @return the timeouts
+     */
+    static SSETimeouts of(SSEConfiguration config) {
+        return new SSETimeouts(config.getFirstEventTimeout(), config.getIdleTimeout(), config.getResponseTimeout());
+    }
+
+    /**
+     * Returns the timeouts of a request of the given configuration: those derived from the latencies of its
+     * endpoint if adaptive timeouts are enabled, the configured ones otherwise.
+     *
+     * @param config  the configuration
+     * @param request the request; {@code null} for the configured timeouts
+     * @return the timeouts
+     */
+    static SSETimeouts of(SSEConfiguration config, HttpRequest request) {
+        SSEAdaptiveTimeouts adaptiveTimeouts = config.getAdaptiveTimeouts();
+        return adaptiveTimeouts != null && request != null ? adaptiveTimeouts.timeouts(request.uri()) : of(config);
+    }
+
+    /**
+     * Returns these timeouts with another total timeout.
+     *
+     * @param totalMillis the total timeout, in milliseconds
+     * @return the new timeouts
+     */
+    SSETimeouts withTotal(long totalMillis) {
+        return new SSETimeouts(firstEventNanos / 1_000_000, idleNanos / 1_000_000, totalMillis);
+    }
+
+    /**
+     * Returns these timeouts for an exchange that starts later than the one they were meant for, e.g. a hedge: the
+     * total timeout is reduced by the time already spent.
+     *
+     * @param elapsedNanos the time already spent, in nanoseconds
+     * @return the new timeouts, or {@code null} if the total timeout has already expired
+     */
+    SSETimeouts after(long elapsedNanos) {
+        if (totalNanos == 0) {
+            return this;
+        }
+        long remainingNanos = totalNanos - elapsedNanos;
+        return remainingNanos > 0 ? withTotal((remainingNanos + 999_999) / 1_000_000) : null;
+    }
+
+    /**
+     * Returns when the total timeout of an exchange expires.
+     *
+     * @param startNanos when the request was sent, as a {@link System#nanoTime()} value
+     * @return a {@link System#nanoTime()} value, far in the future if there is no total timeout
+     */
+    long deadlineNanos(long startNanos) {
+        return startNanos + (totalNanos > 0 ? totalNanos : Long.MAX_VALUE >> 1);
+    }
+
+    /**
+     * Watches the given exchange until it is over, calling {@code onExpired} once with the first timeout that
+     * expires, if any.
+     *
+     * @param progress  the progress of the exchange
+     * @param onExpired aborts the exchange
+     */
+    void watch(Progress progress, Consumer<SSETimeoutType> onExpired) {
+        if (firstEventNanos == 0 && idleNanos == 0 && totalNanos == 0) {
+            return;
+        }
+        schedule(progress, onExpired, nextCheckNanos(progress, System.nanoTime()));
+    }
+
+    private void schedule(Progress progress, Consumer<SSETimeoutType> onExpired, long delayNanos) {
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS)
+                .execute(() -> check(progress, onExpired));
+    }
+
+    private void check(Progress progress, Consumer<SSETimeoutType> onExpired) {
+        if (progress.isDone()) {
+            return;
+        }
+        long now = System.nanoTime();
+        SSETimeoutType expired = expired(progress, now);
+        if (expired != null) {
+            onExpired.accept(expired);
+        } else {
+            schedule(progress, onExpired, nextCheckNanos(progress, now));
+        }
+    }
+
+    private SSETimeoutType expired(Progress progress, long now) {
+        long start = progress.getStartNanos();
+        if (totalNanos > 0 && now - start >= totalNanos) {
+            return SSETimeoutType.TOTAL;
+        }
+        long lastEvent = progress.getLastEventNanos();
+        if (lastEvent < 0) {
+            return firstEventNanos > 0 && now - start >= firstEventNanos ? SSETimeoutType.FIRST_EVENT : null;
+        }
+        return idleNanos > 0 && now - lastEvent >= idleNanos ? SSETimeoutType.IDLE : null;
+    }
+
+    private long nextCheckNanos(Progress progress, long now) {
+        long start = progress.getStartNanos();
+        long lastEvent = progress.getLastEventNanos();
+        long next = Long.MAX_VALUE;
+        if (totalNanos > 0) {
+            next = Math.min(next, start + totalNanos - now);
+        }
+        if (lastEvent < 0 && firstEventNanos > 0) {
+            next = Math.min(next, start + firstEventNanos - now);
+            if (idleNanos > 0) {
+                // The first event may arrive before then, and start the idle timeout
+                next = Math.min(next, idleNanos);
+            }
+        } else if (lastEvent >= 0 && idleNanos > 0) {
+            next = Math.min(next, lastEvent + idleNanos - now);
+        } else if (idleNanos > 0) {
+            // The idle timeout starts with the first event: look again one idle period from now
+            next = Math.min(next, idleNanos);
+        }
+        return Math.max(next, 1_000_000L);
+    }
+
+    private static long toNanos(long millis) {
+        return millis > 0 ? TimeUnit.MILLISECONDS.toNanos(millis) : 0;
+    }
+}
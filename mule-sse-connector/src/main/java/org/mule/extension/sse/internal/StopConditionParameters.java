@@ -0,0 +1,170 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.Map;
+
+import static java.util.Collections.emptyMap;
+
+/**
+ * Represents the early termination conditions of the SSE operations.
+ * <p>
+ * By default, the operations read events until the SSE server closes the connection or the response timeout is
+ * exceeded. When any of the conditions below is met, the connector stops reading, aborts the HTTP exchange and
+ * returns the events received so far, which frees the connection sooner and cuts the latency of the flow.
+ */
+public class StopConditionParameters {
+
+    /**
+     * The type of the event that marks the end of the useful part of the stream, e.g. {@code end}.
+     * <p>
+     * Optional; the event itself is included in the result, unless it is skipped by the event type filters of the
+     * request, in which case it still ends the stream.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Terminal event type")
+    @Summary("Stop reading once an event of this type has been received; the event is included in the result.")
+    private String terminalEventType;
+
+    /**
+     * The maximum number of events to keep per event type, e.g. {@code {"search_result": 3}}.
+     * <p>
+     * Optional; events of a listed type beyond its maximum are discarded, and the connector stops reading once
+     * every listed type has reached its maximum. Each maximum must be at least {@code 1}.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Max events per type")
+    @Summary("Maximum number of events to keep per event type; reading stops once every listed type has reached its maximum.")
+    private Map<String, Integer> maxEventsPerType = emptyMap();
+
+    /**
+     * The maximum number of response body bytes to read.
+     * <p>
+     * Optional; defaults to {@code 0}, meaning no limit. Events that are complete when the limit is reached are
+     * included in the result.
+     */
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Max total bytes")
+    @Summary("Stop reading once this many bytes of the response body have been read (default: 0, no limit).")
+    private long maxTotalBytes;
+
+    /**
+     * A JSON pointer, e.g. {@code /search_result_count}, evaluated against the {@code data} of every event.
+     * <p>
+     * Optional; the connector stops reading once the pointer resolves to a value, or to the value of
+     * {@link #stopWhenDataEquals} if provided. The matching event is included in the result. Only the events kept
+     * by the event type filters of the request are evaluated, after the data projection, if any.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Stop when data pointer")
+    @Summary("JSON pointer evaluated against the data of every event; reading stops once it resolves (to the expected value, if provided).")
+    private String stopWhenDataPointer;
+
+    /**
+     * The value that {@link #stopWhenDataPointer} must resolve to, compared as a string.
+     * <p>
+     * Optional; ignored if no pointer is provided.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Stop when data equals")
+    @Summary("Expected value, compared as a string, of the data pointer.")
+    private String stopWhenDataEquals;
+
+    /**
+     * Returns the type of the event that ends the stream.
+     *
+     * @return the terminal event type, or {@code null}
+     */
+    public String getTerminalEventType() {
+        return terminalEventType;
+    }
+
+    /**
+     * Sets the type of the event that ends the stream.
+     *
+     * @param terminalEventType the terminal event type
+     */
+    public void setTerminalEventType(String terminalEventType) {
+        this.terminalEventType = terminalEventType;
+    }
+
+    /**
+     * Returns the maximum number of events to keep per event type.
+     *
+     * @return a map of event types and maximum counts
+     */
+    public Map<String, Integer> getMaxEventsPerType() {
+        return maxEventsPerType;
+    }
+
+    /**
+     * Sets the maximum number of events to keep per event type.
+     *
+     * @param maxEventsPerType a map of event types and maximum counts
+     */
+    public void setMaxEventsPerType(Map<String, Integer> maxEventsPerType) {
+        this.maxEventsPerType = maxEventsPerType;
+    }
+
+    /**
+     * Returns the maximum number of response body bytes to read.
+     *
+     * @return the maximum number of bytes, or {@code 0} for no limit
+     */
+    public long getMaxTotalBytes() {
+        return maxTotalBytes;
+    }
+
+    /**
+     * Sets the maximum number of response body bytes to read.
+     *
+     * @param maxTotalBytes the maximum number of bytes, or {@code 0} for no limit
+     */
+    public void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    /**
+     * Returns the JSON pointer evaluated against the data of every event.
+     *
+     * @return the JSON pointer, or {@code null}
+     */
+    public String getStopWhenDataPointer() {
+        return stopWhenDataPointer;
+    }
+
+    /**
+     * Sets the JSON pointer evaluated against the data of every event.
+     *
+     * @param stopWhenDataPointer the JSON pointer
+     */
+    public void setStopWhenDataPointer(String stopWhenDataPointer) {
+        this.stopWhenDataPointer = stopWhenDataPointer;
+    }
+
+    /**
+     * Returns the value the data pointer must resolve to.
+     *
+     * @return the expected value, or {@code null}
+     */
+    public String getStopWhenDataEquals() {
+        return stopWhenDataEquals;
+    }
+
+    /**
+     * Sets the value the data pointer must resolve to.
+     *
+     * @param stopWhenDataEquals the expected value
+     */
+    public void setStopWhenDataEquals(String stopWhenDataEquals) {
+        this.stopWhenDataEquals = stopWhenDataEquals;
+    }
+}
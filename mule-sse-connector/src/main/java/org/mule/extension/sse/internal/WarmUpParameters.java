@@ -0,0 +1,170 @@
+package org.mule.extension.sse.internal;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Represents the connection warm-up settings of a configuration.
+ * <p>
+ * When enabled, connections to the SSE server are opened, and their TLS handshake completed, as soon as the
+ * configuration starts, by sending {@code HEAD} requests to the base URL: the first {@code Get Events} request does
+ * not pay for DNS resolution and the TCP and TLS handshakes. The connections are then kept warm by sending the same
+ * requests again whenever the configuration has not used them for the keep-alive interval, until it has been idle
+ * for the max idle time: the connections are then left to be closed by the HTTP client, and warmed up again by the
+ * next request.
+ * <p>
+ * Over HTTP/2, the streams of a configuration are multiplexed over a single connection per server, so a single
+ * connection is opened, with a single request, whatever the number of warm connections: the number of warm
+ * connections only applies to HTTP/1.1.
+ */
+public class WarmUpParameters {
+
+    /**
+     * Whether connections are opened when the configuration starts and kept warm.
+     * <p>
+     * Optional; defaults to {@code false}.
+     */
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable warm-up")
+    @Summary("Open connections to the SSE server, and complete their TLS handshake, when the configuration starts, then keep them warm (default: false).")
+    private boolean enabled;
+
+    /**
+     * The number of connections opened and kept warm over HTTP/1.1; over HTTP/2, a single connection is.
+     * <p>
+     * Optional; defaults to {@code 2}.
+     */
+    @Parameter
+    @Optional(defaultValue = "2")
+    @DisplayName("Warm connections")
+    @Summary("Number of connections opened when the configuration starts and kept warm, over HTTP/1.1 only; HTTP/2 uses a single one (default: 2).")
+    private int warmConnections;
+
+    /**
+     * The path, relative to the base URL, the warm-up requests are sent to.
+     * <p>
+     * Optional; defaults to the base URL itself. Any response, including an error, warms the connection up; a path
+     * answered cheaply by the server, such as a health check, is best.
+     */
+    @Parameter
+    @Optional
+    @DisplayName("Warm-up path")
+    @Summary("Path, relative to the base URL, the HEAD requests that open and keep the connections warm are sent to (default: the base URL).")
+    private String warmUpPath;
+
+    /**
+     * The time, in milliseconds, after which unused connections are sent a request to keep them open.
+     * <p>
+     * Optional; defaults to 30,000 ms, shorter than the idle timeout of most servers and load balancers. {@code 0}
+     * only warms the connections up when the configuration starts.
+     */
+    @Parameter
+    @Optional(defaultValue = "30000")
+    @DisplayName("Keep-alive interval")
+    @Summary("Time in milliseconds after which unused connections are sent a request to keep them open; 0 only warms them up at start (default: 30,000 milliseconds).")
+    private long keepAliveInterval;
+
+    /**
+     * The time, in milliseconds, without any request after which connections are no longer kept warm.
+     * <p>
+     * Optional; defaults to 300,000 ms. {@code 0} keeps them warm for as long as the configuration is started.
+     */
+    @Parameter
+    @Optional(defaultValue = "300000")
+    @DisplayName("Max idle time")
+    @Summary("Time in milliseconds without any request after which connections are no longer kept warm and are left to close; 0 means never (default: 300,000 milliseconds).")
+    private long maxIdleTime;
+
+    /**
+     * Returns whether connections are opened when the configuration starts and kept warm.
+     *
+     * @return {@code true} if warm-up is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether connections are opened when the configuration starts and kept warm.
+     *
+     * @param enabled {@code true} to enable warm-up
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the number of connections opened and kept warm.
+     *
+     * @return the number of warm connections
+     */
+    public int getWarmConnections() {
+        return warmConnections;
+    }
+
+    /**
+     * Sets the number of connections opened and kept warm.
+     *
+     * @param warmConnections the number of warm connections
+     */
+    public void setWarmConnections(int warmConnections) {
+        this.warmConnections = warmConnections;
+    }
+
+    /**
+     * Returns the path the warm-up requests are sent to.
+     *
+     * @return the path, relative to the base URL, or {@code null} for the base URL itself
+     */
+    public String getWarmUpPath() {
+        return warmUpPath;
+    }
+
+    /**
+     * Sets the path the warm-up requests are sent to.
+     *
+     * @param warmUpPath the path, relative to the base URL
+     */
+    public void setWarmUpPath(String warmUpPath) {
+        this.warmUpPath = warmUpPath;
+    }
+
+    /**
+     * Returns the time after which unused connections are sent a request to keep them open.
+     *
+     * @return the keep-alive interval in milliseconds, or {@code 0} to only warm up at start
+     */
+    public long getKeepAliveInterval() {
+        return keepAliveInterval;
+    }
+
+    /**
+     * Sets the time after which unused connections are sent a request to keep them open.
+     *
+     * @param keepAliveInterval the keep-alive interval in milliseconds
+     */
+    public void setKeepAliveInterval(long keepAliveInterval) {
+        this.keepAliveInterval = keepAliveInterval;
+    }
+
+    /**
+     * Returns the time without any request after which connections are no longer kept warm.
+     *
+     * @return the max idle time in milliseconds, or {@code 0} for no limit
+     */
+    public long getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    /**
+     * Sets the time without any request after which connections are no longer kept warm.
+     *
+     * @param maxIdleTime the max idle time in milliseconds
+     */
+    public void setMaxIdleTime(long maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+}
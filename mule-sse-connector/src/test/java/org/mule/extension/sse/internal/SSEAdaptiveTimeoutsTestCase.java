@@ -0,0 +1,189 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SSEAdaptiveTimeoutsTestCase {
+
+    private static final URI SEARCH = URI.create("https://example.com/v1/search?q=shoes");
+
+    private final AdaptiveTimeoutParameters parameters = new AdaptiveTimeoutParameters();
+    private SSEAdaptiveTimeouts timeouts;
+
+    @Before
+    public void setUp() {
+        parameters.setEnabled(true);
+        parameters.setPercentile(50);
+        parameters.setMinSamples(10);
+        timeouts = new SSEAdaptiveTimeouts(parameters, configuration(5_000, 2_000, 30_000));
+    }
+
+    @Test
+    public void usesTheConfiguredTimeoutsUntilEnoughExchanges() {
+        record(SEARCH, 9, 100, 40, 200);
+
+        assertTimeouts(5_000, 2_000, 30_000, snapshot());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(30_000), timeouts.timeouts(SEARCH).deadlineNanos(0));
+    }
+
+    @Test
+    public void derivesThePercentilePlusTheHeadroom() {
+        parameters.setHeadroomPercentage(50);
+        record(SEARCH, 10, 100, 40, 200);
+
+        SSEAdaptiveTimeoutSnapshot derived = snapshot();
+
+        assertBetween(150, 169, derived.getFirstEventTimeout());
+        assertBetween(60, 68, derived.getIdleTimeout());
+        assertBetween(300, 338, derived.getResponseTimeout());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(derived.getResponseTimeout()),
+                timeouts.timeouts(SEARCH).deadlineNanos(0));
+    }
+
+    @Test
+    public void tracksEveryEndpointOnItsOwn() {
+        record(SEARCH, 10, 100, 40, 200);
+
+        URI other = URI.create("https://example.com/v1/browse");
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(30_000), timeouts.timeouts(other).deadlineNanos(0));
+        assertEquals(1, timeouts.snapshot().size());
+        assertEquals("/v1/search", SSEAdaptiveTimeouts.endpointOf(SEARCH));
+        assertEquals("/", SSEAdaptiveTimeouts.endpointOf(URI.create("https://example.com")));
+    }
+
+    @Test
+    public void boundsTheDerivedTimeouts() {
+        parameters.setMinTimeout(120);
+        parameters.setMaxTimeout(10_000);
+        timeouts = new SSEAdaptiveTimeouts(parameters, configuration(5_000, 0, 150));
+        record(SEARCH, 10, 100, 40, 20_000);
+
+        SSEAdaptiveTimeoutSnapshot derived = snapshot();
+
+        // Never below the minimum, nor above the configured timeout
+        assertEquals(120, derived.getFirstEventTimeout());
+        assertEquals(120, derived.getIdleTimeout());
+        assertEquals(150, derived.getResponseTimeout());
+
+        // Without a configured timeout, the maximum applies
+        timeouts = new SSEAdaptiveTimeouts(parameters, configuration(5_000, 0, 0));
+        record(SEARCH, 10, 100, 40, 20_000);
+        assertEquals(10_000, snapshot().getResponseTimeout());
+    }
+
+    @Test
+    public void recordsAbortedExchangesWithTheTimeTheyWereGiven() {
+        for (int i = 0; i < 10; i++) {
+            timeouts.record(SEARCH, attributes(200, -1, -1, 1_000, SSETimeoutType.FIRST_EVENT, false));
+        }
+
+        assertBetween(1_000, 1_125, snapshot().getFirstEventTimeout());
+        // No gap was observed
+        assertEquals(2_000, snapshot().getIdleTimeout());
+    }
+
+    @Test
+    public void ignoresErrorAndCachedResponses() {
+        for (int i = 0; i < 10; i++) {
+            timeouts.record(SEARCH, attributes(503, 100, 40, 200, null, false));
+            timeouts.record(SEARCH, attributes(200, 100, 40, 200, null, true));
+        }
+
+        assertTrue(timeouts.snapshot().isEmpty());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(30_000), timeouts.timeouts(SEARCH).deadlineNanos(0));
+    }
+
+    @Test
+    public void followsTheLastFullWindowUntilTheNewOneHasEnoughExchanges() {
+        record(SEARCH, SSEAdaptiveTimeouts.WINDOW, 100, 40, 200);
+        assertBetween(100, 113, snapshot().getFirstEventTimeout());
+
+        record(SEARCH, 9, 1_000, 40, 2_000);
+        assertBetween(100, 113, snapshot().getFirstEventTimeout());
+
+        record(SEARCH, 1, 1_000, 40, 2_000);
+        assertBetween(1_000, 1_125, snapshot().getFirstEventTimeout());
+        assertEquals(SSEAdaptiveTimeouts.WINDOW + 10, snapshot().getSampleCount());
+    }
+
+    @Test
+    public void tracksAtMostTheMaximumNumberOfEndpoints() {
+        for (int i = 0; i < SSEAdaptiveTimeouts.MAX_ENDPOINTS; i++) {
+            record(URI.create("https://example.com/" + i), 1, 100, 40, 200);
+        }
+
+        record(SEARCH, 10, 100, 40, 200);
+
+        assertEquals(SSEAdaptiveTimeouts.MAX_ENDPOINTS, timeouts.snapshot().size());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(30_000), timeouts.timeouts(SEARCH).deadlineNanos(0));
+    }
+
+    @Test
+    public void snapshotsTheObservedLatencies() {
+        record(SEARCH, 10, 100, 40, 200);
+
+        SSEAdaptiveTimeoutSnapshot snapshot = snapshot();
+
+        assertEquals(10, snapshot.getSampleCount());
+        assertTrue(snapshot.getTimeToFirstEvent() >= 100 && snapshot.getTimeToFirstEvent() < 113);
+        assertTrue(snapshot.getMaxEventGap() >= 40 && snapshot.getMaxEventGap() < 45);
+        assertTrue(snapshot.getTotalDuration() >= 200 && snapshot.getTotalDuration() < 225);
+    }
+
+    private void record(URI uri, int count, long firstEventMillis, long maxEventGapMillis, long totalMillis) {
+        for (int i = 0; i < count; i++) {
+            timeouts.record(uri, attributes(200, firstEventMillis, maxEventGapMillis, totalMillis, null, false));
+        }
+    }
+
+    private SSEAdaptiveTimeoutSnapshot snapshot() {
+        return timeouts.snapshot().get("/v1/search");
+    }
+
+    private static SSEResponseAttributes attributes(int statusCode, long firstEventMillis, long maxEventGapMillis,
+                                                    long totalMillis, SSETimeoutType expiredTimeout,
+                                                    boolean fromCache) {
+        return new SSEResponseAttributes(statusCode, new HashMap<>(), 1, 1, firstEventMillis, totalMillis,
+                maxEventGapMillis, 0, 0, new HashMap<>(), 0, 0, expiredTimeout, null, 0, 0, 0, fromCache);
+    }
+
+    private static void assertTimeouts(long firstEvent, long idle, long total, SSEAdaptiveTimeoutSnapshot snapshot) {
+        assertEquals(firstEvent, snapshot.getFirstEventTimeout());
+        assertEquals(idle, snapshot.getIdleTimeout());
+        assertEquals(total, snapshot.getResponseTimeout());
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(min + " <= " + actual + " <= " + max, actual >= min && actual <= max);
+    }
+
+    /**
+     * Creates a configuration with the given timeouts; like the Mule SDK does, the parameters are injected into their
+     * fields.
+     */
+    private static SSEConfiguration configuration(long firstEventTimeout, long idleTimeout, long responseTimeout) {
+        SSEConfiguration config = new SSEConfiguration();
+        inject(config, "firstEventTimeout", firstEventTimeout);
+        inject(config, "idleTimeout", idleTimeout);
+        inject(config, "responseTimeout", responseTimeout);
+        return config;
+    }
+
+    private static void inject(SSEConfiguration config, String fieldName, Object value) {
+        try {
+            Field field = SSEConfiguration.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(config, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
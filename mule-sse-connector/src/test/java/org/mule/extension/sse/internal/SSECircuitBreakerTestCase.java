@@ -0,0 +1,130 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mule.extension.sse.internal.SSECircuitBreaker.State.CLOSED;
+import static org.mule.extension.sse.internal.SSECircuitBreaker.State.HALF_OPEN;
+import static org.mule.extension.sse.internal.SSECircuitBreaker.State.OPEN;
+
+public class SSECircuitBreakerTestCase {
+
+    private final SSEMetrics metrics = new SSEMetrics();
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        SSECircuitBreaker breaker = breaker(60_000, 1);
+
+        fail(breaker);
+        fail(breaker);
+        assertEquals(CLOSED, breaker.getState());
+        fail(breaker);
+
+        assertEquals(OPEN, breaker.getState());
+        assertEquals(OPEN.name(), metrics.getCircuitState());
+        assertNull(breaker.tryAcquire());
+        assertEquals(1, metrics.getCircuitRejectedCount());
+    }
+
+    @Test
+    public void successResetsTheFailureCount() {
+        SSECircuitBreaker breaker = breaker(60_000, 1);
+
+        fail(breaker);
+        fail(breaker);
+        breaker.onSuccess(breaker.tryAcquire());
+        fail(breaker);
+        fail(breaker);
+
+        assertEquals(CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void closesOnceEveryProbeSucceeds() {
+        SSECircuitBreaker breaker = open(breaker(0, 2));
+
+        SSECircuitBreaker.State first = breaker.tryAcquire();
+        SSECircuitBreaker.State second = breaker.tryAcquire();
+        assertEquals(HALF_OPEN, first);
+        assertEquals(HALF_OPEN, second);
+        assertNull(breaker.tryAcquire());
+
+        breaker.onSuccess(first);
+        assertEquals(HALF_OPEN, breaker.getState());
+        // The successful probe still counts: no other request is let through
+        assertNull(breaker.tryAcquire());
+
+        breaker.onSuccess(second);
+        assertEquals(CLOSED, breaker.getState());
+        assertEquals(CLOSED, breaker.tryAcquire());
+    }
+
+    @Test
+    public void reopensWhenAProbeFails() {
+        SSECircuitBreaker breaker = open(breaker(0, 2));
+        SSECircuitBreaker.State probe = breaker.tryAcquire();
+
+        breaker.onFailure(probe);
+
+        assertEquals(OPEN, breaker.getState());
+    }
+
+    @Test
+    public void staysOpenForTheOpenDuration() throws InterruptedException {
+        SSECircuitBreaker breaker = open(breaker(100, 1));
+        assertNull(breaker.tryAcquire());
+
+        Thread.sleep(150);
+
+        assertEquals(HALF_OPEN, breaker.tryAcquire());
+    }
+
+    @Test
+    public void releasedProbeFreesItsSlot() {
+        SSECircuitBreaker breaker = open(breaker(0, 1));
+        SSECircuitBreaker.State probe = breaker.tryAcquire();
+        assertNull(breaker.tryAcquire());
+
+        breaker.release(probe);
+
+        assertEquals(HALF_OPEN, breaker.tryAcquire());
+    }
+
+    @Test
+    public void ignoresOutcomesOfRequestsAdmittedBeforeTheCircuitOpened() {
+        SSECircuitBreaker breaker = breaker(0, 1);
+        SSECircuitBreaker.State admitted = breaker.tryAcquire();
+        open(breaker);
+        SSECircuitBreaker.State probe = breaker.tryAcquire();
+        assertEquals(HALF_OPEN, probe);
+
+        breaker.onFailure(admitted);
+        breaker.onSuccess(admitted);
+
+        assertEquals(HALF_OPEN, breaker.getState());
+        breaker.onSuccess(probe);
+        assertEquals(CLOSED, breaker.getState());
+    }
+
+    private SSECircuitBreaker breaker(long openDuration, int halfOpenProbes) {
+        CircuitBreakerParameters parameters = new CircuitBreakerParameters();
+        parameters.setEnabled(true);
+        parameters.setFailureThreshold(3);
+        parameters.setOpenDuration(openDuration);
+        parameters.setHalfOpenProbes(halfOpenProbes);
+        return new SSECircuitBreaker(parameters, metrics);
+    }
+
+    private static SSECircuitBreaker open(SSECircuitBreaker breaker) {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure(CLOSED);
+        }
+        assertEquals(OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static void fail(SSECircuitBreaker breaker) {
+        breaker.onFailure(breaker.tryAcquire());
+    }
+}
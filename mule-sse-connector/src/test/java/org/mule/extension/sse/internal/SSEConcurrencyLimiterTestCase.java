@@ -0,0 +1,125 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SSEConcurrencyLimiterTestCase {
+
+    private final SSEMetrics metrics = new SSEMetrics();
+
+    @Test
+    public void rejectsRequestsAboveTheFixedLimit() {
+        SSEConcurrencyLimiter limiter = limiter(2, false);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, metrics.getBulkheadRejectedCount());
+
+        limiter.release(10, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void fixedLimitDoesNotAdapt() {
+        SSEConcurrencyLimiter limiter = limiter(10, false);
+
+        limiter.tryAcquire();
+        limiter.release(-1, true);
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void refusedExtraSlotIsNotARejection() {
+        SSEConcurrencyLimiter limiter = limiter(1, false);
+        assertTrue(limiter.tryAcquire());
+
+        assertFalse(limiter.tryAcquireExtra());
+
+        assertEquals(0, metrics.getBulkheadRejectedCount());
+        limiter.release(10, false);
+        assertTrue(limiter.tryAcquireExtra());
+    }
+
+    @Test
+    public void adaptiveLimitStartsAtTheInitialLimit() {
+        assertEquals(SSEConcurrencyLimiter.INITIAL_LIMIT, limiter(0, true).getLimit());
+        assertEquals(SSEConcurrencyLimiter.INITIAL_LIMIT, metrics.getConcurrencyLimit());
+    }
+
+    @Test
+    public void decreasesMultiplicativelyOnFailureOrSlowRequest() {
+        SSEConcurrencyLimiter limiter = limiter(50, true);
+
+        limiter.tryAcquire();
+        limiter.release(-1, true);
+        assertEquals(45, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.release(500, false);
+        assertEquals(41, limiter.getLimit());
+        assertEquals(41, metrics.getConcurrencyLimit());
+    }
+
+    @Test
+    public void neverDecreasesBelowTheMinimum() {
+        SSEConcurrencyLimiter limiter = limiter(4, true);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(-1, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void increasesAdditivelyOnlyWhenTheLimitIsUsed() {
+        SSEConcurrencyLimiter limiter = limiter(10, true);
+        limiter.tryAcquire();
+        limiter.release(-1, true);
+        assertEquals(9, limiter.getLimit());
+
+        // A single request in flight does not use half of the limit
+        limiter.tryAcquire();
+        limiter.release(10, false);
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+        }
+        limiter.release(10, false);
+        assertEquals(10, limiter.getLimit());
+
+        // Never above the maximum
+        limiter.release(10, false);
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void unknownTimeToFirstEventDoesNotIncreaseTheLimit() {
+        SSEConcurrencyLimiter limiter = limiter(10, true);
+        limiter.tryAcquire();
+        limiter.release(-1, true);
+        for (int i = 0; i < 9; i++) {
+            limiter.tryAcquire();
+        }
+
+        limiter.release(-1, false);
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    private SSEConcurrencyLimiter limiter(int maxRequestsInFlight, boolean adaptive) {
+        ConcurrencyLimitParameters parameters = new ConcurrencyLimitParameters();
+        parameters.setMaxRequestsInFlight(maxRequestsInFlight);
+        parameters.setAdaptive(adaptive);
+        parameters.setMinRequestsInFlight(2);
+        parameters.setLatencyThreshold(100);
+        return new SSEConcurrencyLimiter(parameters, metrics);
+    }
+}
@@ -0,0 +1,229 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SSEContentDecoderTestCase {
+
+    private static final byte[] BODY = ("event: start\ndata: {\"request_id\": \"1\"}\n\n"
+            + "event: message\ndata: {\"text\": \"hello\"}\n\n".repeat(200)
+            + "event: end\ndata: {}\n\n").getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void passesUnencodedBodiesThrough() {
+        HttpResponse.BodySubscriber<byte[]> downstream = HttpResponse.BodySubscribers.ofByteArray();
+
+        assertSame(downstream, subscriber(downstream, null));
+        assertSame(downstream, subscriber(downstream, "identity"));
+    }
+
+    @Test
+    public void decodesGzip() throws IOException {
+        assertArrayEquals(BODY, decode("gzip", gzip(BODY), BODY.length));
+    }
+
+    @Test
+    public void decodesGzipDeliveredByteByByte() throws IOException {
+        assertArrayEquals(BODY, decode("gzip", gzip(BODY), 1));
+    }
+
+    @Test
+    public void decodesConcatenatedGzipMembers() throws IOException {
+        byte[] first = "data: a\n\n".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "data: b\n\n".getBytes(StandardCharsets.UTF_8);
+
+        byte[] decoded = decode("x-gzip", concat(gzip(first), gzip(second)), 7);
+
+        assertArrayEquals(concat(first, second), decoded);
+    }
+
+    @Test
+    public void decodesZlibAndRawDeflate() throws IOException {
+        assertArrayEquals(BODY, decode("deflate", deflate(BODY, false), 5));
+        assertArrayEquals(BODY, decode("deflate", deflate(BODY, true), 5));
+    }
+
+    @Test
+    public void reportsCompressedBytes() throws IOException {
+        byte[] compressed = gzip(BODY);
+        CountingSubscriber downstream = new CountingSubscriber();
+
+        feed(subscriber(downstream, "gzip"), compressed, 64);
+
+        assertEquals(compressed.length, downstream.compressedBytes);
+        assertArrayEquals(BODY, downstream.getBody().toCompletableFuture().join());
+    }
+
+    @Test
+    public void failsOnUnsupportedEncoding() {
+        assertFailure("br", BODY, "Unsupported Content-Encoding");
+    }
+
+    @Test
+    public void failsOnTruncatedBody() throws IOException {
+        byte[] compressed = gzip(BODY);
+        byte[] truncated = new byte[compressed.length - 4];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+
+        assertFailure("gzip", truncated, "Unexpected end");
+    }
+
+    @Test
+    public void failsOnCorruptTrailer() throws IOException {
+        byte[] compressed = gzip(BODY);
+        compressed[compressed.length - 8] ^= 0x01;
+
+        assertFailure("gzip", compressed, "Corrupt gzip trailer");
+    }
+
+    private static byte[] decode(String encoding, byte[] body, int chunkSize) {
+        HttpResponse.BodySubscriber<byte[]> decoder =
+                subscriber(HttpResponse.BodySubscribers.ofByteArray(), encoding);
+        feed(decoder, body, chunkSize);
+        return decoder.getBody().toCompletableFuture().join();
+    }
+
+    private static void assertFailure(String encoding, byte[] body, String message) {
+        try {
+            decode(encoding, body, 16);
+            fail("Expected the body to fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains(message));
+        }
+    }
+
+    private static <T> HttpResponse.BodySubscriber<T> subscriber(HttpResponse.BodySubscriber<T> downstream,
+                                                                 String encoding) {
+        Map<String, List<String>> headers =
+                encoding == null ? Map.of() : Map.of("Content-Encoding", List.of(encoding));
+        HttpResponse.ResponseInfo info = new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return HttpHeaders.of(headers, (name, value) -> true);
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+        return SSEContentDecoder.decoding(responseInfo -> downstream).apply(info);
+    }
+
+    /**
+     * Delivers the body in chunks of the given size, as the client would, until the subscriber cancels.
+     */
+    private static void feed(HttpResponse.BodySubscriber<?> subscriber, byte[] body, int chunkSize) {
+        boolean[] cancelled = new boolean[1];
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+                cancelled[0] = true;
+            }
+        });
+        for (int offset = 0; offset < body.length && !cancelled[0]; offset += chunkSize) {
+            int length = Math.min(chunkSize, body.length - offset);
+            subscriber.onNext(List.of(ByteBuffer.wrap(body, offset, length).slice()));
+        }
+        if (!cancelled[0]) {
+            subscriber.onComplete();
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] body, boolean raw) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(body);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Collects the decompressed body, and counts the compressed bytes it is told about.
+     */
+    private static final class CountingSubscriber
+            implements HttpResponse.BodySubscriber<byte[]>, SSEContentDecoder.Listener {
+
+        private final HttpResponse.BodySubscriber<byte[]> body = HttpResponse.BodySubscribers.ofByteArray();
+        private int compressedBytes;
+
+        @Override
+        public void onCompressedBytes(int bytes) {
+            compressedBytes += bytes;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            body.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            body.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.onComplete();
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return body.getBody();
+        }
+    }
+}
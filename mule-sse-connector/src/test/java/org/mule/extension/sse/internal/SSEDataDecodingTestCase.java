@@ -0,0 +1,102 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SSEDataDecodingTestCase {
+
+    private static final byte[] JSON = utf8("{\"id\": 1, \"tags\": [\"a\", \"b\"]}");
+
+    @Test
+    public void javaDecodesJsonIntoMapsAndLists() {
+        Object data = SSEDataDecoding.JAVA.decode(JSON);
+
+        assertTrue(data instanceof Map);
+        Map<?, ?> map = (Map<?, ?>) data;
+        assertEquals(1, map.get("id"));
+        assertEquals(List.of("a", "b"), map.get("tags"));
+    }
+
+    @Test
+    public void javaKeepsTextAndInvalidJsonAsStrings() {
+        assertEquals("plain text", SSEDataDecoding.JAVA.decode(utf8("plain text")));
+        assertEquals("{not json", SSEDataDecoding.JAVA.decode(utf8("{not json")));
+    }
+
+    @Test
+    public void stringAndBytesDoNotParse() {
+        assertEquals(new String(JSON, StandardCharsets.UTF_8), SSEDataDecoding.STRING.decode(JSON));
+        assertSame(JSON, SSEDataDecoding.BYTES.decode(JSON));
+    }
+
+    @Test
+    public void jsonNodeDecodesJsonIntoTree() {
+        Object data = SSEDataDecoding.JSON_NODE.decode(JSON);
+
+        assertTrue(data instanceof JsonNode);
+        assertEquals(1, ((JsonNode) data).get("id").asInt());
+        assertEquals("plain text", SSEDataDecoding.JSON_NODE.decode(utf8("plain text")));
+    }
+
+    @Test
+    public void detectsJsonFromFirstNonWhitespaceByte() {
+        for (String json : new String[] {"{}", "[]", "\"s\"", "-1", "42", "true", "false", "null", "  \n{}"}) {
+            assertTrue(json, SSEDataDecoding.looksLikeJson(utf8(json)));
+        }
+        for (String text : new String[] {"", "   ", "hello", "<xml/>"}) {
+            assertFalse(text, SSEDataDecoding.looksLikeJson(utf8(text)));
+        }
+        assertFalse(SSEDataDecoding.looksLikeJson(utf8("ab{"), 2));
+    }
+
+    @Test
+    public void eventDecodesRawDataOnceOnFirstRead() {
+        SSEEvent event = new SSEEvent();
+        event.setRawData(JSON, SSEDataDecoding.JAVA);
+        assertArrayEquals(JSON, event.getRawData());
+
+        Object first = event.getData();
+
+        assertTrue(first instanceof Map);
+        assertSame(first, event.getData());
+        assertNull(event.getRawData());
+    }
+
+    @Test
+    public void settingDataDiscardsRawData() {
+        SSEEvent event = new SSEEvent();
+        event.setRawData(JSON, SSEDataDecoding.JAVA);
+
+        event.setData("replaced");
+
+        assertNull(event.getRawData());
+        assertEquals("replaced", event.getData());
+    }
+
+    @Test
+    public void parserDefersDecodingToTheSelectedMode() {
+        SSEEvent[] dispatched = new SSEEvent[1];
+        SSEEventParser parser = new SSEEventParser(event -> dispatched[0] = event, SSEDataDecoding.JSON_NODE);
+
+        parser.feed(ByteBuffer.wrap(utf8("data: {\"id\": 2}\n\n")));
+
+        assertArrayEquals(utf8("{\"id\": 2}"), dispatched[0].getRawData());
+        assertEquals(2, ((JsonNode) dispatched[0].getData()).get("id").asInt());
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,145 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SSEDataProjectionTestCase {
+
+    private static final String SEARCH = "{\"request\": {\"q\": \"shoes\"}, \"response\": {\"total\": 2, \"results\": ["
+            + "{\"data\": {\"id\": 1, \"name\": \"a\"}, \"score\": 0.9},"
+            + "{\"data\": {\"id\": 2, \"name\": \"b\"}, \"score\": 0.8}]}}";
+
+    @Test
+    public void keepsOnlyTheProjectedFieldsInTheirShape() {
+        Object projected = project(SSEDataDecoding.JAVA, "/response/total", "/request/q");
+
+        assertEquals(Map.of("request", Map.of("q", "shoes"), "response", Map.of("total", 2)), projected);
+    }
+
+    @Test
+    public void matchesEveryArrayElementWithAWildcard() {
+        Object projected = project(SSEDataDecoding.JAVA, "/response/results/*/data/name");
+
+        assertEquals(Map.of("response", Map.of("results", List.of(Map.of("data", Map.of("name", "a")),
+                Map.of("data", Map.of("name", "b"))))), projected);
+    }
+
+    @Test
+    public void matchesEveryObjectFieldWithAWildcard() {
+        Object projected = project(SSEDataDecoding.JAVA, "/*/q", "/*/total");
+
+        assertEquals(Map.of("request", Map.of("q", "shoes"), "response", Map.of("total", 2)), projected);
+    }
+
+    @Test
+    public void keepsWholeSubtrees() {
+        Object projected = project(SSEDataDecoding.JAVA, "/response/results/*/data", "/response/results/*/data/id");
+
+        assertEquals(Map.of("response", Map.of("results", List.of(Map.of("data", Map.of("id", 1, "name", "a")),
+                Map.of("data", Map.of("id", 2, "name", "b"))))), projected);
+    }
+
+    @Test
+    public void resolvesEscapedSegments() {
+        byte[] bytes = utf8("{\"a/b\": {\"c~d\": 1, \"e\": 2}}");
+
+        Object projected = new SSEDataProjection(List.of("/a~1b/c~0d")).project(bytes, bytes.length,
+                SSEDataDecoding.JAVA);
+
+        assertEquals(Map.of("a/b", Map.of("c~d", 1)), projected);
+    }
+
+    @Test
+    public void returnsNullWhenNoFieldIsFound() {
+        assertNull(project(SSEDataDecoding.JAVA, "/response/missing"));
+        // A scalar where the pointer expects a container
+        assertNull(project(SSEDataDecoding.JAVA, "/response/total/value"));
+    }
+
+    @Test
+    public void returnsTheProjectionWithTheSelectedDecoding() {
+        String pointer = "/response/total";
+
+        assertEquals("{\"response\":{\"total\":2}}", project(SSEDataDecoding.STRING, pointer));
+        assertEquals("{\"response\":{\"total\":2}}",
+                new String((byte[]) project(SSEDataDecoding.BYTES, pointer), StandardCharsets.UTF_8));
+        assertEquals(2, ((JsonNode) project(SSEDataDecoding.JSON_NODE, pointer)).at(pointer).asInt());
+    }
+
+    @Test
+    public void decodesDataThatIsNotJsonAsAWhole() {
+        SSEDataProjection projection = new SSEDataProjection(List.of("/a"));
+
+        assertEquals("plain text", projection.project(utf8("plain text"), 10, SSEDataDecoding.JAVA));
+        assertEquals("{\"a\": ", projection.project(utf8("{\"a\": "), 6, SSEDataDecoding.STRING));
+    }
+
+    @Test
+    public void readsOnlyTheGivenLength() {
+        byte[] buffer = Arrays.copyOf(utf8("{\"a\": 1}"), 64);
+        Arrays.fill(buffer, 8, 64, (byte) '}');
+
+        assertEquals(Map.of("a", 1), new SSEDataProjection(List.of("/a")).project(buffer, 8, SSEDataDecoding.JAVA));
+    }
+
+    @Test
+    public void ignoresBlankPointers() {
+        assertNull(SSEDataProjection.of(null));
+        assertNull(SSEDataProjection.of(Arrays.asList(" ", null)));
+        assertEquals(Map.of("request", Map.of("q", "shoes")),
+                SSEDataProjection.of(Arrays.asList("", "/request/q")).project(utf8(SEARCH), utf8(SEARCH).length,
+                        SSEDataDecoding.JAVA));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnInvalidPointer() {
+        new SSEDataProjection(List.of("response/total"));
+    }
+
+    @Test
+    public void projectsTheDataOfTheEventsTheParserKeeps() {
+        List<SSEEvent> events = new ArrayList<>();
+        SSEEventFilter filter = new SSEEventFilter(null, List.of("ping"),
+                new SSEDataProjection(List.of("/response/total")), null);
+        SSEEventParser parser = new SSEEventParser(events::add, SSEDataDecoding.JAVA, filter);
+
+        parser.feed(ByteBuffer.wrap(utf8("event: ping\ndata: {}\n\nevent: search_result\ndata: " + SEARCH
+                + "\n\n")));
+
+        assertEquals(1, events.size());
+        assertEquals(Map.of("response", Map.of("total", 2)), events.get(0).getData());
+    }
+
+    @Test
+    public void selectsTheEventTypes() {
+        SSEEventFilter included = new SSEEventFilter(List.of(" result ", ""), null, null, null);
+        SSEEventFilter excluded = new SSEEventFilter(List.of(), List.of("ping"), null, null);
+
+        assertTrue(included.accepts("result"));
+        assertFalse(included.accepts("ping"));
+        assertTrue(excluded.accepts("result"));
+        assertFalse(excluded.accepts("ping"));
+        assertTrue(SSEEventFilter.ALL.accepts("anything"));
+    }
+
+    private static Object project(SSEDataDecoding decoding, String... pointers) {
+        byte[] bytes = utf8(SEARCH);
+        return new SSEDataProjection(List.of(pointers)).project(bytes, bytes.length, decoding);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,215 @@
+package org.mule.extension.sse.internal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SSEDataTypeTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void derivesTheTypeOfASample() {
+        SSEDataType type = SSEDataType.of(json("{\"id\": \"a\", \"count\": 1, \"score\": 0.5, \"ok\": true,"
+                + " \"tags\": [\"x\"], \"owner\": {\"name\": \"b\"}, \"note\": null, \"empty\": []}"));
+
+        assertEquals("{id: string, count: integer, score: number, ok: boolean, tags: [string], owner: {name: string},"
+                + " note: unknown, empty: [unknown]}", type.toString());
+    }
+
+    @Test
+    public void mergesTheItemsOfASampleArray() {
+        assertEquals("[number]", SSEDataType.fromSample(json("[1, 2.5, null]")).toString());
+        assertEquals("[any]", SSEDataType.fromSample(json("[1, \"a\"]")).toString());
+        assertEquals("[{a: integer, b: string}]",
+                SSEDataType.fromSample(json("[{\"a\": 1}, {\"b\": \"x\"}, {\"a\": null}]")).toString());
+    }
+
+    @Test
+    public void derivesTheTypeOfASchema() {
+        SSEDataType type = SSEDataType.of(json("{\"$schema\": \"https://json-schema.org/draft/2020-12/schema\","
+                + " \"type\": \"object\", \"properties\": {"
+                + "\"id\": {\"type\": [\"null\", \"integer\"]},"
+                + " \"price\": {\"type\": \"number\"},"
+                + " \"tags\": {\"items\": {\"type\": \"string\"}},"
+                + " \"meta\": {\"properties\": {\"ok\": {\"type\": \"boolean\"}}},"
+                + " \"ref\": {\"$ref\": \"#/$defs/other\"}}}"));
+
+        assertEquals("{id: integer, price: number, tags: [string], meta: {ok: boolean}, ref: any}", type.toString());
+        // A document with a type and properties is a schema even without $schema
+        assertEquals("{id: string}",
+                SSEDataType.of(json("{\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"string\"}}}"))
+                        .toString());
+    }
+
+    @Test
+    public void decodesObjectsIntoRecords() {
+        SSEDataType type = SSEDataType.of(json("{\"id\": 1, \"price\": 1.5, \"tags\": [\"a\"]}"));
+
+        Object data = type.decode(utf8("{\"extra\": {\"x\": 1}, \"tags\": [\"b\", \"c\"], \"price\": 2, \"id\": 7}"));
+
+        assertTrue(data instanceof SSEDataRecord);
+        Map<?, ?> record = (Map<?, ?>) data;
+        assertEquals(7L, record.get("id"));
+        // Integers are decimal numbers where the type says so
+        assertEquals(2.0, record.get("price"));
+        assertEquals(List.of("b", "c"), record.get("tags"));
+        assertEquals(Map.of("x", 1), record.get("extra"));
+        // Declared fields first, then the undeclared ones
+        assertEquals(List.of("id", "price", "tags", "extra"), new ArrayList<>(record.keySet()));
+        assertEquals(4, record.size());
+    }
+
+    @Test
+    public void tellsAbsentFieldsFromNullOnes() {
+        SSEDataType type = SSEDataType.of(json("{\"a\": \"x\", \"b\": \"y\"}"));
+
+        Map<?, ?> record = (Map<?, ?>) type.decode(utf8("{\"b\": null}"));
+
+        assertFalse(record.containsKey("a"));
+        assertNull(record.get("a"));
+        assertTrue(record.containsKey("b"));
+        assertNull(record.get("b"));
+        assertEquals(1, record.size());
+        assertEquals(List.of("b"), new ArrayList<>(record.keySet()));
+    }
+
+    @Test
+    public void decodesValuesThatDoNotMatchTheTypeAsJavaValues() {
+        SSEDataType type = SSEDataType.of(json("{\"name\": \"a\", \"items\": [1]}"));
+
+        Map<?, ?> record = (Map<?, ?>) type.decode(utf8("{\"name\": {\"first\": \"b\"}, \"items\": {\"n\": 1},"
+                + " \"big\": 123456789012345678901234567890}"));
+
+        assertEquals(Map.of("first", "b"), record.get("name"));
+        assertEquals(Map.of("n", 1), record.get("items"));
+        assertEquals(new BigInteger("123456789012345678901234567890"), record.get("big"));
+        // An array type given an object, or the other way around
+        assertEquals(Map.of("a", 1), SSEDataType.of(json("[1]")).decode(utf8("{\"a\": 1}")));
+        assertEquals(List.of(1, 2), type.decode(utf8("[1, 2]")));
+    }
+
+    @Test
+    public void decodesDataThatIsNotJsonOrMalformed() {
+        SSEDataType type = SSEDataType.of(json("{\"a\": 1}"));
+
+        assertEquals("plain text", type.decode(utf8("plain text")));
+        assertEquals(SSEDataDecoding.JAVA.decode(utf8("{\"a\": ")), type.decode(utf8("{\"a\": ")));
+    }
+
+    @Test
+    public void loadsTheTypesOfSampleEventsAndDataTypes() throws IOException {
+        File samples = write("samples.json", "[{\"event\": \"result\", \"data\": {\"id\": 1}},"
+                + " {\"event\": \"result\", \"data\": {\"id\": 2.5, \"name\": \"b\"}},"
+                + " {\"event\": null, \"data\": \"hello\"}]");
+        File schema = write("progress.json",
+                "{\"type\": \"object\", \"properties\": {\"done\": {\"type\": \"boolean\"}}}");
+        File sample = write("error.json", "{\"code\": 1}");
+        File events = write("events.json", "[{\"event\": \"result\", \"data\": {\"id\": \"x\"}},"
+                + " {\"event\": \"other\", \"data\": {\"ignored\": true}}]");
+        EventTypeParameters parameters = new EventTypeParameters();
+        parameters.setEventSamples(List.of(samples.getPath(), " "));
+        parameters.setEventDataTypes(Map.of("progress", schema.getPath(), "error", sample.getPath(),
+                "final", events.getPath()));
+
+        SSEEventTypes types = SSEEventTypes.load(parameters);
+
+        assertEquals("{id: number, name: string}", types.get("result").toString());
+        assertEquals("string", types.get(SSEEventParser.DEFAULT_EVENT_TYPE).toString());
+        assertEquals("{done: boolean}", types.get("progress").toString());
+        assertEquals("{code: integer}", types.get("error").toString());
+        // Sample events without the event type give an unknown type
+        assertEquals("unknown", types.get("final").toString());
+        assertNull(types.get("other"));
+    }
+
+    @Test
+    public void loadsNoTypesWithoutResources() {
+        assertNull(SSEEventTypes.load(new EventTypeParameters()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMissingResource() {
+        EventTypeParameters parameters = new EventTypeParameters();
+        parameters.setEventSamples(List.of(new File(folder.getRoot(), "missing.json").getPath()));
+
+        SSEEventTypes.load(parameters);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAResourceThatIsNotJson() throws IOException {
+        EventTypeParameters parameters = new EventTypeParameters();
+        parameters.setEventSamples(List.of(write("broken.json", "[{\"event\": ").getPath()));
+
+        SSEEventTypes.load(parameters);
+    }
+
+    @Test
+    public void decodesTheEventsTheParserKeepsIntoTheirType() throws IOException {
+        EventTypeParameters parameters = new EventTypeParameters();
+        parameters.setEventDataTypes(Map.of("result", write("result.json", "{\"id\": 1.5}").getPath()));
+        SSEEventTypes types = SSEEventTypes.load(parameters);
+        GetEventsParameters request = new GetEventsParameters();
+        request.setDataDecoding(SSEDataDecoding.TYPED);
+        List<SSEEvent> events = new ArrayList<>();
+        SSEEventParser parser = new SSEEventParser(events::add, SSEDataDecoding.TYPED,
+                SSEEventFilter.of(request, types));
+
+        parser.feed(ByteBuffer.wrap(utf8("event: result\ndata: {\"id\": 2}\n\nevent: other\ndata: {\"id\": 2}\n\n")));
+
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).getData() instanceof SSEDataRecord);
+        assertEquals(Map.of("id", 2.0), events.get(0).getData());
+        // Event types without a type are decoded as Java values
+        assertFalse(events.get(1).getData() instanceof SSEDataRecord);
+        assertEquals(Map.of("id", 2), events.get(1).getData());
+    }
+
+    @Test
+    public void keepsTheTypeWhenMergedWithAnUnknownOne() {
+        SSEDataType type = SSEDataType.of(json("{\"a\": 1}"));
+
+        SSEDataType merged = type.merge(SSEDataType.fromSample(null));
+
+        assertSame(type, merged);
+        assertSame(SSEDataType.Kind.OBJECT, merged.getKind());
+        assertEquals("integer", merged.getFields().get("a").toString());
+        assertNull(merged.getItems());
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        Files.writeString(file.toPath(), content);
+        return file;
+    }
+
+    private static JsonNode json(String value) {
+        try {
+            return SSEEventParser.MAPPER.readTree(value);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,194 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SSEEventParserTestCase {
+
+    private final List<SSEEvent> events = new ArrayList<>();
+    private final SSEEventParser parser = new SSEEventParser(events::add, SSEDataDecoding.STRING);
+
+    @Test
+    public void parsesFieldsAndJoinsDataLines() {
+        feed("event: search_result\nid: 7\ndata: first\ndata:second\n\n");
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), "search_result", "7", "first\nsecond");
+    }
+
+    @Test
+    public void ignoresCommentsAndUnknownFields() {
+        feed(": keep-alive\nfoo: bar\ndata: payload\n\n");
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), SSEEventParser.DEFAULT_EVENT_TYPE, null, "payload");
+    }
+
+    @Test
+    public void doesNotDispatchEventsWithoutData() {
+        feed("event: start\n\nid: 1\n\n");
+
+        assertTrue(events.isEmpty());
+        assertEquals("1", parser.getLastEventId());
+    }
+
+    @Test
+    public void skipsByteOrderMark() {
+        feed(bytes((byte) 0xEF, (byte) 0xBB, (byte) 0xBF), utf8("data: a\n\n"));
+
+        assertEquals(1, events.size());
+        assertEquals("a", events.get(0).getData());
+    }
+
+    @Test
+    public void skipsByteOrderMarkSplitAcrossChunks() {
+        feed(bytes((byte) 0xEF), bytes((byte) 0xBB), bytes((byte) 0xBF, (byte) 'd'), utf8("ata: a\n\n"));
+
+        assertEquals(1, events.size());
+        assertEquals("a", events.get(0).getData());
+    }
+
+    @Test
+    public void keepsBytesThatOnlyStartLikeByteOrderMark() {
+        feed(bytes((byte) 0xEF, (byte) 0xBB), utf8("data: a\n\n"));
+
+        // The partial mark is re-injected as the start of an unknown field name, so the line is ignored
+        assertTrue(events.isEmpty());
+        feed("data: b\n\n");
+        assertEquals("b", events.get(0).getData());
+    }
+
+    @Test
+    public void acceptsEveryLineTerminator() {
+        feed("data: lf\n\ndata: cr\r\rdata: crlf\r\n\r\n");
+
+        assertEquals(3, events.size());
+        assertEquals("lf", events.get(0).getData());
+        assertEquals("cr", events.get(1).getData());
+        assertEquals("crlf", events.get(2).getData());
+    }
+
+    @Test
+    public void joinsCarriageReturnAndLineFeedSplitAcrossChunks() {
+        feed("data: a\r", "\ndata: b\r", "\n\r", "\n");
+
+        assertEquals(1, events.size());
+        assertEquals("a\nb", events.get(0).getData());
+    }
+
+    @Test
+    public void keepsLinesSplitAcrossChunks() {
+        feed("da", "ta: hel", "lo\n", "\n");
+
+        assertEquals(1, events.size());
+        assertEquals("hello", events.get(0).getData());
+    }
+
+    @Test
+    public void ignoresIdWithNull() {
+        feed("id: 1\ndata: a\n\nid: 2\u0000x\ndata: b\n\n");
+
+        assertEquals(2, events.size());
+        assertEquals("1", events.get(0).getId());
+        assertEquals("1", events.get(1).getId());
+        assertEquals("1", parser.getLastEventId());
+    }
+
+    @Test
+    public void keepsLastEventIdAcrossEvents() {
+        feed("id: 1\ndata: a\n\ndata: b\n\nid:\ndata: c\n\n");
+
+        assertEquals("1", events.get(1).getId());
+        // An empty id resets the last event ID
+        assertEquals("", events.get(2).getId());
+    }
+
+    @Test
+    public void acceptsDigitsOnlyRetry() {
+        feed("retry: 1500\n");
+        assertEquals(1500, parser.getRetry());
+
+        feed("retry: 15x\nretry:\nretry: -3\nretry: 1234567890123456789\n");
+        assertEquals(1500, parser.getRetry());
+    }
+
+    @Test
+    public void dispatchesPendingEventOnFinish() {
+        feed("event: end\ndata: done");
+        assertTrue(events.isEmpty());
+
+        parser.finish();
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), "end", null, "done");
+    }
+
+    @Test
+    public void finishDoesNotDispatchAnEventTwice() {
+        feed("data: a\n\n");
+        parser.finish();
+
+        assertEquals(1, events.size());
+        assertEquals(1, parser.getEventCount());
+    }
+
+    @Test
+    public void reportsSkippedEventsToTheListener() {
+        List<String> skipped = new ArrayList<>();
+        SSEEventParser filtered = new SSEEventParser(new SSEEventParser.Listener() {
+            @Override
+            public void onEvent(SSEEvent event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onSkippedEvent(String eventType) {
+                skipped.add(eventType);
+            }
+        }, SSEDataDecoding.STRING, new SSEEventFilter(List.of("end"), null, null, null));
+
+        filtered.feed(utf8("event: message\ndata: a\n\nevent: end\ndata: b\n\n"));
+
+        assertEquals(1, events.size());
+        assertEquals("end", events.get(0).getEvent());
+        assertEquals(List.of("message"), skipped);
+    }
+
+    private void feed(String... chunks) {
+        for (String chunk : chunks) {
+            parser.feed(utf8(chunk));
+        }
+    }
+
+    private void feed(ByteBuffer... chunks) {
+        for (ByteBuffer chunk : chunks) {
+            parser.feed(chunk);
+        }
+    }
+
+    private static void assertEvent(SSEEvent event, String type, String id, String data) {
+        assertEquals(type, event.getEvent());
+        if (id == null) {
+            assertNull(event.getId());
+        } else {
+            assertEquals(id, event.getId());
+        }
+        assertEquals(data, event.getData());
+    }
+
+    private static ByteBuffer utf8(String chunk) {
+        return ByteBuffer.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer bytes(byte... bytes) {
+        return ByteBuffer.wrap(bytes);
+    }
+}
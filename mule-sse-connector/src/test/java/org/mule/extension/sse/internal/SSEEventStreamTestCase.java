@@ -0,0 +1,175 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SSEEventStreamTestCase {
+
+    private final MemoryLimitParameters limits = new MemoryLimitParameters();
+    private final FakeSubscription subscription = new FakeSubscription();
+
+    @Test
+    public void handsOverEventsSplitAcrossChunks() throws InterruptedException {
+        SSEEventStream stream = stream(null);
+
+        stream.onNext(chunks("data: a\n", "\nda"));
+        stream.onNext(chunks("ta: b\n\n"));
+        stream.onComplete();
+
+        assertEquals(List.of("a", "b"), data(stream.nextBatch(10, deadline())));
+        assertTrue(stream.nextBatch(10, deadline()).isEmpty());
+        assertNull(stream.getFailure());
+        assertTrue(stream.isComplete());
+    }
+
+    @Test
+    public void failsWhenAnEventSplitAcrossChunksExceedsTheMaxEventBytes() throws InterruptedException {
+        limits.setMaxEventBytes(10);
+        SSEEventStream stream = stream(null);
+
+        stream.onNext(chunks("data: a\n\ndata: 01234"));
+        stream.onNext(chunks("56789", "ABCDEFGHIJ"));
+
+        assertEquals(List.of("a"), data(stream.nextBatch(10, deadline())));
+        assertTrue(stream.nextBatch(10, deadline()).isEmpty());
+        assertTrue(stream.getFailure() instanceof SSELimitExceededException);
+        assertTrue(subscription.cancelled);
+    }
+
+    @Test
+    public void failsWhenTheLastEventExceedsTheMaxEventBytesAtTheEndOfTheStream() throws InterruptedException {
+        limits.setMaxEventBytes(10);
+        SSEEventStream stream = stream(null);
+
+        // The last line is unterminated, so the event only goes over the limit once the stream ends
+        stream.onNext(chunks("data: a\n\ndata: 012345678\ndata: 9A"));
+        stream.onComplete();
+
+        assertEquals(List.of("a"), data(stream.nextBatch(10, deadline())));
+        assertTrue(stream.nextBatch(10, deadline()).isEmpty());
+        assertTrue(stream.getFailure() instanceof SSELimitExceededException);
+        assertTrue(stream.isComplete());
+    }
+
+    @Test
+    public void truncatesAnEventSplitAcrossChunksOverTheMaxEventBytes() throws InterruptedException {
+        limits.setMaxEventBytes(10);
+        limits.setEventBytesAction(SSELimitAction.TRUNCATE);
+        SSEEventStream stream = stream(null);
+
+        stream.onNext(chunks("data: 01234"));
+        stream.onNext(chunks("56789", "ABCDEFGHIJ\n\n", "data: b\n\n"));
+        stream.onComplete();
+
+        assertEquals(List.of("0123456789", "b"), data(stream.nextBatch(10, deadline())));
+        assertNull(stream.getFailure());
+    }
+
+    @Test
+    public void spillsAnEventSplitAcrossChunksOverTheMaxEventBytes() throws InterruptedException {
+        limits.setMaxEventBytes(10);
+        limits.setEventBytesAction(SSELimitAction.SPILL);
+        SSEEventStream stream = stream(null);
+
+        stream.onNext(chunks("data: 01234"));
+        stream.onNext(chunks("56789", "ABCDEFGHIJ\n\n"));
+        stream.onComplete();
+
+        List<SSEEvent> events = stream.nextBatch(10, deadline());
+        assertTrue(events.get(0).isSpilled());
+        assertEquals(List.of("0123456789ABCDEFGHIJ"), data(events));
+    }
+
+    @Test
+    public void endsOnceTheStopConditionIsMet() throws InterruptedException {
+        StopConditionParameters stopConditions = new StopConditionParameters();
+        stopConditions.setTerminalEventType("end");
+        SSEEventStream stream = stream(stopConditions);
+
+        stream.onNext(chunks("data: a\n\nevent: end\ndata: b\n\ndata: c\n\n"));
+
+        assertEquals(List.of("a", "b"), data(stream.nextBatch(10, deadline())));
+        assertTrue(stream.nextBatch(10, deadline()).isEmpty());
+        assertTrue(subscription.cancelled);
+    }
+
+    @Test
+    public void requestsMoreOnlyBelowTheHighWatermark() throws InterruptedException {
+        SSEEventStream stream = new SSEEventStream(2, new SSEStopCondition(null), SSEDataDecoding.STRING,
+                SSEEventFilter.ALL, new SSEMemoryGuard(limits, new SSEMetrics()));
+        stream.onSubscribe(subscription);
+        assertEquals(1, subscription.requested);
+
+        stream.onNext(chunks("data: a\n\ndata: b\n\n"));
+        assertEquals(1, subscription.requested);
+
+        stream.nextBatch(1, deadline());
+        assertEquals(2, subscription.requested);
+    }
+
+    @Test
+    public void handsOverTheParsedEventsAtTheDeadline() throws InterruptedException {
+        SSEEventStream stream = stream(null);
+        stream.onNext(chunks("data: a\n\n"));
+
+        assertEquals(List.of("a"), data(stream.nextBatch(10, System.nanoTime())));
+        assertTrue(stream.nextBatch(10, System.nanoTime()).isEmpty());
+        assertTrue(subscription.cancelled);
+    }
+
+    private SSEEventStream stream(StopConditionParameters stopConditions) {
+        SSEEventStream stream = new SSEEventStream(100, new SSEStopCondition(stopConditions),
+                SSEDataDecoding.STRING, SSEEventFilter.ALL, new SSEMemoryGuard(limits, new SSEMetrics()));
+        stream.onSubscribe(subscription);
+        return stream;
+    }
+
+    private static long deadline() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    }
+
+    private static List<ByteBuffer> chunks(String... chunks) {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (String chunk : chunks) {
+            buffers.add(ByteBuffer.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+        }
+        return buffers;
+    }
+
+    private static List<Object> data(List<SSEEvent> events) {
+        List<Object> data = new ArrayList<>();
+        for (SSEEvent event : events) {
+            data.add(event.getData());
+        }
+        return data;
+    }
+
+    /**
+     * Counts the chunks requested by the stream.
+     */
+    private static final class FakeSubscription implements Flow.Subscription {
+
+        private long requested;
+        private boolean cancelled;
+
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SSEFanOutTestCase {
+
+    private final Map<Integer, CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> responses =
+            new HashMap<>();
+    private final List<CompletionStage<Void>> cancellations = new ArrayList<>();
+    private final List<Long> timeouts = new ArrayList<>();
+
+    @Test
+    public void groupsTheEventsPerRequestInRequestOrder() throws Exception {
+        SSEFanOut fanOut = new SSEFanOut(List.of("a", "b"), 2, 0, this::send);
+        CompletableFuture<Result<List<SSEEvent>, SSEFanOutAttributes>> outcome = fanOut.run(SSEFanOutOrder.GROUPED);
+
+        respond(1, event("b1", 1), event("b2", 2));
+        respond(0, event("a1", 3));
+
+        Result<List<SSEEvent>, SSEFanOutAttributes> result = outcome.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("a1", "b1", "b2"), data(result.getOutput()));
+        assertEquals(List.of("a", "b", "b"), sources(result.getOutput()));
+        assertEquals(List.of("a", "b"), new ArrayList<>(result.getAttributes().get().getResponses().keySet()));
+        assertTrue(result.getAttributes().get().getFailures().isEmpty());
+        assertFalse(result.getAttributes().get().isDeadlineExceeded());
+    }
+
+    @Test
+    public void interleavesTheEventsInArrivalOrder() throws Exception {
+        SSEFanOut fanOut = new SSEFanOut(List.of("a", "b"), 2, 0, this::send);
+        CompletableFuture<Result<List<SSEEvent>, SSEFanOutAttributes>> outcome = fanOut.run(SSEFanOutOrder.ARRIVAL);
+
+        respond(0, event("a1", 1), event("a2", 3));
+        respond(1, event("b1", 2), event("b2", 4));
+
+        assertEquals(List.of("a1", "b1", "a2", "b2"), data(outcome.get(5, TimeUnit.SECONDS).getOutput()));
+    }
+
+    @Test
+    public void tagsCopiesOfTheEvents() throws Exception {
+        SSEEvent shared = event("a1", 1);
+        SSEFanOut fanOut = new SSEFanOut(List.of("a"), 1, 0, this::send);
+        CompletableFuture<Result<List<SSEEvent>, SSEFanOutAttributes>> outcome = fanOut.run(SSEFanOutOrder.GROUPED);
+
+        respond(0, shared);
+
+        assertEquals("a", outcome.get(5, TimeUnit.SECONDS).getOutput().get(0).getSource());
+        assertNull(shared.getSource());
+    }
+
+    @Test
+    public void keysTheFailuresByPosition() throws Exception {
+        SSEFanOut fanOut = new SSEFanOut(List.of("a", "b", "c"), 3, 0, (index, timeoutMillis, cancel) -> {
+            if (index == 2) {
+                throw new IllegalArgumentException("Invalid SSE endpoint URL");
+            }
+            return send(index, timeoutMillis, cancel);
+        });
+        CompletableFuture<Result<List<SSEEvent>, SSEFanOutAttributes>> outcome = fanOut.run(SSEFanOutOrder.GROUPED);
+
+        respond(0, event("a1", 1));
+        responses.get(1).completeExceptionally(new IllegalStateException("Connection refused"));
+
+        Result<List<SSEEvent>, SSEFanOutAttributes> result = outcome.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("a1"), data(result.getOutput()));
+        Map<Integer, String> failures = result.getAttributes().get().getFailures();
+        assertEquals(2, failures.size());
+        assertEquals("Connection refused", failures.get(1));
+        assertEquals("Invalid SSE endpoint URL", failures.get(2));
+        assertFalse(result.getAttributes().get().isDeadlineExceeded());
+    }
+
+    @Test
+    public void sendsAtMostMaxConcurrencyRequestsAtOnce() throws Exception {
+        SSEFanOut fanOut = new SSEFanOut(List.of("a", "b", "c"), 2, 0, this::send);
+        CompletableFuture<Result<List<SSEEvent>, SSEFanOutAttributes>> outcome = fanOut.run(SSEFanOutOrder.GROUPED);
+        assertEquals(2, sent());
+
+        respond(1, event("b1", 1));
+        waitUntilSent(3);
+        respond(0, event("a1", 2));
+        respond(2, event("c1", 3));
+
+        assertEquals(List.of("a1", "b1", "c1"), data(outcome.get(5, TimeUnit.SECONDS).getOutput()));
+    }
+
+    @Test
+    public void givesEachRequestTheTimeLeftBeforeTheDeadline() throws Exception {
+        SSEFanOut fanOut = new SSEFanOut(List.of("a", "b"), 1, 10_000, this::send);
+        fanOut.run(SSEFanOutOrder.GROUPED);
+
+        Thread.sleep(50);
+        respond(0, event("a1", 1));
+        waitUntilSent(2);
+
+        synchronized (timeouts) {
+            assertTrue(timeouts.get(0) <= 10_000 && timeouts.get(0) > 9_900);
+            assertTrue(timeouts.get(1) <= 9_950);
+        }
+    }
+
+    @Test
+    public void completesShortlyAfterTheDeadlineAndCancelsTheRequestsInFlight() throws Exception {
+        SSEFanOut fanOut = new SSEFanOut(List.of("a", "b"), 2, 50, this::send);
+        long start = System.nanoTime();
+        CompletableFuture<Result<List<SSEEvent>, SSEFanOutAttributes>> outcome = fanOut.run(SSEFanOutOrder.GROUPED);
+        respond(0, event("a1", 1));
+
+        Result<List<SSEEvent>, SSEFanOutAttributes> result = outcome.get(5, TimeUnit.SECONDS);
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(List.of("a1"), data(result.getOutput()));
+        assertEquals("Cancelled at the deadline of the operation", result.getAttributes().get().getFailures().get(1));
+        assertTrue(result.getAttributes().get().isDeadlineExceeded());
+        // Completed right after the outcome
+        cancellations.get(1).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        // A response that arrives after the fan-out completed is ignored
+        respond(1, event("b1", 2));
+        assertEquals(1, result.getOutput().size());
+    }
+
+    @Test
+    public void recordsTheRequestsNotSentBeforeTheDeadline() throws Exception {
+        SSEFanOut fanOut = new SSEFanOut(List.of("a", "b"), 1, 50, this::send);
+        CompletableFuture<Result<List<SSEEvent>, SSEFanOutAttributes>> outcome = fanOut.run(SSEFanOutOrder.GROUPED);
+
+        // Completed after the deadline, but within the grace period
+        Thread.sleep(70);
+        respond(0, event("a1", 1));
+
+        Result<List<SSEEvent>, SSEFanOutAttributes> result = outcome.get(5, TimeUnit.SECONDS);
+        assertEquals(1, sent());
+        assertEquals(List.of("a1"), data(result.getOutput()));
+        assertEquals("Not sent before the deadline of the operation",
+                result.getAttributes().get().getFailures().get(1));
+        assertTrue(result.getAttributes().get().isDeadlineExceeded());
+    }
+
+    @Test
+    public void completesRightAwayWithoutRequests() throws Exception {
+        SSEFanOut fanOut = new SSEFanOut(List.of(), 2, 0, this::send);
+
+        Result<List<SSEEvent>, SSEFanOutAttributes> result = fanOut.run(SSEFanOutOrder.GROUPED).getNow(null);
+
+        assertTrue(result.getOutput().isEmpty());
+        assertEquals(0, sent());
+    }
+
+    private CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> send(int index, long timeoutMillis,
+                                                                                  CompletionStage<Void> cancellation) {
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> response = new CompletableFuture<>();
+        synchronized (timeouts) {
+            responses.put(index, response);
+            cancellations.add(cancellation);
+            timeouts.add(timeoutMillis);
+            timeouts.notifyAll();
+        }
+        return response;
+    }
+
+    private int sent() {
+        synchronized (timeouts) {
+            return timeouts.size();
+        }
+    }
+
+    private void waitUntilSent(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        synchronized (timeouts) {
+            while (timeouts.size() < count && System.nanoTime() < deadline) {
+                timeouts.wait(100);
+            }
+        }
+        assertEquals(count, sent());
+    }
+
+    private void respond(int index, SSEEvent... events) {
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> response;
+        synchronized (timeouts) {
+            response = responses.get(index);
+        }
+        response.complete(Result.<List<SSEEvent>, SSEResponseAttributes>builder()
+                .output(List.of(events))
+                .attributes(new SSEResponseAttributes(200, new HashMap<>(), 1, 1, 1, 1, 0, 0, 0, new HashMap<>(),
+                        0, 0, null, null, 0, 0, 0, false))
+                .build());
+    }
+
+    private static SSEEvent event(String data, long receivedNanos) {
+        SSEEvent event = new SSEEvent();
+        event.setData(data);
+        event.setReceivedNanos(receivedNanos);
+        return event;
+    }
+
+    private static List<Object> data(List<SSEEvent> events) {
+        List<Object> data = new ArrayList<>();
+        for (SSEEvent event : events) {
+            data.add(event.getData());
+        }
+        return data;
+    }
+
+    private static List<String> sources(List<SSEEvent> events) {
+        List<String> sources = new ArrayList<>();
+        for (SSEEvent event : events) {
+            sources.add(event.getSource());
+        }
+        return sources;
+    }
+}
@@ -0,0 +1,108 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SSEHedgePolicyTestCase {
+
+    private final SSEMetrics metrics = new SSEMetrics();
+
+    @Test
+    public void allowsAnInitialBurst() {
+        SSEHedgePolicy policy = policy(10, 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(policy.tryAcquire());
+        }
+        assertFalse(policy.tryAcquire());
+    }
+
+    @Test
+    public void earnsAHedgePerShareOfRequests() {
+        SSEHedgePolicy policy = drained(policy(10, 0));
+
+        for (int i = 0; i < 9; i++) {
+            policy.onRequest();
+        }
+        assertFalse(policy.tryAcquire());
+
+        policy.onRequest();
+        assertTrue(policy.tryAcquire());
+        assertFalse(policy.tryAcquire());
+    }
+
+    @Test
+    public void capsTheBudget() {
+        SSEHedgePolicy policy = policy(100, 0);
+
+        for (int i = 0; i < 1_000; i++) {
+            policy.onRequest();
+        }
+
+        int hedges = 0;
+        while (policy.tryAcquire()) {
+            hedges++;
+        }
+        assertEquals(10, hedges);
+    }
+
+    @Test
+    public void neverHedgesWithoutBudget() {
+        SSEHedgePolicy policy = policy(0, 0);
+
+        for (int i = 0; i < 100; i++) {
+            policy.onRequest();
+        }
+
+        assertFalse(policy.tryAcquire());
+    }
+
+    @Test
+    public void usesTheFixedDelayUntilEnoughSamples() {
+        SSEHedgePolicy policy = policy(10, 95);
+
+        for (int i = 0; i < SSEHedgePolicy.MIN_SAMPLES - 1; i++) {
+            recordTimeToFirstEvent(200);
+        }
+
+        assertEquals(500, policy.delayMillis());
+    }
+
+    @Test
+    public void followsThePercentileOfTheTimeToFirstEvent() {
+        SSEHedgePolicy policy = policy(10, 95);
+
+        for (int i = 0; i < SSEHedgePolicy.MIN_SAMPLES; i++) {
+            recordTimeToFirstEvent(200);
+        }
+
+        long delay = policy.delayMillis();
+        assertTrue(String.valueOf(delay), delay >= 180 && delay <= 220);
+    }
+
+    private SSEHedgePolicy policy(int maxHedgedPercentage, double hedgeDelayPercentile) {
+        HedgingParameters parameters = new HedgingParameters();
+        parameters.setEnabled(true);
+        parameters.setHedgeDelay(500);
+        parameters.setHedgeDelayPercentile(hedgeDelayPercentile);
+        parameters.setMaxHedgedPercentage(maxHedgedPercentage);
+        return new SSEHedgePolicy(parameters, metrics);
+    }
+
+    private static SSEHedgePolicy drained(SSEHedgePolicy policy) {
+        while (policy.tryAcquire()) {
+            // Spend the initial burst
+        }
+        return policy;
+    }
+
+    private void recordTimeToFirstEvent(long millis) {
+        metrics.recordExchange(new SSEResponseAttributes(200, new HashMap<>(), 1, 1, millis, millis, 0, 0, 0,
+                new HashMap<>(), 0, 0, null, null, 0, 0, 0, false), false);
+    }
+}
@@ -0,0 +1,289 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SSEMemoryGuardTestCase {
+
+    private final SSEMetrics metrics = new SSEMetrics();
+    private final MemoryLimitParameters limits = new MemoryLimitParameters();
+    private final List<SSEEvent> events = new ArrayList<>();
+
+    @Test
+    public void failsAnEventOverTheMaxEventBytes() {
+        limits.setMaxEventBytes(10);
+        SSEEventParser parser = parser(guard());
+
+        try {
+            parser.feed(utf8("data: 0123456789A\n\n"));
+            fail("Expected the event to exceed the limit");
+        } catch (SSELimitExceededException e) {
+            assertEquals(SSELimitType.EVENT_BYTES, e.getLimit());
+        }
+        assertEquals(1, metrics.getLimitExceededCount());
+    }
+
+    @Test
+    public void failsALineOverTheMaxEventBytesBeforeItEnds() {
+        limits.setMaxEventBytes(10);
+        SSEEventParser parser = parser(guard());
+        parser.feed(utf8("data: 0123456789"));
+
+        try {
+            parser.feed(utf8("ABCDEF"));
+            fail("Expected the line to exceed the limit");
+        } catch (SSELimitExceededException e) {
+            assertEquals(SSELimitType.EVENT_BYTES, e.getLimit());
+        }
+    }
+
+    @Test
+    public void truncatesTheDataOfAnOversizedEvent() {
+        limits.setMaxEventBytes(10);
+        limits.setEventBytesAction(SSELimitAction.TRUNCATE);
+        SSEMemoryGuard guard = guard();
+        SSEEventParser parser = parser(guard);
+
+        feed(parser, "data: 01234\ndata: 56789\n\ndata: next\n\n");
+
+        assertEquals(List.of("01234\n5678", "next"), data());
+        assertEquals(SSELimitType.EVENT_BYTES, guard.getExceededLimit());
+        assertFalse(guard.isExhausted());
+        assertEquals(1, metrics.getLimitExceededCount());
+    }
+
+    @Test
+    public void truncatesAnOversizedLineSplitAcrossChunks() {
+        limits.setMaxEventBytes(10);
+        limits.setEventBytesAction(SSELimitAction.TRUNCATE);
+        SSEEventParser parser = parser(guard());
+
+        feed(parser, "data: 0123", "456789ABC", "DEFGHIJKLMNOP", "QRS\n", "\n", "data: next\n\n");
+
+        assertEquals(List.of("0123456789", "next"), data());
+    }
+
+    @Test
+    public void spillsAnOversizedEventSplitAcrossChunks() {
+        limits.setMaxEventBytes(10);
+        limits.setEventBytesAction(SSELimitAction.SPILL);
+        SSEMemoryGuard guard = guard();
+        SSEEventParser parser = parser(guard);
+
+        feed(parser, "data: first\ndata: 0123", "456789ABC", "DEFGHIJKLMNOP", "QRS\n", "data: last\n\n",
+                "data: next\n\n");
+
+        assertEquals(2, events.size());
+        SSEEvent spilled = events.get(0);
+        assertTrue(spilled.isSpilled());
+        assertEquals("first\n0123456789ABCDEFGHIJKLMNOPQRS\nlast", spilled.getData());
+        assertFalse(spilled.isSpilled());
+        assertFalse(events.get(1).isSpilled());
+        assertEquals("next", events.get(1).getData());
+        assertNull(guard.getExceededLimit());
+    }
+
+    @Test
+    public void failsAResponseOverTheMaxResponseBytes() {
+        limits.setMaxResponseBytes(10);
+        SSEMemoryGuard guard = guard();
+
+        assertTrue(guard.admit(event("01234"), 5));
+        try {
+            guard.admit(event("567890"), 6);
+            fail("Expected the response to exceed the limit");
+        } catch (SSELimitExceededException e) {
+            assertEquals(SSELimitType.RESPONSE_BYTES, e.getLimit());
+        }
+    }
+
+    @Test
+    public void truncatesAResponseOverTheMaxResponseBytes() {
+        limits.setMaxResponseBytes(10);
+        limits.setResponseBytesAction(SSELimitAction.TRUNCATE);
+        SSEMemoryGuard guard = guard();
+
+        assertTrue(guard.admit(event("01234"), 5));
+        assertFalse(guard.admit(event("567890"), 6));
+
+        assertTrue(guard.isExhausted());
+        assertEquals(SSELimitType.RESPONSE_BYTES, guard.getExceededLimit());
+        // Nothing more is kept once the response is truncated, even what would fit
+        assertFalse(guard.admit(event("5"), 1));
+    }
+
+    @Test
+    public void spillsTheEventsOverTheMaxResponseBytes() {
+        limits.setMaxResponseBytes(10);
+        limits.setResponseBytesAction(SSELimitAction.SPILL);
+        SSEMemoryGuard guard = guard();
+
+        assertTrue(guard.admit(event("01234"), 5));
+        SSEEvent over = event("567890");
+        assertTrue(guard.admit(over, 6));
+
+        assertTrue(over.isSpilled());
+        assertEquals(6, guard.getSpilledBytes());
+        assertEquals(5, metrics.getBufferedBytes());
+        assertEquals("567890", over.getData());
+        assertFalse(guard.isExhausted());
+    }
+
+    @Test
+    public void appliesEveryActionToTheMaxEventCount() {
+        limits.setMaxEventCount(1);
+        SSEMemoryGuard failing = guard();
+        assertTrue(failing.admit(event("a"), 1));
+        try {
+            failing.admit(event("b"), 1);
+            fail("Expected the response to exceed the limit");
+        } catch (SSELimitExceededException e) {
+            assertEquals(SSELimitType.EVENT_COUNT, e.getLimit());
+        }
+
+        limits.setEventCountAction(SSELimitAction.TRUNCATE);
+        SSEMemoryGuard truncating = guard();
+        assertTrue(truncating.admit(event("a"), 1));
+        assertFalse(truncating.admit(event("b"), 1));
+        assertEquals(SSELimitType.EVENT_COUNT, truncating.getExceededLimit());
+
+        limits.setEventCountAction(SSELimitAction.SPILL);
+        SSEMemoryGuard spilling = guard();
+        assertTrue(spilling.admit(event("a"), 1));
+        SSEEvent over = event("b");
+        assertTrue(spilling.admit(over, 1));
+        assertTrue(over.isSpilled());
+        assertEquals("b", over.getData());
+    }
+
+    @Test
+    public void sharesTheMemoryBudgetOfTheConfiguration() {
+        limits.setMemoryBudget(10);
+        limits.setResponseBytesAction(SSELimitAction.TRUNCATE);
+        SSEMemoryGuard first = guard();
+        SSEMemoryGuard second = guard();
+
+        assertTrue(first.admit(event("012345"), 6));
+        assertFalse(second.admit(event("01234"), 5));
+        assertEquals(SSELimitType.MEMORY_BUDGET, second.getExceededLimit());
+
+        first.release();
+        assertEquals(0, metrics.getBufferedBytes());
+        assertTrue(guard().admit(event("01234"), 5));
+    }
+
+    @Test
+    public void failsOverTheMemoryBudget() {
+        limits.setMemoryBudget(10);
+        guard().admit(event("012345"), 6);
+
+        try {
+            guard().admit(event("01234"), 5);
+            fail("Expected the response to exceed the memory budget");
+        } catch (SSELimitExceededException e) {
+            assertEquals(SSELimitType.MEMORY_BUDGET, e.getLimit());
+        }
+    }
+
+    @Test
+    public void releasesTheReservedBytesOnce() {
+        SSEMemoryGuard guard = guard();
+        guard.admit(event("01234"), 5);
+        assertEquals(5, metrics.getBufferedBytes());
+
+        guard.release();
+        guard.release();
+
+        assertEquals(0, metrics.getBufferedBytes());
+    }
+
+    @Test
+    public void truncatesInsteadOfSpillingWithoutSpillFile() {
+        limits.setMaxEventBytes(10);
+        limits.setEventBytesAction(SSELimitAction.SPILL);
+        limits.setMaxResponseBytes(10);
+        limits.setResponseBytesAction(SSELimitAction.SPILL);
+        SSEMemoryGuard guard = new SSEMemoryGuard(limits, metrics, false);
+
+        assertEquals(SSELimitAction.TRUNCATE, guard.onOversizedEvent());
+        assertEquals(SSELimitType.EVENT_BYTES, guard.getExceededLimit());
+
+        assertTrue(guard.admit(event("0123456789"), 10));
+        assertFalse(guard.admit(event("a"), 1));
+        assertTrue(guard.isExhausted());
+    }
+
+    @Test
+    public void deletesTheSpillFileWhenTheResponseIsDiscarded() {
+        limits.setMaxResponseBytes(1);
+        limits.setResponseBytesAction(SSELimitAction.SPILL);
+        SSEMemoryGuard guard = guard();
+        SSEEvent spilled = event("spilled");
+        guard.admit(spilled, 7);
+
+        guard.discard();
+
+        try {
+            spilled.getData();
+            fail("Expected the spill file to be deleted");
+        } catch (UncheckedIOException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void failsWhenNoActionIsSet() {
+        limits.setMaxEventBytes(1);
+        limits.setEventBytesAction(null);
+
+        try {
+            guard().onOversizedEvent();
+            fail("Expected the default action to fail");
+        } catch (SSELimitExceededException e) {
+            assertEquals(SSELimitType.EVENT_BYTES, e.getLimit());
+        }
+    }
+
+    private SSEMemoryGuard guard() {
+        return new SSEMemoryGuard(limits, metrics);
+    }
+
+    private SSEEventParser parser(SSEMemoryGuard guard) {
+        return new SSEEventParser(events::add, SSEDataDecoding.STRING, SSEEventFilter.ALL, guard);
+    }
+
+    private List<Object> data() {
+        List<Object> data = new ArrayList<>();
+        for (SSEEvent event : events) {
+            data.add(event.getData());
+        }
+        return data;
+    }
+
+    private static SSEEvent event(String data) {
+        SSEEvent event = new SSEEvent();
+        event.setRawData(data.getBytes(StandardCharsets.UTF_8), SSEDataDecoding.STRING);
+        return event;
+    }
+
+    private static void feed(SSEEventParser parser, String... chunks) {
+        for (String chunk : chunks) {
+            parser.feed(utf8(chunk));
+        }
+    }
+
+    private static ByteBuffer utf8(String chunk) {
+        return ByteBuffer.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+    }
+}
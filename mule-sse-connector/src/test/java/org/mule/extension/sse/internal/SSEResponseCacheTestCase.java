@@ -0,0 +1,205 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SSEResponseCacheTestCase {
+
+    private static final String BASE_URL = "https://example.com";
+    private static final String KEY = "key";
+
+    private final ResponseCacheParameters parameters = new ResponseCacheParameters();
+    private final SSEMetrics metrics = new SSEMetrics();
+    private final AtomicInteger exchanges = new AtomicInteger();
+    private SSEResponseCache cache;
+
+    @Before
+    public void setUp() {
+        parameters.setEnabled(true);
+        parameters.setTimeToLive(60_000);
+        parameters.setMaxEntries(10);
+        parameters.setMaxBytes(1024 * 1024);
+        cache = new SSEResponseCache(parameters, metrics);
+    }
+
+    @Test
+    public void keyIgnoresQueryParameterOrder() {
+        Map<String, String> query = new LinkedHashMap<>();
+        query.put("a", "1");
+        query.put("b", "2");
+        Map<String, String> reversed = new LinkedHashMap<>();
+        reversed.put("b", "2");
+        reversed.put("a", "1");
+
+        assertEquals(cache.key(BASE_URL, request(query, null), null),
+                cache.key(BASE_URL, request(reversed, null), null));
+    }
+
+    @Test
+    public void keyIgnoresExcludedQueryParameters() {
+        parameters.setExcludedQueryParams(List.of("trace"));
+
+        assertEquals(cache.key(BASE_URL, request(Map.of("q", "shoes"), null), null),
+                cache.key(BASE_URL, request(Map.of("q", "shoes", "trace", "42"), null), null));
+        assertNotEquals(cache.key(BASE_URL, request(Map.of("q", "shoes"), null), null),
+                cache.key(BASE_URL, request(Map.of("q", "boots"), null), null));
+    }
+
+    @Test
+    public void keyIncludesOnlyKeyHeadersCaseInsensitively() {
+        parameters.setKeyHeaders(List.of("Accept-Language"));
+
+        String english = cache.key(BASE_URL, request(null, Map.of("accept-language", "en", "X-Trace", "1")), null);
+
+        assertEquals(english,
+                cache.key(BASE_URL, request(null, Map.of("Accept-Language", "en", "X-Trace", "2")), null));
+        assertNotEquals(english, cache.key(BASE_URL, request(null, Map.of("Accept-Language", "fr")), null));
+    }
+
+    @Test
+    public void keyIncludesParametersThatChangeTheEvents() {
+        GetEventsParameters decoded = request(null, null);
+        decoded.setDataDecoding(SSEDataDecoding.STRING);
+        StopConditionParameters stopConditions = new StopConditionParameters();
+        stopConditions.setTerminalEventType("end");
+
+        String key = cache.key(BASE_URL, request(null, null), null);
+
+        assertNotEquals(key, cache.key(BASE_URL, decoded, null));
+        assertNotEquals(key, cache.key(BASE_URL, request(null, null), stopConditions));
+    }
+
+    @Test
+    public void servesStoredResponsesFromTheCache() {
+        Result<List<SSEEvent>, SSEResponseAttributes> first = cache.get(KEY, exchange(200, null)).join();
+        Result<List<SSEEvent>, SSEResponseAttributes> second = cache.get(KEY, exchange(200, null)).join();
+
+        assertEquals(1, exchanges.get());
+        assertSame(first.getOutput(), second.getOutput());
+        assertFalse(first.getAttributes().get().isFromCache());
+        assertTrue(second.getAttributes().get().isFromCache());
+        assertEquals(1, metrics.getCacheHitCount());
+    }
+
+    @Test
+    public void coalescesIdenticalRequestsInFlight() {
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> response = new CompletableFuture<>();
+        Supplier<CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> exchange = () -> {
+            exchanges.incrementAndGet();
+            return response;
+        };
+
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> leader = cache.get(KEY, exchange);
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> follower = cache.get(KEY, exchange);
+
+        assertSame(leader, follower);
+        assertFalse(leader.isDone());
+        response.complete(result(200, null));
+        assertEquals(1, leader.join().getOutput().size());
+        assertEquals(1, exchanges.get());
+        assertEquals(1, metrics.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void handsFailuresToWaitersWithoutCachingThem() {
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> response = new CompletableFuture<>();
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> leader = cache.get(KEY, () -> response);
+        CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> follower = cache.get(KEY, () -> response);
+
+        response.completeExceptionally(new IllegalStateException("upstream failed"));
+
+        for (CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> waiter : List.of(leader, follower)) {
+            try {
+                waiter.join();
+                fail("Expected the exchange to fail");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        cache.get(KEY, exchange(200, null)).join();
+        assertEquals(1, exchanges.get());
+    }
+
+    @Test
+    public void doesNotStoreErrorOrPartialResponses() {
+        cache.get(KEY, exchange(503, null)).join();
+        cache.get(KEY, exchange(200, SSETimeoutType.IDLE)).join();
+        cache.get(KEY, exchange(200, null)).join();
+
+        assertEquals(3, exchanges.get());
+        assertEquals(0, metrics.getCacheHitCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedResponses() {
+        parameters.setMaxEntries(2);
+        cache.get("a", exchange(200, null)).join();
+        cache.get("b", exchange(200, null)).join();
+        cache.get("a", exchange(200, null)).join();
+
+        cache.get("c", exchange(200, null)).join();
+
+        assertEquals(3, exchanges.get());
+        cache.get("a", exchange(200, null)).join();
+        assertEquals(3, exchanges.get());
+        cache.get("b", exchange(200, null)).join();
+        assertEquals(4, exchanges.get());
+    }
+
+    @Test
+    public void expiresResponsesAfterTheirTimeToLive() throws InterruptedException {
+        parameters.setTimeToLive(1);
+        cache.get(KEY, exchange(200, null)).join();
+
+        Thread.sleep(5);
+        cache.get(KEY, exchange(200, null)).join();
+
+        assertEquals(2, exchanges.get());
+    }
+
+    private Supplier<CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>>> exchange(
+            int statusCode, SSETimeoutType expiredTimeout) {
+        return () -> {
+            exchanges.incrementAndGet();
+            return CompletableFuture.completedFuture(result(statusCode, expiredTimeout));
+        };
+    }
+
+    private static Result<List<SSEEvent>, SSEResponseAttributes> result(int statusCode,
+                                                                       SSETimeoutType expiredTimeout) {
+        SSEEvent event = new SSEEvent();
+        event.setEvent("end");
+        event.setRawData(new byte[] {'{', '}'}, SSEDataDecoding.JAVA);
+        SSEResponseAttributes attributes = new SSEResponseAttributes(statusCode, new HashMap<>(), 0, 0, 0, 0, 0,
+                100, 100, new HashMap<>(), 0, 0, expiredTimeout, null, 0, 0, 0, false);
+        return Result.<List<SSEEvent>, SSEResponseAttributes>builder()
+                .output(List.of(event))
+                .attributes(attributes)
+                .build();
+    }
+
+    private static GetEventsParameters request(Map<String, String> queryParams, Map<String, String> headers) {
+        GetEventsParameters request = new GetEventsParameters();
+        request.setPath("v1/intent/shoes");
+        request.setQueryParams(queryParams);
+        request.setHeaders(headers);
+        return request;
+    }
+}
@@ -0,0 +1,152 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SSEResultCollectorTestCase {
+
+    private static final String RESULTS = "event: search_result\ndata: {\"response\": {\"results\": ["
+            + "{\"data\": {\"id\": 1, \"name\": \"a\", \"price\": 10}},"
+            + "{\"data\": {\"id\": 2, \"name\": \"b\", \"price\": 20}}]}}\n\n"
+            + "event: search_result\ndata: {\"response\": {\"results\": ["
+            + "{\"data\": {\"id\": 2, \"name\": \"b-again\"}},"
+            + "{\"data\": {\"name\": \"no-key\"}},"
+            + "{\"data\": {\"id\": 3, \"name\": \"c\"}}]}}\n\n"
+            + "event: end\ndata: {\"response\": {\"results\": [{\"data\": {\"id\": 4}}]}}\n\n";
+
+    private final CollectResultsParameters parameters = new CollectResultsParameters();
+
+    @Test
+    public void collectsTheItemsOfTheResultEventsInStreamOrder() {
+        SSEResultCollector collector = new SSEResultCollector(parameters);
+
+        List<Object> items = collector.collect(parse(collector, RESULTS));
+
+        assertEquals(List.of("a", "b", "no-key", "c"), names(items));
+    }
+
+    @Test
+    public void keepsEveryItemWithoutKeyField() {
+        parameters.setKeyField(" ");
+        SSEResultCollector collector = new SSEResultCollector(parameters);
+
+        List<Object> items = collector.collect(parse(collector, RESULTS));
+
+        assertEquals(List.of("a", "b", "b-again", "no-key", "c"), names(items));
+    }
+
+    @Test
+    public void reducesTheItemsToTheListedFieldsInOrder() {
+        parameters.setItemFields(List.of("price", "name", "name", " "));
+        SSEResultCollector collector = new SSEResultCollector(parameters);
+
+        List<Object> items = collector.collect(parse(collector, RESULTS));
+
+        Map<?, ?> first = (Map<?, ?>) items.get(0);
+        assertEquals(List.of("price", "name"), new ArrayList<>(first.keySet()));
+        // The key field is still projected, to de-duplicate, but not returned
+        assertEquals(List.of("a", "b", "no-key", "c"), names(items));
+        assertFalse(first.containsKey("id"));
+    }
+
+    @Test
+    public void resolvesWildcardPointers() {
+        parameters.setResultEventType("");
+        parameters.setResultsPointer("/*/results");
+        parameters.setItemPointer("/data/*");
+        SSEResultCollector collector = new SSEResultCollector(parameters);
+
+        List<Object> items = collector.collect(parse(collector,
+                "data: {\"first\": {\"results\": [{\"data\": {\"x\": {\"id\": 1}, \"y\": {\"id\": 2}}}]},"
+                        + " \"second\": {\"results\": [{\"data\": [{\"id\": 1}, {\"id\": 3}]}]},"
+                        + " \"third\": {\"results\": {\"data\": {\"id\": 4}}}}\n\n"));
+
+        assertEquals(List.of(1, 2, 3), ids(items));
+    }
+
+    @Test
+    public void capsTheNumberOfItems() {
+        parameters.setMaxItems(3);
+        SSEResultCollector collector = new SSEResultCollector(parameters);
+
+        List<Object> items = collector.collect(parse(collector, RESULTS));
+
+        assertEquals(List.of("a", "b", "no-key"), names(items));
+    }
+
+    @Test
+    public void endsTheExchangeOnceTheMaximumIsCollected() {
+        parameters.setMaxItems(3);
+        SSEResultCollector collector = new SSEResultCollector(parameters);
+        SSEStopCondition stopCondition = new SSEStopCondition(null, collector);
+        List<SSEEvent> events = parse(collector, RESULTS);
+
+        assertTrue(stopCondition.accept(events.get(0)));
+        assertFalse(stopCondition.isMet());
+        assertTrue(stopCondition.accept(events.get(1)));
+        assertTrue(stopCondition.isMet());
+    }
+
+    @Test
+    public void doesNotCollectItemsWhileParsingWithoutMaximum() {
+        SSEResultCollector collector = new SSEResultCollector(parameters);
+
+        assertNull(collector.newItems());
+        assertEquals("", collector.cacheKey());
+        parameters.setMaxItems(5);
+        assertEquals(" items id 5", new SSEResultCollector(parameters).cacheKey());
+    }
+
+    @Test
+    public void requestsOnlyTheResultEventsAndTheNeededFields() {
+        parameters.setItemFields(List.of("name", "a/b~c"));
+        SSEResultCollector collector = new SSEResultCollector(parameters);
+        GetEventsParameters operation = new GetEventsParameters();
+        operation.setPath("/search");
+        operation.setIncludeEventTypes(List.of("other"));
+        operation.setDataDecoding(SSEDataDecoding.STRING);
+
+        GetEventsParameters request = collector.toRequest(operation);
+
+        assertEquals("/search", request.getPath());
+        assertEquals(List.of("search_result"), request.getIncludeEventTypes());
+        assertEquals(SSEDataDecoding.JAVA, request.getDataDecoding());
+        assertEquals(List.of("/response/results/*/data/name", "/response/results/*/data/a~1b~0c",
+                "/response/results/*/data/id"), request.getDataProjection());
+    }
+
+    private static List<SSEEvent> parse(SSEResultCollector collector, String body) {
+        List<SSEEvent> events = new ArrayList<>();
+        GetEventsParameters request = collector.toRequest(new GetEventsParameters());
+        SSEEventParser parser = new SSEEventParser(events::add, request.getDataDecoding(),
+                SSEEventFilter.of(request));
+        parser.feed(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)));
+        return events;
+    }
+
+    private static List<Object> names(List<Object> items) {
+        List<Object> names = new ArrayList<>();
+        for (Object item : items) {
+            names.add(((Map<?, ?>) item).get("name"));
+        }
+        return names;
+    }
+
+    private static List<Object> ids(List<Object> items) {
+        List<Object> ids = new ArrayList<>();
+        for (Object item : items) {
+            ids.add(((Map<?, ?>) item).get("id"));
+        }
+        return ids;
+    }
+}
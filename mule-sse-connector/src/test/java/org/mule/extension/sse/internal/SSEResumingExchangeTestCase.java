@@ -0,0 +1,242 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SSEResumingExchangeTestCase {
+
+    private final SSEMetrics metrics = new SSEMetrics();
+    private final ReconnectionParameters parameters = new ReconnectionParameters();
+    private final List<String> lastEventIds = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        parameters.setEnabled(true);
+        parameters.setMaxReconnections(3);
+        parameters.setReconnectionDelay(1);
+        parameters.setMaxReconnectionDelay(10);
+        parameters.setMaxReconnectionPercentage(20);
+    }
+
+    @Test
+    public void resumesFromTheLastEventIdAndDropsReplayedEvents() throws Exception {
+        Result<List<SSEEvent>, SSEResponseAttributes> result = send(
+                new Response("id: 1\ndata: a\n\nid: 2\ndata: b\n\n", new IOException("Connection reset")),
+                // The server replays the last event, and the events without ID that follow it
+                new Response("id: 2\ndata: b\n\ndata: b-continued\n\nid: 3\ndata: c\n\n", null));
+
+        assertEquals(Arrays.asList(null, "2"), lastEventIds);
+        assertEquals(List.of("a", "b", "c"), data(result.getOutput()));
+        SSEResponseAttributes attributes = result.getAttributes().get();
+        assertEquals(1, attributes.getReconnectCount());
+        assertEquals(2, attributes.getReplayedEventCount());
+        assertEquals(1, metrics.getReconnectionCount());
+        assertEquals(2, metrics.getReplayedEventCount());
+    }
+
+    @Test
+    public void keepsEventsWithAnotherIdThanTheSeenOnes() throws Exception {
+        Result<List<SSEEvent>, SSEResponseAttributes> result = send(
+                new Response("id: 1\ndata: a\n\n", new IOException("Connection reset")),
+                new Response("id: 2\ndata: b\n\ndata: b-continued\n\n", null));
+
+        assertEquals(List.of("a", "b", "b-continued"), data(result.getOutput()));
+        assertEquals(0, result.getAttributes().get().getReplayedEventCount());
+    }
+
+    @Test
+    public void retriesStreamWithoutIdsOnlyBeforeTheFirstEvent() throws Exception {
+        Result<List<SSEEvent>, SSEResponseAttributes> result = send(
+                new Response("", new IOException("Connection reset")),
+                new Response("data: a\n\n", null));
+        assertEquals(List.of("a"), data(result.getOutput()));
+
+        lastEventIds.clear();
+        assertFailure(IOException.class,
+                new Response("data: a\n\n", new IOException("Connection reset")),
+                new Response("data: a\n\ndata: b\n\n", null));
+        assertEquals(1, lastEventIds.size());
+    }
+
+    @Test
+    public void doesNotRetryOtherErrors() throws Exception {
+        assertFailure(IllegalStateException.class,
+                new Response("id: 1\ndata: a\n\n", new IllegalStateException("Parser failed")),
+                new Response("id: 2\ndata: b\n\n", null));
+
+        assertEquals(1, lastEventIds.size());
+    }
+
+    @Test
+    public void givesUpAfterTheMaximumReconnections() throws Exception {
+        parameters.setMaxReconnections(1);
+
+        assertFailure(IOException.class,
+                new Response("id: 1\ndata: a\n\n", new IOException("Connection reset")),
+                new Response("id: 2\ndata: b\n\n", new IOException("Connection reset")),
+                new Response("id: 3\ndata: c\n\n", null));
+
+        assertEquals(Arrays.asList(null, "1"), lastEventIds);
+    }
+
+    @Test
+    public void givesUpWithoutReconnectionBudget() throws Exception {
+        parameters.setMaxReconnectionPercentage(0);
+
+        assertFailure(IOException.class,
+                new Response("id: 1\ndata: a\n\n", new IOException("Connection reset")),
+                new Response("id: 2\ndata: b\n\n", null));
+
+        assertEquals(1, metrics.getReconnectionDeniedCount());
+    }
+
+    @Test
+    public void earnsReconnectionBudgetExactly() {
+        parameters.setMaxReconnectionPercentage(10);
+        SSEReconnectPolicy policy = new SSEReconnectPolicy(parameters);
+        while (policy.tryAcquire()) {
+            // Spend the initial burst
+        }
+
+        for (int i = 0; i < 10; i++) {
+            policy.onRequest();
+        }
+
+        assertTrue(policy.tryAcquire());
+    }
+
+    @Test
+    public void backsOffFromTheServerRetry() {
+        parameters.setReconnectionDelay(100);
+        parameters.setMaxReconnectionDelay(1_000);
+        SSEReconnectPolicy policy = new SSEReconnectPolicy(parameters);
+
+        assertBetween(100, 150, policy.delayMillis(1, -1));
+        assertBetween(400, 600, policy.delayMillis(3, -1));
+        assertBetween(1_000, 1_500, policy.delayMillis(10, -1));
+        // Never shorter than what the server requested
+        assertBetween(5_000, 7_500, policy.delayMillis(1, 5_000));
+    }
+
+    private Result<List<SSEEvent>, SSEResponseAttributes> send(Response... responses) throws Exception {
+        SSEReconnectPolicy policy = new SSEReconnectPolicy(parameters);
+        SSEResumingExchange exchange = new SSEResumingExchange(policy, metrics, new Server(responses),
+                new SSETimeouts(0, 0, 0));
+        return exchange.start(newSubscriber()).get(5, TimeUnit.SECONDS);
+    }
+
+    private void assertFailure(Class<? extends Throwable> expected, Response... responses) throws Exception {
+        try {
+            send(responses);
+            fail("Expected the exchange to fail");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+            assertTrue(cause.toString(), expected.isInstance(cause));
+        }
+    }
+
+    private SSEBodySubscriber newSubscriber() {
+        return new SSEBodySubscriber(new SSEStopCondition(null), SSEDataDecoding.STRING, SSEEventFilter.ALL,
+                new SSEMemoryGuard(null, metrics));
+    }
+
+    private static List<Object> data(List<SSEEvent> events) {
+        return events.stream().map(SSEEvent::getData).collect(Collectors.toList());
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(min + " <= " + actual + " <= " + max, actual >= min && actual <= max);
+    }
+
+    /**
+     * A response of the server: its body, then either an error or the end of the stream.
+     */
+    private static final class Response {
+
+        private final String body;
+        private final Throwable error;
+
+        private Response(String body, Throwable error) {
+            this.body = body;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Answers each attempt with the next response, recording the {@code Last-Event-ID} it was sent with.
+     */
+    private final class Server implements SSEResumingExchange.Attempt {
+
+        private final Response[] responses;
+        private int next;
+
+        private Server(Response... responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public CompletableFuture<Result<List<SSEEvent>, SSEResponseAttributes>> send(SSEBodySubscriber subscriber,
+                                                                                     String lastEventId,
+                                                                                     SSETimeouts timeouts) {
+            lastEventIds.add(lastEventId);
+            Response response = responses[next++];
+            HttpResponse.BodySubscriber<List<SSEEvent>> body = subscriber.onResponse(new HttpResponse.ResponseInfo() {
+                @Override
+                public int statusCode() {
+                    return 200;
+                }
+
+                @Override
+                public HttpHeaders headers() {
+                    return HttpHeaders.of(Map.of(), (name, value) -> true);
+                }
+
+                @Override
+                public HttpClient.Version version() {
+                    return HttpClient.Version.HTTP_1_1;
+                }
+            });
+            body.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            body.onNext(List.of(ByteBuffer.wrap(response.body.getBytes(StandardCharsets.UTF_8))));
+            if (response.error != null) {
+                body.onError(response.error);
+            } else {
+                body.onComplete();
+            }
+            return body.getBody().toCompletableFuture()
+                    .thenApply(events -> Result.<List<SSEEvent>, SSEResponseAttributes>builder()
+                            .output(events)
+                            .attributes(subscriber.toAttributes())
+                            .build());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SSEStopConditionTestCase {
+
+    private final StopConditionParameters parameters = new StopConditionParameters();
+
+    @Test
+    public void isNeverMetWithoutConditions() {
+        SSEStopCondition condition = new SSEStopCondition(null);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(condition.accept(event("message", "{}")));
+            condition.onBytes(1_000);
+        }
+
+        assertFalse(condition.isMet());
+    }
+
+    @Test
+    public void isMetByTheTerminalEventWhichIsKept() {
+        parameters.setTerminalEventType("end");
+        SSEStopCondition condition = new SSEStopCondition(parameters);
+
+        assertTrue(condition.accept(event("message", "a")));
+        assertFalse(condition.isMet());
+        assertTrue(condition.accept(event("end", "b")));
+        assertTrue(condition.isMet());
+
+        assertFalse(condition.accept(event("message", "c")));
+    }
+
+    @Test
+    public void isMetByASkippedTerminalEvent() {
+        parameters.setTerminalEventType("end");
+        SSEStopCondition condition = new SSEStopCondition(parameters);
+
+        condition.acceptSkipped("message");
+        assertFalse(condition.isMet());
+        condition.acceptSkipped("end");
+        assertTrue(condition.isMet());
+    }
+
+    @Test
+    public void dropsTheEventsOfATypeOverItsMaximum() {
+        Map<String, Integer> maxEventsPerType = new LinkedHashMap<>();
+        maxEventsPerType.put("result", 2);
+        maxEventsPerType.put("suggestion", 1);
+        parameters.setMaxEventsPerType(maxEventsPerType);
+        SSEStopCondition condition = new SSEStopCondition(parameters);
+
+        assertTrue(condition.accept(event("result", "1")));
+        assertTrue(condition.accept(event("result", "2")));
+        assertFalse(condition.accept(event("result", "3")));
+        assertTrue(condition.accept(event("message", "other types are not capped")));
+        assertFalse(condition.isMet());
+
+        assertTrue(condition.accept(event("suggestion", "1")));
+        assertTrue(condition.isMet());
+    }
+
+    @Test
+    public void isMetOnceTheMaximumBytesAreRead() {
+        parameters.setMaxTotalBytes(100);
+        SSEStopCondition condition = new SSEStopCondition(parameters);
+
+        condition.onBytes(60);
+        assertFalse(condition.isMet());
+        condition.onBytes(40);
+        assertTrue(condition.isMet());
+    }
+
+    @Test
+    public void isMetByAnEventWhoseDataHasThePointer() {
+        parameters.setStopWhenDataPointer("/response/done");
+        SSEStopCondition condition = new SSEStopCondition(parameters);
+
+        assertTrue(condition.accept(event("message", "{\"response\": {}}")));
+        assertFalse(condition.isMet());
+        assertTrue(condition.accept(event("message", "{\"response\": {\"done\": null}}")));
+        assertTrue(condition.isMet());
+    }
+
+    @Test
+    public void comparesTheValueOfThePointerWithEveryDecoding() {
+        parameters.setStopWhenDataPointer("/status/0");
+        parameters.setStopWhenDataEquals("complete");
+        String running = "{\"status\": [\"running\"]}";
+        String complete = "{\"status\": [\"complete\"]}";
+
+        for (SSEDataDecoding decoding : SSEDataDecoding.values()) {
+            SSEStopCondition condition = new SSEStopCondition(parameters);
+
+            condition.accept(event("message", running, decoding));
+            assertFalse(decoding.name(), condition.isMet());
+            condition.accept(event("message", complete, decoding));
+            assertTrue(decoding.name(), condition.isMet());
+        }
+    }
+
+    @Test
+    public void comparesNumbersAndBooleansAsText() {
+        parameters.setStopWhenDataPointer("/count");
+        parameters.setStopWhenDataEquals("3");
+        SSEStopCondition condition = new SSEStopCondition(parameters);
+
+        condition.accept(event("message", "{\"count\": 2}"));
+        assertFalse(condition.isMet());
+        condition.accept(event("message", "{\"count\": 3}"));
+        assertTrue(condition.isMet());
+    }
+
+    @Test
+    public void ignoresDataThatIsNotJson() {
+        parameters.setStopWhenDataPointer("/done");
+        SSEStopCondition condition = new SSEStopCondition(parameters);
+
+        condition.accept(event("message", "done", SSEDataDecoding.STRING));
+        condition.accept(event("message", "{not json", SSEDataDecoding.BYTES));
+
+        assertFalse(condition.isMet());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnInvalidPointer() {
+        parameters.setStopWhenDataPointer("done");
+
+        new SSEStopCondition(parameters);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMaximumBelowOne() {
+        parameters.setMaxEventsPerType(Map.of("result", 2, "suggestion", 0));
+
+        new SSEStopCondition(parameters);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMissingMaximum() {
+        Map<String, Integer> maxEventsPerType = new LinkedHashMap<>();
+        maxEventsPerType.put("result", null);
+        parameters.setMaxEventsPerType(maxEventsPerType);
+
+        new SSEStopCondition(parameters);
+    }
+
+    private static SSEEvent event(String type, String data) {
+        return event(type, data, SSEDataDecoding.JAVA);
+    }
+
+    private static SSEEvent event(String type, String data, SSEDataDecoding decoding) {
+        SSEEvent event = new SSEEvent();
+        event.setEvent(type);
+        event.setRawData(data.getBytes(StandardCharsets.UTF_8), decoding);
+        return event;
+    }
+}
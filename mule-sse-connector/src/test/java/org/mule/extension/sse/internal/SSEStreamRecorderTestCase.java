@@ -0,0 +1,135 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class SSEStreamRecorderTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsTwoConnectionsToTheSameFileAtOnce() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("stream.log");
+        SSEStreamRecorder first = SSEStreamRecorder.open(file);
+        SSEStreamRecorder second = SSEStreamRecorder.open(folder.getRoot().toPath().resolve("./logs/../stream.log"));
+        assertSame(first, second);
+
+        HttpResponse.BodySubscriber<String> a = record(first, "/a");
+        HttpResponse.BodySubscriber<String> b = record(second, "/b");
+        a.onNext(chunks("data: a1\n\n"));
+        b.onNext(chunks("data: b1\n\n"));
+        a.onNext(chunks("data: a2\n\n"));
+        a.onComplete();
+        first.close();
+        // The other connection still records once the first one is closed
+        b.onNext(chunks("data: b2\n\n"));
+        b.onComplete();
+        second.close();
+
+        List<SSEStreamLog.Stream> streams = SSEStreamLog.open(file).getStreams();
+        assertEquals(2, streams.size());
+        assertEquals("https://example.com/a?key=REDACTED", streams.get(0).getUri());
+        assertEquals("data: a1\n\ndata: a2\n\n", body(streams.get(0)));
+        assertEquals(SSEStreamLog.COMPLETED, streams.get(0).getOutcome());
+        assertEquals("https://example.com/b?key=REDACTED", streams.get(1).getUri());
+        assertEquals("data: b1\n\ndata: b2\n\n", body(streams.get(1)));
+        assertEquals(SSEStreamLog.COMPLETED, streams.get(1).getOutcome());
+    }
+
+    @Test
+    public void closesTheFileOnceEveryConnectionClosedIt() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("stream.log");
+        SSEStreamRecorder first = SSEStreamRecorder.open(file);
+        HttpResponse.BodySubscriber<String> a = record(first, "/a");
+        a.onNext(chunks("data: a1\n\n"));
+        a.onComplete();
+        first.close();
+
+        SSEStreamRecorder second = SSEStreamRecorder.open(file);
+        SSEStreamRecorder third = SSEStreamRecorder.open(file);
+        // Closing it again does not release the recorder opened since
+        first.close();
+        assertNotSame(first, second);
+        assertSame(second, third);
+        HttpResponse.BodySubscriber<String> b = record(second, "/b");
+        second.close();
+        b.onNext(chunks("data: b1\n\n"));
+        b.onComplete();
+        third.close();
+
+        // A new session, whose response IDs start over
+        List<SSEStreamLog.Stream> streams = SSEStreamLog.open(file).getStreams();
+        assertEquals(2, streams.size());
+        assertEquals("data: a1\n\n", body(streams.get(0)));
+        assertEquals("data: b1\n\n", body(streams.get(1)));
+        assertEquals(SSEStreamLog.COMPLETED, streams.get(1).getOutcome());
+    }
+
+    /**
+     * Starts recording a response to a request for the given path, as the HTTP client would.
+     */
+    private static HttpResponse.BodySubscriber<String> record(SSEStreamRecorder recorder, String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("https://example.com" + path + "?key=secret")).build();
+        HttpResponse.BodySubscriber<String> subscriber = recorder.recording(request,
+                info -> HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8)).apply(new ResponseInfo());
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        return subscriber;
+    }
+
+    private static List<ByteBuffer> chunks(String chunk) {
+        return List.of(ByteBuffer.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String body(SSEStreamLog.Stream stream) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < stream.getChunkCount(); i++) {
+            body.append(StandardCharsets.UTF_8.decode(stream.getChunk(i)));
+        }
+        return body.toString();
+    }
+
+    private static final class ResponseInfo implements HttpResponse.ResponseInfo {
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HttpHeaders.of(Map.of("Content-Type", List.of("text/event-stream")), (name, value) -> true);
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
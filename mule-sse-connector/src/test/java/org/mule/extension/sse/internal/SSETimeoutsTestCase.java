@@ -0,0 +1,142 @@
+package org.mule.extension.sse.internal;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SSETimeoutsTestCase {
+
+    @Test
+    public void expiresWithoutFirstEvent() throws Exception {
+        FakeProgress progress = new FakeProgress();
+
+        assertEquals(SSETimeoutType.FIRST_EVENT, watch(new SSETimeouts(50, 0, 0), progress));
+    }
+
+    @Test
+    public void expiresWhenIdleAfterAnEvent() throws Exception {
+        FakeProgress progress = new FakeProgress();
+        progress.lastEventNanos = System.nanoTime();
+
+        assertEquals(SSETimeoutType.IDLE, watch(new SSETimeouts(10_000, 50, 0), progress));
+    }
+
+    @Test
+    public void idleTimeoutStartsWithTheFirstEvent() throws Exception {
+        FakeProgress progress = new FakeProgress();
+        CompletableFuture<SSETimeoutType> expired = new CompletableFuture<>();
+        new SSETimeouts(0, 50, 0).watch(progress, expired::complete);
+
+        Thread.sleep(150);
+        assertFalse(expired.isDone());
+
+        progress.lastEventNanos = System.nanoTime();
+        assertEquals(SSETimeoutType.IDLE, expired.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void totalTimeoutWinsOverProgress() throws Exception {
+        FakeProgress progress = new FakeProgress();
+        CompletableFuture<SSETimeoutType> expired = new CompletableFuture<>();
+        new SSETimeouts(0, 1_000, 200).watch(progress, expired::complete);
+
+        // Events keep arriving, so only the total timeout can expire
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!expired.isDone() && System.nanoTime() < deadline) {
+            progress.lastEventNanos = System.nanoTime();
+            Thread.sleep(10);
+        }
+
+        assertEquals(SSETimeoutType.TOTAL, expired.getNow(null));
+    }
+
+    @Test
+    public void stopsWatchingOnceTheExchangeIsDone() throws Exception {
+        FakeProgress progress = new FakeProgress();
+        progress.done = true;
+
+        try {
+            watch(new SSETimeouts(10, 10, 10), progress);
+            fail("Expected no timeout to expire");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void disabledTimeoutsNeverExpire() {
+        FakeProgress progress = new FakeProgress();
+
+        new SSETimeouts(0, -1, 0).watch(progress, expired -> fail("Expected no timeout, got " + expired));
+
+        assertEquals(Long.MAX_VALUE >> 1, new SSETimeouts(0, 0, 0).deadlineNanos(0));
+    }
+
+    @Test
+    public void reducesTheTotalTimeoutOfALaterExchange() {
+        SSETimeouts timeouts = new SSETimeouts(100, 200, 1_000);
+
+        SSETimeouts remaining = timeouts.after(TimeUnit.MILLISECONDS.toNanos(400));
+
+        assertEquals(1_000 + TimeUnit.MILLISECONDS.toNanos(600), remaining.deadlineNanos(1_000));
+        assertNull(timeouts.after(TimeUnit.MILLISECONDS.toNanos(1_000)));
+    }
+
+    @Test
+    public void laterExchangeKeepsTimeoutsWithoutTotal() {
+        SSETimeouts timeouts = new SSETimeouts(100, 200, 0);
+
+        assertSame(timeouts, timeouts.after(TimeUnit.HOURS.toNanos(1)));
+    }
+
+    @Test
+    public void replacesTheTotalTimeout() {
+        SSETimeouts timeouts = new SSETimeouts(100, 200, 1_000).withTotal(50);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), timeouts.deadlineNanos(0));
+    }
+
+    private static SSETimeoutType watch(SSETimeouts timeouts, FakeProgress progress) throws Exception {
+        CompletableFuture<SSETimeoutType> expired = new CompletableFuture<>();
+        long start = System.nanoTime();
+        timeouts.watch(progress, expired::complete);
+
+        SSETimeoutType type = expired.get(1, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+        return type;
+    }
+
+    /**
+     * The progress of an exchange started when it is created.
+     */
+    private static final class FakeProgress implements SSETimeouts.Progress {
+
+        private final long startNanos = System.nanoTime();
+        private volatile long lastEventNanos = -1;
+        private volatile boolean done;
+
+        @Override
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        @Override
+        public long getLastEventNanos() {
+            return lastEventNanos;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+    }
+}